@@ -0,0 +1,178 @@
+import org.neo4j.graphdb.Direction;
+import org.neo4j.graphdb.Label;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Relationship;
+import org.neo4j.graphdb.RelationshipType;
+import org.neo4j.graphdb.Transaction;
+import org.neo4j.logging.Log;
+import org.neo4j.procedure.Context;
+import org.neo4j.procedure.Description;
+import org.neo4j.procedure.Mode;
+import org.neo4j.procedure.Procedure;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+
+public class DetectionProcedure {
+
+    private static final Label CLASS = Label.label("CLASS");
+    private static final Label INTERFACE = Label.label("INTERFACE");
+    private static final Label METHOD = Label.label("METHOD");
+    private static final Label CONSTRUCTOR = Label.label("CONSTRUCTOR");
+    private static final Label PUBLIC = Label.label("PUBLIC");
+    private static final Label ABSTRACT = Label.label("ABSTRACT");
+    private static final Label OUT_OF_SCOPE = Label.label("OUT_OF_SCOPE");
+    private static final Label VP = Label.label("VP");
+    private static final Label METHOD_LEVEL_VP = Label.label("METHOD_LEVEL_VP");
+    private static final Label VARIANT = Label.label("VARIANT");
+    private static final Label DENSE = Label.label("DENSE");
+    private static final Label COMPOSITION_STRATEGY = Label.label("COMPOSITION_STRATEGY");
+    private static final Label[] DESIGN_PATTERNS = {Label.label("STRATEGY"), Label.label("FACTORY"), Label.label("TEMPLATE"), Label.label("DECORATOR"), COMPOSITION_STRATEGY};
+    private static final RelationshipType EXTENDS = RelationshipType.withName("EXTENDS");
+    private static final RelationshipType IMPLEMENTS = RelationshipType.withName("IMPLEMENTS");
+    private static final RelationshipType INSTANTIATE = RelationshipType.withName("INSTANTIATE");
+
+    @Context
+    public Transaction tx;
+
+    @Context
+    public Log log;
+
+    @Procedure(value = "symfinder.detectAll", mode = Mode.WRITE)
+    @Description("Sets the method and constructor VPs and variants, public and all methods, class variants and compositions properties, " +
+            "then the VP, METHOD_LEVEL_VP, VARIANT, COMPOSITION_STRATEGY and DENSE labels, " +
+            "with the same results as the sequence of Cypher requests of NeoGraph.detectVPsAndVariants. " +
+            "Each node is visited once to set its properties, its VP labels and the VARIANT labels of its subtypes, " +
+            "then once more for the labels depending on the properties and labels of its neighbours.")
+    public void detectAll() {
+        for (Node node : tx.getAllNodes()) {
+            setProperties(node);
+            setLabels(node);
+        }
+        for (Node node : tx.getAllNodes()) {
+            setNeighbourhoodLabels(node);
+        }
+    }
+
+    /**
+     * Sets the properties computed from the children of the node, grouping its methods by name
+     * instead of matching every pair of methods.
+     * The method properties of a class are only computed from its children if they were not already set while parsing it.
+     */
+    private void setProperties(Node node) {
+        boolean isClass = node.hasLabel(CLASS);
+        boolean hasMethodProperties = node.hasProperty("allMethods");
+        boolean isPublic = node.hasLabel(PUBLIC);
+        Map <String, Set <Long>> methodsByName = new HashMap <>();
+        long nbConstructors = 0;
+        long nbPublicMethods = 0;
+        long nbPublicConstructors = 0;
+        long nbMethods = 0;
+        long nbClassVariants = 0;
+        long nbCompositions = 0;
+        for (Relationship relationship : node.getRelationships(Direction.OUTGOING)) {
+            Node child = relationship.getEndNode();
+            boolean isNamed = child.hasProperty("name");
+            if (child.hasLabel(METHOD) && isNamed) {
+                methodsByName.computeIfAbsent((String) child.getProperty("name"), name -> new HashSet <>()).add(child.getId());
+                nbMethods++;
+                if (child.hasLabel(PUBLIC)) {
+                    nbPublicMethods++;
+                }
+            }
+            if (child.hasLabel(CONSTRUCTOR) && isNamed) {
+                nbConstructors++;
+                if (child.hasLabel(PUBLIC)) {
+                    nbPublicConstructors++;
+                }
+            }
+            if ((relationship.isType(EXTENDS) || relationship.isType(IMPLEMENTS)) && child.hasLabel(CLASS)) {
+                nbClassVariants++;
+            }
+            if (relationship.isType(INSTANTIATE)) {
+                nbCompositions++;
+            }
+        }
+        if (isClass && ! hasMethodProperties) {
+            long nbMethodVPs = 0;
+            long nbMethodVariants = 0;
+            for (Set <Long> overloads : methodsByName.values()) {
+                if (overloads.size() > 1) {
+                    nbMethodVPs++;
+                    nbMethodVariants += overloads.size();
+                }
+            }
+            node.setProperty("methodVPs", nbMethodVPs);
+            node.setProperty("methodVariants", nbMethodVariants);
+            node.setProperty("constructorVPs", nbConstructors > 1 ? 1L : 0L);
+            node.setProperty("constructorVariants", nbConstructors > 1 ? nbConstructors : 0L);
+            node.setProperty("publicMethods", isPublic ? nbPublicMethods : 0L);
+            node.setProperty("publicConstructors", isPublic ? nbPublicConstructors : 0L);
+            node.setProperty("allMethods", nbMethods);
+        }
+        if (nbClassVariants > 0 || isClass || node.hasLabel(INTERFACE)) {
+            node.setProperty("classVariants", nbClassVariants);
+        }
+        if (nbCompositions > 0) {
+            node.setProperty("nbCompositions", nbCompositions);
+        }
+    }
+
+    /**
+     * Sets the VP and METHOD_LEVEL_VP labels of the node, and if it is a VP, the VARIANT label of its subclasses and implementations.
+     */
+    private void setLabels(Node node) {
+        if (node.hasLabel(OUT_OF_SCOPE)) {
+            return;
+        }
+        if (node.hasLabel(INTERFACE) || (node.hasLabel(CLASS) && node.hasLabel(ABSTRACT)) || hasDesignPattern(node)
+                || getLongProperty(node, "classVariants") > 0) {
+            node.addLabel(VP);
+            for (Relationship relationship : node.getRelationships(Direction.OUTGOING, EXTENDS, IMPLEMENTS)) {
+                Node variant = relationship.getEndNode();
+                if (variant.hasLabel(CLASS) || variant.hasLabel(INTERFACE)) {
+                    variant.addLabel(VARIANT);
+                }
+            }
+        }
+        if (getLongProperty(node, "methodVPs") > 0 || getLongProperty(node, "constructorVPs") > 0) {
+            node.addLabel(METHOD_LEVEL_VP);
+        }
+    }
+
+    /**
+     * Sets the COMPOSITION_STRATEGY labels of the variable types instantiated by the node, and the DENSE labels of the variants it instantiates.
+     */
+    private void setNeighbourhoodLabels(Node node) {
+        boolean isType = node.hasLabel(CLASS) || node.hasLabel(INTERFACE);
+        boolean isVariant = node.hasLabel(VARIANT);
+        for (Relationship relationship : node.getRelationships(Direction.OUTGOING, INSTANTIATE)) {
+            Node instantiated = relationship.getEndNode();
+            if (isType && getLongProperty(instantiated, "classVariants") > 1) {
+                instantiated.addLabel(COMPOSITION_STRATEGY);
+            }
+            if (isVariant && instantiated.hasLabel(VARIANT)) {
+                node.addLabel(DENSE);
+                instantiated.addLabel(DENSE);
+            }
+        }
+    }
+
+    private static boolean hasDesignPattern(Node node) {
+        for (Label designPattern : DESIGN_PATTERNS) {
+            if (node.hasLabel(designPattern)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static long getLongProperty(Node node, String property) {
+        Object value = node.getProperty(property, null);
+        return value instanceof Number ? ((Number) value).longValue() : 0;
+    }
+
+}
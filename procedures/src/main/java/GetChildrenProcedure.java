@@ -1,4 +1,8 @@
+import org.neo4j.graphdb.Direction;
 import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Label;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Relationship;
 import org.neo4j.graphdb.Result;
 import org.neo4j.logging.Log;
 import org.neo4j.procedure.Context;
@@ -6,7 +10,12 @@ import org.neo4j.procedure.Description;
 import org.neo4j.procedure.Name;
 import org.neo4j.procedure.Procedure;
 
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.stream.Stream;
 
 
@@ -34,6 +43,61 @@ public class GetChildrenProcedure {
         return Stream.of(output);
     }
 
+    @Procedure(value = "symfinder.countAll")
+    @Description("For each given node, counts as symfinder.count the children having each of the given labels. " +
+            "Returns for each node a map associating to each label the list of the number of occurrences for children having the same name, " +
+            "the children of a node being visited once for all labels. " +
+            "The names listed in the property of the node associated to a label in nameProperties are counted as children having this label.")
+    public Stream <CountsOutput> countAll(@Name("nodes") List <Node> nodes, @Name("labels") List <String> labels,
+                                          @Name(value = "nameProperties", defaultValue = "{}") Map <String, Object> nameProperties) {
+        return nodes.stream().map(node -> new CountsOutput(node, countChildren(node, labels, nameProperties)));
+    }
+
+    private static Map <String, Object> countChildren(Node node, List <String> labels, Map <String, Object> nameProperties) {
+        Map <String, Map <String, Set <Long>>> childrenByLabel = new LinkedHashMap <>();
+        for (String label : labels) {
+            childrenByLabel.put(label, new LinkedHashMap <>());
+        }
+        for (Relationship relationship : node.getRelationships(Direction.OUTGOING)) {
+            Node child = relationship.getEndNode();
+            Object name = child.getProperty("name", null);
+            if (name == null) {
+                continue;
+            }
+            for (Label label : child.getLabels()) {
+                Map <String, Set <Long>> childrenByName = childrenByLabel.get(label.name());
+                if (childrenByName != null) {
+                    childrenByName.computeIfAbsent(name.toString(), key -> new HashSet <>()).add(child.getId());
+                }
+            }
+        }
+        Map <String, Object> counts = new LinkedHashMap <>();
+        childrenByLabel.forEach((label, childrenByName) -> {
+            Map <String, Long> countsByName = new LinkedHashMap <>();
+            childrenByName.forEach((name, children) -> countsByName.put(name, (long) children.size()));
+            Object names = nameProperties.containsKey(label) ? node.getProperty(nameProperties.get(label).toString(), null) : null;
+            if (names instanceof String[]) {
+                for (String name : (String[]) names) {
+                    countsByName.merge(name, 1L, Long::sum);
+                }
+            }
+            List <Map <String, Object>> counters = new ArrayList <>();
+            countsByName.forEach((name, number) -> counters.add(Map.of("name", name, "number", number)));
+            counts.put(label, counters);
+        });
+        return counts;
+    }
+
+    public static class CountsOutput {
+        public Node node;
+        public Map <String, Object> counts;
+
+        public CountsOutput(Node node, Map <String, Object> counts) {
+            this.node = node;
+            this.counts = counts;
+        }
+    }
+
     public class Output {
         public Object result;
 
@@ -0,0 +1,122 @@
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.neo4j.driver.*;
+import org.neo4j.driver.types.Node;
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.harness.Neo4j;
+import org.neo4j.harness.internal.InProcessNeo4jBuilder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.neo4j.driver.Values.parameters;
+
+public class DetectionProcedureTest {
+    private static final Config driverConfig = Config.defaultConfig();
+    private static Neo4j embeddedDatabaseServer;
+    protected static GraphDatabaseService graphDatabaseService;
+
+    @BeforeAll
+    static void setUp() {
+        embeddedDatabaseServer = new InProcessNeo4jBuilder().withProcedure(DetectionProcedure.class).build();
+        graphDatabaseService = embeddedDatabaseServer.defaultDatabaseService();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        graphDatabaseService.executeTransactionally("MATCH (n) DETACH DELETE (n)");
+    }
+
+    @AfterAll
+    public static void tearAll() {
+        embeddedDatabaseServer.close();
+    }
+
+    @Test
+    public void overloadedMethodsAndConstructors() {
+
+        try (Driver driver = GraphDatabase.driver(embeddedDatabaseServer.boltURI(), driverConfig) ;
+             Session session = driver.session()) {
+            session.run("CREATE (c:CLASS:PUBLIC {name:'Rectangle'}) " +
+                    "CREATE (c)-[:METHOD]->(:METHOD:PUBLIC {name:'area'}) " +
+                    "CREATE (c)-[:METHOD]->(:METHOD:PUBLIC {name:'area'}) " +
+                    "CREATE (c)-[:METHOD]->(:METHOD {name:'perimeter'}) " +
+                    "CREATE (c)-[:METHOD]->(:CONSTRUCTOR:PUBLIC {name:'Rectangle'}) " +
+                    "CREATE (c)-[:METHOD]->(:CONSTRUCTOR {name:'Rectangle'})");
+
+            session.run("CALL symfinder.detectAll()");
+
+            Node rectangle = getNode(session, "Rectangle");
+            assertEquals(1L, rectangle.get("methodVPs").asLong());
+            assertEquals(2L, rectangle.get("methodVariants").asLong());
+            assertEquals(1L, rectangle.get("constructorVPs").asLong());
+            assertEquals(2L, rectangle.get("constructorVariants").asLong());
+            assertEquals(2L, rectangle.get("publicMethods").asLong());
+            assertEquals(1L, rectangle.get("publicConstructors").asLong());
+            assertEquals(3L, rectangle.get("allMethods").asLong());
+            assertEquals(0L, rectangle.get("classVariants").asLong());
+            assertTrue(rectangle.hasLabel("METHOD_LEVEL_VP"));
+            assertFalse(rectangle.hasLabel("VP"));
+        }
+    }
+
+    @Test
+    public void methodPropertiesWithoutMethodNodesAreKept() {
+
+        try (Driver driver = GraphDatabase.driver(embeddedDatabaseServer.boltURI(), driverConfig) ;
+             Session session = driver.session()) {
+            session.run("CREATE (:CLASS:PUBLIC {name:'Rectangle', methodNames:['area', 'area'], methodVPs:1, methodVariants:2, " +
+                    "constructorVPs:0, constructorVariants:0, publicMethods:2, publicConstructors:0, allMethods:2})");
+
+            session.run("CALL symfinder.detectAll()");
+
+            Node rectangle = getNode(session, "Rectangle");
+            assertEquals(1L, rectangle.get("methodVPs").asLong());
+            assertEquals(2L, rectangle.get("methodVariants").asLong());
+            assertEquals(2L, rectangle.get("publicMethods").asLong());
+            assertEquals(2L, rectangle.get("allMethods").asLong());
+            assertEquals(0L, rectangle.get("classVariants").asLong());
+            assertTrue(rectangle.hasLabel("METHOD_LEVEL_VP"));
+        }
+    }
+
+    @Test
+    public void variantsAndCompositions() {
+
+        try (Driver driver = GraphDatabase.driver(embeddedDatabaseServer.boltURI(), driverConfig) ;
+             Session session = driver.session()) {
+            session.run("CREATE (s:INTERFACE {name:'Shape'}) " +
+                    "CREATE (r:CLASS {name:'Rectangle'}) " +
+                    "CREATE (c:CLASS {name:'Circle'}) " +
+                    "CREATE (d:CLASS {name:'Drawer'}) " +
+                    "CREATE (o:CLASS:OUT_OF_SCOPE {name:'Object'}) " +
+                    "CREATE (s)-[:IMPLEMENTS]->(r) CREATE (s)-[:IMPLEMENTS]->(c) CREATE (o)-[:EXTENDS]->(d) " +
+                    "CREATE (d)-[:INSTANTIATE]->(s) CREATE (r)-[:INSTANTIATE]->(c)");
+
+            session.run("CALL symfinder.detectAll()");
+
+            Node shape = getNode(session, "Shape");
+            assertEquals(2L, shape.get("classVariants").asLong());
+            assertTrue(shape.hasLabel("VP"));
+            assertTrue(shape.hasLabel("COMPOSITION_STRATEGY"));
+            Node rectangle = getNode(session, "Rectangle");
+            assertTrue(rectangle.hasLabel("VARIANT"));
+            assertTrue(rectangle.hasLabel("DENSE"));
+            assertEquals(1L, rectangle.get("nbCompositions").asLong());
+            assertTrue(getNode(session, "Circle").hasLabel("DENSE"));
+            Node drawer = getNode(session, "Drawer");
+            assertFalse(drawer.hasLabel("VARIANT"));
+            assertFalse(drawer.hasLabel("DENSE"));
+            assertEquals(0L, drawer.get("methodVPs").asLong());
+            Node object = getNode(session, "Object");
+            assertEquals(1L, object.get("classVariants").asLong());
+            assertFalse(object.hasLabel("VP"));
+        }
+    }
+
+    private Node getNode(Session session, String name) {
+        return session.run("MATCH (n {name: $name}) RETURN n", parameters("name", name)).single().get(0).asNode();
+    }
+}
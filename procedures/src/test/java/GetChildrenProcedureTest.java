@@ -144,4 +144,70 @@ public class GetChildrenProcedureTest {
             assertEquals(1L, methods2.get(0).get("number"));
         }
     }
-}
\ No newline at end of file
+
+    @Test
+    public void countAll() {
+
+        try (Driver driver = GraphDatabase.driver(embeddedDatabaseServer.boltURI(), driverConfig) ;
+             Session session = driver.session()) {
+            session.run("CREATE (c1:CLASS {name:'Class1'}) " +
+                    "CREATE (c1)-[:METHOD]->(:METHOD {name:'method1'}) " +
+                    "CREATE (c1)-[:METHOD]->(:METHOD {name:'method1'}) " +
+                    "CREATE (c1)-[:METHOD]->(:METHOD {name:'method2'}) " +
+                    "CREATE (c2:CLASS {name:'Class2'}) " +
+                    "CREATE (c2)-[:METHOD]->(:CONSTRUCTOR {name:'Class2'}) " +
+                    "CREATE (c2)-[:METHOD]->(:METHOD)");
+
+            Result result = session.run(
+                    "MATCH (c) WHERE c:CLASS WITH collect(c) AS nodes " +
+                            "CALL symfinder.countAll(nodes, [\"METHOD\", \"CONSTRUCTOR\"]) YIELD node, counts " +
+                            "RETURN node.name AS name, counts.METHOD AS methods, counts.CONSTRUCTOR AS constructors ORDER BY name");
+
+            List <Record> records = result.list();
+            assertEquals(2, records.size());
+
+            // Class1
+
+            final List <Map <String, Object>> methods1 = records.get(0).get("methods").asList(MapAccessor::asMap);
+            assertEquals(2, methods1.size());
+            final Map <String, Object> method1 = methods1.stream().filter(stringObjectMap -> stringObjectMap.containsValue("method1")).findFirst().get();
+            assertEquals(2L, method1.get("number"));
+            final Map <String, Object> method2 = methods1.stream().filter(stringObjectMap -> stringObjectMap.containsValue("method2")).findFirst().get();
+            assertEquals(1L, method2.get("number"));
+            assertTrue(records.get(0).get("constructors").asList().isEmpty());
+
+            // Class2: the unnamed method is not counted
+
+            assertTrue(records.get(1).get("methods").asList().isEmpty());
+            final List <Map <String, Object>> constructors2 = records.get(1).get("constructors").asList(MapAccessor::asMap);
+            assertEquals(1, constructors2.size());
+            assertEquals(1L, constructors2.get(0).get("number"));
+        }
+    }
+
+    @Test
+    public void countAllWithNameProperties() {
+
+        try (Driver driver = GraphDatabase.driver(embeddedDatabaseServer.boltURI(), driverConfig) ;
+             Session session = driver.session()) {
+            session.run("CREATE (c1:CLASS {name:'Class1', methodNames:['method1', 'method1', 'method2'], constructorNames:['Class1']}) " +
+                    "CREATE (c1)-[:METHOD]->(:METHOD {name:'method2'})");
+
+            Result result = session.run(
+                    "MATCH (c) WHERE c:CLASS WITH collect(c) AS nodes " +
+                            "CALL symfinder.countAll(nodes, [\"METHOD\", \"CONSTRUCTOR\"], {METHOD: \"methodNames\", CONSTRUCTOR: \"constructorNames\"}) YIELD node, counts " +
+                            "RETURN counts.METHOD AS methods, counts.CONSTRUCTOR AS constructors");
+
+            Record record = result.single();
+            final List <Map <String, Object>> methods = record.get("methods").asList(MapAccessor::asMap);
+            assertEquals(2, methods.size());
+            final Map <String, Object> method1 = methods.stream().filter(stringObjectMap -> stringObjectMap.containsValue("method1")).findFirst().get();
+            assertEquals(2L, method1.get("number"));
+            final Map <String, Object> method2 = methods.stream().filter(stringObjectMap -> stringObjectMap.containsValue("method2")).findFirst().get();
+            assertEquals(2L, method2.get("number"));
+            final List <Map <String, Object>> constructors = record.get("constructors").asList(MapAccessor::asMap);
+            assertEquals(1, constructors.size());
+            assertEquals(1L, constructors.get(0).get("number"));
+        }
+    }
+}
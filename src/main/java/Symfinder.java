@@ -20,28 +20,42 @@
  */
 
 import configuration.Configuration;
+import facts.Fact;
+import facts.FactCache;
+import facts.FactFile;
+import facts.FactQueue;
+import facts.FactRecorder;
+import facts.IncrementalAnalysis;
+import neograph.EmbeddedDatabase;
+import neograph.GraphStore;
+import neograph.InMemoryGraph;
 import neograph.NeoGraph;
+import neograph.Statistics;
+import neograph.UnitOfWork;
 import org.apache.logging.log4j.Level;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
-import org.eclipse.jdt.core.JavaCore;
-import org.eclipse.jdt.core.dom.AST;
-import org.eclipse.jdt.core.dom.ASTParser;
 import org.eclipse.jdt.core.dom.ASTVisitor;
 import org.eclipse.jdt.core.dom.CompilationUnit;
+import org.json.JSONObject;
+import parsing.AstCache;
+import parsing.ParsingPipeline;
+import parsing.SourceParser;
 import visitors.*;
 
 import java.io.File;
 import java.io.IOException;
-import java.io.UncheckedIOException;
 import java.nio.charset.Charset;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
-import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.*;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
-import java.util.stream.Stream;
 
 /**
  * Inspired by https://www.programcreek.com/2014/01/how-to-resolve-bindings-when-using-eclipse-jdt-astparser/
@@ -50,16 +64,48 @@ public class Symfinder {
 
     private static final Logger logger = LogManager.getLogger(Symfinder.class);
 
+    /**
+     * Phase whose facts are kept in the fact cache, as its writes only depend on the visited file.
+     */
+    private static final String CACHED_PHASE = "ClassesVisitor";
+
+    private GraphStore graph;
+    /**
+     * Neo4j graph, used either as backend or as export target of the in-memory graph, null if Neo4j is not used.
+     */
     private NeoGraph neoGraph;
     private String sourcePackage;
     private String graphOutputPath;
+    private AstCache astCache;
+    private ParsingPipeline parsingPipeline;
+    /**
+     * Graph given to the visitors, queuing their writes when the write queue is enabled,
+     * and recording them when the analysis is incremental or when the fact cache is enabled.
+     */
+    private GraphStore visitorGraph;
+    private FactQueue factQueue;
+    private FactFile factFile;
+    private FactRecorder factRecorder;
+    private IncrementalAnalysis incrementalAnalysis;
+    private FactCache factCache;
+    private boolean cachingPhase = false;
 
     public Symfinder(String sourcePackage, String graphOutputPath) {
         this.sourcePackage = sourcePackage;
         this.graphOutputPath = graphOutputPath;
-        this.neoGraph = new NeoGraph(Configuration.getNeo4JBoltAddress(),
-                Configuration.getNeo4JUser(),
-                Configuration.getNeo4JPassword());
+        if (! Configuration.isInMemoryGraph() || Configuration.isNeo4JExportEnabled()) {
+            this.neoGraph = Configuration.isNeo4JEmbedded() ?
+                    new NeoGraph(new EmbeddedDatabase(Configuration.getNeo4JDatabaseDirectory())) :
+                    new NeoGraph(Configuration.getNeo4JBoltAddress(),
+                            Configuration.getNeo4JUser(),
+                            Configuration.getNeo4JPassword());
+            this.neoGraph.setWriteBatchSize(Configuration.getNeo4JWriteBatchSize());
+            this.neoGraph.setNodeCacheEnabled(Configuration.isNeo4JNodeCacheEnabled());
+            this.neoGraph.setDetectionProcedureEnabled(Configuration.isNeo4JDetectionProcedureEnabled());
+            this.neoGraph.setSchemaEnabled(Configuration.isNeo4JSchemaEnabled());
+        }
+        this.graph = Configuration.isInMemoryGraph() ? new InMemoryGraph() : neoGraph;
+        this.visitorGraph = graph;
     }
 
     public void run() throws IOException {
@@ -79,72 +125,305 @@ public class Symfinder {
                 .filter(file -> file.getName().endsWith(".java"))
                 .collect(Collectors.toList());
 
-        neoGraph.createClassesIndex();
-        neoGraph.createInterfacesIndex();
-
-        logger.log(Level.getLevel("MY_LEVEL"), "ClassesVisitor");
-        visitPackage(classpathPath, files, new ClassesVisitor(neoGraph));
-        logger.log(Level.getLevel("MY_LEVEL"), "GraphBuilderVisitor");
-        visitPackage(classpathPath, files, new GraphBuilderVisitor(neoGraph));
-        logger.log(Level.getLevel("MY_LEVEL"), "StrategyTemplateVisitor");
-        visitPackage(classpathPath, files, new StrategyTemplateDecoratorVisitor(neoGraph));
-        logger.log(Level.getLevel("MY_LEVEL"), "FactoryVisitor");
-        visitPackage(classpathPath, files, new FactoryVisitor(neoGraph));
-        logger.log(Level.getLevel("MY_LEVEL"), "ComposeTypeVisitor");
-        visitPackage(classpathPath, files, new ComposeTypeVisitor(neoGraph));
-        /*logger.log(Level.getLevel("MY_LEVEL"), "LocalVariablesVisitor");
-        visitPackage(classpathPath, files, new LocalVariablesVisitor(neoGraph));*/
-
-        neoGraph.detectVPsAndVariants();
-        neoGraph.detectHotspots();
-        logger.log(Level.getLevel("MY_LEVEL"), "Number of VPs: " + neoGraph.getTotalNbVPs());
-        logger.log(Level.getLevel("MY_LEVEL"), "Number of methods VPs: " + neoGraph.getNbMethodVPs());
-        logger.log(Level.getLevel("MY_LEVEL"), "Number of constructors VPs: " + neoGraph.getNbConstructorVPs());
-        logger.log(Level.getLevel("MY_LEVEL"), "Number of method level VPs: " + neoGraph.getNbMethodLevelVPs());
-        logger.log(Level.getLevel("MY_LEVEL"), "Number of class level VPs: " + neoGraph.getNbClassLevelVPs());
-        logger.log(Level.getLevel("MY_LEVEL"), "Number of variants: " + neoGraph.getTotalNbVariants());
-        logger.log(Level.getLevel("MY_LEVEL"), "Number of methods variants: " + neoGraph.getNbMethodVariants());
-        logger.log(Level.getLevel("MY_LEVEL"), "Number of constructors variants: " + neoGraph.getNbConstructorVariants());
-        logger.log(Level.getLevel("MY_LEVEL"), "Number of method level variants: " + neoGraph.getNbMethodLevelVariants());
-        logger.log(Level.getLevel("MY_LEVEL"), "Number of class level variants: " + neoGraph.getNbClassLevelVariants());
-        logger.log(Level.getLevel("MY_LEVEL"), "Number of nodes: " + neoGraph.getNbNodes());
-        logger.log(Level.getLevel("MY_LEVEL"), "Number of relationships: " + neoGraph.getNbRelationships());
-        logger.log(Level.getLevel("MY_LEVEL"), "Number of corrected inheritance relationships: " + GraphBuilderVisitor.getNbCorrectedInheritanceLinks() + "/" + neoGraph.getNbInheritanceRelationships());
-        neoGraph.writeVPGraphFile(graphOutputPath);
-        neoGraph.writeStatisticsFile(graphOutputPath.replace(".json", "-stats.json"));
-        logger.debug(neoGraph.generateStatisticsJson());
-        neoGraph.closeDriver();
+        SourceParser sourceParser = new SourceParser(classpathPath, Charset.forName(Configuration.getFallbackEncoding()));
+        astCache = new AstCache(sourceParser, Configuration.isAstCacheEnabled() ? Configuration.getAstCacheSize() : 0);
+        if (Configuration.isBatchParsingEnabled()) {
+            astCache.enableBatchParsing(SourceParser.findSourceRoots(files), Configuration.getBatchSize());
+        } else if (Configuration.isParsingPipelineEnabled()) {
+            parsingPipeline = new ParsingPipeline(astCache, Configuration.getReadQueueCapacity(), Configuration.getParsingThreads());
+        }
+
+        Path outputDirectory = Paths.get(graphOutputPath).toAbsolutePath().getParent();
+        if (Configuration.isWriteQueueEnabled()) {
+            if (! Configuration.getFactsFile().isEmpty()) {
+                factFile = new FactFile(outputDirectory.resolve(Configuration.getFactsFile()));
+            }
+            factQueue = new FactQueue(graph, Configuration.getWriteQueueCapacity(), factFile);
+            visitorGraph = factQueue.getGraph();
+        }
+        if (Configuration.isIncrementalAnalysisEnabled() || Configuration.isFactCacheEnabled()) {
+            factRecorder = new FactRecorder(visitorGraph);
+            visitorGraph = factRecorder.getGraph();
+        }
+        // Facts recorded with and without method nodes differ, hence are not replayed in the other mode
+        String factsVersion = System.getenv("SYMFINDER_VERSION") + (Configuration.isMethodNodesEnabled() ? "" : "/no-method-nodes");
+        if (Configuration.isIncrementalAnalysisEnabled()) {
+            incrementalAnalysis = new IncrementalAnalysis(outputDirectory.resolve(Configuration.getManifestFile()), Paths.get(sourcePackage),
+                    factsVersion, factRecorder);
+        }
+        if (Configuration.isFactCacheEnabled()) {
+            factCache = new FactCache(outputDirectory.resolve(Configuration.getFactCacheDirectory()), factsVersion,
+                    Configuration.getFactCacheSize() * 1024L * 1024L);
+        }
+
+        graph.createClassesIndex();
+        graph.createInterfacesIndex();
+        if (graph == neoGraph && Configuration.isNeo4JSchemaEnabled()) {
+            neoGraph.createSchema();
+            neoGraph.findAllNodesScans().forEach(request -> logger.warn("Lookup scanning all nodes: " + request));
+        }
+
+        visitPackage(CACHED_PHASE, files, () -> new ClassesVisitor(visitorGraph, Configuration.isMethodNodesEnabled()));
+        int nbCorrectedInheritanceLinks = visitPackage("GraphBuilderVisitor", files, () -> new GraphBuilderVisitor(visitorGraph)).stream()
+                .mapToInt(GraphBuilderVisitor::getNbCorrectedInheritanceLinks)
+                .sum();
+        if (Configuration.isNeo4JHierarchyIndexEnabled()) {
+            long indexStartTime = System.currentTimeMillis();
+            graph.indexHierarchy();
+            logger.printf(Level.getLevel("MY_LEVEL"), "Hierarchy index execution time: %s", formatExecutionTime(System.currentTimeMillis() - indexStartTime));
+        }
+        KnownTypes knownTypes = Configuration.isTypeFilterEnabled() ? KnownTypes.of(graph.getTypeNames()) : KnownTypes.all();
+        DecisionMemo strategyTemplateMemo = createDecisionMemo();
+        visitPackage("StrategyTemplateVisitor", files, () -> new StrategyTemplateDecoratorVisitor(visitorGraph, knownTypes, strategyTemplateMemo));
+        reportDecisionMemo("StrategyTemplateVisitor", strategyTemplateMemo);
+        DecisionMemo factoryMemo = createDecisionMemo();
+        visitPackage("FactoryVisitor", files, () -> new FactoryVisitor(visitorGraph, knownTypes, factoryMemo));
+        reportDecisionMemo("FactoryVisitor", factoryMemo);
+        visitPackage("ComposeTypeVisitor", files, () -> new ComposeTypeVisitor(visitorGraph, knownTypes));
+        if (Configuration.isTypeFilterEnabled()) {
+            logger.log(Level.getLevel("MY_LEVEL"), "Type filter: " + knownTypes.size() + " known types, " + knownTypes.getNbSkippedTypes() + " references to other types skipped");
+        }
+        /*visitPackage("LocalVariablesVisitor", files, () -> new LocalVariablesVisitor(visitorGraph));*/
+
+        astCache.clear();
+        sourceParser.getSourceLoader().report();
+        if (incrementalAnalysis != null) {
+            incrementalAnalysis.save();
+        }
+
+        graph.detectVPsAndVariants();
+        graph.detectHotspots();
+        Statistics statistics = graph.getStatistics();
+        logger.log(Level.getLevel("MY_LEVEL"), "Number of VPs: " + statistics.getTotalNbVPs());
+        logger.log(Level.getLevel("MY_LEVEL"), "Number of methods VPs: " + statistics.getNbMethodVPs());
+        logger.log(Level.getLevel("MY_LEVEL"), "Number of constructors VPs: " + statistics.getNbConstructorVPs());
+        logger.log(Level.getLevel("MY_LEVEL"), "Number of method level VPs: " + statistics.getNbMethodLevelVPs());
+        logger.log(Level.getLevel("MY_LEVEL"), "Number of class level VPs: " + statistics.getNbClassLevelVPs());
+        logger.log(Level.getLevel("MY_LEVEL"), "Number of variants: " + statistics.getTotalNbVariants());
+        logger.log(Level.getLevel("MY_LEVEL"), "Number of methods variants: " + statistics.getNbMethodVariants());
+        logger.log(Level.getLevel("MY_LEVEL"), "Number of constructors variants: " + statistics.getNbConstructorVariants());
+        logger.log(Level.getLevel("MY_LEVEL"), "Number of method level variants: " + statistics.getNbMethodLevelVariants());
+        logger.log(Level.getLevel("MY_LEVEL"), "Number of class level variants: " + statistics.getNbClassLevelVariants());
+        logger.log(Level.getLevel("MY_LEVEL"), "Number of nodes: " + statistics.getNbNodes());
+        logger.log(Level.getLevel("MY_LEVEL"), "Number of relationships: " + statistics.getNbRelationships());
+        logger.log(Level.getLevel("MY_LEVEL"), "Number of corrected inheritance relationships: " + nbCorrectedInheritanceLinks + "/" + statistics.getNbInheritanceRelationships());
+        if (graph == neoGraph) {
+            logger.log(Level.getLevel("MY_LEVEL"), "Number of batched write operations: " + neoGraph.getNbWriteOperations() + " in " + neoGraph.getNbWriteStatements() + " statements");
+            int nbLookups = neoGraph.getNbNodeCacheHits() + neoGraph.getNbNodeCacheMisses();
+            logger.printf(Level.getLevel("MY_LEVEL"), "Node cache: %d hits out of %d lookups (%.1f%%)",
+                    neoGraph.getNbNodeCacheHits(), nbLookups, nbLookups == 0 ? 0.0 : 100.0 * neoGraph.getNbNodeCacheHits() / nbLookups);
+        }
+        if (Configuration.isCompactOutputFormat()) {
+            graph.writeCompactVPGraphFile(graphOutputPath);
+        } else {
+            graph.writeVPGraphFile(graphOutputPath);
+        }
+        JSONObject statisticsJson = new JSONObject(statistics.toJson());
+        if (factCache != null) {
+            factCache.report();
+            statisticsJson.put("factCacheHits", factCache.getNbHits()).put("factCacheMisses", factCache.getNbMisses());
+        }
+        graph.writeToFile(graphOutputPath.replace(".json", "-stats.json"), statisticsJson.toString());
+        logger.debug(statistics.toJson());
+        if (graph instanceof InMemoryGraph && neoGraph != null) {
+            long exportStartTime = System.currentTimeMillis();
+            ((InMemoryGraph) graph).exportTo(neoGraph, Configuration.getNeo4JWriteBatchSize());
+            logger.printf(Level.getLevel("MY_LEVEL"), "Export to Neo4j execution time: %s", formatExecutionTime(System.currentTimeMillis() - exportStartTime));
+        }
+        if (factQueue != null) {
+            try {
+                factQueue.close();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        if (factFile != null) {
+            factFile.close();
+        }
+        graph.close();
+        if (neoGraph != null && graph != neoGraph) {
+            neoGraph.close();
+        }
         long symfinderExecutionTime = System.currentTimeMillis() - symfinderStartTime;
         logger.printf(Level.getLevel("MY_LEVEL"), "Total execution time: %s", formatExecutionTime(symfinderExecutionTime));
     }
 
-    private void visitPackage(String classpathPath, List <File> files, ASTVisitor visitor) throws IOException {
+    /**
+     * Visits all files with visitors created by the supplier.
+     * In incremental mode, the facts of the files unchanged since the previous analysis are replayed instead, if possible.
+     * In sequential mode, a single visitor visits the files in order.
+     * In parallel mode, the files are scheduled largest first on a work-stealing pool,
+     * and each worker thread visits its files with its own visitor, so that visitors never share their state.
+     *
+     * @param phaseName name of the phase, used in the logs and in the manifest of the incremental analysis
+     * @return the visitors used, whose results can then be aggregated
+     */
+    private <T extends ASTVisitor> List <T> visitPackage(String phaseName, List <File> files, Supplier <T> visitorSupplier) throws IOException {
+        logger.log(Level.getLevel("MY_LEVEL"), phaseName);
         long startTime = System.currentTimeMillis();
-        for (File file : files) {
-            String fileContent = getFileLines(file);
-
-            ASTParser parser = ASTParser.newParser(AST.JLS13);
-            parser.setResolveBindings(true);
-            parser.setKind(ASTParser.K_COMPILATION_UNIT);
+        List <T> visitors = new CopyOnWriteArrayList <>();
+        int nbThreads = Configuration.getParsingThreads();
+        if (graph == neoGraph) {
+            neoGraph.beginUnitOfWork(Configuration.getNeo4JCommitEvery(), Configuration.getNeo4JCommitInterval());
+        }
+        UnitOfWork unitOfWork = null;
+        try {
+            List <File> filesToVisit = incrementalAnalysis != null ? incrementalAnalysis.beginPhase(phaseName, files) : files;
+            cachingPhase = factCache != null && phaseName.equals(CACHED_PHASE);
+            if (cachingPhase) {
+                filesToVisit = replayCachedFacts(filesToVisit);
+            }
+            visitFiles(filesToVisit, visitorSupplier, visitors, nbThreads);
+            if (incrementalAnalysis != null) {
+                incrementalAnalysis.endPhase();
+            }
+        } finally {
+            if (factQueue != null) {
+                factQueue.drain();
+            }
+            graph.flush();
+            if (graph == neoGraph) {
+                unitOfWork = neoGraph.endUnitOfWork();
+            }
+        }
+        long elapsedTime = System.currentTimeMillis() - startTime;
+        logger.printf(Level.getLevel("MY_LEVEL"), "%s execution time: %s", phaseName, formatExecutionTime(elapsedTime));
+        if (unitOfWork != null) {
+            logger.printf(Level.getLevel("MY_LEVEL"), "%s commits: %d, time spent committing: %s", phaseName,
+                    unitOfWork.getNbCommits(), formatExecutionTime(unitOfWork.getCommitTime()));
+        }
+        astCache.reportPhase(phaseName);
+        if (parsingPipeline != null) {
+            parsingPipeline.reportPhase(phaseName);
+        }
+        if (factQueue != null) {
+            factQueue.reportPhase(phaseName);
+        }
+        return visitors;
+    }
 
-            parser.setBindingsRecovery(true);
+    /**
+     * With the incremental analysis, the facts of each file are recorded to be replayed,
+     * hence a file must produce its facts even if another file already took the same decisions.
+     */
+    private DecisionMemo createDecisionMemo() {
+        return incrementalAnalysis == null ? DecisionMemo.create() : DecisionMemo.none();
+    }
 
-            parser.setCompilerOptions(JavaCore.getOptions());
+    private static void reportDecisionMemo(String phaseName, DecisionMemo memo) {
+        logger.printf(Level.getLevel("MY_LEVEL"), "%s memo: %d decisions taken, %d skipped, %d labels not added again", phaseName,
+                memo.size(), memo.getNbHits(), memo.getNbSkippedLabels());
+    }
 
-            parser.setUnitName(file.getCanonicalPath());
+    private <T extends ASTVisitor> void visitFiles(List <File> files, Supplier <T> visitorSupplier, List <T> visitors, int nbThreads) throws IOException {
+        if (parsingPipeline != null) {
+            parsingPipeline.run(sortLargestFirst(files), () -> {
+                T visitor = visitorSupplier.get();
+                visitors.add(visitor);
+                return (file, cu) -> visit(file, cu, visitor);
+            });
+        } else if (nbThreads <= 1) {
+            T visitor = visitorSupplier.get();
+            visitors.add(visitor);
+            astCache.forEach(files, (file, cu) -> visit(file, cu, visitor));
+        } else {
+            ThreadLocal <T> workerVisitor = ThreadLocal.withInitial(() -> {
+                T visitor = visitorSupplier.get();
+                visitors.add(visitor);
+                return visitor;
+            });
+            ExecutorService pool = Executors.newWorkStealingPool(nbThreads);
+            try {
+                List <Future <?>> tasks = new ArrayList <>();
+                for (List <File> chunk : scheduleChunks(files, nbThreads)) {
+                    tasks.add(pool.submit(() -> {
+                        astCache.forEach(chunk, (file, cu) -> visit(file, cu, workerVisitor.get()));
+                        return null;
+                    }));
+                }
+                for (Future <?> task : tasks) {
+                    task.get();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException(e);
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof IOException) {
+                    throw (IOException) e.getCause();
+                }
+                throw new IOException(e.getCause());
+            } finally {
+                pool.shutdown();
+            }
+        }
+    }
 
-            parser.setEnvironment(new String[]{classpathPath}, new String[]{""}, new String[]{"UTF-8"}, true);
-            parser.setSource(fileContent.toCharArray());
+    private void visit(File file, CompilationUnit compilationUnit, ASTVisitor visitor) {
+        if (factRecorder == null) {
+            compilationUnit.accept(visitor);
+            return;
+        }
+        Runnable action = () -> compilationUnit.accept(visitor);
+        List <Fact> facts = incrementalAnalysis != null ? incrementalAnalysis.visit(file, action) : factRecorder.record(action);
+        if (cachingPhase) {
+            factCache.put(file, facts);
+        }
+    }
 
-            Map <String, String> options = JavaCore.getOptions();
-            options.put(JavaCore.COMPILER_SOURCE, JavaCore.VERSION_13);
-            parser.setCompilerOptions(options);
+    /**
+     * Replays the cached facts of the files, without parsing them.
+     *
+     * @return the files which are not cached and remain to be visited
+     */
+    private List <File> replayCachedFacts(List <File> files) {
+        List <File> missingFiles = new ArrayList <>();
+        for (File file : files) {
+            Optional <List <Fact>> facts = factCache.get(file);
+            if (facts.isPresent()) {
+                Runnable replay = () -> facts.get().forEach(fact -> fact.applyTo(visitorGraph));
+                if (incrementalAnalysis != null) {
+                    incrementalAnalysis.visit(file, replay);
+                } else {
+                    replay.run();
+                }
+            } else {
+                missingFiles.add(file);
+            }
+        }
+        return missingFiles;
+    }
 
-            CompilationUnit cu = (CompilationUnit) parser.createAST(null);
-            cu.accept(visitor);
+    /**
+     * Splits the files into the tasks of the parallel mode, largest files first so that they do not end up
+     * running alone at the end of the phase.
+     * Without batch parsing, each file is a task. Otherwise, each task is a batch of files parsed together,
+     * of at most batchSize files and at most the share of a thread, so that all threads get a batch.
+     * The files are dealt to the batches in turn, so that the largest files are spread over the batches.
+     */
+    private List <List <File>> scheduleChunks(List <File> files, int nbThreads) {
+        List <File> sortedFiles = sortLargestFirst(files);
+        int chunkSize = 1;
+        if (Configuration.isBatchParsingEnabled()) {
+            chunkSize = Math.max(1, (sortedFiles.size() + nbThreads - 1) / nbThreads);
+            if (Configuration.getBatchSize() > 0) {
+                chunkSize = Math.min(chunkSize, Configuration.getBatchSize());
+            }
         }
-        long elapsedTime = System.currentTimeMillis() - startTime;
-        logger.printf(Level.getLevel("MY_LEVEL"), "%s execution time: %s", visitor.getClass().getTypeName(), formatExecutionTime(elapsedTime));
+        int nbChunks = (sortedFiles.size() + chunkSize - 1) / chunkSize;
+        List <List <File>> chunks = new ArrayList <>();
+        for (int i = 0 ; i < nbChunks ; i++) {
+            chunks.add(new ArrayList <>());
+        }
+        for (int i = 0 ; i < sortedFiles.size() ; i++) {
+            chunks.get(i % nbChunks).add(sortedFiles.get(i));
+        }
+        return chunks;
+    }
+
+    private static List <File> sortLargestFirst(List <File> files) {
+        List <File> sortedFiles = new ArrayList <>(files);
+        sortedFiles.sort(Comparator.comparingLong(File::length).reversed());
+        return sortedFiles;
     }
 
     private boolean isTestPath(Path path) {
@@ -157,27 +436,6 @@ public class Symfinder {
         return false;
     }
 
-    private String getFileLines(File file) {
-        for (Charset charset : Charset.availableCharsets().values()) {
-            String lines = getFileLinesWithEncoding(file, charset);
-            if (lines != null) {
-                return lines;
-            }
-        }
-        return null;
-    }
-
-    private String getFileLinesWithEncoding(File file, Charset charset) {
-        try (Stream <String> lines = Files.lines(file.toPath(), charset)) {
-            return lines.collect(Collectors.joining("\n"));
-        } catch (UncheckedIOException e) {
-            logger.debug(charset.displayName() + ": wrong encoding");
-        } catch (IOException e) {
-            e.printStackTrace();
-        }
-        return null;
-    }
-
     static String formatExecutionTime(long execTime) {
         long ms = execTime % 1000;
         long seconds = (execTime - ms) / 1000;
@@ -63,6 +63,42 @@ public class Configuration {
         return properties.getNeo4j().password;
     }
 
+    public static int getNeo4JWriteBatchSize() {
+        return properties.getNeo4j().writeBatchSize;
+    }
+
+    public static int getNeo4JCommitEvery() {
+        return properties.getNeo4j().commitEvery;
+    }
+
+    public static long getNeo4JCommitInterval() {
+        return properties.getNeo4j().commitInterval;
+    }
+
+    public static boolean isNeo4JEmbedded() {
+        return properties.getNeo4j().embedded;
+    }
+
+    public static String getNeo4JDatabaseDirectory() {
+        return properties.getNeo4j().databaseDirectory;
+    }
+
+    public static boolean isNeo4JNodeCacheEnabled() {
+        return properties.getNeo4j().nodeCache;
+    }
+
+    public static boolean isNeo4JHierarchyIndexEnabled() {
+        return properties.getNeo4j().hierarchyIndex;
+    }
+
+    public static boolean isNeo4JDetectionProcedureEnabled() {
+        return properties.getNeo4j().detectionProcedure;
+    }
+
+    public static boolean isNeo4JSchemaEnabled() {
+        return properties.getNeo4j().schema;
+    }
+
     public static int getSingularityThreshold() {
         return properties.getHotspotsParameters().nbVariantsThreshold;
     }
@@ -71,4 +107,88 @@ public class Configuration {
         return properties.getHotspotsParameters().nbAggregationsThreshold;
     }
 
+    public static boolean isAstCacheEnabled() {
+        return properties.getParsing().astCache;
+    }
+
+    public static int getAstCacheSize() {
+        return properties.getParsing().astCacheSize;
+    }
+
+    public static boolean isBatchParsingEnabled() {
+        return properties.getParsing().batchParsing;
+    }
+
+    public static int getBatchSize() {
+        return properties.getParsing().batchSize;
+    }
+
+    public static int getParsingThreads() {
+        return properties.getParsing().threads;
+    }
+
+    public static boolean isParsingPipelineEnabled() {
+        return properties.getParsing().pipeline;
+    }
+
+    public static int getReadQueueCapacity() {
+        return properties.getParsing().readQueueCapacity;
+    }
+
+    public static String getFallbackEncoding() {
+        return properties.getParsing().fallbackEncoding;
+    }
+
+    public static boolean isIncrementalAnalysisEnabled() {
+        return properties.getParsing().incremental;
+    }
+
+    public static String getManifestFile() {
+        return properties.getParsing().manifestFile;
+    }
+
+    public static boolean isFactCacheEnabled() {
+        return properties.getParsing().factCache;
+    }
+
+    public static String getFactCacheDirectory() {
+        return properties.getParsing().factCacheDirectory;
+    }
+
+    public static int getFactCacheSize() {
+        return properties.getParsing().factCacheSize;
+    }
+
+    public static boolean isInMemoryGraph() {
+        return "memory".equals(properties.getGraph().backend);
+    }
+
+    public static boolean isNeo4JExportEnabled() {
+        return properties.getGraph().exportToNeo4j;
+    }
+
+    public static boolean isCompactOutputFormat() {
+        return "compact".equals(properties.getGraph().outputFormat);
+    }
+
+    public static boolean isWriteQueueEnabled() {
+        return properties.getGraph().writeQueue;
+    }
+
+    public static int getWriteQueueCapacity() {
+        return properties.getGraph().writeQueueCapacity;
+    }
+
+    public static String getFactsFile() {
+        return properties.getGraph().factsFile;
+    }
+
+    public static boolean isTypeFilterEnabled() {
+        return properties.getGraph().typeFilter;
+    }
+
+    public static boolean isMethodNodesEnabled() {
+        return properties.getGraph().methodNodes;
+    }
+
 }
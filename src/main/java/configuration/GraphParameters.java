@@ -0,0 +1,67 @@
+/*
+ * This file is part of symfinder.
+ *
+ * symfinder is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * symfinder is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with symfinder. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright 2018-2021 Johann Mortara <johann.mortara@univ-cotedazur.fr>
+ * Copyright 2018-2021 Xhevahire Tërnava <t.xheva@gmail.com>
+ * Copyright 2018-2021 Philippe Collet <philippe.collet@univ-cotedazur.fr>
+ */
+
+package configuration;
+
+public class GraphParameters {
+
+    public String backend = "neo4j";
+    public boolean exportToNeo4j = false;
+    public String outputFormat = "json";
+    public boolean writeQueue = false;
+    public int writeQueueCapacity = 10000;
+    public String factsFile = "";
+    public boolean typeFilter = false;
+    public boolean methodNodes = true;
+
+    public String getBackend() {
+        return backend;
+    }
+
+    public boolean isExportToNeo4j() {
+        return exportToNeo4j;
+    }
+
+    public String getOutputFormat() {
+        return outputFormat;
+    }
+
+    public boolean isWriteQueue() {
+        return writeQueue;
+    }
+
+    public int getWriteQueueCapacity() {
+        return writeQueueCapacity;
+    }
+
+    public String getFactsFile() {
+        return factsFile;
+    }
+
+    public boolean isTypeFilter() {
+        return typeFilter;
+    }
+
+    public boolean isMethodNodes() {
+        return methodNodes;
+    }
+
+}
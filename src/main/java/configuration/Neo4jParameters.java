@@ -26,6 +26,15 @@ public class Neo4jParameters {
     public String boltAddress;
     public String user;
     public String password;
+    public int writeBatchSize = 1;
+    public int commitEvery = 1;
+    public long commitInterval = 0;
+    public boolean embedded = false;
+    public String databaseDirectory = "neo4j-data";
+    public boolean nodeCache = false;
+    public boolean hierarchyIndex = false;
+    public boolean detectionProcedure = false;
+    public boolean schema = false;
 
     public String getBoltAddress() {
         return boltAddress;
@@ -39,4 +48,40 @@ public class Neo4jParameters {
         return password;
     }
 
+    public int getWriteBatchSize() {
+        return writeBatchSize;
+    }
+
+    public int getCommitEvery() {
+        return commitEvery;
+    }
+
+    public long getCommitInterval() {
+        return commitInterval;
+    }
+
+    public boolean isEmbedded() {
+        return embedded;
+    }
+
+    public String getDatabaseDirectory() {
+        return databaseDirectory;
+    }
+
+    public boolean isNodeCache() {
+        return nodeCache;
+    }
+
+    public boolean isHierarchyIndex() {
+        return hierarchyIndex;
+    }
+
+    public boolean isDetectionProcedure() {
+        return detectionProcedure;
+    }
+
+    public boolean isSchema() {
+        return schema;
+    }
+
 }
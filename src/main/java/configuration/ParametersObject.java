@@ -25,6 +25,8 @@ public class ParametersObject {
 
     public Neo4jParameters neo4j;
     public HotspotsParameters hotspots;
+    public ParsingParameters parsing = new ParsingParameters();
+    public GraphParameters graph = new GraphParameters();
     public String experimentsFile;
 
     public Neo4jParameters getNeo4j() {
@@ -35,4 +37,12 @@ public class ParametersObject {
         return hotspots;
     }
 
+    public ParsingParameters getParsing() {
+        return parsing;
+    }
+
+    public GraphParameters getGraph() {
+        return graph;
+    }
+
 }
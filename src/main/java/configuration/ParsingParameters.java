@@ -0,0 +1,92 @@
+/*
+ * This file is part of symfinder.
+ *
+ * symfinder is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * symfinder is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with symfinder. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright 2018-2021 Johann Mortara <johann.mortara@univ-cotedazur.fr>
+ * Copyright 2018-2021 Xhevahire Tërnava <t.xheva@gmail.com>
+ * Copyright 2018-2021 Philippe Collet <philippe.collet@univ-cotedazur.fr>
+ */
+
+package configuration;
+
+public class ParsingParameters {
+
+    public boolean astCache = false;
+    public int astCacheSize = 2000;
+    public boolean batchParsing = false;
+    public int batchSize = 1000;
+    public int threads = 1;
+    public boolean pipeline = false;
+    public int readQueueCapacity = 100;
+    public String fallbackEncoding = "ISO-8859-1";
+    public boolean incremental = false;
+    public String manifestFile = "symfinder-manifest.json";
+    public boolean factCache = false;
+    public String factCacheDirectory = "fact-cache";
+    public int factCacheSize = 512;
+
+    public boolean isAstCache() {
+        return astCache;
+    }
+
+    public int getAstCacheSize() {
+        return astCacheSize;
+    }
+
+    public boolean isBatchParsing() {
+        return batchParsing;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+
+    public boolean isPipeline() {
+        return pipeline;
+    }
+
+    public int getReadQueueCapacity() {
+        return readQueueCapacity;
+    }
+
+    public String getFallbackEncoding() {
+        return fallbackEncoding;
+    }
+
+    public boolean isIncremental() {
+        return incremental;
+    }
+
+    public String getManifestFile() {
+        return manifestFile;
+    }
+
+    public boolean isFactCache() {
+        return factCache;
+    }
+
+    public String getFactCacheDirectory() {
+        return factCacheDirectory;
+    }
+
+    public int getFactCacheSize() {
+        return factCacheSize;
+    }
+
+}
@@ -0,0 +1,367 @@
+/*
+ * This file is part of symfinder.
+ *
+ * symfinder is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * symfinder is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with symfinder. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright 2018-2021 Johann Mortara <johann.mortara@univ-cotedazur.fr>
+ * Copyright 2018-2021 Xhevahire Tërnava <t.xheva@gmail.com>
+ * Copyright 2018-2021 Philippe Collet <philippe.collet@univ-cotedazur.fr>
+ */
+
+package facts;
+
+import neo4j_types.*;
+import neograph.GraphStore;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.neo4j.driver.types.Node;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.util.*;
+
+/**
+ * Write made by a visitor on the graph, recorded so that it can be applied to another graph without visiting again the file which produced it.
+ * Nodes are referenced by their name and their entity type instead of their id, which is specific to a graph.
+ * The arguments are strings, lists of strings for the types and attributes of a node, or the value of a node attribute.
+ * <p>
+ * Facts are the intermediate representation between the visitors and the graph: a type declaration is an {@link Kind#ADD_NODE} fact,
+ * a method or constructor declaration an {@link Kind#ADD_CHILD_NODE} one, an inheritance, implementation or instantiation
+ * a {@link Kind#LINK_FROM_NODE} or {@link Kind#LINK_TWO_NODES} one of the corresponding relationship type,
+ * and a design pattern an {@link Kind#ADD_LABEL} one.
+ */
+public final class Fact {
+
+    public enum Kind {
+        ADD_NODE, ADD_CHILD_NODE, LINK_FROM_NODE, GET_OR_CREATE_NODE, LINK_TWO_NODES, SET_ATTRIBUTE, ADD_LABEL, SET_ATTRIBUTES
+    }
+
+    private static final NodeType[][] NODE_TYPES = {EntityType.values(), EntityAttribute.values(), EntityVisibility.values(), DesignPatternType.values()};
+
+    private static final byte NULL_TAG = 0;
+    private static final byte STRING_TAG = 1;
+    private static final byte LIST_TAG = 2;
+    private static final byte LONG_TAG = 3;
+    private static final byte BOOLEAN_TAG = 4;
+    private static final byte DOUBLE_TAG = 5;
+
+    private final Kind kind;
+    private final List <Object> arguments;
+
+    private Fact(Kind kind, List <Object> arguments) {
+        this.kind = kind;
+        this.arguments = arguments;
+    }
+
+    static Fact addNode(String name, NodeType type, NodeType[] types) {
+        return new Fact(Kind.ADD_NODE, List.of(name, type.getString(), names(types)));
+    }
+
+    static Fact addChildNode(String parentName, EntityType parentType, String name, NodeType type, NodeType[] types, RelationType relationType) {
+        return new Fact(Kind.ADD_CHILD_NODE, List.of(parentName, parentType.getString(), name, type.getString(), names(types), relationType.getString()));
+    }
+
+    static Fact linkFromNode(String sourceName, EntityType sourceType, EntityAttribute[] createAttributes, Node target, RelationType relationType) {
+        return new Fact(Kind.LINK_FROM_NODE, List.of(sourceName, sourceType.getString(), names(createAttributes),
+                target.get("name").asString(), getEntityType(target), relationType.getString()));
+    }
+
+    static Fact getOrCreateNode(String name, EntityType type, EntityAttribute[] createAttributes, EntityAttribute[] matchAttributes) {
+        return new Fact(Kind.GET_OR_CREATE_NODE, List.of(name, type.getString(), names(createAttributes), names(matchAttributes)));
+    }
+
+    static Fact linkTwoNodes(Node node1, Node node2, RelationType relationType) {
+        return new Fact(Kind.LINK_TWO_NODES, List.of(node1.get("name").asString(), getEntityType(node1),
+                node2.get("name").asString(), getEntityType(node2), relationType.getString()));
+    }
+
+    static Fact setNodeAttribute(Node node, String attributeName, Object value) {
+        return new Fact(Kind.SET_ATTRIBUTE, Arrays.asList(node.get("name").asString(), getEntityType(node), attributeName, toArgument(value)));
+    }
+
+    /**
+     * The attributes are stored after the name and type of the node, each name being followed by its value.
+     */
+    static Fact setNodeAttributes(String name, EntityType type, Map <String, Object> attributes) {
+        List <Object> arguments = new ArrayList <>(List.of(name, type.getString()));
+        attributes.forEach((attributeName, value) -> {
+            arguments.add(attributeName);
+            arguments.add(toArgument(value));
+        });
+        return new Fact(Kind.SET_ATTRIBUTES, arguments);
+    }
+
+    static Fact addLabel(Node node, String label) {
+        return new Fact(Kind.ADD_LABEL, List.of(node.get("name").asString(), getEntityType(node), label));
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    /**
+     * @return the names of the nodes the fact writes on
+     */
+    List <String> getNodeNames() {
+        switch (kind) {
+            case ADD_CHILD_NODE:
+            case LINK_TWO_NODES:
+                return List.of(getString(0), getString(2));
+            case LINK_FROM_NODE:
+                return List.of(getString(0), getString(3));
+            default:
+                return List.of(getString(0));
+        }
+    }
+
+    /**
+     * Makes the same write on the graph.
+     * A node referenced by the fact is matched or created as by {@link GraphStore#getOrCreateNode(String, EntityType)},
+     * or matched by name only if it had no entity type.
+     */
+    public void applyTo(GraphStore graph) {
+        switch (kind) {
+            case ADD_NODE:
+                graph.addNode(getString(0), getNodeType(getString(1)), getNodeTypes(2));
+                break;
+            case ADD_CHILD_NODE:
+                graph.addChildNode(getString(0), EntityType.valueOf(getString(1)), getString(2), getNodeType(getString(3)),
+                        getNodeTypes(4), RelationType.valueOf(getString(5)));
+                break;
+            case LINK_FROM_NODE:
+                graph.linkFromNode(getString(0), EntityType.valueOf(getString(1)), getAttributes(2), getNode(graph, 3), RelationType.valueOf(getString(5)));
+                break;
+            case GET_OR_CREATE_NODE:
+                graph.getOrCreateNode(getString(0), EntityType.valueOf(getString(1)), getAttributes(2), getAttributes(3));
+                break;
+            case LINK_TWO_NODES:
+                graph.linkTwoNodes(getNode(graph, 0), getNode(graph, 2), RelationType.valueOf(getString(4)));
+                break;
+            case SET_ATTRIBUTE:
+                graph.setNodeAttribute(getNode(graph, 0), getString(2), arguments.get(3));
+                break;
+            case ADD_LABEL:
+                graph.addLabelToNode(getNode(graph, 0), getString(2));
+                break;
+            case SET_ATTRIBUTES:
+                Map <String, Object> attributes = new LinkedHashMap <>();
+                for (int i = 2 ; i < arguments.size() ; i += 2) {
+                    attributes.put(getString(i), arguments.get(i + 1));
+                }
+                graph.setNodeAttributes(getString(0), EntityType.valueOf(getString(1)), attributes);
+                break;
+        }
+    }
+
+    public JSONArray toJson() {
+        JSONArray json = new JSONArray().put(kind.toString());
+        for (Object argument : arguments) {
+            if (argument == null) {
+                json.put(JSONObject.NULL);
+            } else if (argument instanceof List) {
+                json.put(new JSONArray((List <?>) argument));
+            } else {
+                json.put(argument);
+            }
+        }
+        return json;
+    }
+
+    public static Fact fromJson(JSONArray json) {
+        List <Object> arguments = new ArrayList <>();
+        for (int i = 1 ; i < json.length() ; i++) {
+            Object argument = json.get(i);
+            if (JSONObject.NULL.equals(argument)) {
+                argument = null;
+            } else if (argument instanceof JSONArray) {
+                List <String> values = new ArrayList <>();
+                ((JSONArray) argument).forEach(value -> values.add(value.toString()));
+                argument = values;
+            } else {
+                argument = toArgument(argument);
+            }
+            arguments.add(argument);
+        }
+        return new Fact(Kind.valueOf(json.getString(0)), arguments);
+    }
+
+    /**
+     * Writes the fact in the binary format of the fact cache: the kind, the number of arguments, then each argument preceded by its tag.
+     */
+    @SuppressWarnings("unchecked")
+    void write(DataOutput output) throws IOException {
+        output.writeByte(kind.ordinal());
+        output.writeByte(arguments.size());
+        for (Object argument : arguments) {
+            if (argument == null) {
+                output.writeByte(NULL_TAG);
+            } else if (argument instanceof String) {
+                output.writeByte(STRING_TAG);
+                output.writeUTF((String) argument);
+            } else if (argument instanceof List) {
+                List <String> values = (List <String>) argument;
+                output.writeByte(LIST_TAG);
+                output.writeShort(values.size());
+                for (String value : values) {
+                    output.writeUTF(value);
+                }
+            } else if (argument instanceof Integer || argument instanceof Long) {
+                output.writeByte(LONG_TAG);
+                output.writeLong(((Number) argument).longValue());
+            } else if (argument instanceof Boolean) {
+                output.writeByte(BOOLEAN_TAG);
+                output.writeBoolean((Boolean) argument);
+            } else if (argument instanceof Number) {
+                output.writeByte(DOUBLE_TAG);
+                output.writeDouble(((Number) argument).doubleValue());
+            } else {
+                output.writeByte(STRING_TAG);
+                output.writeUTF(argument.toString());
+            }
+        }
+    }
+
+    static Fact read(DataInput input) throws IOException {
+        Kind kind = Kind.values()[input.readByte()];
+        int nbArguments = input.readByte();
+        List <Object> arguments = new ArrayList <>(nbArguments);
+        for (int i = 0 ; i < nbArguments ; i++) {
+            byte tag = input.readByte();
+            switch (tag) {
+                case NULL_TAG:
+                    arguments.add(null);
+                    break;
+                case STRING_TAG:
+                    arguments.add(input.readUTF());
+                    break;
+                case LIST_TAG:
+                    int nbValues = input.readShort();
+                    List <String> values = new ArrayList <>(nbValues);
+                    for (int j = 0 ; j < nbValues ; j++) {
+                        values.add(input.readUTF());
+                    }
+                    arguments.add(values);
+                    break;
+                case LONG_TAG:
+                    arguments.add(input.readLong());
+                    break;
+                case BOOLEAN_TAG:
+                    arguments.add(input.readBoolean());
+                    break;
+                case DOUBLE_TAG:
+                    arguments.add(input.readDouble());
+                    break;
+                default:
+                    throw new IOException("Unknown argument tag: " + tag);
+            }
+        }
+        return new Fact(kind, arguments);
+    }
+
+    /**
+     * Integral numbers are kept as longs and other numbers as doubles, as in the fact cache,
+     * so that a fact read back from JSON, in which a small number is read as an integer, equals the recorded fact.
+     */
+    private static Object toArgument(Object value) {
+        if (value instanceof Integer || value instanceof Long || value instanceof Short || value instanceof Byte || value instanceof BigInteger) {
+            return ((Number) value).longValue();
+        }
+        if (value instanceof Number) {
+            return ((Number) value).doubleValue();
+        }
+        return value;
+    }
+
+    private String getString(int index) {
+        return (String) arguments.get(index);
+    }
+
+    @SuppressWarnings("unchecked")
+    private List <String> getStrings(int index) {
+        return (List <String>) arguments.get(index);
+    }
+
+    private NodeType[] getNodeTypes(int index) {
+        return getStrings(index).stream().map(Fact::getNodeType).toArray(NodeType[]::new);
+    }
+
+    private EntityAttribute[] getAttributes(int index) {
+        return getStrings(index).stream().map(EntityAttribute::valueOf).toArray(EntityAttribute[]::new);
+    }
+
+    private Node getNode(GraphStore graph, int index) {
+        String name = getString(index);
+        String type = getString(index + 1);
+        if (type.isEmpty()) {
+            return graph.getNode(name).orElseThrow(() -> new IllegalStateException("No node named " + name));
+        }
+        return graph.getOrCreateNode(name, EntityType.valueOf(type));
+    }
+
+    private static NodeType getNodeType(String name) {
+        for (NodeType[] values : NODE_TYPES) {
+            for (NodeType value : values) {
+                if (value.getString().equals(name)) {
+                    return value;
+                }
+            }
+        }
+        throw new IllegalArgumentException("Unknown node type: " + name);
+    }
+
+    /**
+     * @return the entity type of the node, or an empty string if it has none
+     */
+    private static String getEntityType(Node node) {
+        for (EntityType type : EntityType.values()) {
+            if (node.hasLabel(type.getString())) {
+                return type.getString();
+            }
+        }
+        return "";
+    }
+
+    private static List <String> names(NodeType[] types) {
+        List <String> names = new ArrayList <>();
+        for (NodeType type : types) {
+            names.add(type.getString());
+        }
+        return names;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        Fact fact = (Fact) o;
+        return kind == fact.kind && arguments.equals(fact.arguments);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(kind, arguments);
+    }
+
+    @Override
+    public String toString() {
+        return toJson().toString();
+    }
+
+}
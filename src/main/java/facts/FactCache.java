@@ -0,0 +1,209 @@
+/*
+ * This file is part of symfinder.
+ *
+ * symfinder is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * symfinder is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with symfinder. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright 2018-2021 Johann Mortara <johann.mortara@univ-cotedazur.fr>
+ * Copyright 2018-2021 Xhevahire Tërnava <t.xheva@gmail.com>
+ * Copyright 2018-2021 Philippe Collet <philippe.collet@univ-cotedazur.fr>
+ */
+
+package facts;
+
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * On-disk cache of the facts produced by visiting a file, addressed by the SHA-256 hash of the file content,
+ * so that identical files met in other projects, tags or vendored copies are not parsed again.
+ * Only the facts of visitors whose writes depend on the content of the file alone can be cached.
+ * <p>
+ * The entries of a version of symfinder are stored in a subdirectory named after the hash of the version and of the format of the records,
+ * so that the entries of other versions are never read.
+ * When the entries of all versions exceed the maximum size, the least recently used ones are deleted, a hit refreshing the modification time of its entry.
+ * Failing to read or write an entry only logs a warning, the file being visited as if it was not cached.
+ */
+public class FactCache {
+
+    private static final Logger logger = LogManager.getLogger(FactCache.class);
+
+    private static final int FORMAT_VERSION = 2;
+    private static final String ENTRY_EXTENSION = ".facts";
+
+    private final Path root;
+    private final Path directory;
+    private final long maxSize;
+    private long size;
+
+    /**
+     * Content hashes of the files whose lookup missed, reused when storing their facts.
+     */
+    private final Map <File, String> missedHashes = new ConcurrentHashMap <>();
+
+    private final AtomicInteger hits = new AtomicInteger();
+    private final AtomicInteger misses = new AtomicInteger();
+
+    /**
+     * @param root    directory of the cache, created if needed
+     * @param version version of symfinder
+     * @param maxSize maximum size of the entries in bytes
+     */
+    public FactCache(Path root, String version, long maxSize) throws IOException {
+        this.root = root;
+        this.directory = root.resolve(ContentHash.of(version + "/" + FORMAT_VERSION));
+        this.maxSize = maxSize;
+        Files.createDirectories(directory);
+        try (Stream <Path> entries = listEntries()) {
+            size = entries.mapToLong(FactCache::getSize).sum();
+        }
+    }
+
+    /**
+     * Returns the cached facts of the file, if any.
+     */
+    public Optional <List <Fact>> get(File file) {
+        try {
+            String hash = ContentHash.of(file);
+            Path entry = directory.resolve(hash + ENTRY_EXTENSION);
+            if (Files.exists(entry)) {
+                List <Fact> facts = read(entry);
+                Files.setLastModifiedTime(entry, FileTime.fromMillis(System.currentTimeMillis()));
+                hits.incrementAndGet();
+                return Optional.of(facts);
+            }
+            missedHashes.put(file, hash);
+        } catch (IOException e) {
+            logger.warn("Could not read the cached facts of " + file + ": " + e.getMessage());
+        }
+        misses.incrementAndGet();
+        return Optional.empty();
+    }
+
+    /**
+     * Stores the facts produced by visiting the file, evicting the least recently used entries if the cache becomes too large.
+     */
+    public void put(File file, List <Fact> facts) {
+        try {
+            String hash = missedHashes.remove(file);
+            if (hash == null) {
+                hash = ContentHash.of(file);
+            }
+            Path entry = directory.resolve(hash + ENTRY_EXTENSION);
+            Path temporaryEntry = Files.createTempFile(directory, hash, ".tmp");
+            try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporaryEntry)))) {
+                output.writeInt(facts.size());
+                for (Fact fact : facts) {
+                    fact.write(output);
+                }
+            }
+            long entrySize = Files.size(temporaryEntry);
+            Files.move(temporaryEntry, entry, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            addSize(entrySize);
+        } catch (IOException e) {
+            logger.warn("Could not cache the facts of " + file + ": " + e.getMessage());
+        }
+    }
+
+    private static List <Fact> read(Path entry) throws IOException {
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(Files.newInputStream(entry)))) {
+            int nbFacts = input.readInt();
+            List <Fact> facts = new ArrayList <>(nbFacts);
+            for (int i = 0 ; i < nbFacts ; i++) {
+                facts.add(Fact.read(input));
+            }
+            return facts;
+        }
+    }
+
+    private synchronized void addSize(long entrySize) throws IOException {
+        size += entrySize;
+        if (size > maxSize) {
+            evict();
+        }
+    }
+
+    /**
+     * Deletes the least recently used entries until the cache fits in its maximum size.
+     */
+    private void evict() throws IOException {
+        List <Path> entries;
+        try (Stream <Path> stream = listEntries()) {
+            entries = stream.sorted(Comparator.comparingLong(FactCache::getLastModifiedTime)).collect(Collectors.toList());
+        }
+        int nbEvictedEntries = 0;
+        for (Path entry : entries) {
+            if (size <= maxSize) {
+                break;
+            }
+            long entrySize = getSize(entry);
+            if (Files.deleteIfExists(entry)) {
+                size -= entrySize;
+                nbEvictedEntries++;
+            }
+        }
+        logger.debug("Fact cache: " + nbEvictedEntries + " entries evicted");
+    }
+
+    private Stream <Path> listEntries() throws IOException {
+        return Files.walk(root).filter(path -> path.toString().endsWith(ENTRY_EXTENSION)).filter(Files::isRegularFile);
+    }
+
+    private static long getSize(Path entry) {
+        try {
+            return Files.size(entry);
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    private static long getLastModifiedTime(Path entry) {
+        try {
+            return Files.getLastModifiedTime(entry).toMillis();
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    public int getNbHits() {
+        return hits.get();
+    }
+
+    public int getNbMisses() {
+        return misses.get();
+    }
+
+    /**
+     * @return the size of the entries in bytes
+     */
+    public synchronized long getSize() {
+        return size;
+    }
+
+    public void report() {
+        logger.printf(Level.getLevel("MY_LEVEL"), "Fact cache: %d hits, %d misses, %d bytes", getNbHits(), getNbMisses(), getSize());
+    }
+
+}
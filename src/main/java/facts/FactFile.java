@@ -0,0 +1,80 @@
+/*
+ * This file is part of symfinder.
+ *
+ * symfinder is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * symfinder is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with symfinder. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright 2018-2021 Johann Mortara <johann.mortara@univ-cotedazur.fr>
+ * Copyright 2018-2021 Xhevahire Tërnava <t.xheva@gmail.com>
+ * Copyright 2018-2021 Philippe Collet <philippe.collet@univ-cotedazur.fr>
+ */
+
+package facts;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.function.Consumer;
+
+/**
+ * File of facts in the binary format of the fact cache, recorded during an analysis so that its graph writes can be replayed,
+ * for instance to benchmark a graph backend without parsing the project.
+ */
+public class FactFile implements Consumer <Fact>, Closeable {
+
+    private final DataOutputStream output;
+
+    /**
+     * Opens the file for recording, replacing its content.
+     */
+    public FactFile(Path path) throws IOException {
+        Path parent = path.toAbsolutePath().getParent();
+        Files.createDirectories(parent);
+        output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path), 1 << 16));
+    }
+
+    /**
+     * Records the fact. Facts can be recorded from several threads, each fact being written whole.
+     */
+    @Override
+    public synchronized void accept(Fact fact) {
+        try {
+            fact.write(output);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        output.close();
+    }
+
+    /**
+     * Reads the facts of the file in the order they were recorded.
+     */
+    public static void replay(Path path, Consumer <Fact> consumer) throws IOException {
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(Files.newInputStream(path), 1 << 16))) {
+            while (true) {
+                Fact fact;
+                try {
+                    fact = Fact.read(input);
+                } catch (EOFException e) {
+                    return;
+                }
+                consumer.accept(fact);
+            }
+        }
+    }
+
+}
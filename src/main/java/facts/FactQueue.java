@@ -0,0 +1,256 @@
+/*
+ * This file is part of symfinder.
+ *
+ * symfinder is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * symfinder is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with symfinder. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright 2018-2021 Johann Mortara <johann.mortara@univ-cotedazur.fr>
+ * Copyright 2018-2021 Xhevahire Tërnava <t.xheva@gmail.com>
+ * Copyright 2018-2021 Philippe Collet <philippe.collet@univ-cotedazur.fr>
+ */
+
+package facts;
+
+import neograph.GraphStore;
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Graph whose writes returning nothing are put in a bounded queue, from which a writer thread applies them to another graph,
+ * so that the visitors do not wait for the graph writes.
+ * When the queue is full, the visitors wait for the writer thread, so that the queued writes never exceed its capacity.
+ * A queued write is applied by calling the same method of the graph with the same arguments: as the visitors get their nodes
+ * from this graph, the nodes keep their ids instead of being looked up by name for each write.
+ * <p>
+ * Any other call, such as a read or a write returning a node, first waits until all the queued writes are applied,
+ * so that it sees the writes made before it. A lookup of a node by name only waits if a queued write concerns a node of this name,
+ * so that the lookups of the visitors run while the writer thread applies the writes on other nodes.
+ * The writes are applied in the order they were queued.
+ * The writes can also be recorded as {@link Fact}s to another consumer, such as a {@link FactFile}, including the synchronous writes.
+ */
+public class FactQueue implements InvocationHandler, AutoCloseable {
+
+    private static final Logger logger = LogManager.getLogger(FactQueue.class);
+
+    private static final Set <String> QUEUED_METHODS = Set.of("addNode", "addChildNode", "linkFromNode", "linkTwoNodes", "setNodeAttribute", "setNodeAttributes", "addLabelToNode");
+    private static final Set <String> NAME_LOOKUP_METHODS = Set.of("getNode", "getClassNode", "getInterfaceNode", "getOrCreateNode");
+
+    private final GraphStore graph;
+    private final GraphStore proxy;
+    private final BlockingQueue <QueuedWrite> queue;
+    private final Consumer <Fact> recorder;
+    private final Thread writer;
+    private final Map <String, Integer> nbQueuedWritesByName = new ConcurrentHashMap <>();
+
+    private final AtomicLong nbQueuedFacts = new AtomicLong();
+    private long nbAppliedFacts = 0;
+    private RuntimeException failure;
+
+    private final AtomicLong producerWaitTime = new AtomicLong();
+    private final AtomicLong drainWaitTime = new AtomicLong();
+
+    /**
+     * @param graph    graph to which the facts are applied
+     * @param capacity maximum number of writes waiting in the queue
+     * @param recorder consumer to which all the facts are recorded, null if they are not recorded
+     */
+    public FactQueue(GraphStore graph, int capacity, Consumer <Fact> recorder) {
+        this.graph = graph;
+        this.proxy = (GraphStore) Proxy.newProxyInstance(GraphStore.class.getClassLoader(), new Class[]{GraphStore.class}, this);
+        this.queue = new ArrayBlockingQueue <>(Math.max(1, capacity));
+        this.recorder = recorder;
+        this.writer = new Thread(this::applyWrites, "graph-writer");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    /**
+     * @return the graph to give to the visitors so that their writes are queued
+     */
+    public GraphStore getGraph() {
+        return proxy;
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        if (QUEUED_METHODS.contains(method.getName())) {
+            enqueue(new QueuedWrite(method, args, FactRecorder.toFact(method, args)));
+            return null;
+        }
+        if (! NAME_LOOKUP_METHODS.contains(method.getName()) || nbQueuedWritesByName.containsKey((String) args[0])) {
+            drain();
+        }
+        Object result;
+        try {
+            result = method.invoke(graph, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+        if (recorder != null) {
+            Fact fact = FactRecorder.toFact(method, args);
+            if (fact != null) {
+                recorder.accept(fact);
+            }
+        }
+        return result;
+    }
+
+    private void enqueue(QueuedWrite write) {
+        nbQueuedFacts.incrementAndGet();
+        write.fact.getNodeNames().forEach(name -> nbQueuedWritesByName.merge(name, 1, Integer::sum));
+        if (! queue.offer(write)) {
+            long startTime = System.nanoTime();
+            try {
+                queue.put(write);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while queuing a graph write", e);
+            }
+            producerWaitTime.addAndGet(System.nanoTime() - startTime);
+        }
+    }
+
+    private void applyWrites() {
+        while (true) {
+            QueuedWrite write;
+            try {
+                write = queue.take();
+            } catch (InterruptedException e) {
+                return;
+            }
+            RuntimeException exception = null;
+            try {
+                write.method.invoke(graph, write.args);
+                if (recorder != null) {
+                    recorder.accept(write.fact);
+                }
+            } catch (InvocationTargetException e) {
+                exception = e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : new IllegalStateException(e.getCause());
+            } catch (IllegalAccessException e) {
+                exception = new IllegalStateException(e);
+            } catch (RuntimeException e) {
+                exception = e;
+            }
+            write.fact.getNodeNames().forEach(name -> nbQueuedWritesByName.computeIfPresent(name, (key, nbWrites) -> nbWrites == 1 ? null : nbWrites - 1));
+            synchronized (this) {
+                nbAppliedFacts++;
+                if (exception != null && failure == null) {
+                    failure = exception;
+                }
+                notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Waits until all the writes queued so far are applied.
+     *
+     * @throws IllegalStateException if a fact could not be applied
+     */
+    public void drain() {
+        long nbFacts = nbQueuedFacts.get();
+        long startTime = System.nanoTime();
+        synchronized (this) {
+            while (nbAppliedFacts < nbFacts) {
+                try {
+                    wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("Interrupted while waiting for the graph writes", e);
+                }
+            }
+            if (failure != null) {
+                RuntimeException exception = failure;
+                failure = null;
+                throw new IllegalStateException("A queued graph write failed", exception);
+            }
+        }
+        drainWaitTime.addAndGet(System.nanoTime() - startTime);
+    }
+
+    public long getNbQueuedFacts() {
+        return nbQueuedFacts.get();
+    }
+
+    /**
+     * @return the time in milliseconds the visitors waited for the queue to have room
+     */
+    public long getProducerWaitTime() {
+        return producerWaitTime.get() / 1_000_000;
+    }
+
+    /**
+     * @return the time in milliseconds the visitors waited for the queued facts to be applied before another call
+     */
+    public long getDrainWaitTime() {
+        return drainWaitTime.get() / 1_000_000;
+    }
+
+    /**
+     * Logs the number of facts queued since the previous report and the time spent waiting for the writer thread, and resets the counters.
+     * The queue must have been drained.
+     *
+     * @param phaseName name of the phase the statistics refer to
+     */
+    public void reportPhase(String phaseName) {
+        logger.printf(Level.getLevel("MY_LEVEL"), "%s write queue: %d facts, %d ms waiting for room, %d ms waiting for writes",
+                phaseName, getNbQueuedFacts(), getProducerWaitTime(), getDrainWaitTime());
+        nbQueuedFacts.set(0);
+        synchronized (this) {
+            nbAppliedFacts = 0;
+        }
+        producerWaitTime.set(0);
+        drainWaitTime.set(0);
+    }
+
+    /**
+     * Applies the remaining facts and stops the writer thread.
+     */
+    @Override
+    public void close() throws InterruptedException {
+        drain();
+        writer.interrupt();
+        writer.join();
+    }
+
+    /**
+     * Write made by a visitor, with the fact recording it.
+     */
+    private static class QueuedWrite {
+
+        private final Method method;
+        private final Object[] args;
+        private final Fact fact;
+
+        private QueuedWrite(Method method, Object[] args, Fact fact) {
+            this.method = method;
+            this.args = args;
+            this.fact = fact;
+        }
+
+    }
+
+}
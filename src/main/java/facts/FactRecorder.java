@@ -0,0 +1,121 @@
+/*
+ * This file is part of symfinder.
+ *
+ * symfinder is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * symfinder is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with symfinder. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright 2018-2021 Johann Mortara <johann.mortara@univ-cotedazur.fr>
+ * Copyright 2018-2021 Xhevahire Tërnava <t.xheva@gmail.com>
+ * Copyright 2018-2021 Philippe Collet <philippe.collet@univ-cotedazur.fr>
+ */
+
+package facts;
+
+import neo4j_types.EntityAttribute;
+import neo4j_types.EntityType;
+import neo4j_types.NodeType;
+import neo4j_types.RelationType;
+import neograph.GraphStore;
+import org.neo4j.driver.types.Node;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Graph forwarding every call to another graph, and recording as {@link Fact}s the writes made while running an action with {@link #record(Runnable)}.
+ */
+public class FactRecorder implements InvocationHandler {
+
+    private final GraphStore graph;
+    private final GraphStore proxy;
+    private final ThreadLocal <List <Fact>> facts = new ThreadLocal <>();
+
+    public FactRecorder(GraphStore graph) {
+        this.graph = graph;
+        this.proxy = (GraphStore) Proxy.newProxyInstance(GraphStore.class.getClassLoader(), new Class[]{GraphStore.class}, this);
+    }
+
+    /**
+     * @return the graph to give to the visitors so that their writes are recorded
+     */
+    public GraphStore getGraph() {
+        return proxy;
+    }
+
+    /**
+     * Runs the action and returns the facts corresponding to the writes it made on the graph returned by {@link #getGraph()}, in order.
+     */
+    public List <Fact> record(Runnable action) {
+        List <Fact> recorded = new ArrayList <>();
+        facts.set(recorded);
+        try {
+            action.run();
+        } finally {
+            facts.remove();
+        }
+        return recorded;
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        List <Fact> recorded = facts.get();
+        if (recorded != null) {
+            Fact fact = toFact(method, args);
+            if (fact != null) {
+                recorded.add(fact);
+            }
+        }
+        try {
+            return method.invoke(graph, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * @return the fact corresponding to the call, or null if the method does not write on the graph
+     */
+    @SuppressWarnings("unchecked")
+    static Fact toFact(Method method, Object[] args) {
+        switch (method.getName()) {
+            case "createNode":
+            case "addNode":
+                return Fact.addNode((String) args[0], (NodeType) args[1], (NodeType[]) args[2]);
+            case "addChildNode":
+                return Fact.addChildNode((String) args[0], (EntityType) args[1], (String) args[2], (NodeType) args[3], (NodeType[]) args[4], (RelationType) args[5]);
+            case "linkFromNode":
+                return Fact.linkFromNode((String) args[0], (EntityType) args[1], (EntityAttribute[]) args[2], (Node) args[3], (RelationType) args[4]);
+            case "getOrCreateNode":
+                EntityAttribute[] noAttributes = new EntityAttribute[]{};
+                EntityAttribute[] createAttributes = args.length > 2 ? (EntityAttribute[]) args[2] : noAttributes;
+                EntityAttribute[] matchAttributes = args.length > 3 ? (EntityAttribute[]) args[3] : createAttributes;
+                return Fact.getOrCreateNode((String) args[0], (EntityType) args[1], createAttributes, matchAttributes);
+            case "linkTwoNodes":
+                return Fact.linkTwoNodes((Node) args[0], (Node) args[1], (RelationType) args[2]);
+            case "setNodeAttribute":
+                return Fact.setNodeAttribute((Node) args[0], (String) args[1], args[2]);
+            case "setNodeAttributes":
+                return Fact.setNodeAttributes((String) args[0], (EntityType) args[1], (Map <String, Object>) args[2]);
+            case "addLabelToNode":
+                return Fact.addLabel((Node) args[0], (String) args[1]);
+            default:
+                return null;
+        }
+    }
+
+}
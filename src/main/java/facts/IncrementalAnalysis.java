@@ -0,0 +1,235 @@
+/*
+ * This file is part of symfinder.
+ *
+ * symfinder is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * symfinder is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with symfinder. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright 2018-2021 Johann Mortara <johann.mortara@univ-cotedazur.fr>
+ * Copyright 2018-2021 Xhevahire Tërnava <t.xheva@gmail.com>
+ * Copyright 2018-2021 Philippe Collet <philippe.collet@univ-cotedazur.fr>
+ */
+
+package facts;
+
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.json.JSONTokener;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Re-analysis of a project which has already been analysed, visiting only the files which changed since the previous analysis.
+ * <p>
+ * A manifest keeps, for each source file, the SHA-256 hash of its content and the facts produced by each visitor phase when visiting it.
+ * At the beginning of a phase, the facts of the unchanged files are replayed on the graph, and only the changed files remain to be visited.
+ * A phase can only be replayed if the graph it starts from is the same as in the previous analysis,
+ * i.e. if in all the previous phases the changed and removed files produced the same facts as before.
+ * Otherwise, all the files are visited from this phase on.
+ * The graph is always built again from the facts, so the detection of variability and hotspots, which is computed on the whole graph, is not affected.
+ * The manifest is discarded if it was written by another version of symfinder.
+ */
+public class IncrementalAnalysis {
+
+    private static final Logger logger = LogManager.getLogger(IncrementalAnalysis.class);
+
+    private final Path manifestPath;
+    private final Path sourceRoot;
+    private final String version;
+    private final FactRecorder recorder;
+
+    /**
+     * Entries of the previous analysis, by file path relative to the source root.
+     */
+    private final Map <String, Entry> previousEntries = new HashMap <>();
+    private final Map <String, Entry> entries = new ConcurrentHashMap <>();
+
+    private boolean replayable = true;
+    private String phaseName;
+    private Set <String> visitedFiles;
+    private int nbReplayedFiles;
+
+    /**
+     * @param manifestPath manifest of the previous analysis, which does not need to exist
+     * @param sourceRoot   directory the paths of the manifest are relative to
+     * @param version      version of symfinder, the manifest of another version being ignored
+     * @param recorder     recorder of the graph given to the visitors, on which the facts are replayed
+     */
+    public IncrementalAnalysis(Path manifestPath, Path sourceRoot, String version, FactRecorder recorder) throws IOException {
+        this.manifestPath = manifestPath;
+        this.sourceRoot = sourceRoot.toAbsolutePath().normalize();
+        this.version = String.valueOf(version);
+        this.recorder = recorder;
+        load();
+    }
+
+    private void load() throws IOException {
+        if (! Files.exists(manifestPath)) {
+            logger.log(Level.getLevel("MY_LEVEL"), "No manifest found at " + manifestPath + ", all files will be visited");
+            return;
+        }
+        JSONObject manifest;
+        try (InputStream inputStream = Files.newInputStream(manifestPath)) {
+            manifest = new JSONObject(new JSONTokener(inputStream));
+        }
+        if (! version.equals(manifest.optString("version"))) {
+            logger.log(Level.getLevel("MY_LEVEL"), "Manifest written by another version of symfinder, all files will be visited");
+            return;
+        }
+        JSONObject files = manifest.getJSONObject("files");
+        for (String path : files.keySet()) {
+            previousEntries.put(path, Entry.fromJson(files.getJSONObject(path)));
+        }
+    }
+
+    /**
+     * Begins a phase, replaying the facts of the unchanged files if possible.
+     *
+     * @param phaseName name of the phase, identifying its facts in the manifest
+     * @param files     all the files of the project
+     * @return the files to visit in this phase
+     */
+    public List <File> beginPhase(String phaseName, List <File> files) throws IOException {
+        this.phaseName = phaseName;
+        this.visitedFiles = ConcurrentHashMap.newKeySet();
+        this.nbReplayedFiles = 0;
+        List <File> filesToVisit = new ArrayList <>();
+        for (File file : files) {
+            String path = getPath(file);
+            Entry entry = entries.get(path);
+            if (entry == null) {
+                entry = new Entry(ContentHash.of(file));
+                entries.put(path, entry);
+            }
+            Entry previousEntry = previousEntries.get(path);
+            if (replayable && previousEntry != null && previousEntry.hash.equals(entry.hash) && previousEntry.facts.containsKey(phaseName)) {
+                List <Fact> facts = previousEntry.facts.get(phaseName);
+                facts.forEach(fact -> fact.applyTo(recorder.getGraph()));
+                entry.facts.put(phaseName, facts);
+                nbReplayedFiles++;
+            } else {
+                filesToVisit.add(file);
+            }
+        }
+        return filesToVisit;
+    }
+
+    /**
+     * Visits a file of the current phase, recording the facts produced by the visit.
+     *
+     * @param file   visited file
+     * @param action visit of the file, which must write on the graph of the recorder
+     * @return the facts produced by the visit
+     */
+    public List <Fact> visit(File file, Runnable action) {
+        String path = getPath(file);
+        List <Fact> facts = recorder.record(action);
+        entries.get(path).facts.put(phaseName, facts);
+        visitedFiles.add(path);
+        return facts;
+    }
+
+    /**
+     * Ends the current phase, checking whether the next phases can still be replayed.
+     */
+    public void endPhase() {
+        if (replayable) {
+            for (Map.Entry <String, Entry> previousEntry : previousEntries.entrySet()) {
+                Entry entry = entries.get(previousEntry.getKey());
+                List <Fact> previousFacts = previousEntry.getValue().facts.getOrDefault(phaseName, List.of());
+                List <Fact> facts = entry == null ? List.of() : entry.facts.getOrDefault(phaseName, List.of());
+                if (! previousFacts.equals(facts)) {
+                    replayable = false;
+                    break;
+                }
+            }
+            for (String path : visitedFiles) {
+                if (! previousEntries.containsKey(path) && ! entries.get(path).facts.get(phaseName).isEmpty()) {
+                    replayable = false;
+                    break;
+                }
+            }
+        }
+        logger.printf(Level.getLevel("MY_LEVEL"), "%s incremental analysis: %d files replayed, %d files visited%s",
+                phaseName, nbReplayedFiles, visitedFiles.size(), replayable ? "" : ", next phases will visit all files");
+    }
+
+    /**
+     * @return true if the next phase can replay the facts of the unchanged files
+     */
+    public boolean isReplayable() {
+        return replayable;
+    }
+
+    /**
+     * Writes the manifest of this analysis, replacing the previous one.
+     */
+    public void save() throws IOException {
+        Files.createDirectories(manifestPath.toAbsolutePath().getParent());
+        JSONObject files = new JSONObject();
+        entries.forEach((path, entry) -> files.put(path, entry.toJson()));
+        try (Writer writer = Files.newBufferedWriter(manifestPath, StandardCharsets.UTF_8)) {
+            new JSONObject().put("version", version).put("files", files).write(writer);
+        }
+    }
+
+    private String getPath(File file) {
+        return sourceRoot.relativize(file.toPath().toAbsolutePath().normalize()).toString().replace(File.separatorChar, '/');
+    }
+
+    /**
+     * Content hash and facts by phase of a file.
+     */
+    private static class Entry {
+
+        private final String hash;
+        private final Map <String, List <Fact>> facts = new ConcurrentHashMap <>();
+
+        private Entry(String hash) {
+            this.hash = hash;
+        }
+
+        private JSONObject toJson() {
+            JSONObject phases = new JSONObject();
+            facts.forEach((phase, phaseFacts) -> {
+                JSONArray json = new JSONArray();
+                phaseFacts.forEach(fact -> json.put(fact.toJson()));
+                phases.put(phase, json);
+            });
+            return new JSONObject().put("hash", hash).put("facts", phases);
+        }
+
+        private static Entry fromJson(JSONObject json) {
+            Entry entry = new Entry(json.getString("hash"));
+            JSONObject phases = json.getJSONObject("facts");
+            for (String phase : phases.keySet()) {
+                List <Fact> phaseFacts = new ArrayList <>();
+                phases.getJSONArray(phase).forEach(fact -> phaseFacts.add(Fact.fromJson((JSONArray) fact)));
+                entry.facts.put(phase, phaseFacts);
+            }
+            return entry;
+        }
+
+    }
+
+}
@@ -0,0 +1,149 @@
+/*
+ * This file is part of symfinder.
+ *
+ * symfinder is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * symfinder is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with symfinder. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright 2018-2021 Johann Mortara <johann.mortara@univ-cotedazur.fr>
+ * Copyright 2018-2021 Xhevahire Tërnava <t.xheva@gmail.com>
+ * Copyright 2018-2021 Philippe Collet <philippe.collet@univ-cotedazur.fr>
+ */
+
+package neograph;
+
+import java.io.IOException;
+import java.util.*;
+
+/**
+ * Writes the graph used by the visualization in a format where nothing is repeated.
+ * Each node is written once, even if it belongs to several arrays of the JSON format, as the list of the values of the fields in nodeFields:
+ * its package and simple name as indexes in the strings table, its labels as a bitset of indexes in the types table,
+ * its metrics, and for each kind of child, a flat list of name index and number pairs.
+ * Links are written as a flat list of source node index, target node index and index in the linkTypes table.
+ * The arrays of the JSON format are rebuilt by the reader from the labels of the nodes and the types of the links.
+ * The tables being filled as the nodes and links are written, they are written last.
+ */
+class CompactGraphWriter implements AutoCloseable {
+
+    static final String FORMAT = "symfinder-compact-1";
+    private static final String[] PROPERTIES = {"methodVPs", "constructorVPs", "methodVariants", "constructorVariants", "publicMethods", "publicConstructors", "allMethods", "nbCompositions"};
+    private static final String[] CHILDREN = {"methods", "constructors", "attributes", "interfaceAttributes"};
+    // Largest bitset exactly represented by a JavaScript number
+    private static final int MAX_TYPES = 53;
+
+    private final JsonGraphWriter writer;
+    private final Map <String, Integer> strings = new LinkedHashMap <>();
+    private final Map <String, Integer> types = new LinkedHashMap <>();
+    private final Map <String, Integer> linkTypes = new LinkedHashMap <>();
+    private final Map <String, Integer> nodeIndexes = new HashMap <>();
+    private int nbNodes = 0;
+    private boolean writingLinks = false;
+
+    CompactGraphWriter(String filePath) throws IOException {
+        writer = new JsonGraphWriter(filePath);
+        List <String> nodeFields = new ArrayList <>(Arrays.asList("package", "name", "types"));
+        nodeFields.addAll(Arrays.asList(PROPERTIES));
+        nodeFields.addAll(Arrays.asList(CHILDREN));
+        writer.writeField("format", FORMAT);
+        writer.writeField("nodeFields", nodeFields);
+        writer.beginArray("nodes");
+    }
+
+    /**
+     * Writes a node having the same fields as the ones of the allnodes array of the JSON format.
+     * All nodes must be written before the links.
+     */
+    void writeNode(Map <String, Object> node) {
+        if (writingLinks) {
+            throw new IllegalStateException("Nodes must be written before links");
+        }
+        String name = (String) node.get("name");
+        int separator = name.lastIndexOf('.');
+        List <Object> values = new ArrayList <>();
+        values.add(intern(strings, separator < 0 ? "" : name.substring(0, separator)));
+        values.add(intern(strings, name.substring(separator + 1)));
+        long typesBitset = 0;
+        for (Object type : (List <?>) node.get("types")) {
+            int index = intern(types, type.toString());
+            if (index >= MAX_TYPES) {
+                throw new IllegalStateException("Too many node types to be written as a bitset");
+            }
+            typesBitset |= 1L << index;
+        }
+        values.add(typesBitset);
+        for (String property : PROPERTIES) {
+            values.add(node.get(property));
+        }
+        for (String children : CHILDREN) {
+            values.add(getChildrenCounts((List <?>) node.get(children)));
+        }
+        writer.writeElement(values);
+        nodeIndexes.putIfAbsent(name, nbNodes++);
+    }
+
+    /**
+     * Writes a link having the same fields as the ones of the alllinks array of the JSON format.
+     * Links whose source or target has not been written are ignored.
+     */
+    void writeLink(Map <String, Object> link) {
+        if (! writingLinks) {
+            beginLinks();
+        }
+        Integer source = nodeIndexes.get(link.get("source"));
+        Integer target = nodeIndexes.get(link.get("target"));
+        if (source != null && target != null) {
+            writer.writeElement(source);
+            writer.writeElement(target);
+            writer.writeElement(intern(linkTypes, link.get("type").toString()));
+        }
+    }
+
+    private void beginLinks() {
+        writer.endArray();
+        writer.beginArray("links");
+        writingLinks = true;
+    }
+
+    private List <Object> getChildrenCounts(List <?> children) {
+        if (children == null) {
+            return null;
+        }
+        List <Object> counts = new ArrayList <>();
+        for (Object child : children) {
+            Map <?, ?> count = (Map <?, ?>) child;
+            counts.add(intern(strings, (String) count.get("name")));
+            counts.add(count.get("number"));
+        }
+        return counts;
+    }
+
+    private static int intern(Map <String, Integer> table, String value) {
+        return table.computeIfAbsent(value, v -> table.size());
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            if (! writingLinks) {
+                beginLinks();
+            }
+            writer.endArray();
+            writer.writeField("strings", new ArrayList <>(strings.keySet()));
+            writer.writeField("types", new ArrayList <>(types.keySet()));
+            writer.writeField("linkTypes", new ArrayList <>(linkTypes.keySet()));
+        } finally {
+            writer.close();
+        }
+    }
+
+}
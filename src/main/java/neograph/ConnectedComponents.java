@@ -0,0 +1,93 @@
+/*
+ * This file is part of symfinder.
+ *
+ * symfinder is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * symfinder is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with symfinder. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright 2018-2021 Johann Mortara <johann.mortara@univ-cotedazur.fr>
+ * Copyright 2018-2021 Xhevahire Tërnava <t.xheva@gmail.com>
+ * Copyright 2018-2021 Philippe Collet <philippe.collet@univ-cotedazur.fr>
+ */
+
+package neograph;
+
+import java.util.*;
+
+/**
+ * Connected components of an undirected graph whose edges are added one at a time, computed with a union-find structure.
+ * Nodes are identified by their Neo4j id, and each edge is processed once, whatever the number of components later queried.
+ */
+class ConnectedComponents {
+
+    private Map <Long, Integer> indexes = new HashMap <>();
+    private long[] ids = new long[16];
+    private int[] parents = new int[16];
+    private int[] sizes = new int[16];
+
+    void union(long node1, long node2) {
+        int root1 = find(getIndex(node1));
+        int root2 = find(getIndex(node2));
+        if (root1 == root2) {
+            return;
+        }
+        if (sizes[root1] < sizes[root2]) {
+            int root = root1;
+            root1 = root2;
+            root2 = root;
+        }
+        parents[root2] = root1;
+        sizes[root1] += sizes[root2];
+    }
+
+    /**
+     * @return the ids of the nodes connected to the node, including itself
+     */
+    List <Long> getComponent(long node) {
+        Integer index = indexes.get(node);
+        if (index == null) {
+            return Collections.singletonList(node);
+        }
+        int root = find(index);
+        List <Long> component = new ArrayList <>(sizes[root]);
+        for (int i = 0 ; i < indexes.size() ; i++) {
+            if (find(i) == root) {
+                component.add(ids[i]);
+            }
+        }
+        return component;
+    }
+
+    private int getIndex(long node) {
+        return indexes.computeIfAbsent(node, id -> {
+            int index = indexes.size();
+            if (index == ids.length) {
+                ids = Arrays.copyOf(ids, index * 2);
+                parents = Arrays.copyOf(parents, index * 2);
+                sizes = Arrays.copyOf(sizes, index * 2);
+            }
+            ids[index] = id;
+            parents[index] = index;
+            sizes[index] = 1;
+            return index;
+        });
+    }
+
+    private int find(int index) {
+        while (parents[index] != index) {
+            parents[index] = parents[parents[index]];
+            index = parents[index];
+        }
+        return index;
+    }
+
+}
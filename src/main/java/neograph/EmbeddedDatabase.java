@@ -0,0 +1,216 @@
+/*
+ * This file is part of symfinder.
+ *
+ * symfinder is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * symfinder is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with symfinder. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright 2018-2021 Johann Mortara <johann.mortara@univ-cotedazur.fr>
+ * Copyright 2018-2021 Xhevahire Tërnava <t.xheva@gmail.com>
+ * Copyright 2018-2021 Philippe Collet <philippe.collet@univ-cotedazur.fr>
+ */
+
+package neograph;
+
+import org.neo4j.common.DependencyResolver;
+import org.neo4j.configuration.GraphDatabaseSettings;
+import org.neo4j.configuration.connectors.BoltConnector;
+import org.neo4j.dbms.api.DatabaseManagementService;
+import org.neo4j.dbms.api.DatabaseManagementServiceBuilder;
+import org.neo4j.driver.Record;
+import org.neo4j.driver.Value;
+import org.neo4j.driver.Values;
+import org.neo4j.driver.internal.InternalRecord;
+import org.neo4j.driver.internal.InternalRelationship;
+import org.neo4j.driver.internal.value.NodeValue;
+import org.neo4j.exceptions.KernelException;
+import org.neo4j.graphdb.ExecutionPlanDescription;
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Label;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Relationship;
+import org.neo4j.graphdb.Result;
+import org.neo4j.graphdb.Transaction;
+import org.neo4j.kernel.api.procedure.GlobalProcedures;
+import org.neo4j.kernel.internal.GraphDatabaseAPI;
+
+import java.io.File;
+import java.util.*;
+import java.util.function.Consumer;
+
+/**
+ * Neo4j database running in the JVM of symfinder, queried without going through the Bolt protocol.
+ * symfinder's procedures are registered in the database when it is started.
+ * Results are converted to the same records as the ones returned by the driver,
+ * so that {@link NeoGraph} handles both modes the same way.
+ */
+public class EmbeddedDatabase implements AutoCloseable {
+
+    /**
+     * Procedures of the procedures module, which are in the unnamed package and thus referenced by name.
+     */
+    private static final List <String> PROCEDURES = List.of("DetectionProcedure", "GetChildrenProcedure");
+
+    private DatabaseManagementService managementService;
+    private GraphDatabaseService database;
+
+    /**
+     * Starts a database stored in the given directory, with symfinder's procedures.
+     *
+     * @param databaseDirectory directory where the database files are stored
+     */
+    public EmbeddedDatabase(String databaseDirectory) {
+        managementService = new DatabaseManagementServiceBuilder(new File(databaseDirectory))
+                .setConfig(BoltConnector.enabled, false)
+                .build();
+        database = managementService.database(GraphDatabaseSettings.DEFAULT_DATABASE_NAME);
+        try {
+            registerProcedures();
+        } catch (RuntimeException e) {
+            managementService.shutdown();
+            throw e;
+        }
+    }
+
+    /**
+     * Uses an already running database, which is not shut down when closing this object.
+     *
+     * @param database database to query
+     */
+    public EmbeddedDatabase(GraphDatabaseService database) {
+        this.database = database;
+    }
+
+    private void registerProcedures() {
+        DependencyResolver resolver = ((GraphDatabaseAPI) database).getDependencyResolver();
+        GlobalProcedures procedures = resolver.resolveDependency(GlobalProcedures.class);
+        for (String procedure : PROCEDURES) {
+            try {
+                procedures.registerProcedure(Class.forName(procedure));
+            } catch (ClassNotFoundException | KernelException e) {
+                throw new IllegalStateException("Cannot register the procedures of " + procedure, e);
+            }
+        }
+    }
+
+    Transaction beginTransaction() {
+        return database.beginTx();
+    }
+
+    /**
+     * Runs a request in its own transaction.
+     */
+    List <Record> run(String request, Value parameters) {
+        try (Transaction tx = database.beginTx()) {
+            List <Record> records = run(tx, request, parameters);
+            tx.commit();
+            return records;
+        }
+    }
+
+    /**
+     * Runs a request in its own transaction, passing each record to the consumer as soon as it is read.
+     */
+    void run(String request, Value parameters, Consumer <Record> consumer) {
+        try (Transaction tx = database.beginTx()) {
+            run(tx, request, parameters, consumer);
+            tx.commit();
+        }
+    }
+
+    /**
+     * Runs a request in the given transaction.
+     * Nodes and relationships are copied in the records, so that they can be read once the transaction is closed.
+     */
+    List <Record> run(Transaction tx, String request, Value parameters) {
+        List <Record> records = new ArrayList <>();
+        run(tx, request, parameters, records::add);
+        return records;
+    }
+
+    /**
+     * Runs a request in the given transaction, passing each record to the consumer as soon as it is read.
+     */
+    void run(Transaction tx, String request, Value parameters, Consumer <Record> consumer) {
+        try (Result result = tx.execute(request, parameters.asMap())) {
+            List <String> columns = result.columns();
+            while (result.hasNext()) {
+                Map <String, Object> row = result.next();
+                Value[] values = new Value[columns.size()];
+                for (int i = 0 ; i < values.length ; i++) {
+                    values[i] = toValue(row.get(columns.get(i)));
+                }
+                consumer.accept(new InternalRecord(columns, values));
+            }
+        }
+    }
+
+    /**
+     * Plans a request with EXPLAIN, without running it.
+     *
+     * @return the names of the operators of the plan
+     */
+    List <String> explain(String request, Value parameters) {
+        try (Transaction tx = database.beginTx() ; Result result = tx.execute("EXPLAIN " + request, parameters.asMap())) {
+            List <String> operators = new ArrayList <>();
+            addOperators(result.getExecutionPlanDescription(), operators);
+            return operators;
+        }
+    }
+
+    private static void addOperators(ExecutionPlanDescription plan, List <String> operators) {
+        operators.add(plan.getName());
+        plan.getChildren().forEach(child -> addOperators(child, operators));
+    }
+
+    private static Value toValue(Object object) {
+        if (object instanceof Node) {
+            Node node = (Node) object;
+            List <String> labels = new ArrayList <>();
+            for (Label label : node.getLabels()) {
+                labels.add(label.name());
+            }
+            return new NodeValue(new NodeSnapshot(node.getId(), labels, toValues(node.getAllProperties())));
+        }
+        if (object instanceof Relationship) {
+            Relationship relationship = (Relationship) object;
+            return new InternalRelationship(relationship.getId(), relationship.getStartNode().getId(),
+                    relationship.getEndNode().getId(), relationship.getType().name(),
+                    toValues(relationship.getAllProperties())).asValue();
+        }
+        if (object instanceof Map) {
+            Map <String, Value> map = new LinkedHashMap <>();
+            ((Map <?, ?>) object).forEach((key, value) -> map.put(key.toString(), toValue(value)));
+            return Values.value(map);
+        }
+        if (object instanceof List) {
+            List <Value> list = new ArrayList <>();
+            ((List <?>) object).forEach(element -> list.add(toValue(element)));
+            return Values.value(list);
+        }
+        return Values.value(object);
+    }
+
+    private static Map <String, Value> toValues(Map <String, Object> properties) {
+        Map <String, Value> values = new HashMap <>();
+        properties.forEach((key, value) -> values.put(key, Values.value(value)));
+        return values;
+    }
+
+    @Override
+    public void close() {
+        if (managementService != null) {
+            managementService.shutdown();
+        }
+    }
+
+}
@@ -0,0 +1,499 @@
+/*
+ * This file is part of symfinder.
+ *
+ * symfinder is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * symfinder is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with symfinder. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright 2018-2021 Johann Mortara <johann.mortara@univ-cotedazur.fr>
+ * Copyright 2018-2021 Xhevahire Tërnava <t.xheva@gmail.com>
+ * Copyright 2018-2021 Philippe Collet <philippe.collet@univ-cotedazur.fr>
+ */
+
+package neograph;
+
+import configuration.Configuration;
+import neo4j_types.*;
+import org.neo4j.driver.types.Node;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Graph of the types of the analysed project, on which variability is detected.
+ * Nodes are returned as snapshots: they do not reflect the changes made to the graph after they were returned.
+ */
+public interface GraphStore extends AutoCloseable {
+
+    /**
+     * Creates a node of corresponding name and types and returns it.
+     *
+     * @param name  Node name
+     * @param types Node types
+     */
+    Node createNode(String name, NodeType type, NodeType... types);
+
+    /**
+     * Creates a node of corresponding name and types without returning it, allowing the creation to be buffered.
+     *
+     * @param name  Node name
+     * @param types Node types
+     */
+    void addNode(String name, NodeType type, NodeType... types);
+
+    /**
+     * Creates a node linked to its parent by a relationship parent -> node of the given type.
+     * The parent node is matched or created as by {@link #getOrCreateNode(String, EntityType)}.
+     * The creation may be buffered.
+     *
+     * @param parentName   Parent node name
+     * @param parentType   Parent node type
+     * @param name         Node name
+     * @param type         Node type
+     * @param types        Node types
+     * @param relationType type of the relationship parent -> node
+     */
+    void addChildNode(String parentName, EntityType parentType, String name, NodeType type, NodeType[] types, RelationType relationType);
+
+    /**
+     * Creates the relationship source -> target of the given type,
+     * the source node being matched or created as by {@link #getOrCreateNode(String, EntityType, EntityAttribute[], EntityAttribute[])}.
+     * The creation may be buffered.
+     *
+     * @param sourceName       source node name
+     * @param sourceType       source node type
+     * @param createAttributes source node attributes added when creating the node
+     * @param target           target node
+     */
+    void linkFromNode(String sourceName, EntityType sourceType, EntityAttribute[] createAttributes, Node target, RelationType type);
+
+    Optional <Node> getNode(String name);
+
+    /**
+     * Returns the node labeled CLASS and having the name in parameter
+     *
+     * @param name node name
+     * @return the node if it exists, Optional.empty otherwise
+     */
+    Optional <Node> getClassNode(String name);
+
+    /**
+     * Returns the node labeled INTERFACE and having the name in parameter
+     *
+     * @param name node name
+     * @return the node if it exists, Optional.empty otherwise
+     */
+    Optional <Node> getInterfaceNode(String name);
+
+    /**
+     * Returns the node corresponding to the superclass of the node whose name is in parameter
+     *
+     * @param name node name
+     * @return the node if it exists, Optional.empty otherwise
+     */
+    Optional <Node> getSuperclassNode(String name);
+
+    /**
+     * Returns the list of nodes corresponding to the interfaces implemented by the node whose name is in parameter
+     *
+     * @param name node name
+     * @return the node if it exists, Optional.empty otherwise
+     */
+    List <Node> getImplementedInterfacesNodes(String name);
+
+    Optional <Node> getNodeWithNameInPackage(String name, String packageName);
+
+    /**
+     * Returns the node if it exists, creates it and returns it otherwise.
+     * As we use qualified names, each name is unique. Therefore, we can match only on node name.
+     * If the node does not exist, it is created with the specified types as labels.
+     *
+     * @param name             Node name
+     * @param type             Node type
+     * @param createAttributes Node attributes added when creating the node
+     * @param matchAttributes  Node attributes added when matching an existing node
+     */
+    Node getOrCreateNode(String name, EntityType type, EntityAttribute[] createAttributes, EntityAttribute[] matchAttributes);
+
+    default Node getOrCreateNode(String name, EntityType type) {
+        return getOrCreateNode(name, type, new EntityAttribute[]{}, new EntityAttribute[]{});
+    }
+
+    default Node getOrCreateNode(String name, EntityType type, EntityAttribute[] attributes) {
+        return getOrCreateNode(name, type, attributes, attributes);
+    }
+
+    /**
+     * Creates the relationship node1 -> node2 of the given type.
+     * The creation may be buffered.
+     *
+     * @param node1 source node
+     * @param node2 target node
+     */
+    void linkTwoNodes(Node node1, Node node2, RelationType type);
+
+    void setNodeAttribute(Node node, String attributeName, Object value);
+
+    /**
+     * Sets all the attributes on the node of the given name and type in a single write,
+     * the node being matched or created as by {@link #getOrCreateNode(String, EntityType)}.
+     * The write may be buffered.
+     *
+     * @param name       node name
+     * @param type       node type
+     * @param attributes values of the attributes, by attribute name
+     */
+    void setNodeAttributes(String name, EntityType type, Map <String, Object> attributes);
+
+    void addLabelToNode(Node node, String label);
+
+    Object getPropertyValue(Node node, String property);
+
+    /**
+     * Checks whether two nodes have a direct relationship.
+     *
+     * @param parentNode source node of the relationship
+     * @param childNode  destination node of the relationship
+     * @return true if a relationship exists, false otherwise
+     */
+    boolean relatedTo(Node parentNode, Node childNode);
+
+    /**
+     * Checks whether a node having the name extends or implements the given node.
+     *
+     * @param name      name of the subtype
+     * @param supertype node of the class or interface
+     * @return true if a relationship supertype -[:EXTENDS]-> node exists from a CLASS, or supertype -[:IMPLEMENTS]-> node from an INTERFACE,
+     * false otherwise
+     */
+    boolean inheritsFrom(String name, Node supertype);
+
+    /**
+     * @return the names of all class and interface nodes
+     */
+    Set <String> getTypeNames();
+
+    /**
+     * Prepares answering {@link #getNbVariants(Node)}, {@link #relatedTo(Node, Node)} and {@link #inheritsFrom(String, Node)}
+     * without querying the graph, once the inheritance relationships are created. Does nothing by default.
+     */
+    default void indexHierarchy() {
+    }
+
+    /**
+     * Sends the buffered write operations, if any.
+     */
+    default void flush() {
+    }
+
+    default void detectHotspots() {
+        detectSingularHotspotsInSubtyping(Configuration.getSingularityThreshold());
+        detectSingularHotspotsInOverloading(Configuration.getSingularityThreshold());
+        detectHotspotsInAggregation(Configuration.getAggregationThreshold());
+        setHotspotLabels();
+    }
+
+    void detectHotspotsInAggregation(int threshold);
+
+    void detectSingularHotspotsInSubtyping(int threshold);
+
+    void detectSingularHotspotsInOverloading(int threshold);
+
+    void setHotspotLabels();
+
+    /**
+     * Detects the VPs and variants from the properties computed while visiting the classes,
+     * i.e. the method and constructor VPs and variants and the numbers of public methods and constructors,
+     * and from the properties computed here from the relationships of the nodes.
+     */
+    default void detectVPsAndVariants() {
+        setNbVariantsProperty();
+        setVPLabels();
+        setMethodLevelVPLabels();
+        setVariantsLabels();
+        setNbCompositions();
+        detectStrategiesWithComposition();
+        detectDensity();
+    }
+
+    /**
+     * Sets the number of methods with different names defined more than once in the class.
+     * <p>
+     * Example of a class containing the following methods:
+     * - public void add(Point2D pt)
+     * - public void add(Rectangle2D r)
+     * - public void add(double newx, double newy)
+     * - public PathIterator getPathIterator(AffineTransform at)
+     * - public PathIterator getPathIterator(AffineTransform at, double flatness)
+     * <p>
+     * Two methods are overloaded, therefore the value returned will be 2.
+     * This is independent of the numbers of overloads for each method.
+     * If no method is overloaded, the property is set to 0.
+     */
+    void setMethodVPs();
+
+    /**
+     * Sets the number of public methods in a public class
+     */
+    void setPublicMethods();
+
+    /**
+     * Sets the number of all methods in a class
+     */
+    void setAllMethods();
+
+    /**
+     * Sets the number of method variants induced by method VPs.
+     * <p>
+     * Example of a class containing the following methods:
+     * - public void add(Point2D pt)
+     * - public void add(Rectangle2D r)
+     * - public void add(double newx, double newy)
+     * - public PathIterator getPathIterator(AffineTransform at)
+     * - public PathIterator getPathIterator(AffineTransform at, double flatness)
+     * <p>
+     * Two methods are overloaded with respectively 3 and 2 overloads, therefore the value returned will be 5.
+     * If no method is overloaded, the property is set to 0.
+     */
+    void setMethodVariants();
+
+    /**
+     * Sets the number of overloaded constructors in the class.
+     * If there is more than a constructor, this means that the constructor is overloaded, hence the value is 1.
+     * If there is no overload (i.e. there is 0 or 1 constructor), the property is set to 0.
+     */
+    void setConstructorVPs();
+
+    void setPublicConstructors();
+
+    /**
+     * Sets the number of overloads of the constructor in the class.
+     * If there is no overload (i.e. there is 0 or 1 constructor), the property is set to 0.
+     */
+    void setConstructorVariants();
+
+    /**
+     * Creates for all class and interfaces nodes a property classVariants expressing the number of subclasses it contains.
+     */
+    void setNbVariantsProperty();
+
+    void setNbCompositions();
+
+    /**
+     * Adds a VP label to the node if it is a VP.
+     * A node is a VP if it:
+     * - is an abstract class
+     * - is an interface
+     * - has class or method level variants (subclasses / implementations or methods / constructors overloads)
+     * - has a design pattern.
+     */
+    void setVPLabels();
+
+    void setMethodLevelVPLabels();
+
+    void setVariantsLabels();
+
+    void detectDensity();
+
+    void detectStrategiesWithComposition();
+
+    int getNbPublicClass();
+
+    /**
+     * Get number of subclasses of a class or implementations of an interface
+     *
+     * @param node Node corresponding to the class
+     * @return Number of subclasses or implementations
+     */
+    int getNbVariants(Node node);
+
+    /**
+     * Get total number of variants.
+     * This corresponds to the number of variants at class and method level.
+     *
+     * @return Number of variants
+     */
+    default int getTotalNbVariants() {
+        return getNbClassLevelVariants() + getNbMethodLevelVariants();
+    }
+
+    /**
+     * Get number of variants at class level.
+     * This corresponds to the number of concrete classes without a subclass and extending a class or implementing an interface defined in the project.
+     *
+     * @return Number of class level variants
+     */
+    int getNbClassLevelVariants();
+
+    /**
+     * Get number of variants at class level.
+     * This corresponds to the number of concrete classes without a subclass and extending a class or implementing an interface.
+     *
+     * @return Number of class level variants
+     */
+    default int getNbMethodLevelVariants() {
+        return getNbMethodVariants() + getNbConstructorVariants();
+    }
+
+    /**
+     * Get number of variants caused by method overloading.
+     * This corresponds to the total number of method variants.
+     *
+     * @return Number of overloaded methods
+     */
+    int getNbMethodVariants();
+
+    /**
+     * Get number of variants caused by constructor overloading.
+     * This corresponds to the total number of constructor overloads.
+     *
+     * @return Number of constructor overloads
+     */
+    int getNbConstructorVariants();
+
+    /**
+     * Get total number of overloaded constructors.
+     *
+     * @return Number of overloaded constructors
+     */
+    int getNbConstructorVPs();
+
+    /**
+     * Get total number of public constructors.
+     *
+     * @return Number of public constructors
+     */
+    int getNbPublicConstructors();
+
+    /**
+     * Get total number of overloaded methods.
+     *
+     * @return Number of overloaded methods
+     */
+    int getNbMethodVPs();
+
+    /**
+     * Get total number of public methods.
+     *
+     * @return Number of public methods
+     */
+    int getNbPublicMethods();
+
+    /**
+     * Get total number of all methods.
+     *
+     * @return Number of all methods
+     */
+    int getNbAllMethods();
+
+    /**
+     * Get total number of VPs.
+     * This corresponds to the number of VPs at class and method level.
+     *
+     * @return Number of VPs
+     */
+    default int getTotalNbVPs() {
+        return getNbClassLevelVPs() + getNbMethodLevelVPs();
+    }
+
+    /**
+     * Get total number of method level VPs.
+     * These are :
+     * - overloaded methods
+     * - overloaded constructors
+     *
+     * @return Number of method level VPs
+     */
+    default int getNbMethodLevelVPs() {
+        return getNbMethodVPs() + getNbConstructorVPs();
+    }
+
+    /**
+     * Get total number of class level VPs.
+     * These are :
+     * - interfaces
+     * - abstract classes
+     * - extended classes
+     *
+     * @return Number of class level VPs
+     */
+    int getNbClassLevelVPs();
+
+    int getNbAttributeComposeClass();
+
+    int getNbNodes();
+
+    int getNbRelationships();
+
+    int getNbInheritanceRelationships();
+
+    int getNbCompositionRelationship();
+
+    /**
+     * Writes the JSON representation of the VPs and variants used by the visualization,
+     * gzip compressed if the file name ends with .gz.
+     */
+    void writeVPGraphFile(String filePath);
+
+    /**
+     * Writes the same graph as {@link #writeVPGraphFile(String)}, each node being written once,
+     * with names stored in a string table and links referencing nodes by index.
+     */
+    void writeCompactVPGraphFile(String filePath);
+
+    default void writeStatisticsFile(String filePath) {
+        writeToFile(filePath, generateStatisticsJson());
+    }
+
+    /**
+     * Computes all the counts of the statistics file together.
+     * Implementations override it to compute them in a single pass over the graph instead of one request per count.
+     */
+    default Statistics getStatistics() {
+        return new Statistics(getNbClassLevelVPs(), getNbMethodVPs(), getNbConstructorVPs(),
+                getNbClassLevelVariants(), getNbMethodVariants(), getNbConstructorVariants(),
+                getNbPublicMethods(), getNbAllMethods(), getNbPublicConstructors(), getNbAttributeComposeClass(),
+                getNbNodes(), getNbRelationships(), getNbInheritanceRelationships(), getNbCompositionRelationship());
+    }
+
+    default void writeToFile(String filePath, String content) {
+        try (Writer writer = JsonGraphWriter.newWriter(filePath)) {
+            writer.write(content);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    default String generateStatisticsJson() {
+        return getStatistics().toJson();
+    }
+
+    void createClassesIndex();
+
+    void createInterfacesIndex();
+
+    /**
+     * Deletes all nodes and relationships in the graph.
+     */
+    void deleteGraph();
+
+    /**
+     * Sends the pending operations and releases the resources held by the graph.
+     */
+    @Override
+    void close();
+
+}
@@ -0,0 +1,122 @@
+/*
+ * This file is part of symfinder.
+ *
+ * symfinder is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * symfinder is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with symfinder. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright 2018-2021 Johann Mortara <johann.mortara@univ-cotedazur.fr>
+ * Copyright 2018-2021 Xhevahire Tërnava <t.xheva@gmail.com>
+ * Copyright 2018-2021 Philippe Collet <philippe.collet@univ-cotedazur.fr>
+ */
+
+package neograph;
+
+import java.util.Arrays;
+
+/**
+ * Copy of the relationships of the graph held in primitive arrays, so that the questions asked by the pattern visitors
+ * about the hierarchy (number of variants, direct relationship, inheritance) are answered without a request.
+ * Relationships are sorted by source id then target id, and for each distinct source,
+ * its outgoing relationships are found by binary search in the sorted array of sources.
+ * The index is a snapshot: it must be dropped as soon as a relationship is created.
+ */
+class HierarchyIndex {
+
+    private long[] sources;
+    private int[] offsets;
+    private long[] targets;
+    private boolean[] subtyping;
+    private String[] targetNames;
+    private int[] nbVariants;
+
+    /**
+     * @param relationshipSources ids of the sources of the relationships
+     * @param relationshipTargets ids of the targets of the relationships
+     * @param isSubtyping         for each relationship, whether it is an EXTENDS relationship from a CLASS or an IMPLEMENTS relationship from an INTERFACE
+     * @param isVariant           for each relationship, whether it is an EXTENDS or IMPLEMENTS relationship whose target is a CLASS
+     * @param names               for each relationship, name of the target if it is a subtyping relationship, null otherwise
+     */
+    HierarchyIndex(long[] relationshipSources, long[] relationshipTargets, boolean[] isSubtyping, boolean[] isVariant, String[] names) {
+        int nbRelationships = relationshipSources.length;
+        Integer[] order = new Integer[nbRelationships];
+        for (int i = 0 ; i < nbRelationships ; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> relationshipSources[a] != relationshipSources[b] ?
+                Long.compare(relationshipSources[a], relationshipSources[b]) :
+                Long.compare(relationshipTargets[a], relationshipTargets[b]));
+        targets = new long[nbRelationships];
+        subtyping = new boolean[nbRelationships];
+        targetNames = new String[nbRelationships];
+        long[] distinctSources = new long[nbRelationships];
+        int[] sourceOffsets = new int[nbRelationships + 1];
+        int[] sourceVariants = new int[nbRelationships];
+        int nbSources = 0;
+        for (int i = 0 ; i < nbRelationships ; i++) {
+            int relationship = order[i];
+            if (nbSources == 0 || distinctSources[nbSources - 1] != relationshipSources[relationship]) {
+                distinctSources[nbSources] = relationshipSources[relationship];
+                sourceOffsets[nbSources] = i;
+                nbSources++;
+            }
+            targets[i] = relationshipTargets[relationship];
+            subtyping[i] = isSubtyping[relationship];
+            targetNames[i] = names[relationship];
+            if (isVariant[relationship]) {
+                sourceVariants[nbSources - 1]++;
+            }
+        }
+        sourceOffsets[nbSources] = nbRelationships;
+        sources = Arrays.copyOf(distinctSources, nbSources);
+        offsets = Arrays.copyOf(sourceOffsets, nbSources + 1);
+        nbVariants = Arrays.copyOf(sourceVariants, nbSources);
+    }
+
+    /**
+     * @return the number of EXTENDS or IMPLEMENTS relationships from the node to a CLASS
+     */
+    int getNbVariants(long node) {
+        int source = Arrays.binarySearch(sources, node);
+        return source < 0 ? 0 : nbVariants[source];
+    }
+
+    /**
+     * @return true if a relationship source -> target exists
+     */
+    boolean relatedTo(long source, long target) {
+        int index = Arrays.binarySearch(sources, source);
+        return index >= 0 && Arrays.binarySearch(targets, offsets[index], offsets[index + 1], target) >= 0;
+    }
+
+    /**
+     * @return true if an EXTENDS relationship from the supertype, if it is a CLASS, or an IMPLEMENTS relationship, if it is an INTERFACE,
+     * exists to a node having the name
+     */
+    boolean inheritsFrom(String name, long supertype) {
+        int index = Arrays.binarySearch(sources, supertype);
+        if (index < 0) {
+            return false;
+        }
+        for (int i = offsets[index] ; i < offsets[index + 1] ; i++) {
+            if (subtyping[i] && name.equals(targetNames[i])) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    int getNbRelationships() {
+        return targets.length;
+    }
+
+}
@@ -0,0 +1,1086 @@
+/*
+ * This file is part of symfinder.
+ *
+ * symfinder is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * symfinder is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with symfinder. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright 2018-2021 Johann Mortara <johann.mortara@univ-cotedazur.fr>
+ * Copyright 2018-2021 Xhevahire Tërnava <t.xheva@gmail.com>
+ * Copyright 2018-2021 Philippe Collet <philippe.collet@univ-cotedazur.fr>
+ */
+
+package neograph;
+
+import neo4j_types.*;
+import org.neo4j.driver.Record;
+import org.neo4j.driver.Value;
+import org.neo4j.driver.Values;
+import org.neo4j.driver.types.Node;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.*;
+import java.util.function.BiPredicate;
+import java.util.function.Consumer;
+import java.util.function.IntPredicate;
+import java.util.stream.Collectors;
+
+/**
+ * Graph held in the JVM, with the same semantics as the Cypher requests of {@link NeoGraph}.
+ * Nodes are identified by their index in the node arrays, labels are stored as bitsets,
+ * and relationships as arrays indexed by relationship id, with for each node the ids of its outgoing and incoming relationships.
+ * Nodes are never deleted, except by {@link #deleteGraph()}.
+ * All operations are synchronized, so that the graph can be shared by parallel visitors.
+ */
+public class InMemoryGraph implements GraphStore {
+
+    private static final RelationType[] RELATION_TYPES = RelationType.values();
+
+    // Labels, a label being represented by its index in the bitset of each node
+    private List <String> labelNames;
+    private Map <String, Integer> labelIndexes;
+
+    // Nodes
+    private int nbNodes;
+    private long[] nodeLabels;
+    private List <Map <String, Object>> nodeProperties;
+    private IntList[] outgoingRelationships;
+    private IntList[] incomingRelationships;
+    private Map <String, IntList> nodesByName;
+    private Map <String, IntList> nodesBySimpleName;
+
+    // Relationships
+    private int nbRelationships;
+    private int[] relationshipSources;
+    private int[] relationshipTargets;
+    private byte[] relationshipTypes;
+
+    public InMemoryGraph() {
+        deleteGraph();
+    }
+
+    @Override
+    public synchronized Node createNode(String name, NodeType type, NodeType... types) {
+        return snapshot(newNode(name, getLabels(type, types)));
+    }
+
+    @Override
+    public synchronized void addNode(String name, NodeType type, NodeType... types) {
+        newNode(name, getLabels(type, types));
+    }
+
+    @Override
+    public synchronized void addChildNode(String parentName, EntityType parentType, String name, NodeType type, NodeType[] types, RelationType relationType) {
+        IntList parents = merge(parentName, parentType, new EntityAttribute[]{}, new EntityAttribute[]{});
+        for (int i = 0 ; i < parents.size() ; i++) {
+            newRelationship(parents.get(i), newNode(name, getLabels(type, types)), relationType);
+        }
+    }
+
+    @Override
+    public synchronized void linkFromNode(String sourceName, EntityType sourceType, EntityAttribute[] createAttributes, Node target, RelationType type) {
+        IntList sources = merge(sourceName, sourceType, createAttributes, new EntityAttribute[]{});
+        if (exists(target)) {
+            for (int i = 0 ; i < sources.size() ; i++) {
+                newRelationship(sources.get(i), (int) target.id(), type);
+            }
+        }
+    }
+
+    @Override
+    public synchronized Optional <Node> getNode(String name) {
+        IntList nodes = nodesByName.get(name);
+        return nodes == null ? Optional.empty() : Optional.of(snapshot(nodes.get(0)));
+    }
+
+    @Override
+    public synchronized Optional <Node> getClassNode(String name) {
+        return getNodeWithLabel(name, EntityType.CLASS);
+    }
+
+    @Override
+    public synchronized Optional <Node> getInterfaceNode(String name) {
+        return getNodeWithLabel(name, EntityType.INTERFACE);
+    }
+
+    @Override
+    public synchronized Optional <Node> getSuperclassNode(String name) {
+        List <Integer> superclasses = getSources(name, RelationType.EXTENDS, EntityType.CLASS);
+        return superclasses.isEmpty() ? Optional.empty() : Optional.of(snapshot(superclasses.get(0)));
+    }
+
+    @Override
+    public synchronized List <Node> getImplementedInterfacesNodes(String name) {
+        return getSources(name, RelationType.IMPLEMENTS, EntityType.INTERFACE).stream()
+                .map(this::snapshot)
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public synchronized Optional <Node> getNodeWithNameInPackage(String name, String packageName) {
+        IntList nodes = nodesBySimpleName.get(getSimpleName(name));
+        for (int i = 0 ; nodes != null && i < nodes.size() ; i++) {
+            int node = nodes.get(i);
+            String nodeName = getName(node);
+            if ((hasLabel(node, EntityType.CLASS) || hasLabel(node, EntityType.INTERFACE))
+                    && nodeName.startsWith(packageName + ".") && nodeName.endsWith("." + name)) {
+                return Optional.of(snapshot(node));
+            }
+        }
+        return Optional.empty();
+    }
+
+    @Override
+    public synchronized Node getOrCreateNode(String name, EntityType type, EntityAttribute[] createAttributes, EntityAttribute[] matchAttributes) {
+        return snapshot(merge(name, type, createAttributes, matchAttributes).get(0));
+    }
+
+    @Override
+    public synchronized void linkTwoNodes(Node node1, Node node2, RelationType type) {
+        if (exists(node1) && exists(node2)) {
+            newRelationship((int) node1.id(), (int) node2.id(), type);
+        }
+    }
+
+    @Override
+    public synchronized void setNodeAttribute(Node node, String attributeName, Object value) {
+        if (exists(node)) {
+            setProperty((int) node.id(), attributeName, value);
+        }
+    }
+
+    @Override
+    public synchronized void setNodeAttributes(String name, EntityType type, Map <String, Object> attributes) {
+        IntList nodes = merge(name, type, new EntityAttribute[]{}, new EntityAttribute[]{});
+        for (int i = 0 ; i < nodes.size() ; i++) {
+            int node = nodes.get(i);
+            attributes.forEach((attributeName, value) -> setProperty(node, attributeName, value));
+        }
+    }
+
+    @Override
+    public synchronized void addLabelToNode(Node node, String label) {
+        if (exists(node)) {
+            addLabel((int) node.id(), label);
+        }
+    }
+
+    @Override
+    public synchronized Object getPropertyValue(Node node, String property) {
+        return exists(node) ? getProperty((int) node.id(), property) : null;
+    }
+
+    @Override
+    public synchronized boolean relatedTo(Node parentNode, Node childNode) {
+        if (! exists(parentNode)) {
+            return false;
+        }
+        IntList relationships = outgoingRelationships[(int) parentNode.id()];
+        for (int i = 0 ; i < relationships.size() ; i++) {
+            if (relationshipTargets[relationships.get(i)] == childNode.id()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public synchronized boolean inheritsFrom(String name, Node supertype) {
+        if (! exists(supertype)) {
+            return false;
+        }
+        // A class is extended and an interface implemented, an interface extended by another interface does not count
+        int subtypingRelationship;
+        if (hasLabel((int) supertype.id(), EntityType.CLASS)) {
+            subtypingRelationship = RelationType.EXTENDS.ordinal();
+        } else if (hasLabel((int) supertype.id(), EntityType.INTERFACE)) {
+            subtypingRelationship = RelationType.IMPLEMENTS.ordinal();
+        } else {
+            return false;
+        }
+        IntList relationships = outgoingRelationships[(int) supertype.id()];
+        for (int i = 0 ; i < relationships.size() ; i++) {
+            int relationship = relationships.get(i);
+            if (relationshipTypes[relationship] == subtypingRelationship && name.equals(getName(relationshipTargets[relationship]))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Marks as aggregation hotspots the nodes reachable through INSTANTIATE relationships, in any direction,
+     * from the first VP, if there are at least threshold VPs, and then the variants of the marked nodes.
+     */
+    @Override
+    public synchronized void detectHotspotsInAggregation(int threshold) {
+        int nbVPs = 0;
+        int firstVP = - 1;
+        for (int node = 0 ; node < nbNodes ; node++) {
+            if (hasLabel(node, EntityAttribute.VP)) {
+                nbVPs++;
+                if (firstVP < 0) {
+                    firstVP = node;
+                }
+            }
+        }
+        if (firstVP >= 0 && nbVPs >= threshold) {
+            BitSet visited = new BitSet(nbNodes);
+            Deque <Integer> toVisit = new ArrayDeque <>();
+            visited.set(firstVP);
+            toVisit.add(firstVP);
+            while (! toVisit.isEmpty()) {
+                int node = toVisit.poll();
+                setProperty(node, "aggregation", true);
+                for (IntList relationships : new IntList[]{outgoingRelationships[node], incomingRelationships[node]}) {
+                    for (int i = 0 ; i < relationships.size() ; i++) {
+                        int relationship = relationships.get(i);
+                        if (relationshipTypes[relationship] == RelationType.INSTANTIATE.ordinal()) {
+                            int neighbour = relationshipSources[relationship] == node ? relationshipTargets[relationship] : relationshipSources[relationship];
+                            if (! visited.get(neighbour)) {
+                                visited.set(neighbour);
+                                toVisit.add(neighbour);
+                            }
+                        }
+                    }
+                }
+            }
+        }
+        List <Integer> variants = new ArrayList <>();
+        for (int node = 0 ; node < nbNodes ; node++) {
+            if (Boolean.TRUE.equals(getProperty(node, "aggregation"))) {
+                variants.addAll(getTargets(node, EnumSet.of(RelationType.EXTENDS), EntityAttribute.VARIANT));
+            }
+        }
+        variants.forEach(variant -> setProperty(variant, "aggregation", true));
+    }
+
+    @Override
+    public synchronized void detectSingularHotspotsInSubtyping(int threshold) {
+        List <Integer> hotspots = new ArrayList <>();
+        for (int node = 0 ; node < nbNodes ; node++) {
+            if (hasLabel(node, EntityAttribute.VP)) {
+                List <Integer> variants = getTargets(node, EnumSet.allOf(RelationType.class), EntityAttribute.VARIANT);
+                if (! variants.isEmpty() && variants.size() >= threshold) {
+                    hotspots.add(node);
+                    hotspots.addAll(variants);
+                }
+            }
+        }
+        hotspots.forEach(node -> setProperty(node, "hotspot", true));
+    }
+
+    @Override
+    public synchronized void detectSingularHotspotsInOverloading(int threshold) {
+        for (int node = 0 ; node < nbNodes ; node++) {
+            Object methodVariants = getProperty(node, "methodVariants");
+            Object constructorVariants = getProperty(node, "constructorVariants");
+            if (methodVariants instanceof Number && constructorVariants instanceof Number
+                    && ((Number) methodVariants).longValue() + ((Number) constructorVariants).longValue() >= threshold) {
+                setProperty(node, "hotspot", true);
+            }
+        }
+    }
+
+    @Override
+    public synchronized void setHotspotLabels() {
+        for (int node = 0 ; node < nbNodes ; node++) {
+            if (Boolean.TRUE.equals(getProperty(node, "hotspot")) || Boolean.TRUE.equals(getProperty(node, "aggregation"))) {
+                addLabel(node, EntityAttribute.HOTSPOT.toString());
+            }
+        }
+    }
+
+    @Override
+    public synchronized void setMethodVPs() {
+        for (int node = 0 ; node < nbNodes ; node++) {
+            if (hasLabel(node, EntityType.CLASS)) {
+                long nbOverloadedMethods = getChildrenByName(node, EntityType.METHOD).values().stream()
+                        .filter(overloads -> overloads.size() > 1)
+                        .count();
+                if (nbOverloadedMethods > 0) {
+                    setProperty(node, "methodVPs", nbOverloadedMethods);
+                }
+            }
+        }
+        setMissingPropertyToZero("methodVPs", EntityType.CLASS);
+    }
+
+    @Override
+    public synchronized void setPublicMethods() {
+        setNbChildrenProperty("publicMethods", EntityType.METHOD, true);
+    }
+
+    @Override
+    public synchronized void setAllMethods() {
+        setNbChildrenProperty("allMethods", EntityType.METHOD, false);
+    }
+
+    @Override
+    public synchronized void setMethodVariants() {
+        for (int node = 0 ; node < nbNodes ; node++) {
+            if (hasLabel(node, EntityType.CLASS)) {
+                long nbOverloads = getChildrenByName(node, EntityType.METHOD).values().stream()
+                        .filter(overloads -> overloads.size() > 1)
+                        .mapToLong(Set::size)
+                        .sum();
+                if (nbOverloads > 0) {
+                    setProperty(node, "methodVariants", nbOverloads);
+                }
+            }
+        }
+        setMissingPropertyToZero("methodVariants", EntityType.CLASS);
+    }
+
+    @Override
+    public synchronized void setConstructorVPs() {
+        for (int node = 0 ; node < nbNodes ; node++) {
+            if (hasLabel(node, EntityType.CLASS)) {
+                List <Integer> constructors = getTargets(node, EnumSet.allOf(RelationType.class), EntityType.CONSTRUCTOR);
+                if (! constructors.isEmpty()) {
+                    setProperty(node, "constructorVPs", countNamed(constructors) > 1 ? 1L : 0L);
+                }
+            }
+        }
+        setMissingPropertyToZero("constructorVPs", EntityType.CLASS);
+    }
+
+    @Override
+    public synchronized void setPublicConstructors() {
+        setNbChildrenProperty("publicConstructors", EntityType.CONSTRUCTOR, true);
+    }
+
+    @Override
+    public synchronized void setConstructorVariants() {
+        for (int node = 0 ; node < nbNodes ; node++) {
+            if (hasLabel(node, EntityType.CLASS)) {
+                List <Integer> constructors = getTargets(node, EnumSet.allOf(RelationType.class), EntityType.CONSTRUCTOR);
+                if (! constructors.isEmpty()) {
+                    long nbConstructors = countNamed(constructors);
+                    setProperty(node, "constructorVariants", nbConstructors > 1 ? nbConstructors : 0L);
+                }
+            }
+        }
+        setMissingPropertyToZero("constructorVariants", EntityType.CLASS);
+    }
+
+    @Override
+    public synchronized void setNbVariantsProperty() {
+        for (int node = 0 ; node < nbNodes ; node++) {
+            List <Integer> variants = getTargets(node, EnumSet.of(RelationType.EXTENDS, RelationType.IMPLEMENTS), EntityType.CLASS);
+            if (! variants.isEmpty()) {
+                setProperty(node, "classVariants", (long) variants.size());
+            }
+        }
+        setMissingPropertyToZero("classVariants", EntityType.CLASS, EntityType.INTERFACE);
+    }
+
+    @Override
+    public synchronized void setNbCompositions() {
+        for (int node = 0 ; node < nbNodes ; node++) {
+            List <Integer> compositions = getTargets(node, EnumSet.of(RelationType.INSTANTIATE));
+            if (! compositions.isEmpty()) {
+                setProperty(node, "nbCompositions", (long) compositions.size());
+            }
+        }
+    }
+
+    @Override
+    public synchronized void setVPLabels() {
+        List <Integer> vps = new ArrayList <>();
+        for (int node = 0 ; node < nbNodes ; node++) {
+            int currentNode = node;
+            if (! hasLabel(node, EntityAttribute.OUT_OF_SCOPE) &&
+                    (hasLabel(node, EntityType.INTERFACE)
+                            || (hasLabel(node, EntityType.CLASS) && hasLabel(node, EntityAttribute.ABSTRACT))
+                            || Arrays.stream(DesignPatternType.values()).anyMatch(designPattern -> hasLabel(currentNode, designPattern))
+                            || isGreaterThan(getProperty(node, "classVariants"), 0))) {
+                vps.add(node);
+            }
+        }
+        vps.forEach(node -> addLabel(node, EntityAttribute.VP.toString()));
+    }
+
+    @Override
+    public synchronized void setMethodLevelVPLabels() {
+        for (int node = 0 ; node < nbNodes ; node++) {
+            if (! hasLabel(node, EntityAttribute.OUT_OF_SCOPE) &&
+                    (isGreaterThan(getProperty(node, "methodVPs"), 0) || isGreaterThan(getProperty(node, "constructorVPs"), 0))) {
+                addLabel(node, EntityAttribute.METHOD_LEVEL_VP.toString());
+            }
+        }
+    }
+
+    @Override
+    public synchronized void setVariantsLabels() {
+        List <Integer> variants = new ArrayList <>();
+        for (int node = 0 ; node < nbNodes ; node++) {
+            if (hasLabel(node, EntityAttribute.VP)) {
+                variants.addAll(getTargets(node, EnumSet.of(RelationType.EXTENDS, RelationType.IMPLEMENTS), EntityType.CLASS, EntityType.INTERFACE));
+            }
+        }
+        variants.forEach(node -> addLabel(node, EntityAttribute.VARIANT.toString()));
+    }
+
+    @Override
+    public synchronized void detectDensity() {
+        List <Integer> denseNodes = new ArrayList <>();
+        for (int node = 0 ; node < nbNodes ; node++) {
+            if (hasLabel(node, EntityAttribute.VARIANT)) {
+                List <Integer> instantiatedVariants = getTargets(node, EnumSet.of(RelationType.INSTANTIATE), EntityAttribute.VARIANT);
+                if (! instantiatedVariants.isEmpty()) {
+                    denseNodes.add(node);
+                    denseNodes.addAll(instantiatedVariants);
+                }
+            }
+        }
+        denseNodes.forEach(node -> addLabel(node, "DENSE"));
+    }
+
+    @Override
+    public synchronized void detectStrategiesWithComposition() {
+        List <Integer> strategies = new ArrayList <>();
+        for (int node = 0 ; node < nbNodes ; node++) {
+            if (hasLabel(node, EntityType.CLASS) || hasLabel(node, EntityType.INTERFACE)) {
+                getTargets(node, EnumSet.of(RelationType.INSTANTIATE)).stream()
+                        .filter(target -> isGreaterThan(getProperty(target, "classVariants"), 1))
+                        .forEach(strategies::add);
+            }
+        }
+        strategies.forEach(node -> addLabel(node, DesignPatternType.COMPOSITION_STRATEGY.toString()));
+    }
+
+    @Override
+    public synchronized Set <String> getTypeNames() {
+        Set <String> names = new HashSet <>();
+        for (int node = 0 ; node < nbNodes ; node++) {
+            if (hasLabel(node, EntityType.CLASS) || hasLabel(node, EntityType.INTERFACE)) {
+                names.add(getName(node));
+            }
+        }
+        return names;
+    }
+
+    @Override
+    public synchronized int getNbPublicClass() {
+        return countNodes(node -> hasLabel(node, EntityVisibility.PUBLIC));
+    }
+
+    @Override
+    public synchronized int getNbVariants(Node node) {
+        return exists(node) ? getTargets((int) node.id(), EnumSet.of(RelationType.EXTENDS, RelationType.IMPLEMENTS), EntityType.CLASS).size() : 0;
+    }
+
+    @Override
+    public synchronized int getNbClassLevelVariants() {
+        return countNodes(node -> hasLabel(node, EntityAttribute.VARIANT) && ! hasLabel(node, EntityAttribute.VP));
+    }
+
+    @Override
+    public synchronized int getNbMethodVariants() {
+        return sumClassProperty("methodVariants");
+    }
+
+    @Override
+    public synchronized int getNbConstructorVariants() {
+        return sumClassProperty("constructorVariants");
+    }
+
+    @Override
+    public synchronized int getNbConstructorVPs() {
+        return sumClassProperty("constructorVPs");
+    }
+
+    @Override
+    public synchronized int getNbPublicConstructors() {
+        return sumClassProperty("publicConstructors");
+    }
+
+    @Override
+    public synchronized int getNbMethodVPs() {
+        return sumClassProperty("methodVPs");
+    }
+
+    @Override
+    public synchronized int getNbPublicMethods() {
+        return sumClassProperty("publicMethods");
+    }
+
+    @Override
+    public synchronized int getNbAllMethods() {
+        return sumClassProperty("allMethods");
+    }
+
+    @Override
+    public synchronized int getNbClassLevelVPs() {
+        return countNodes(node -> hasLabel(node, EntityAttribute.VP));
+    }
+
+    @Override
+    public synchronized int getNbAttributeComposeClass() {
+        return sumClassProperty("nbCompositions");
+    }
+
+    /**
+     * Computes all the statistics with one pass over the nodes and one over the relationships.
+     */
+    @Override
+    public synchronized Statistics getStatistics() {
+        int nbClassLevelVPs = 0;
+        int nbClassLevelVariants = 0;
+        String[] classProperties = {"methodVPs", "constructorVPs", "methodVariants", "constructorVariants", "publicMethods", "allMethods", "publicConstructors", "nbCompositions"};
+        long[] sums = new long[classProperties.length];
+        for (int node = 0 ; node < nbNodes ; node++) {
+            boolean isVP = hasLabel(node, EntityAttribute.VP);
+            if (isVP) {
+                nbClassLevelVPs++;
+            } else if (hasLabel(node, EntityAttribute.VARIANT)) {
+                nbClassLevelVariants++;
+            }
+            if (hasLabel(node, EntityType.CLASS)) {
+                for (int i = 0 ; i < classProperties.length ; i++) {
+                    Object value = getProperty(node, classProperties[i]);
+                    if (value instanceof Number) {
+                        sums[i] += ((Number) value).longValue();
+                    }
+                }
+            }
+        }
+        int nbInheritanceRelationships = 0;
+        int nbCompositionRelationships = 0;
+        for (int relationship = 0 ; relationship < nbRelationships ; relationship++) {
+            RelationType type = RELATION_TYPES[relationshipTypes[relationship]];
+            if (type == RelationType.EXTENDS || type == RelationType.IMPLEMENTS) {
+                nbInheritanceRelationships++;
+            } else if (type == RelationType.INSTANTIATE) {
+                nbCompositionRelationships++;
+            }
+        }
+        return new Statistics(nbClassLevelVPs, (int) sums[0], (int) sums[1],
+                nbClassLevelVariants, (int) sums[2], (int) sums[3],
+                (int) sums[4], (int) sums[5], (int) sums[6], (int) sums[7],
+                nbNodes, nbRelationships, nbInheritanceRelationships, nbCompositionRelationships);
+    }
+
+    @Override
+    public synchronized int getNbNodes() {
+        return nbNodes;
+    }
+
+    @Override
+    public synchronized int getNbRelationships() {
+        return nbRelationships;
+    }
+
+    @Override
+    public synchronized int getNbInheritanceRelationships() {
+        return countRelationships(EnumSet.of(RelationType.EXTENDS, RelationType.IMPLEMENTS));
+    }
+
+    @Override
+    public synchronized int getNbCompositionRelationship() {
+        return countRelationships(EnumSet.of(RelationType.INSTANTIATE));
+    }
+
+    @Override
+    public synchronized void writeVPGraphFile(String filePath) {
+        try (JsonGraphWriter writer = new JsonGraphWriter(filePath)) {
+            writeVPJsonGraph(writer);
+        } catch (IOException | UncheckedIOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    @Override
+    public void createClassesIndex() {
+        // Nodes are already indexed by name
+    }
+
+    @Override
+    public void createInterfacesIndex() {
+        // Nodes are already indexed by name
+    }
+
+    @Override
+    public synchronized void deleteGraph() {
+        labelNames = new ArrayList <>();
+        labelIndexes = new HashMap <>();
+        nbNodes = 0;
+        nodeLabels = new long[16];
+        nodeProperties = new ArrayList <>();
+        outgoingRelationships = new IntList[16];
+        incomingRelationships = new IntList[16];
+        nodesByName = new HashMap <>();
+        nodesBySimpleName = new HashMap <>();
+        nbRelationships = 0;
+        relationshipSources = new int[16];
+        relationshipTargets = new int[16];
+        relationshipTypes = new byte[16];
+    }
+
+    @Override
+    public void close() {
+    }
+
+    /**
+     * Copies the graph to Neo4j, nodes having the same labels and relationships having the same type being created together.
+     *
+     * @param neoGraph  target graph
+     * @param batchSize maximal number of nodes or relationships created by a request
+     */
+    public synchronized void exportTo(NeoGraph neoGraph, int batchSize) {
+        int size = Math.max(1, batchSize);
+        long[] neo4jIds = new long[nbNodes];
+        Map <Long, List <Integer>> nodesByLabels = new LinkedHashMap <>();
+        for (int node = 0 ; node < nbNodes ; node++) {
+            nodesByLabels.computeIfAbsent(nodeLabels[node], labels -> new ArrayList <>()).add(node);
+        }
+        for (Map.Entry <Long, List <Integer>> nodes : nodesByLabels.entrySet()) {
+            String labels = getLabelNames(nodes.getKey()).stream().map(label -> ":" + label).collect(Collectors.joining());
+            String request = String.format("UNWIND $rows AS row CREATE (n%s) SET n = row.properties RETURN row.index, ID(n)", labels);
+            for (int i = 0 ; i < nodes.getValue().size() ; i += size) {
+                List <Map <String, Object>> rows = nodes.getValue().subList(i, Math.min(i + size, nodes.getValue().size())).stream()
+                        .map(node -> WriteBuffer.row("index", node, "properties", nodeProperties.get(node)))
+                        .collect(Collectors.toList());
+                for (Record record : neoGraph.submitBatch(request, rows)) {
+                    neo4jIds[record.get(0).asInt()] = record.get(1).asLong();
+                }
+            }
+        }
+        for (RelationType type : RELATION_TYPES) {
+            String request = String.format("UNWIND $rows AS row MATCH (a) WHERE ID(a) = row.source " +
+                    "MATCH (b) WHERE ID(b) = row.target CREATE (a)-[:%s]->(b)", type);
+            List <Map <String, Object>> rows = new ArrayList <>();
+            for (int relationship = 0 ; relationship < nbRelationships ; relationship++) {
+                if (relationshipTypes[relationship] == type.ordinal()) {
+                    rows.add(WriteBuffer.row("source", neo4jIds[relationshipSources[relationship]], "target", neo4jIds[relationshipTargets[relationship]]));
+                    if (rows.size() == size) {
+                        neoGraph.submitBatch(request, rows);
+                        rows = new ArrayList <>();
+                    }
+                }
+            }
+            if (! rows.isEmpty()) {
+                neoGraph.submitBatch(request, rows);
+            }
+        }
+    }
+
+    // Export, reproducing the JSON written by NeoGraph
+
+    @Override
+    public synchronized void writeCompactVPGraphFile(String filePath) {
+        try (CompactGraphWriter writer = new CompactGraphWriter(filePath)) {
+            for (int node = 0 ; node < nbNodes ; node++) {
+                if (hasLabel(node, EntityAttribute.VP) || hasLabel(node, EntityAttribute.VARIANT) || hasLabel(node, EntityAttribute.METHOD_LEVEL_VP)
+                        || ((hasLabel(node, EntityType.CLASS) || hasLabel(node, EntityType.INTERFACE)) && ! hasLabel(node, EntityAttribute.OUT_OF_SCOPE))) {
+                    writer.writeNode(getExportedNode(node, true));
+                }
+            }
+            forEachExportedLink((source, type) -> type == RelationType.INSTANTIATE || type == RelationType.EXTENDS || type == RelationType.IMPLEMENTS,
+                    writer::writeLink);
+        } catch (IOException | UncheckedIOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private void writeVPJsonGraph(JsonGraphWriter writer) {
+        writer.beginArray("nodes");
+        for (int node = 0 ; node < nbNodes ; node++) {
+            if (hasLabel(node, EntityAttribute.VP) || hasLabel(node, EntityAttribute.VARIANT) || hasLabel(node, EntityAttribute.METHOD_LEVEL_VP)) {
+                writer.writeObject(getExportedNode(node, false));
+            }
+        }
+        writer.endArray();
+        writeLinks(writer, "links", (source, type) -> hasLabel(source, EntityAttribute.VP) && (type == RelationType.EXTENDS || type == RelationType.IMPLEMENTS));
+        writer.beginArray("allnodes");
+        for (int node = 0 ; node < nbNodes ; node++) {
+            if ((hasLabel(node, EntityType.CLASS) || hasLabel(node, EntityType.INTERFACE)) && ! hasLabel(node, EntityAttribute.OUT_OF_SCOPE)) {
+                writer.writeObject(getExportedNode(node, true));
+            }
+        }
+        writer.endArray();
+        writeLinks(writer, "linkscompose", (source, type) -> hasLabel(source, EntityType.CLASS) && type == RelationType.INSTANTIATE);
+        writeLinks(writer, "alllinks", (source, type) -> type == RelationType.INSTANTIATE || type == RelationType.EXTENDS || type == RelationType.IMPLEMENTS);
+    }
+
+    private void writeLinks(JsonGraphWriter writer, String name, BiPredicate <Integer, RelationType> filter) {
+        writer.beginArray(name);
+        forEachExportedLink(filter, writer::writeObject);
+        writer.endArray();
+    }
+
+    /**
+     * Passes to the consumer the relationships between nodes in scope accepted by the filter, given the source node and the relationship type.
+     */
+    private void forEachExportedLink(BiPredicate <Integer, RelationType> filter, Consumer <Map <String, Object>> consumer) {
+        for (int relationship = 0 ; relationship < nbRelationships ; relationship++) {
+            int source = relationshipSources[relationship];
+            int target = relationshipTargets[relationship];
+            RelationType type = RELATION_TYPES[relationshipTypes[relationship]];
+            if (hasLabel(source, EntityAttribute.OUT_OF_SCOPE) || hasLabel(target, EntityAttribute.OUT_OF_SCOPE) || ! filter.test(source, type)) {
+                continue;
+            }
+            Map <String, Object> link = new HashMap <>();
+            link.put("source", getName(source));
+            link.put("target", getName(target));
+            link.put("type", type.toString());
+            consumer.accept(link);
+        }
+    }
+
+    private Map <String, Object> getExportedNode(int node, boolean withInterfaceAttributes) {
+        Map <String, Object> exportedNode = new HashMap <>();
+        exportedNode.put("types", getLabelNames(nodeLabels[node]));
+        for (String property : new String[]{"name", "methodVPs", "constructorVPs", "methodVariants", "constructorVariants", "publicMethods", "publicConstructors", "allMethods", "nbCompositions"}) {
+            exportedNode.put(property, getProperty(node, property));
+        }
+        exportedNode.put("methods", countChildrenByName(node, EntityType.METHOD, "methodNames"));
+        exportedNode.put("constructors", countChildrenByName(node, EntityType.CONSTRUCTOR, "constructorNames"));
+        exportedNode.put("attributes", countChildrenByName(node, EntityType.CLASS, null));
+        if (withInterfaceAttributes) {
+            exportedNode.put("interfaceAttributes", countChildrenByName(node, EntityType.INTERFACE, null));
+        }
+        return exportedNode;
+    }
+
+    /**
+     * Same result as the symfinder.countAll procedure: for each name of the children having the label,
+     * and of the names stored in the given property of the node, the number of such children and names.
+     */
+    private List <Map <String, Object>> countChildrenByName(int node, NodeType label, String namesProperty) {
+        Map <String, Long> counts = new LinkedHashMap <>();
+        getChildrenByName(node, label).forEach((name, children) -> counts.merge(name, (long) children.size(), Long::sum));
+        Object names = namesProperty == null ? null : getProperty(node, namesProperty);
+        if (names instanceof List) {
+            ((List <?>) names).forEach(name -> counts.merge(name.toString(), 1L, Long::sum));
+        }
+        return counts.entrySet().stream()
+                .map(count -> WriteBuffer.row("name", count.getKey(), "number", count.getValue()))
+                .collect(Collectors.toList());
+    }
+
+    // Nodes
+
+    private int newNode(String name, long labels) {
+        if (nbNodes == nodeLabels.length) {
+            int capacity = nbNodes * 2;
+            nodeLabels = Arrays.copyOf(nodeLabels, capacity);
+            outgoingRelationships = Arrays.copyOf(outgoingRelationships, capacity);
+            incomingRelationships = Arrays.copyOf(incomingRelationships, capacity);
+        }
+        int node = nbNodes++;
+        nodeLabels[node] = labels;
+        nodeProperties.add(new HashMap <>());
+        outgoingRelationships[node] = new IntList();
+        incomingRelationships[node] = new IntList();
+        setProperty(node, "name", name);
+        return node;
+    }
+
+    private boolean exists(Node node) {
+        return node.id() >= 0 && node.id() < nbNodes;
+    }
+
+    /**
+     * Same semantics as MERGE: returns the nodes having the name and the label, after having added them the match attributes,
+     * or creates such a node with the create attributes.
+     */
+    private IntList merge(String name, EntityType type, EntityAttribute[] createAttributes, EntityAttribute[] matchAttributes) {
+        IntList matchingNodes = new IntList();
+        IntList nodes = nodesByName.get(name);
+        for (int i = 0 ; nodes != null && i < nodes.size() ; i++) {
+            if (hasLabel(nodes.get(i), type)) {
+                matchingNodes.add(nodes.get(i));
+            }
+        }
+        if (matchingNodes.size() == 0) {
+            matchingNodes.add(newNode(name, getLabels(type, createAttributes)));
+        } else {
+            for (int i = 0 ; i < matchingNodes.size() ; i++) {
+                for (EntityAttribute attribute : matchAttributes) {
+                    addLabel(matchingNodes.get(i), attribute.toString());
+                }
+            }
+        }
+        return matchingNodes;
+    }
+
+    private Optional <Node> getNodeWithLabel(String name, NodeType label) {
+        IntList nodes = nodesByName.get(name);
+        for (int i = 0 ; nodes != null && i < nodes.size() ; i++) {
+            if (hasLabel(nodes.get(i), label)) {
+                return Optional.of(snapshot(nodes.get(i)));
+            }
+        }
+        return Optional.empty();
+    }
+
+    private String getName(int node) {
+        return (String) getProperty(node, "name");
+    }
+
+    private Object getProperty(int node, String property) {
+        return nodeProperties.get(node).get(property);
+    }
+
+    /**
+     * Sets the property as Neo4j would store it, integers being stored as longs, and a null value removing the property.
+     */
+    private void setProperty(int node, String property, Object value) {
+        Object storedValue = Values.value(value).asObject();
+        Object previousValue = storedValue == null ? nodeProperties.get(node).remove(property) : nodeProperties.get(node).put(property, storedValue);
+        if (property.equals("name") && ! Objects.equals(previousValue, storedValue)) {
+            if (previousValue != null) {
+                removeFromIndex(nodesByName, (String) previousValue, node);
+                removeFromIndex(nodesBySimpleName, getSimpleName((String) previousValue), node);
+            }
+            if (storedValue != null) {
+                nodesByName.computeIfAbsent((String) storedValue, key -> new IntList()).add(node);
+                nodesBySimpleName.computeIfAbsent(getSimpleName((String) storedValue), key -> new IntList()).add(node);
+            }
+        }
+    }
+
+    private static void removeFromIndex(Map <String, IntList> index, String key, int node) {
+        IntList nodes = index.get(key);
+        nodes.remove(node);
+        if (nodes.size() == 0) {
+            index.remove(key);
+        }
+    }
+
+    /**
+     * Returns the part of the name after its last dot, as the simpleName property of the types in Neo4j.
+     */
+    private static String getSimpleName(String name) {
+        return name.substring(name.lastIndexOf('.') + 1);
+    }
+
+    private void setMissingPropertyToZero(String property, NodeType... labels) {
+        for (int node = 0 ; node < nbNodes ; node++) {
+            int currentNode = node;
+            if (Arrays.stream(labels).anyMatch(label -> hasLabel(currentNode, label)) && getProperty(node, property) == null) {
+                setProperty(node, property, 0L);
+            }
+        }
+    }
+
+    /**
+     * Sets on each class the number of its children having the label, both being public if onlyPublic is true.
+     */
+    private void setNbChildrenProperty(String property, EntityType label, boolean onlyPublic) {
+        for (int node = 0 ; node < nbNodes ; node++) {
+            if (hasLabel(node, EntityType.CLASS) && (! onlyPublic || hasLabel(node, EntityVisibility.PUBLIC))) {
+                List <Integer> children = getTargets(node, EnumSet.allOf(RelationType.class), label);
+                if (onlyPublic) {
+                    children.removeIf(child -> ! hasLabel(child, EntityVisibility.PUBLIC));
+                }
+                if (! children.isEmpty()) {
+                    setProperty(node, property, countNamed(children));
+                }
+            }
+        }
+        setMissingPropertyToZero(property, EntityType.CLASS);
+    }
+
+    private long countNamed(List <Integer> nodes) {
+        return nodes.stream().filter(node -> getName(node) != null).count();
+    }
+
+    private int countNodes(IntPredicate predicate) {
+        int count = 0;
+        for (int node = 0 ; node < nbNodes ; node++) {
+            if (predicate.test(node)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private int sumClassProperty(String property) {
+        long sum = 0;
+        for (int node = 0 ; node < nbNodes ; node++) {
+            Object value = getProperty(node, property);
+            if (hasLabel(node, EntityType.CLASS) && value instanceof Number) {
+                sum += ((Number) value).longValue();
+            }
+        }
+        return (int) sum;
+    }
+
+    private static boolean isGreaterThan(Object value, long bound) {
+        return value instanceof Number && ((Number) value).doubleValue() > bound;
+    }
+
+    private Node snapshot(int node) {
+        Map <String, Value> properties = new HashMap <>();
+        nodeProperties.get(node).forEach((key, value) -> properties.put(key, Values.value(value)));
+        return new NodeSnapshot(node, getLabelNames(nodeLabels[node]), properties);
+    }
+
+    // Labels
+
+    private long getLabels(NodeType type, NodeType... types) {
+        long labels = getLabelBit(type.getString());
+        for (NodeType nodeType : types) {
+            labels |= getLabelBit(nodeType.getString());
+        }
+        return labels;
+    }
+
+    private long getLabelBit(String label) {
+        Integer index = labelIndexes.get(label);
+        if (index == null) {
+            if (labelNames.size() == Long.SIZE) {
+                throw new IllegalStateException("Too many labels, cannot add label " + label);
+            }
+            index = labelNames.size();
+            labelNames.add(label);
+            labelIndexes.put(label, index);
+        }
+        return 1L << index;
+    }
+
+    private void addLabel(int node, String label) {
+        nodeLabels[node] |= getLabelBit(label);
+    }
+
+    private boolean hasLabel(int node, NodeType label) {
+        Integer index = labelIndexes.get(label.getString());
+        return index != null && (nodeLabels[node] & (1L << index)) != 0;
+    }
+
+    private List <String> getLabelNames(long labels) {
+        List <String> names = new ArrayList <>();
+        for (int index = 0 ; index < labelNames.size() ; index++) {
+            if ((labels & (1L << index)) != 0) {
+                names.add(labelNames.get(index));
+            }
+        }
+        return names;
+    }
+
+    // Relationships
+
+    private void newRelationship(int source, int target, RelationType type) {
+        if (nbRelationships == relationshipSources.length) {
+            int capacity = nbRelationships * 2;
+            relationshipSources = Arrays.copyOf(relationshipSources, capacity);
+            relationshipTargets = Arrays.copyOf(relationshipTargets, capacity);
+            relationshipTypes = Arrays.copyOf(relationshipTypes, capacity);
+        }
+        int relationship = nbRelationships++;
+        relationshipSources[relationship] = source;
+        relationshipTargets[relationship] = target;
+        relationshipTypes[relationship] = (byte) type.ordinal();
+        outgoingRelationships[source].add(relationship);
+        incomingRelationships[target].add(relationship);
+    }
+
+    /**
+     * Returns the targets of the relationships of the node having one of the types, and one of the labels if any is given.
+     * A target is returned once for each relationship.
+     */
+    private List <Integer> getTargets(int node, EnumSet <RelationType> types, NodeType... labels) {
+        List <Integer> targets = new ArrayList <>();
+        IntList relationships = outgoingRelationships[node];
+        for (int i = 0 ; i < relationships.size() ; i++) {
+            int relationship = relationships.get(i);
+            int target = relationshipTargets[relationship];
+            if (types.contains(RELATION_TYPES[relationshipTypes[relationship]])
+                    && (labels.length == 0 || Arrays.stream(labels).anyMatch(label -> hasLabel(target, label)))) {
+                targets.add(target);
+            }
+        }
+        return targets;
+    }
+
+    /**
+     * Returns the sources of the relationships of the given type targeting the nodes having the name, the sources having the label.
+     */
+    private List <Integer> getSources(String name, RelationType type, NodeType label) {
+        List <Integer> sources = new ArrayList <>();
+        IntList nodes = nodesByName.get(name);
+        for (int i = 0 ; nodes != null && i < nodes.size() ; i++) {
+            IntList relationships = incomingRelationships[nodes.get(i)];
+            for (int j = 0 ; j < relationships.size() ; j++) {
+                int relationship = relationships.get(j);
+                if (relationshipTypes[relationship] == type.ordinal() && hasLabel(relationshipSources[relationship], label)) {
+                    sources.add(relationshipSources[relationship]);
+                }
+            }
+        }
+        return sources;
+    }
+
+    /**
+     * Groups by name the distinct children of the node having the label, whatever the type of the relationship.
+     */
+    private Map <String, Set <Integer>> getChildrenByName(int node, NodeType label) {
+        Map <String, Set <Integer>> children = new LinkedHashMap <>();
+        for (int child : getTargets(node, EnumSet.allOf(RelationType.class), label)) {
+            String name = getName(child);
+            if (name != null) {
+                children.computeIfAbsent(name, key -> new LinkedHashSet <>()).add(child);
+            }
+        }
+        return children;
+    }
+
+    private int countRelationships(EnumSet <RelationType> types) {
+        int count = 0;
+        for (int relationship = 0 ; relationship < nbRelationships ; relationship++) {
+            if (types.contains(RELATION_TYPES[relationshipTypes[relationship]])) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Growable array of ints, avoiding boxing for adjacency lists.
+     */
+    private static class IntList {
+
+        private int[] elements = new int[4];
+        private int size = 0;
+
+        void add(int element) {
+            if (size == elements.length) {
+                elements = Arrays.copyOf(elements, size * 2);
+            }
+            elements[size++] = element;
+        }
+
+        int get(int index) {
+            return elements[index];
+        }
+
+        int size() {
+            return size;
+        }
+
+        void remove(int element) {
+            for (int i = 0 ; i < size ; i++) {
+                if (elements[i] == element) {
+                    System.arraycopy(elements, i + 1, elements, i, size - i - 1);
+                    size--;
+                    return;
+                }
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,132 @@
+/*
+ * This file is part of symfinder.
+ *
+ * symfinder is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * symfinder is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with symfinder. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright 2018-2021 Johann Mortara <johann.mortara@univ-cotedazur.fr>
+ * Copyright 2018-2021 Xhevahire Tërnava <t.xheva@gmail.com>
+ * Copyright 2018-2021 Philippe Collet <philippe.collet@univ-cotedazur.fr>
+ */
+
+package neograph;
+
+import org.json.JSONObject;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Writes a JSON object whose arrays are written one element at a time,
+ * so that the elements never need to be all held in memory.
+ * Files whose name ends with .gz are gzip compressed.
+ */
+class JsonGraphWriter implements AutoCloseable {
+
+    private final Writer writer;
+    private boolean firstField = true;
+    private boolean firstElement;
+
+    JsonGraphWriter(String filePath) throws IOException {
+        writer = newWriter(filePath);
+        writer.write('{');
+    }
+
+    /**
+     * Opens a buffered writer on the file, creating its parent directories if needed.
+     */
+    static Writer newWriter(String filePath) throws IOException {
+        Path path = Paths.get(filePath).toAbsolutePath();
+        Files.createDirectories(path.getParent());
+        OutputStream outputStream = Files.newOutputStream(path);
+        if (filePath.endsWith(".gz")) {
+            outputStream = new GZIPOutputStream(outputStream, 1 << 16);
+        }
+        return new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8), 1 << 16);
+    }
+
+    void beginArray(String name) {
+        writeName(name);
+        write("[");
+        firstElement = true;
+    }
+
+    void writeObject(Map <String, Object> object) {
+        separateElement();
+        new JSONObject(object).write(writer);
+    }
+
+    /**
+     * Writes an element of the current array, which can be a number, a string, a list or a map.
+     */
+    void writeElement(Object element) {
+        separateElement();
+        write(JSONObject.valueToString(element));
+    }
+
+    /**
+     * Writes a value which is not an array written element by element.
+     */
+    void writeField(String name, Object value) {
+        writeName(name);
+        write(JSONObject.valueToString(value));
+    }
+
+    void endArray() {
+        write("]");
+    }
+
+    private void writeName(String name) {
+        if (! firstField) {
+            write(",");
+        }
+        write(JSONObject.quote(name));
+        write(":");
+        firstField = false;
+    }
+
+    private void separateElement() {
+        if (! firstElement) {
+            write(",");
+        }
+        firstElement = false;
+    }
+
+    private void write(String string) {
+        try {
+            writer.write(string);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            writer.write('}');
+        } finally {
+            writer.close();
+        }
+    }
+
+}
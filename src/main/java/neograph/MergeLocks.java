@@ -0,0 +1,93 @@
+/*
+ * This file is part of symfinder.
+ *
+ * symfinder is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * symfinder is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with symfinder. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright 2018-2021 Johann Mortara <johann.mortara@univ-cotedazur.fr>
+ * Copyright 2018-2021 Xhevahire Tërnava <t.xheva@gmail.com>
+ * Copyright 2018-2021 Philippe Collet <philippe.collet@univ-cotedazur.fr>
+ */
+
+package neograph;
+
+import java.util.*;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Locks on node names, serializing the MERGEs of a same name: MERGE is not atomic without a uniqueness constraint,
+ * so concurrent visitors could otherwise create the node twice.
+ * Several names are locked in their natural order, so that threads locking overlapping names cannot deadlock,
+ * and the lock of a name is dropped once no thread holds or waits for it, so that the locks do not grow with the number of names.
+ */
+class MergeLocks {
+
+    private final Map <String, NameLock> locks = new HashMap <>();
+
+    /**
+     * Runs the action while holding the locks of all the names.
+     */
+    <T> T withLocks(Collection <String> names, Supplier <T> action) {
+        List <String> sortedNames = names.stream().distinct().sorted().collect(Collectors.toList());
+        int nbLocked = 0;
+        try {
+            for (String name : sortedNames) {
+                lock(name);
+                nbLocked++;
+            }
+            return action.get();
+        } finally {
+            for (int i = nbLocked - 1 ; i >= 0 ; i--) {
+                unlock(sortedNames.get(i));
+            }
+        }
+    }
+
+    /**
+     * @return the number of names whose lock is held or waited for
+     */
+    int size() {
+        synchronized (locks) {
+            return locks.size();
+        }
+    }
+
+    private void lock(String name) {
+        NameLock nameLock;
+        synchronized (locks) {
+            nameLock = locks.computeIfAbsent(name, key -> new NameLock());
+            nameLock.nbUsers++;
+        }
+        nameLock.lock.lock();
+    }
+
+    private void unlock(String name) {
+        synchronized (locks) {
+            NameLock nameLock = locks.get(name);
+            nameLock.lock.unlock();
+            if (-- nameLock.nbUsers == 0) {
+                locks.remove(name);
+            }
+        }
+    }
+
+    private static class NameLock {
+
+        private final ReentrantLock lock = new ReentrantLock();
+        private int nbUsers = 0;
+
+    }
+
+}
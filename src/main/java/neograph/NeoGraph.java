@@ -21,27 +21,35 @@
 
 package neograph;
 
-import configuration.Configuration;
 import neo4j_types.*;
-import org.json.JSONObject;
 import org.neo4j.driver.*;
 import org.neo4j.driver.exceptions.ServiceUnavailableException;
-import org.neo4j.driver.types.MapAccessor;
+import org.neo4j.driver.summary.Plan;
 import org.neo4j.driver.types.Node;
 
-import java.io.BufferedWriter;
 import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
+import java.io.UncheckedIOException;
 import java.util.*;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
+import static neograph.WriteBuffer.row;
 import static org.neo4j.driver.Values.parameters;
 
-public class NeoGraph {
+public class NeoGraph implements GraphStore {
+
+    private static final String NODE_REQUEST = "MATCH (n {name: $name}) RETURN (n)";
 
     private Driver driver;
+    private EmbeddedDatabase database;
+    private MergeLocks mergeLocks = new MergeLocks();
+    private WriteBuffer writeBuffer = new WriteBuffer(this::runBufferedStatement);
+    private volatile UnitOfWork unitOfWork;
+    private NodeCache nodeCache = new NodeCache();
+    private volatile HierarchyIndex hierarchyIndex;
+    private boolean detectionProcedure = false;
+    private SchemaManager schemaManager = new SchemaManager(this);
+    private boolean schema = false;
 
     public NeoGraph(String uri, String user, String password) {
         driver = GraphDatabase.driver(uri, AuthTokens.basic(user, password));
@@ -51,6 +59,171 @@ public class NeoGraph {
         this.driver = driver;
     }
 
+    /**
+     * Runs the requests directly against an embedded database, without going through a driver.
+     */
+    public NeoGraph(EmbeddedDatabase database) {
+        this.database = database;
+    }
+
+    /**
+     * Sets the number of write operations buffered before being sent to the database.
+     * Buffered operations of the same kind are sent as a single UNWIND statement.
+     * With a batch size of 1 (the default), each operation is sent immediately.
+     * Pending operations are always sent before executing a read, so that reads see previous writes.
+     *
+     * @param batchSize maximal number of buffered write operations
+     */
+    public void setWriteBatchSize(int batchSize) {
+        writeBuffer.setBatchSize(batchSize);
+    }
+
+    /**
+     * Sends all buffered write operations to the database.
+     */
+    public void flush() {
+        writeBuffer.flush();
+    }
+
+    /**
+     * Starts running all requests in a single session until {@link #endUnitOfWork()} is called,
+     * instead of opening a session and committing a transaction for each request.
+     *
+     * @param commitEvery    maximal number of requests in a transaction
+     * @param commitInterval maximal duration of a transaction, in milliseconds
+     */
+    public void beginUnitOfWork(int commitEvery, long commitInterval) {
+        endUnitOfWork();
+        unitOfWork = database != null ? new UnitOfWork(database, commitEvery, commitInterval) : new UnitOfWork(driver, commitEvery, commitInterval);
+    }
+
+    /**
+     * Sends the buffered write operations, commits the current unit of work and closes its session.
+     * If the unit of work failed, its transaction is rolled back, and as the buffered write operations and the cached nodes
+     * may refer to nodes which no longer exist, they are dropped.
+     *
+     * @return the unit of work, whose commit statistics can be read, or null if none was started
+     */
+    public UnitOfWork endUnitOfWork() {
+        UnitOfWork currentUnitOfWork = unitOfWork;
+        try {
+            if (currentUnitOfWork == null || ! currentUnitOfWork.hasFailed()) {
+                writeBuffer.flush();
+            }
+        } finally {
+            if (currentUnitOfWork != null) {
+                if (currentUnitOfWork.hasFailed()) {
+                    writeBuffer.clear();
+                    nodeCache.clear();
+                    hierarchyIndex = null;
+                }
+                currentUnitOfWork.close();
+                unitOfWork = null;
+            }
+        }
+        return currentUnitOfWork;
+    }
+
+    /**
+     * Keeps the nodes looked up by name, so that looking them up again does not need a request.
+     * Cached nodes are updated by the labels and properties set through this object,
+     * and the cache is cleared by the requests modifying nodes in bulk.
+     *
+     * @param enabled true to enable the cache, false to disable and empty it
+     */
+    public void setNodeCacheEnabled(boolean enabled) {
+        nodeCache.setEnabled(enabled);
+    }
+
+    /**
+     * @return the number of node lookups answered by the node cache
+     */
+    public int getNbNodeCacheHits() {
+        return nodeCache.getNbHits();
+    }
+
+    /**
+     * @return the number of node lookups which needed a request, the nodes being not in the node cache
+     */
+    public int getNbNodeCacheMisses() {
+        return nodeCache.getNbMisses();
+    }
+
+    /**
+     * Runs the detection of VPs and variants as a single call to the symfinder.detectAll procedure,
+     * which visits each node once, instead of the sequence of Cypher requests.
+     * The procedure must be installed in the database.
+     *
+     * @param enabled true to use the procedure
+     */
+    public void setDetectionProcedureEnabled(boolean enabled) {
+        detectionProcedure = enabled;
+    }
+
+    /**
+     * Gives the TYPE label to the classes and interfaces, and looks them up through the schema created by {@link #createSchema()}.
+     * A class and an interface having the same qualified name are then merged in a single node.
+     *
+     * @param enabled true to use the schema
+     */
+    public void setSchemaEnabled(boolean enabled) {
+        schema = enabled;
+    }
+
+    /**
+     * Creates the uniqueness constraint on the name of the TYPE nodes and the index on their simple name
+     * if they do not exist yet, and waits for them to be online.
+     */
+    public void createSchema() {
+        writeBuffer.flush();
+        schemaManager.createSchema();
+    }
+
+    /**
+     * Plans with EXPLAIN the requests run for each visited node, without running them.
+     *
+     * @return the requests whose plan scans all nodes of the graph
+     */
+    public List <String> findAllNodesScans() {
+        Map <String, Object[]> requests = new LinkedHashMap <>();
+        requests.put(schema ? getNodeRequest() : NODE_REQUEST, new Object[]{"name", ""});
+        requests.put(getNodeWithNameInPackageRequest(), new Object[]{"simpleName", "", "package", "", "inheritedClassName", ""});
+        requests.put(getSuperclassNodeRequest(), new Object[]{"name", ""});
+        requests.put(getImplementedInterfacesNodesRequest(), new Object[]{"name", ""});
+        requests.put(getInheritsFromRequest(), new Object[]{"name", "", "id", 0L});
+        requests.put(getOrCreateNodeRequest(EntityType.CLASS, new EntityAttribute[]{EntityAttribute.OUT_OF_SCOPE}, new EntityAttribute[]{}),
+                new Object[]{"name", ""});
+        requests.put(getChildNodeRequest(EntityType.CLASS, EntityType.METHOD, new NodeType[]{}, RelationType.METHOD),
+                new Object[]{"rows", List.of()});
+        requests.put(getLinkFromNodeRequest(EntityType.CLASS, new EntityAttribute[]{EntityAttribute.OUT_OF_SCOPE}, RelationType.EXTENDS),
+                new Object[]{"rows", List.of()});
+        requests.put(getSetAttributesRequest(EntityType.CLASS), new Object[]{"rows", List.of()});
+        return schemaManager.findAllNodesScans(requests);
+    }
+
+    @Override
+    public void detectVPsAndVariants() {
+        if (detectionProcedure) {
+            submitRequest("CALL symfinder.detectAll()");
+        } else {
+            GraphStore.super.detectVPsAndVariants();
+        }
+    }
+
+    /**
+     * @return the number of statements sent for buffered write operations
+     */
+    public int getNbWriteStatements() {
+        return writeBuffer.getNbStatements();
+    }
+
+    /**
+     * @return the number of buffered write operations sent
+     */
+    public int getNbWriteOperations() {
+        return writeBuffer.getNbRows();
+    }
+
     public static String getClauseForNodesMatchingLabels(String nodeName, NodeType... types) {
         return Arrays.stream(types).map(nodeType -> nodeName + ":" + nodeType.toString()).collect(Collectors.joining(" OR "));
     }
@@ -62,17 +235,161 @@ public class NeoGraph {
      * @param types Node types
      */
     public Node createNode(String name, NodeType type, NodeType... types) {
+        nodeCache.invalidate(name);
+        String request = isSchemaType(type) ?
+                String.format("MERGE (n:%s {name: $name}) ON CREATE SET %s SET n:%s RETURN (n)",
+                        SchemaManager.TYPE_LABEL, getSimpleNameAssignment("n", "$name"), getLabels(type, types)) :
+                String.format("CREATE (n:%s { name: $name}) RETURN (n)", getLabels(type, types));
+        return submitTrackedRequest(request, "name", name)
+                .get(0).get(0).asNode();
+    }
+
+    /**
+     * Creates a node of corresponding name and types without returning it, allowing the creation to be buffered.
+     *
+     * @param name  Node name
+     * @param types Node types
+     */
+    public void addNode(String name, NodeType type, NodeType... types) {
+        nodeCache.invalidate(name);
+        String request = isSchemaType(type) ?
+                String.format("UNWIND $rows AS row MERGE (n:%s {name: row.name}) ON CREATE SET %s SET n:%s",
+                        SchemaManager.TYPE_LABEL, getSimpleNameAssignment("n", "row.name"), getLabels(type, types)) :
+                String.format("UNWIND $rows AS row CREATE (n:%s {name: row.name})", getLabels(type, types));
+        writeBuffer.add(WriteBuffer.Kind.CREATE_NODE, request, row("name", name));
+    }
+
+    /**
+     * Creates a node linked to its parent by a relationship parent -> node of the given type.
+     * The parent node is matched or created as by {@link #getOrCreateNode(String, EntityType)}.
+     * The creation may be buffered.
+     *
+     * @param parentName   Parent node name
+     * @param parentType   Parent node type
+     * @param name         Node name
+     * @param type         Node type
+     * @param types        Node types
+     * @param relationType type of the relationship parent -> node
+     */
+    public void addChildNode(String parentName, EntityType parentType, String name, NodeType type, NodeType[] types, RelationType relationType) {
+        hierarchyIndex = null;
+        nodeCache.invalidate(parentName);
+        nodeCache.invalidate(name);
+        writeBuffer.add(WriteBuffer.Kind.CREATE_CHILD_NODE, getChildNodeRequest(parentType, type, types, relationType),
+                row("parent", parentName, "name", name));
+    }
+
+    private String getChildNodeRequest(EntityType parentType, NodeType type, NodeType[] types, RelationType relationType) {
+        return String.format("UNWIND $rows AS row %s CREATE (p)-[:%s]->(n:%s {name: row.name})",
+                getMergeClause("p", "row.parent", parentType, new EntityAttribute[]{}), relationType, getLabels(type, types));
+    }
+
+    /**
+     * Creates the relationship source -> target of the given type,
+     * the source node being matched or created as by {@link #getOrCreateNode(String, EntityType, EntityAttribute[], EntityAttribute[])}.
+     * The creation may be buffered.
+     *
+     * @param sourceName       source node name
+     * @param sourceType       source node type
+     * @param createAttributes source node attributes added when creating the node
+     * @param target           target node
+     */
+    public void linkFromNode(String sourceName, EntityType sourceType, EntityAttribute[] createAttributes, Node target, RelationType type) {
+        nodeCache.invalidate(sourceName);
+        hierarchyIndex = null;
+        writeBuffer.add(WriteBuffer.Kind.MERGE_AND_LINK, getLinkFromNodeRequest(sourceType, createAttributes, type),
+                row("source", sourceName, "target", target.id()));
+    }
+
+    private String getLinkFromNodeRequest(EntityType sourceType, EntityAttribute[] createAttributes, RelationType type) {
+        return String.format("UNWIND $rows AS row %s " +
+                "WITH a, row MATCH (b) WHERE ID(b) = row.target CREATE (a)-[:%s]->(b)", getMergeClause("a", "row.source", sourceType, createAttributes), type);
+    }
+
+    /**
+     * Clause merging the node of the given name and type, the attributes being added when creating the node.
+     * With the schema, classes and interfaces are merged on their TYPE label only.
+     *
+     * @param node             variable bound to the node
+     * @param name             expression of the node name
+     * @param type             node type
+     * @param createAttributes node attributes added when creating the node
+     */
+    private String getMergeClause(String node, String name, EntityType type, EntityAttribute[] createAttributes) {
+        if (isSchemaType(type)) {
+            return String.format("MERGE (%1$s:%2$s {name: %3$s}) ON CREATE SET %1$s:%4$s, %5$s",
+                    node, SchemaManager.TYPE_LABEL, name, getLabels(type, createAttributes), getSimpleNameAssignment(node, name));
+        }
+        String onCreateAttributes = createAttributes.length == 0 ?
+                "" :
+                " ON CREATE SET " + node + ":" + Arrays.stream(createAttributes)
+                        .map(NodeType::getString)
+                        .collect(Collectors.joining(":"));
+        return String.format("MERGE (%s:%s {name: %s})%s", node, type, name, onCreateAttributes);
+    }
+
+    /**
+     * @return true if the nodes of this type are classes or interfaces labeled TYPE, the schema being enabled
+     */
+    private boolean isSchemaType(NodeType type) {
+        return schema && (type == EntityType.CLASS || type == EntityType.INTERFACE);
+    }
+
+    private static String getSimpleNameAssignment(String node, String name) {
+        return String.format("%s.%s = last(split(%s, '.'))", node, SchemaManager.SIMPLE_NAME, name);
+    }
+
+    private static String getLabels(NodeType type, NodeType... types) {
         List <NodeType> nodeTypes = new ArrayList <>(Arrays.asList(types));
         nodeTypes.add(type);
-        return submitRequest(String.format("CREATE (n:%s { name: $name}) RETURN (n)",
-                nodeTypes.stream().map(NodeType::getString).collect(Collectors.joining(":"))),
-                "name", name)
-                .get(0).get(0).asNode();
+        return nodeTypes.stream().map(NodeType::getString).collect(Collectors.joining(":"));
     }
 
     public Optional <Node> getNode(String name) {
-        List <Record> recordList = submitRequest("MATCH (n {name: $name}) RETURN (n)", "name", name);
-        return recordList.size() == 0 ? Optional.empty() : Optional.of(recordList.get(0).get(0).asNode());
+        return getNodes(name).stream().findFirst();
+    }
+
+    /**
+     * Returns all nodes having the name in parameter, from the node cache if they are known.
+     * With the schema, only the type having this name is looked up, through the uniqueness constraint, whether its name has a dot or not:
+     * the visitors look types up by name, and methods and constructors from their type.
+     */
+    private List <Node> getNodes(String name) {
+        List <Node> nodes = nodeCache.get(name);
+        if (nodes == null) {
+            long generation = nodeCache.getGeneration();
+            nodes = toNodes(submitTrackedRequest(schema ? getNodeRequest() : NODE_REQUEST, "name", name));
+            nodeCache.put(name, nodes, generation);
+        }
+        return nodes;
+    }
+
+    private String getNodeRequest() {
+        return String.format("MATCH (n:%s {name: $name}) RETURN (n)", SchemaManager.TYPE_LABEL);
+    }
+
+    private static List <Node> toNodes(List <Record> records) {
+        return records.stream()
+                .map(record -> record.get(0).asNode())
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Returns the first node having the name and the label, from the node cache if the nodes having the name are known.
+     * Otherwise, the node is looked up through the index on the label, and as with the schema a type is the only node
+     * having its qualified name, the node found is then stored as all the nodes having this name.
+     */
+    private Optional <Node> getNodeWithLabel(String name, NodeType label) {
+        List <Node> cachedNodes = nodeCache.get(name);
+        if (cachedNodes != null) {
+            return cachedNodes.stream().filter(node -> node.hasLabel(label.getString())).findFirst();
+        }
+        long generation = nodeCache.getGeneration();
+        List <Node> nodes = toNodes(submitTrackedRequest(String.format("MATCH (n:%s {name: $name}) RETURN (n)", label.getString()), "name", name));
+        if (schema && name.contains(".") && nodes.size() == 1) {
+            nodeCache.put(name, nodes, generation);
+        }
+        return nodes.stream().findFirst();
     }
 
     /**
@@ -83,8 +400,7 @@ public class NeoGraph {
      * @return the node if it exists, Optional.empty otherwise
      */
     public Optional <Node> getClassNode(String name) {
-        List <Record> recordList = submitRequest("MATCH (n:CLASS {name: $name}) RETURN (n)", "name", name);
-        return recordList.size() == 0 ? Optional.empty() : Optional.of(recordList.get(0).get(0).asNode());
+        return getNodeWithLabel(name, EntityType.CLASS);
     }
 
     /**
@@ -95,8 +411,7 @@ public class NeoGraph {
      * @return the node if it exists, Optional.empty otherwise
      */
     public Optional <Node> getInterfaceNode(String name) {
-        List <Record> recordList = submitRequest("MATCH (n:INTERFACE {name: $name}) RETURN (n)", "name", name);
-        return recordList.size() == 0 ? Optional.empty() : Optional.of(recordList.get(0).get(0).asNode());
+        return getNodeWithLabel(name, EntityType.INTERFACE);
     }
 
     /**
@@ -106,10 +421,14 @@ public class NeoGraph {
      * @return the node if it exists, Optional.empty otherwise
      */
     public Optional <Node> getSuperclassNode(String name) {
-        List <Record> recordList = submitRequest("MATCH (s:CLASS)-[:EXTENDS]->(n {name: $name}) RETURN (s)", "name", name);
+        List <Record> recordList = submitTrackedRequest(getSuperclassNodeRequest(), "name", name);
         return recordList.size() == 0 ? Optional.empty() : Optional.of(recordList.get(0).get(0).asNode());
     }
 
+    private String getSuperclassNodeRequest() {
+        return String.format("MATCH (s:CLASS)-[:EXTENDS]->(n%s {name: $name}) RETURN (s)", schema ? ":" + SchemaManager.TYPE_LABEL : "");
+    }
+
     /**
      * Returns the list of nodes corresponding to the interfaces implemented by the node whose name is in parameter
      *
@@ -117,19 +436,37 @@ public class NeoGraph {
      * @return the node if it exists, Optional.empty otherwise
      */
     public List <Node> getImplementedInterfacesNodes(String name) {
-        List <Record> recordList = submitRequest("MATCH (s:INTERFACE)-[:IMPLEMENTS]->(n {name: $name}) RETURN (s)", "name", name);
+        List <Record> recordList = submitTrackedRequest(getImplementedInterfacesNodesRequest(), "name", name);
         return recordList.size() == 0 ? Collections.emptyList() : recordList.stream().map(record -> record.get(0).asNode()).collect(Collectors.toList());
     }
 
+    private String getImplementedInterfacesNodesRequest() {
+        return String.format("MATCH (s:INTERFACE)-[:IMPLEMENTS]->(n%s {name: $name}) RETURN (s)", schema ? ":" + SchemaManager.TYPE_LABEL : "");
+    }
+
+    /**
+     * Returns a class or interface of the package or of its subpackages whose name ends with the name in parameter.
+     * With the schema, the candidates are found through the index on the simple name.
+     */
     public Optional <Node> getNodeWithNameInPackage(String name, String packageName) {
-        List <Record> recordList = submitRequest("MATCH (n) WHERE (n:CLASS OR n:INTERFACE) AND n.name STARTS WITH $package AND n.name ENDS WITH $inheritedClassName RETURN (n)", "package", packageName + ".", "inheritedClassName", "." + name);
+        List <Record> recordList = submitTrackedRequest(getNodeWithNameInPackageRequest(), "simpleName", name.substring(name.lastIndexOf('.') + 1),
+                "package", packageName + ".", "inheritedClassName", "." + name);
         return recordList.size() == 0 ? Optional.empty() : Optional.of(recordList.get(0).get(0).asNode());
     }
 
+    private String getNodeWithNameInPackageRequest() {
+        return schema ?
+                String.format("MATCH (n:%s {%s: $simpleName}) WHERE n.name STARTS WITH $package AND n.name ENDS WITH $inheritedClassName RETURN (n)",
+                        SchemaManager.TYPE_LABEL, SchemaManager.SIMPLE_NAME) :
+                "MATCH (n) WHERE (n:CLASS OR n:INTERFACE) AND n.name STARTS WITH $package AND n.name ENDS WITH $inheritedClassName RETURN (n)";
+    }
+
     /**
      * Returns the node if it exists, creates it and returns it otherwise.
      * As we use qualified names, each name is unique. Therefore, we can match only on node name.
      * If the node does not exist, it is created with the specified types as labels.
+     * MERGE is not atomic without a uniqueness constraint, so merges of a same name are serialized, as the buffered ones,
+     * to prevent concurrent visitors from creating the node twice, unless the node is a type merged under the schema.
      *
      * @param name             Node name
      * @param type             Node type
@@ -137,65 +474,85 @@ public class NeoGraph {
      * @param matchAttributes  Node attributes added when matching an existing node
      */
     public Node getOrCreateNode(String name, EntityType type, EntityAttribute[] createAttributes, EntityAttribute[] matchAttributes) {
-        String onCreateAttributes = createAttributes.length == 0 ?
-                "" :
-                "ON CREATE SET n:" + Arrays.stream(createAttributes)
-                        .map(NodeType::getString)
-                        .collect(Collectors.joining(":"));
+        String request = getOrCreateNodeRequest(type, createAttributes, matchAttributes);
+        // The buffer is flushed before taking the lock, as flushing takes the locks of the buffered merges
+        writeBuffer.flush();
+        if (isSchemaType(type)) {
+            return mergeNode(name, request);
+        }
+        return mergeLocks.withLocks(List.of(name), () -> mergeNode(name, request));
+    }
+
+    private String getOrCreateNodeRequest(EntityType type, EntityAttribute[] createAttributes, EntityAttribute[] matchAttributes) {
         String onMatchAttributes = matchAttributes.length == 0 ?
                 "" :
                 "ON MATCH SET n:" + Arrays.stream(matchAttributes)
                         .map(NodeType::getString)
                         .collect(Collectors.joining(":"));
-        return submitRequest(String.format("MERGE (n:%s {name: $name}) %s %s RETURN (n)",
-                type.toString(),
-                onCreateAttributes,
-                onMatchAttributes), "name", name)
-                .get(0).get(0).asNode();
-    }
-
-    public Node getOrCreateNode(String name, EntityType type) {
-        return getOrCreateNode(name, type, new EntityAttribute[]{}, new EntityAttribute[]{});
+        return String.format("%s %s RETURN (n)", getMergeClause("n", "$name", type, createAttributes), onMatchAttributes);
     }
 
-    public Node getOrCreateNode(String name, EntityType type, EntityAttribute[] attributes) {
-        return getOrCreateNode(name, type, attributes, attributes);
+    private Node mergeNode(String name, String request) {
+        List <Node> nodes = toNodes(runRequest(request, "name", name));
+        nodeCache.merge(name, nodes);
+        return nodes.get(0);
     }
 
     /**
      * Creates the relationship node1 -> node2 of the given type.
+     * The creation may be buffered.
      *
      * @param node1 source node
      * @param node2 target node
      */
     public void linkTwoNodes(Node node1, Node node2, RelationType type) {
-        submitRequest(String.format("MATCH(a)\n" +
-                "WHERE ID(a)=$aId\n" +
-                "WITH a\n" +
-                "MATCH (b)\n" +
-                "WITH a,b\n" +
-                "WHERE ID(b)=$bId\n" +
-                "CREATE (a)-[r:%s]->(b)", type), "aId", node1.id(), "bId", node2.id());
+        hierarchyIndex = null;
+        writeBuffer.add(WriteBuffer.Kind.LINK,
+                String.format("UNWIND $rows AS row MATCH (a) WHERE ID(a) = row.aId " +
+                        "MATCH (b) WHERE ID(b) = row.bId CREATE (a)-[r:%s]->(b)", type),
+                row("aId", node1.id(), "bId", node2.id()));
     }
 
     public void setNodeAttribute(Node node, String attributeName, Object value) {
-        submitRequest(String.format("MATCH (n) WHERE ID(n) = $idNode SET n.%s = $value", attributeName),
-                "idNode", node.id(), "value", value);
+        nodeCache.setProperty(node, attributeName, value);
+        writeBuffer.add(WriteBuffer.Kind.SET_ATTRIBUTE,
+                String.format("UNWIND $rows AS row MATCH (n) WHERE ID(n) = row.idNode SET n.%s = row.value", attributeName),
+                row("idNode", node.id(), "value", value));
     }
 
-    public void detectHotspots() {
-        detectSingularHotspotsInSubtyping(Configuration.getSingularityThreshold());
-        detectSingularHotspotsInOverloading(Configuration.getSingularityThreshold());
-        detectHotspotsInAggregation(Configuration.getAggregationThreshold());
-        setHotspotLabels();
+    /**
+     * Sets all the attributes on the node of the given name and type in a single write,
+     * the node being matched or created as by {@link #getOrCreateNode(String, EntityType)}.
+     * The writes of all nodes of a type are sent as a single statement when the buffer is flushed.
+     *
+     * @param name       node name
+     * @param type       node type
+     * @param attributes values of the attributes, by attribute name
+     */
+    public void setNodeAttributes(String name, EntityType type, Map <String, Object> attributes) {
+        nodeCache.invalidate(name);
+        writeBuffer.add(WriteBuffer.Kind.MERGE_AND_SET_ATTRIBUTES, getSetAttributesRequest(type), row("name", name, "attributes", attributes));
+    }
+
+    private String getSetAttributesRequest(EntityType type) {
+        return String.format("UNWIND $rows AS row %s SET n += row.attributes", getMergeClause("n", "row.name", type, new EntityAttribute[]{}));
     }
 
+    /**
+     * If there are at least threshold VPs, marks the nodes connected by INSTANTIATE relationships in either direction
+     * to the first VP, then the variants extending them.
+     * The components are computed from a single read of the INSTANTIATE relationships,
+     * instead of traversing the subgraph of each VP in the database.
+     */
     public void detectHotspotsInAggregation(int threshold) {
-        submitRequest("MATCH (vp:VP) " +
-                "CALL apoc.path.subgraphAll(vp, {relationshipFilter: \"INSTANTIATE\", minLevel: 0}) " +
-                "YIELD nodes " +
-                "WITH collect(nodes)[0] AS nodesList, count(nodes) as cnt " +
-                "FOREACH (n IN CASE WHEN cnt >= $threshold THEN nodesList ELSE [] END | SET n.aggregation = TRUE)", "threshold", threshold);
+        Record vps = submitTrackedRequest("MATCH (vp:VP) RETURN count(vp), min(ID(vp))").get(0);
+        if (vps.get(0).asInt() > 0 && vps.get(0).asInt() >= threshold) {
+            ConnectedComponents components = new ConnectedComponents();
+            streamRequest("MATCH (a)-[:INSTANTIATE]->(b) RETURN ID(a), ID(b)",
+                    record -> components.union(record.get(0).asLong(), record.get(1).asLong()));
+            submitRequest("UNWIND $ids AS id MATCH (n) WHERE ID(n) = id SET n.aggregation = TRUE",
+                    "ids", components.getComponent(vps.get(1).asLong()));
+        }
         submitRequest("MATCH (vp)-[:EXTENDS]->(v:VARIANT) " +
                 "WHERE vp.aggregation = TRUE " +
                 "SET v.aggregation = TRUE");
@@ -229,29 +586,12 @@ public class NeoGraph {
     }
 
     public Object getPropertyValue(Node node, String property) {
-        return submitRequest(String.format("MATCH(a)\n" +
+        return submitTrackedRequest(String.format("MATCH(a)\n" +
                 "WHERE ID(a)=$aId\n" +
                 "RETURN a.%s", property), "aId", node.id())
                 .get(0).get(0).asObject();
     }
 
-    public void detectVPsAndVariants() {
-        setMethodVPs();
-        setMethodVariants();
-        setConstructorVPs();
-        setConstructorVariants();
-        setNbVariantsProperty();
-        setVPLabels();
-        setMethodLevelVPLabels();
-        setVariantsLabels();
-        setPublicMethods();
-        setPublicConstructors();
-        setNbCompositions();
-        setAllMethods();
-        detectStrategiesWithComposition();
-        detectDensity();
-    }
-
     /**
      * Sets the number of methods with different names defined more than once in the class.
      * <p>
@@ -397,32 +737,28 @@ public class NeoGraph {
     }
 
     public void addLabelToNode(Node node, String label) {
-        submitRequest(String.format("MATCH (n) WHERE ID(n) = $id SET n:%s RETURN (n)", label), "id", node.id());
+        nodeCache.addLabel(node, label);
+        writeBuffer.add(WriteBuffer.Kind.SET_LABEL,
+                String.format("UNWIND $rows AS row MATCH (n) WHERE ID(n) = row.id SET n:%s", label),
+                row("id", node.id()));
     }
 
     private String getClauseForHavingDesignPattern(String n) {
         return getClauseForNodesMatchingLabels(n, DesignPatternType.values());
     }
 
+    /**
+     * Writes the nodes and links as their records are read from the database,
+     * so that the whole graph is never held in memory.
+     */
     public void writeVPGraphFile(String filePath) {
-        writeToFile(filePath, generateVPJsonGraph());
-    }
-
-    public void writeStatisticsFile(String filePath) {
-        writeToFile(filePath, generateStatisticsJson());
-    }
-
-    public void writeToFile(String filePath, String content) {
-        Path path = Paths.get(filePath);
-        try {
-            if (path.toFile().getParentFile().exists() || (path.toFile().getParentFile().mkdirs() && path.toFile().createNewFile())) {
-                try (BufferedWriter bw = Files.newBufferedWriter(path)) {
-                    bw.write(content);
-                } catch (IOException e) {
-                    e.printStackTrace();
-                }
-            }
-        } catch (IOException e) {
+        try (JsonGraphWriter writer = new JsonGraphWriter(filePath)) {
+            writeNodes(writer);
+            writeLinks(writer);
+            writeAllClassesOrInterfaceNodes(writer);
+            writeCompositionLinks(writer);
+            writeAllLinks(writer);
+        } catch (IOException | UncheckedIOException e) {
             e.printStackTrace();
         }
     }
@@ -440,22 +776,16 @@ public class NeoGraph {
      * @return Number of subclasses or implementations
      */
     public int getNbVariants(Node node) {
-        return submitRequest("MATCH (c)-[:EXTENDS|IMPLEMENTS]->(c2:CLASS) " +
+        HierarchyIndex index = hierarchyIndex;
+        if (index != null) {
+            return index.getNbVariants(node.id());
+        }
+        return submitTrackedRequest("MATCH (c)-[:EXTENDS|IMPLEMENTS]->(c2:CLASS) " +
                 "WHERE ID(c) = $id " +
                 "RETURN count(c2)", "id", node.id())
                 .get(0).get(0).asInt();
     }
 
-    /**
-     * Get total number of variants.
-     * This corresponds to the number of variants at class and method level.
-     *
-     * @return Number of variants
-     */
-    public int getTotalNbVariants() {
-        return getNbClassLevelVariants() + getNbMethodLevelVariants();
-    }
-
 
     /**
      * Get number of variants at class level.
@@ -468,16 +798,6 @@ public class NeoGraph {
                 .get(0).get(0).asInt();
     }
 
-    /**
-     * Get number of variants at class level.
-     * This corresponds to the number of concrete classes without a subclass and extending a class or implementing an interface.
-     *
-     * @return Number of class level variants
-     */
-    public int getNbMethodLevelVariants() {
-        return getNbMethodVariants() + getNbConstructorVariants();
-    }
-
     /**
      * Get number of variants caused by method overloading.
      * This corresponds to the total number of method variants.
@@ -551,28 +871,6 @@ public class NeoGraph {
     }
 
 
-    /**
-     * Get total number of VPs.
-     * This corresponds to the number of VPs at class and method level.
-     *
-     * @return Number of VPs
-     */
-    public int getTotalNbVPs() {
-        return getNbClassLevelVPs() + getNbMethodLevelVPs();
-    }
-
-
-    /**
-     * Get total number of method level VPs.
-     * These are :
-     * - overloaded methods
-     * - overloaded constructors
-     *
-     * @return Number of method level VPs
-     */
-    public int getNbMethodLevelVPs() {
-        return getNbMethodVPs() + getNbConstructorVPs();
-    }
 
     /**
      * Get total number of class level VPs.
@@ -612,98 +910,150 @@ public class NeoGraph {
      * @return true if a relationship exists, false otherwise
      */
     public boolean relatedTo(Node parentNode, Node childNode) {
-        return submitRequest("MATCH(source) WHERE ID(source) = $idSource MATCH(dest) " +
+        HierarchyIndex index = hierarchyIndex;
+        if (index != null) {
+            return index.relatedTo(parentNode.id(), childNode.id());
+        }
+        return submitTrackedRequest("MATCH(source) WHERE ID(source) = $idSource MATCH(dest) " +
                         "WHERE ID(dest) = $idDest RETURN EXISTS((source)-[]->(dest))",
                 "idSource", parentNode.id(), "idDest", childNode.id())
                 .get(0).get(0).asBoolean();
     }
 
-    private String generateVPJsonGraph() {
-        return String.format("{\"nodes\":[%s],\"links\":[%s],\"allnodes\":[%s],\"linkscompose\":[%s],\"alllinks\":[%s]}", getNodesAsJson(), getLinksAsJson(), getAllClassesOrInterfaceNodes(), getCompositionLinksAsJson(), getAllLinksAsJson());
-    }
-
-    private String getNodesAsJson() {
-        String request =
-                "MATCH (c) WHERE c:VP OR c:VARIANT OR c:METHOD_LEVEL_VP " +
-                        "CALL symfinder.count(ID(c), \"METHOD\") YIELD result as methods " +
-                        "CALL symfinder.count(ID(c), \"CONSTRUCTOR\") YIELD result as constructors " +
-                        "CALL symfinder.count(ID(c), \"CLASS\") YIELD result as attributes " +
-                        "RETURN collect(c {types:labels(c), .name, .methodVPs, .constructorVPs, .methodVariants, .constructorVariants, .publicMethods, .publicConstructors, .allMethods, methods, constructors, attributes, .nbCompositions})";
-        return submitRequest(request)
-                .get(0)
-                .get(0)
-                .asList(MapAccessor::asMap)
-                .stream()
-                .map(o -> new JSONObject(o).toString())
-                .collect(Collectors.joining(","));
-    }
-
-    private String getAllClassesOrInterfaceNodes() {
-        String request =
-                "MATCH (c) WHERE (c:CLASS OR c:INTERFACE) AND NOT c:OUT_OF_SCOPE " +
-                        "CALL symfinder.count(ID(c), \"METHOD\") YIELD result as methods " +
-                        "CALL symfinder.count(ID(c), \"CONSTRUCTOR\") YIELD result as constructors " +
-                        "CALL symfinder.count(ID(c), \"CLASS\") YIELD result as attributes " +
-                        "CALL symfinder.count(ID(c), \"INTERFACE\") YIELD result as interfaceAttributes " +
-                        "RETURN collect(c {types:labels(c), .name, .methodVPs, .constructorVPs, .methodVariants, .constructorVariants, .publicMethods, .publicConstructors, .allMethods, methods, constructors, attributes, .nbCompositions, interfaceAttributes})";
-        return submitRequest(request)
-                .get(0)
-                .get(0)
-                .asList(MapAccessor::asMap)
-                .stream()
-                .map(o -> new JSONObject(o).toString())
-                .collect(Collectors.joining(","));
-    }
-
-    private String getLinksAsJson() {
-        String request = "MATCH path = (c1:VP)-[r:EXTENDS|IMPLEMENTS]->(c2) WHERE NONE(n IN nodes(path) WHERE n:OUT_OF_SCOPE) RETURN collect({source:c1.name, target:c2.name, type:TYPE(r)})";
-        return submitRequest(request)
-                .get(0)
-                .get(0)
-                .asList(MapAccessor::asMap)
-                .stream()
-                .map(o -> new JSONObject(o).toString())
-                .collect(Collectors.joining(","));
-    }
-
-    private String getCompositionLinksAsJson() {
-        String request = "MATCH path = (c1:CLASS)-[r:INSTANTIATE]->(c2) WHERE NONE(n IN nodes(path) WHERE n:OUT_OF_SCOPE) RETURN collect({source:c1.name, target:c2.name, type:TYPE(r)})";
-        return submitRequest(request)
-                .get(0)
-                .get(0)
-                .asList(MapAccessor::asMap)
-                .stream()
-                .map(o -> new JSONObject(o).toString())
-                .collect(Collectors.joining(","));
-    }
-
-    private String getAllLinksAsJson() {
-        String request = "MATCH path = (c1)-[r:INSTANTIATE|EXTENDS|IMPLEMENTS]->(c2) WHERE NONE(n IN nodes(path) WHERE n:OUT_OF_SCOPE) RETURN collect({source:c1.name, target:c2.name, type:TYPE(r)})";
-        return submitRequest(request)
-                .get(0)
-                .get(0)
-                .asList(MapAccessor::asMap)
-                .stream()
-                .map(o -> new JSONObject(o).toString())
-                .collect(Collectors.joining(","));
-    }
-
-    public String generateStatisticsJson() {
-        return new JSONObject()
-                .put("VPs", getTotalNbVPs())
-                .put("methodsVPs", getNbMethodVPs())
-                .put("constructorsVPs", getNbConstructorVPs())
-                .put("methodLevelVPs", getNbMethodLevelVPs())
-                .put("classLevelVPs", getNbClassLevelVPs())
-                .put("variants", getTotalNbVariants())
-                .put("methodsVariants", getNbMethodVariants())
-                .put("constructorsVariants", getNbConstructorVariants())
-                .put("methodLevelVariants", getNbMethodLevelVariants())
-                .put("classLevelVariants", getNbClassLevelVariants())
-                .put("publicMethods", getNbPublicMethods())
-                .put("allMethods", getNbAllMethods())
-                .put("publicsConstructors", getNbPublicConstructors())
-                .put("nbCompositionClasses", getNbAttributeComposeClass()).toString();
+    public boolean inheritsFrom(String name, Node supertype) {
+        HierarchyIndex index = hierarchyIndex;
+        if (index != null) {
+            return index.inheritsFrom(name, supertype.id());
+        }
+        return submitTrackedRequest(getInheritsFromRequest(), "name", name, "id", supertype.id())
+                .get(0).get(0).asBoolean();
+    }
+
+    private String getInheritsFromRequest() {
+        return String.format("MATCH (s)-[r:EXTENDS|IMPLEMENTS]->(n%s {name: $name}) WHERE ID(s) = $id " +
+                        "AND ((s:CLASS AND type(r) = 'EXTENDS') OR (s:INTERFACE AND type(r) = 'IMPLEMENTS')) RETURN count(n) > 0",
+                schema ? ":" + SchemaManager.TYPE_LABEL : "");
+    }
+
+    public Set <String> getTypeNames() {
+        Set <String> names = new HashSet <>();
+        streamRequest("MATCH (n) WHERE n:CLASS OR n:INTERFACE RETURN n.name", record -> names.add(record.get(0).asString()));
+        return names;
+    }
+
+    /**
+     * Loads all relationships in a {@link HierarchyIndex}, answering {@link #getNbVariants(Node)},
+     * {@link #relatedTo(Node, Node)} and {@link #inheritsFrom(String, Node)} until a relationship is created
+     * or a request modifying the graph in bulk is run.
+     */
+    @Override
+    public void indexHierarchy() {
+        List <Record> records = submitTrackedRequest("MATCH (a)-[r]->(b) " +
+                "WITH a, b, r, (a:CLASS AND type(r) = 'EXTENDS') OR (a:INTERFACE AND type(r) = 'IMPLEMENTS') AS subtyping " +
+                "RETURN ID(a), ID(b), subtyping, type(r) IN ['EXTENDS', 'IMPLEMENTS'] AND b:CLASS, CASE WHEN subtyping THEN b.name END");
+        int nbRelationships = records.size();
+        long[] sources = new long[nbRelationships];
+        long[] targets = new long[nbRelationships];
+        boolean[] isSubtyping = new boolean[nbRelationships];
+        boolean[] isVariant = new boolean[nbRelationships];
+        String[] names = new String[nbRelationships];
+        for (int i = 0 ; i < nbRelationships ; i++) {
+            Record record = records.get(i);
+            sources[i] = record.get(0).asLong();
+            targets[i] = record.get(1).asLong();
+            isSubtyping[i] = record.get(2).asBoolean();
+            isVariant[i] = record.get(3).asBoolean();
+            names[i] = record.get(4).isNull() ? null : record.get(4).asString();
+        }
+        hierarchyIndex = new HierarchyIndex(sources, targets, isSubtyping, isVariant, names);
+    }
+
+    public void writeCompactVPGraphFile(String filePath) {
+        try (CompactGraphWriter writer = new CompactGraphWriter(filePath)) {
+            streamRequest(getExportedNodesRequest("c:VP OR c:VARIANT OR c:METHOD_LEVEL_VP OR ((c:CLASS OR c:INTERFACE) AND NOT c:OUT_OF_SCOPE)", true),
+                    record -> writer.writeNode(record.get(0).asMap()));
+            streamRequest(getExportedLinksRequest("(c1)-[r:INSTANTIATE|EXTENDS|IMPLEMENTS]->(c2)"),
+                    record -> writer.writeLink(record.get(0).asMap()));
+        } catch (IOException | UncheckedIOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private void writeNodes(JsonGraphWriter writer) {
+        writeArray(writer, "nodes", getExportedNodesRequest("c:VP OR c:VARIANT OR c:METHOD_LEVEL_VP", false));
+    }
+
+    private void writeAllClassesOrInterfaceNodes(JsonGraphWriter writer) {
+        writeArray(writer, "allnodes", getExportedNodesRequest("(c:CLASS OR c:INTERFACE) AND NOT c:OUT_OF_SCOPE", true));
+    }
+
+    private void writeLinks(JsonGraphWriter writer) {
+        writeArray(writer, "links", getExportedLinksRequest("(c1:VP)-[r:EXTENDS|IMPLEMENTS]->(c2)"));
+    }
+
+    private void writeCompositionLinks(JsonGraphWriter writer) {
+        writeArray(writer, "linkscompose", getExportedLinksRequest("(c1:CLASS)-[r:INSTANTIATE]->(c2)"));
+    }
+
+    private void writeAllLinks(JsonGraphWriter writer) {
+        writeArray(writer, "alllinks", getExportedLinksRequest("(c1)-[r:INSTANTIATE|EXTENDS|IMPLEMENTS]->(c2)"));
+    }
+
+    /**
+     * Request returning the exported nodes matching the condition on c, one per record.
+     * The methods and constructors of a node are counted from its children, and from the names stored in its properties
+     * when they were analysed without method nodes.
+     */
+    private static String getExportedNodesRequest(String condition, boolean withInterfaceAttributes) {
+        return "MATCH (c) WHERE " + condition + " " +
+                "WITH collect(c) AS nodes " +
+                "CALL symfinder.countAll(nodes, [\"METHOD\", \"CONSTRUCTOR\", \"CLASS\"" + (withInterfaceAttributes ? ", \"INTERFACE\"" : "") + "], " +
+                "{METHOD: \"methodNames\", CONSTRUCTOR: \"constructorNames\"}) YIELD node AS c, counts " +
+                "RETURN c {types:[label IN labels(c) WHERE label <> '" + SchemaManager.TYPE_LABEL + "'], .name, .methodVPs, .constructorVPs, .methodVariants, .constructorVariants, .publicMethods, .publicConstructors, .allMethods, " +
+                "methods: counts.METHOD, constructors: counts.CONSTRUCTOR, attributes: counts.CLASS, .nbCompositions" + (withInterfaceAttributes ? ", interfaceAttributes: counts.INTERFACE" : "") + "}";
+    }
+
+    /**
+     * Request returning the exported links matching the pattern between c1 and c2 through r, one per record.
+     */
+    private static String getExportedLinksRequest(String pattern) {
+        return "MATCH path = " + pattern + " WHERE NONE(n IN nodes(path) WHERE n:OUT_OF_SCOPE) RETURN {source:c1.name, target:c2.name, type:TYPE(r)}";
+    }
+
+    /**
+     * Writes an array whose elements are the maps returned by the request, one per record.
+     */
+    private void writeArray(JsonGraphWriter writer, String name, String request) {
+        writer.beginArray(name);
+        streamRequest(request, record -> writer.writeObject(record.get(0).asMap()));
+        writer.endArray();
+    }
+
+    /**
+     * Computes all the statistics with a single request scanning the nodes once,
+     * relationships being counted from the degrees of the nodes.
+     */
+    @Override
+    public Statistics getStatistics() {
+        Record record = submitTrackedRequest("MATCH (n) RETURN " +
+                "count(CASE WHEN n:VP THEN 1 END), " +
+                "sum(CASE WHEN n:CLASS THEN n.methodVPs END), " +
+                "sum(CASE WHEN n:CLASS THEN n.constructorVPs END), " +
+                "count(CASE WHEN n:VARIANT AND NOT n:VP THEN 1 END), " +
+                "sum(CASE WHEN n:CLASS THEN n.methodVariants END), " +
+                "sum(CASE WHEN n:CLASS THEN n.constructorVariants END), " +
+                "sum(CASE WHEN n:CLASS THEN n.publicMethods END), " +
+                "sum(CASE WHEN n:CLASS THEN n.allMethods END), " +
+                "sum(CASE WHEN n:CLASS THEN n.publicConstructors END), " +
+                "sum(CASE WHEN n:CLASS THEN n.nbCompositions END), " +
+                "count(n), " +
+                "sum(size((n)-->())), " +
+                "sum(size((n)-[:EXTENDS|IMPLEMENTS]->())), " +
+                "sum(size((n)-[:INSTANTIATE]->()))").get(0);
+        return new Statistics(record.get(0).asInt(), record.get(1).asInt(), record.get(2).asInt(),
+                record.get(3).asInt(), record.get(4).asInt(), record.get(5).asInt(),
+                record.get(6).asInt(), record.get(7).asInt(), record.get(8).asInt(), record.get(9).asInt(),
+                record.get(10).asInt(), record.get(11).asInt(), record.get(12).asInt(), record.get(13).asInt());
     }
 
     public int getNbNodes() {
@@ -737,7 +1087,106 @@ public class NeoGraph {
         submitRequest("MATCH (n) DETACH DELETE (n)");
     }
 
+    /**
+     * Runs a request modifying the schema, outside of the current unit of work as schema and data cannot be modified in a same transaction.
+     */
+    List <Record> runSchemaRequest(String request) {
+        nodeCache.clear();
+        hierarchyIndex = null;
+        if (database != null) {
+            return database.run(request, parameters());
+        }
+        try (Session session = driver.session()) {
+            return session.run(request).list();
+        }
+    }
+
+    /**
+     * Plans a request with EXPLAIN, without running it.
+     *
+     * @return the names of the operators of the plan
+     */
+    List <String> explain(String request, Object... parameters) {
+        if (database != null) {
+            return database.explain(request, parameters(parameters));
+        }
+        try (Session session = driver.session()) {
+            List <String> operators = new ArrayList <>();
+            addOperators(session.run("EXPLAIN " + request, parameters(parameters)).consume().plan(), operators);
+            return operators;
+        }
+    }
+
+    private static void addOperators(Plan plan, List <String> operators) {
+        operators.add(plan.operatorType());
+        plan.children().forEach(child -> addOperators(child, operators));
+    }
+
+    /**
+     * Runs a request taking as parameter a list of rows bound to $rows.
+     */
+    List <Record> submitBatch(String request, List <Map <String, Object>> rows) {
+        return submitRequest(request, "rows", rows);
+    }
+
+    /**
+     * Runs a statement of the write buffer, the names of the nodes it merges being locked as by {@link #getOrCreateNode(String, EntityType, EntityAttribute[], EntityAttribute[])}.
+     */
+    private void runBufferedStatement(WriteBuffer.Kind kind, String statement, List <Map <String, Object>> rows) {
+        if (kind.getMergedNameKey() == null) {
+            runRequest(statement, "rows", rows);
+        } else {
+            List <String> names = rows.stream().map(row -> (String) row.get(kind.getMergedNameKey())).collect(Collectors.toList());
+            mergeLocks.withLocks(names, () -> runRequest(statement, "rows", rows));
+        }
+    }
+
+    /**
+     * Runs a request which may modify any node, clearing the node cache and dropping the hierarchy index.
+     */
     private List <Record> submitRequest(String request, Object... parameters) {
+        nodeCache.clear();
+        hierarchyIndex = null;
+        return submitTrackedRequest(request, parameters);
+    }
+
+    /**
+     * Runs a request which either does not modify nodes, or whose modifications are reported to the node cache by the caller.
+     */
+    private List <Record> submitTrackedRequest(String request, Object... parameters) {
+        writeBuffer.flush();
+        return runRequest(request, parameters);
+    }
+
+    /**
+     * Runs a read request, passing each record to the consumer as soon as it is received instead of returning them all.
+     */
+    private void streamRequest(String request, Consumer <Record> consumer) {
+        writeBuffer.flush();
+        UnitOfWork currentUnitOfWork = unitOfWork;
+        if (currentUnitOfWork != null) {
+            currentUnitOfWork.run(request, parameters()).forEach(consumer);
+        } else if (database != null) {
+            database.run(request, parameters(), consumer);
+        } else {
+            try (Session session = driver.session() ; Transaction tx = session.beginTransaction()) {
+                Result result = tx.run(request);
+                while (result.hasNext()) {
+                    consumer.accept(result.next());
+                }
+                tx.commit();
+            }
+        }
+    }
+
+    private List <Record> runRequest(String request, Object... parameters) {
+        UnitOfWork currentUnitOfWork = unitOfWork;
+        if (currentUnitOfWork != null) {
+            return currentUnitOfWork.run(request, parameters(parameters));
+        }
+        if (database != null) { // Embedded database, always ready
+            return database.run(request, parameters(parameters));
+        }
         int count = 0;
         int maxTries = 20;
         while (true) {
@@ -762,7 +1211,17 @@ public class NeoGraph {
     }
 
     public void closeDriver() {
-        driver.close();
+        endUnitOfWork();
+        if (database != null) {
+            database.close();
+        } else {
+            driver.close();
+        }
+    }
+
+    @Override
+    public void close() {
+        closeDriver();
     }
 
 }
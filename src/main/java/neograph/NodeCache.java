@@ -0,0 +1,177 @@
+/*
+ * This file is part of symfinder.
+ *
+ * symfinder is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * symfinder is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with symfinder. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright 2018-2021 Johann Mortara <johann.mortara@univ-cotedazur.fr>
+ * Copyright 2018-2021 Xhevahire Tërnava <t.xheva@gmail.com>
+ * Copyright 2018-2021 Philippe Collet <philippe.collet@univ-cotedazur.fr>
+ */
+
+package neograph;
+
+import org.neo4j.driver.Value;
+import org.neo4j.driver.Values;
+import org.neo4j.driver.types.Node;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.UnaryOperator;
+
+/**
+ * Client-side copy of the nodes having a given name, so that lookups by name do not need a request.
+ * For each name looked up, all the nodes having this name are kept, in the order returned by the database,
+ * an empty list meaning that no node has this name.
+ * Writes on a name either update its entry or remove it, and requests which may modify any node clear the whole cache.
+ * As a lookup may run concurrently with a write, the result of a request is only stored
+ * if no write happened since the request started, which is checked with a generation counter.
+ */
+class NodeCache {
+
+    private boolean enabled = false;
+    private Map <String, List <Node>> nodesByName = new ConcurrentHashMap <>();
+    private long generation = 0;
+    private AtomicInteger nbHits = new AtomicInteger();
+    private AtomicInteger nbMisses = new AtomicInteger();
+
+    void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+        clear();
+    }
+
+    /**
+     * @return the nodes having the name, or null if they are not known and a request is needed
+     */
+    List <Node> get(String name) {
+        if (! enabled) {
+            return null;
+        }
+        List <Node> nodes = nodesByName.get(name);
+        (nodes == null ? nbMisses : nbHits).incrementAndGet();
+        return nodes;
+    }
+
+    /**
+     * @return the current generation, to give to {@link #put(String, List, long)} once the request is done
+     */
+    synchronized long getGeneration() {
+        return generation;
+    }
+
+    /**
+     * Stores the nodes having the name, as returned by a request started at the given generation.
+     */
+    synchronized void put(String name, List <Node> nodes, long requestGeneration) {
+        if (enabled && requestGeneration == generation) {
+            nodesByName.put(name, Collections.unmodifiableList(new ArrayList <>(nodes)));
+        }
+    }
+
+    /**
+     * Replaces the known nodes having the name, if they are known.
+     * The entry is removed if the updater returns null.
+     */
+    synchronized void update(String name, UnaryOperator <List <Node>> updater) {
+        generation++;
+        nodesByName.computeIfPresent(name, (key, nodes) -> {
+            List <Node> updatedNodes = updater.apply(new ArrayList <>(nodes));
+            return updatedNodes == null ? null : Collections.unmodifiableList(updatedNodes);
+        });
+    }
+
+    /**
+     * Replaces a known node by a copy with the label added.
+     */
+    void addLabel(Node node, String label) {
+        update(node.get("name").asString(), nodes -> replace(nodes, node.id(), cached -> {
+            List <String> labels = labelsOf(cached);
+            if (! labels.contains(label)) {
+                labels.add(label);
+            }
+            return new NodeSnapshot(cached.id(), labels, cached.asMap(value -> value));
+        }));
+    }
+
+    /**
+     * Replaces a known node by a copy with the property set.
+     */
+    void setProperty(Node node, String property, Object value) {
+        update(node.get("name").asString(), nodes -> replace(nodes, node.id(), cached -> {
+            Map <String, Value> properties = new HashMap <>(cached.asMap(v -> v));
+            properties.put(property, Values.value(value));
+            return new NodeSnapshot(cached.id(), labelsOf(cached), properties);
+        }));
+    }
+
+    /**
+     * Replaces the known nodes by the ones returned by a MERGE on the name.
+     * If one of them is not known, it has just been created, and as its position among the nodes
+     * returned by the database is not known, the entry is removed.
+     */
+    void merge(String name, List <Node> mergedNodes) {
+        update(name, nodes -> {
+            for (Node mergedNode : mergedNodes) {
+                int index = indexOf(nodes, mergedNode.id());
+                if (index < 0) {
+                    return null;
+                }
+                nodes.set(index, mergedNode);
+            }
+            return nodes;
+        });
+    }
+
+    synchronized void invalidate(String name) {
+        generation++;
+        nodesByName.remove(name);
+    }
+
+    synchronized void clear() {
+        generation++;
+        nodesByName.clear();
+    }
+
+    int getNbHits() {
+        return nbHits.get();
+    }
+
+    int getNbMisses() {
+        return nbMisses.get();
+    }
+
+    private static List <Node> replace(List <Node> nodes, long id, UnaryOperator <Node> replacement) {
+        int index = indexOf(nodes, id);
+        if (index >= 0) {
+            nodes.set(index, replacement.apply(nodes.get(index)));
+        }
+        return nodes;
+    }
+
+    private static List <String> labelsOf(Node node) {
+        List <String> labels = new ArrayList <>();
+        node.labels().forEach(labels::add);
+        return labels;
+    }
+
+    private static int indexOf(List <Node> nodes, long id) {
+        for (int i = 0 ; i < nodes.size() ; i++) {
+            if (nodes.get(i).id() == id) {
+                return i;
+            }
+        }
+        return - 1;
+    }
+
+}
@@ -0,0 +1,121 @@
+/*
+ * This file is part of symfinder.
+ *
+ * symfinder is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * symfinder is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with symfinder. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright 2018-2021 Johann Mortara <johann.mortara@univ-cotedazur.fr>
+ * Copyright 2018-2021 Xhevahire Tërnava <t.xheva@gmail.com>
+ * Copyright 2018-2021 Philippe Collet <philippe.collet@univ-cotedazur.fr>
+ */
+
+package neograph;
+
+import org.neo4j.driver.Value;
+import org.neo4j.driver.Values;
+import org.neo4j.driver.types.Node;
+
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Node holding the labels and properties it had when it was read, built by the graphs which do not get their nodes from the driver:
+ * the in-memory graph, the embedded database and the node cache.
+ * As the nodes of the driver, two nodes are equal if they have the same id.
+ */
+final class NodeSnapshot implements Node {
+
+    private final long id;
+    private final List <String> labels;
+    private final Map <String, Value> properties;
+
+    NodeSnapshot(long id, Collection <String> labels, Map <String, Value> properties) {
+        this.id = id;
+        this.labels = List.copyOf(labels);
+        this.properties = Collections.unmodifiableMap(new LinkedHashMap <>(properties));
+    }
+
+    @Override
+    public long id() {
+        return id;
+    }
+
+    @Override
+    public Iterable <String> labels() {
+        return labels;
+    }
+
+    @Override
+    public boolean hasLabel(String label) {
+        return labels.contains(label);
+    }
+
+    @Override
+    public Iterable <String> keys() {
+        return properties.keySet();
+    }
+
+    @Override
+    public boolean containsKey(String key) {
+        return properties.containsKey(key);
+    }
+
+    @Override
+    public Value get(String key) {
+        return properties.getOrDefault(key, Values.NULL);
+    }
+
+    @Override
+    public int size() {
+        return properties.size();
+    }
+
+    @Override
+    public Iterable <Value> values() {
+        return properties.values();
+    }
+
+    @Override
+    public <T> Iterable <T> values(Function <Value, T> mapFunction) {
+        return properties.values().stream().map(mapFunction).collect(Collectors.toList());
+    }
+
+    @Override
+    public Map <String, Object> asMap() {
+        return asMap(Value::asObject);
+    }
+
+    @Override
+    public <T> Map <String, T> asMap(Function <Value, T> mapFunction) {
+        Map <String, T> map = new LinkedHashMap <>();
+        properties.forEach((key, value) -> map.put(key, mapFunction.apply(value)));
+        return map;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return this == o || (o instanceof Node && ((Node) o).id() == id);
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(id);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("node<%d>", id);
+    }
+
+}
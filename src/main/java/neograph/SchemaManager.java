@@ -0,0 +1,87 @@
+/*
+ * This file is part of symfinder.
+ *
+ * symfinder is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * symfinder is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with symfinder. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright 2018-2021 Johann Mortara <johann.mortara@univ-cotedazur.fr>
+ * Copyright 2018-2021 Xhevahire Tërnava <t.xheva@gmail.com>
+ * Copyright 2018-2021 Philippe Collet <philippe.collet@univ-cotedazur.fr>
+ */
+
+package neograph;
+
+import org.neo4j.driver.Record;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Schema used by {@link NeoGraph} to look up classes and interfaces without scanning all nodes.
+ * Classes and interfaces share the TYPE label, whose name is unique:
+ * the uniqueness constraint indexes the lookups by qualified name and makes merging a type atomic.
+ * Their simple names are indexed separately, to resolve the classes imported on demand.
+ */
+class SchemaManager {
+
+    static final String TYPE_LABEL = "TYPE";
+    static final String SIMPLE_NAME = "simpleName";
+
+    private static final int AWAIT_TIMEOUT_SECONDS = 300;
+
+    private final NeoGraph graph;
+
+    SchemaManager(NeoGraph graph) {
+        this.graph = graph;
+    }
+
+    /**
+     * Creates the uniqueness constraint and the simple name index if the database does not have them yet,
+     * then waits for all indexes to be online, so that the first lookups of the analysis already use them.
+     */
+    void createSchema() {
+        List <Record> indexes = graph.runSchemaRequest("CALL db.indexes() YIELD labelsOrTypes, properties, uniqueness " +
+                "RETURN labelsOrTypes, properties, uniqueness");
+        if (! hasIndex(indexes, "name", true)) {
+            graph.runSchemaRequest(String.format("CREATE CONSTRAINT ON (n:%s) ASSERT n.name IS UNIQUE", TYPE_LABEL));
+        }
+        if (! hasIndex(indexes, SIMPLE_NAME, false)) {
+            graph.runSchemaRequest(String.format("CREATE INDEX ON :%s(%s)", TYPE_LABEL, SIMPLE_NAME));
+        }
+        graph.runSchemaRequest("CALL db.awaitIndexes(" + AWAIT_TIMEOUT_SECONDS + ")");
+    }
+
+    private static boolean hasIndex(List <Record> indexes, String property, boolean unique) {
+        return indexes.stream().anyMatch(record -> record.get("labelsOrTypes").asList().equals(List.of(TYPE_LABEL)) &&
+                record.get("properties").asList().equals(List.of(property)) &&
+                record.get("uniqueness").asString().equals("UNIQUE") == unique);
+    }
+
+    /**
+     * Plans the requests with EXPLAIN, without running them.
+     *
+     * @param requests requests to plan, with their parameters
+     * @return the requests whose plan scans all nodes
+     */
+    List <String> findAllNodesScans(Map <String, Object[]> requests) {
+        List <String> scanningRequests = new ArrayList <>();
+        requests.forEach((request, parameters) -> {
+            if (graph.explain(request, parameters).stream().anyMatch(operator -> operator.startsWith("AllNodesScan"))) {
+                scanningRequests.add(request);
+            }
+        });
+        return scanningRequests;
+    }
+
+}
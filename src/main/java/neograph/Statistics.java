@@ -0,0 +1,160 @@
+/*
+ * This file is part of symfinder.
+ *
+ * symfinder is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * symfinder is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with symfinder. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright 2018-2021 Johann Mortara <johann.mortara@univ-cotedazur.fr>
+ * Copyright 2018-2021 Xhevahire Tërnava <t.xheva@gmail.com>
+ * Copyright 2018-2021 Philippe Collet <philippe.collet@univ-cotedazur.fr>
+ */
+
+package neograph;
+
+import org.json.JSONObject;
+
+/**
+ * Counts of VPs, variants, methods and relationships of an analysed graph, computed at once by {@link GraphStore#getStatistics()}.
+ * The composite counts are derived from the stored ones instead of being requested again.
+ */
+public final class Statistics {
+
+    private final int nbClassLevelVPs;
+    private final int nbMethodVPs;
+    private final int nbConstructorVPs;
+    private final int nbClassLevelVariants;
+    private final int nbMethodVariants;
+    private final int nbConstructorVariants;
+    private final int nbPublicMethods;
+    private final int nbAllMethods;
+    private final int nbPublicConstructors;
+    private final int nbAttributeComposeClass;
+    private final int nbNodes;
+    private final int nbRelationships;
+    private final int nbInheritanceRelationships;
+    private final int nbCompositionRelationships;
+
+    public Statistics(int nbClassLevelVPs, int nbMethodVPs, int nbConstructorVPs,
+                      int nbClassLevelVariants, int nbMethodVariants, int nbConstructorVariants,
+                      int nbPublicMethods, int nbAllMethods, int nbPublicConstructors, int nbAttributeComposeClass,
+                      int nbNodes, int nbRelationships, int nbInheritanceRelationships, int nbCompositionRelationships) {
+        this.nbClassLevelVPs = nbClassLevelVPs;
+        this.nbMethodVPs = nbMethodVPs;
+        this.nbConstructorVPs = nbConstructorVPs;
+        this.nbClassLevelVariants = nbClassLevelVariants;
+        this.nbMethodVariants = nbMethodVariants;
+        this.nbConstructorVariants = nbConstructorVariants;
+        this.nbPublicMethods = nbPublicMethods;
+        this.nbAllMethods = nbAllMethods;
+        this.nbPublicConstructors = nbPublicConstructors;
+        this.nbAttributeComposeClass = nbAttributeComposeClass;
+        this.nbNodes = nbNodes;
+        this.nbRelationships = nbRelationships;
+        this.nbInheritanceRelationships = nbInheritanceRelationships;
+        this.nbCompositionRelationships = nbCompositionRelationships;
+    }
+
+    public int getTotalNbVPs() {
+        return nbClassLevelVPs + getNbMethodLevelVPs();
+    }
+
+    public int getNbMethodLevelVPs() {
+        return nbMethodVPs + nbConstructorVPs;
+    }
+
+    public int getNbClassLevelVPs() {
+        return nbClassLevelVPs;
+    }
+
+    public int getNbMethodVPs() {
+        return nbMethodVPs;
+    }
+
+    public int getNbConstructorVPs() {
+        return nbConstructorVPs;
+    }
+
+    public int getTotalNbVariants() {
+        return nbClassLevelVariants + getNbMethodLevelVariants();
+    }
+
+    public int getNbMethodLevelVariants() {
+        return nbMethodVariants + nbConstructorVariants;
+    }
+
+    public int getNbClassLevelVariants() {
+        return nbClassLevelVariants;
+    }
+
+    public int getNbMethodVariants() {
+        return nbMethodVariants;
+    }
+
+    public int getNbConstructorVariants() {
+        return nbConstructorVariants;
+    }
+
+    public int getNbPublicMethods() {
+        return nbPublicMethods;
+    }
+
+    public int getNbAllMethods() {
+        return nbAllMethods;
+    }
+
+    public int getNbPublicConstructors() {
+        return nbPublicConstructors;
+    }
+
+    public int getNbAttributeComposeClass() {
+        return nbAttributeComposeClass;
+    }
+
+    public int getNbNodes() {
+        return nbNodes;
+    }
+
+    public int getNbRelationships() {
+        return nbRelationships;
+    }
+
+    public int getNbInheritanceRelationships() {
+        return nbInheritanceRelationships;
+    }
+
+    public int getNbCompositionRelationships() {
+        return nbCompositionRelationships;
+    }
+
+    /**
+     * @return the content of the statistics file
+     */
+    public String toJson() {
+        return new JSONObject()
+                .put("VPs", getTotalNbVPs())
+                .put("methodsVPs", getNbMethodVPs())
+                .put("constructorsVPs", getNbConstructorVPs())
+                .put("methodLevelVPs", getNbMethodLevelVPs())
+                .put("classLevelVPs", getNbClassLevelVPs())
+                .put("variants", getTotalNbVariants())
+                .put("methodsVariants", getNbMethodVariants())
+                .put("constructorsVariants", getNbConstructorVariants())
+                .put("methodLevelVariants", getNbMethodLevelVariants())
+                .put("classLevelVariants", getNbClassLevelVariants())
+                .put("publicMethods", getNbPublicMethods())
+                .put("allMethods", getNbAllMethods())
+                .put("publicsConstructors", getNbPublicConstructors())
+                .put("nbCompositionClasses", getNbAttributeComposeClass()).toString();
+    }
+
+}
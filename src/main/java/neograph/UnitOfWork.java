@@ -0,0 +1,234 @@
+/*
+ * This file is part of symfinder.
+ *
+ * symfinder is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * symfinder is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with symfinder. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright 2018-2021 Johann Mortara <johann.mortara@univ-cotedazur.fr>
+ * Copyright 2018-2021 Xhevahire Tërnava <t.xheva@gmail.com>
+ * Copyright 2018-2021 Philippe Collet <philippe.collet@univ-cotedazur.fr>
+ */
+
+package neograph;
+
+import org.neo4j.driver.*;
+import org.neo4j.driver.exceptions.ServiceUnavailableException;
+
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Runs the requests of a phase in a single session, committing its transaction
+ * every commitEvery requests or, if commitInterval is positive, after commitInterval milliseconds.
+ * Requests run since the last commit are not replayed if the database becomes unavailable:
+ * the nodes they created would get new ids, while the former ids are still held by the visitors and the caches,
+ * and a commit whose acknowledgement was lost would be applied twice.
+ * The unit of work fails instead, its transaction being rolled back, and the phase must be run again.
+ * While no request has run in the current transaction, the connection is retried until the database is ready.
+ * Requests are serialized, as a transaction cannot be used by several threads at once.
+ * With an embedded database, requests are run directly in its transactions, and nothing needs to be replayed.
+ */
+public class UnitOfWork implements AutoCloseable {
+
+    private static final int MAX_TRIES = 20;
+
+    private Driver driver;
+    private EmbeddedDatabase database;
+    private int commitEvery;
+    private long commitInterval;
+    private Session session;
+    private Transaction transaction;
+    private org.neo4j.graphdb.Transaction embeddedTransaction;
+    private int nbUncommittedQueries = 0;
+    private IllegalStateException failure;
+    private long lastCommitTime = System.currentTimeMillis();
+    private int nbCommits = 0;
+    private long commitTime = 0;
+
+    /**
+     * @param driver         driver used to open the session
+     * @param commitEvery    maximal number of requests in a transaction
+     * @param commitInterval maximal duration of a transaction, in milliseconds, 0 or less for no time limit
+     */
+    UnitOfWork(Driver driver, int commitEvery, long commitInterval) {
+        this.driver = driver;
+        this.commitEvery = Math.max(1, commitEvery);
+        this.commitInterval = commitInterval;
+    }
+
+    /**
+     * @param database       embedded database in which the transactions are opened
+     * @param commitEvery    maximal number of requests in a transaction
+     * @param commitInterval maximal duration of a transaction, in milliseconds, 0 or less for no time limit
+     */
+    UnitOfWork(EmbeddedDatabase database, int commitEvery, long commitInterval) {
+        this((Driver) null, commitEvery, commitInterval);
+        this.database = database;
+    }
+
+    synchronized List <Record> run(String request, Value parameters) {
+        checkNotFailed();
+        List <Record> result;
+        if (database != null) {
+            if (embeddedTransaction == null) {
+                embeddedTransaction = database.beginTransaction();
+            }
+            try {
+                result = database.run(embeddedTransaction, request, parameters);
+            } catch (RuntimeException e) {
+                throw fail("A request failed, the " + nbUncommittedQueries + " uncommitted requests before it are rolled back", e);
+            }
+        } else {
+            result = retry(() -> getTransaction().run(request, parameters).list());
+        }
+        nbUncommittedQueries++;
+        if (nbUncommittedQueries >= commitEvery || (commitInterval > 0 && System.currentTimeMillis() - lastCommitTime >= commitInterval)) {
+            commit();
+        }
+        return result;
+    }
+
+    synchronized void commit() {
+        checkNotFailed();
+        if (nbUncommittedQueries > 0) {
+            long startTime = System.currentTimeMillis();
+            if (database != null) {
+                try {
+                    embeddedTransaction.commit();
+                } catch (RuntimeException e) {
+                    throw fail("The commit failed, " + nbUncommittedQueries + " uncommitted requests are rolled back", e);
+                }
+                embeddedTransaction.close();
+                embeddedTransaction = null;
+            } else {
+                try {
+                    transaction.commit();
+                } catch (ServiceUnavailableException e) {
+                    throw fail("The connection to the database was lost while committing, the commit may have been applied or not", e);
+                }
+                transaction.close();
+                transaction = null;
+            }
+            nbUncommittedQueries = 0;
+            lastCommitTime = System.currentTimeMillis();
+            nbCommits++;
+            commitTime += lastCommitTime - startTime;
+        }
+    }
+
+    /**
+     * Commits the remaining requests and closes the session.
+     * If the unit of work failed, the session is closed without committing, its transaction being rolled back.
+     */
+    @Override
+    public synchronized void close() {
+        if (failure == null) {
+            commit();
+        }
+        closeSession();
+    }
+
+    /**
+     * @return true if the unit of work failed, the requests run since the last commit being lost
+     */
+    public synchronized boolean hasFailed() {
+        return failure != null;
+    }
+
+    public synchronized int getNbCommits() {
+        return nbCommits;
+    }
+
+    /**
+     * @return time spent committing, in milliseconds
+     */
+    public synchronized long getCommitTime() {
+        return commitTime;
+    }
+
+    private Transaction getTransaction() {
+        if (session == null) {
+            session = driver.session();
+        }
+        if (transaction == null) {
+            transaction = session.beginTransaction();
+        }
+        return transaction;
+    }
+
+    /**
+     * Runs the action, retrying to connect while the database is not ready,
+     * unless requests already ran in the transaction, which are lost with the connection.
+     */
+    private <T> T retry(Supplier <T> action) {
+        int count = 0;
+        while (true) {
+            try {
+                return action.get();
+            } catch (ServiceUnavailableException e) {
+                closeSession();
+                if (nbUncommittedQueries > 0) {
+                    throw fail("The connection to the database was lost, " + nbUncommittedQueries + " uncommitted requests are lost", e);
+                }
+                System.out.println("Waiting for Neo4j database to be ready...");
+                if (++ count == MAX_TRIES) {
+                    throw fail("The database is not available", e);
+                }
+                try {
+                    Thread.sleep(5000);
+                } catch (InterruptedException e1) {
+                    e1.printStackTrace();
+                }
+            }
+        }
+    }
+
+    private void closeSession() {
+        if (embeddedTransaction != null) {
+            try {
+                embeddedTransaction.rollback();
+            } catch (RuntimeException e) {
+                // The transaction already ended with its failed commit
+            } finally {
+                embeddedTransaction.close();
+                embeddedTransaction = null;
+            }
+        }
+        try {
+            if (transaction != null) {
+                transaction.close();
+            }
+            if (session != null) {
+                session.close();
+            }
+        } catch (ServiceUnavailableException e) {
+            // The connection is already lost, and the transaction with it
+        } finally {
+            transaction = null;
+            session = null;
+        }
+    }
+
+    private IllegalStateException fail(String message, Exception cause) {
+        closeSession();
+        failure = new IllegalStateException(message, cause);
+        return failure;
+    }
+
+    private void checkNotFailed() {
+        if (failure != null) {
+            throw new IllegalStateException("The unit of work failed, the phase must be run again", failure);
+        }
+    }
+
+}
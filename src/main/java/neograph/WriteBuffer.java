@@ -0,0 +1,145 @@
+/*
+ * This file is part of symfinder.
+ *
+ * symfinder is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * symfinder is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with symfinder. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright 2018-2021 Johann Mortara <johann.mortara@univ-cotedazur.fr>
+ * Copyright 2018-2021 Xhevahire Tërnava <t.xheva@gmail.com>
+ * Copyright 2018-2021 Philippe Collet <philippe.collet@univ-cotedazur.fr>
+ */
+
+package neograph;
+
+import java.util.*;
+
+/**
+ * Collects write operations and sends them as parameterised UNWIND statements,
+ * one statement per distinct query and as many rows as operations.
+ * Operations are flushed when the buffer holds batchSize of them, or on demand.
+ * When flushing, statements are executed by kind, in the order of the {@link Kind} constants,
+ * so that created nodes exist before relationships and labels referencing them are written.
+ */
+class WriteBuffer {
+
+    /**
+     * Kinds of operations, in flush order.
+     */
+    enum Kind {
+        CREATE_NODE(null), CREATE_CHILD_NODE("parent"), MERGE_AND_LINK("source"), LINK(null), SET_LABEL(null), SET_ATTRIBUTE(null),
+        MERGE_AND_SET_ATTRIBUTES("name");
+
+        private final String mergedNameKey;
+
+        Kind(String mergedNameKey) {
+            this.mergedNameKey = mergedNameKey;
+        }
+
+        /**
+         * @return the key of the rows holding the name of the node merged by the operation, or null if it merges no node by name
+         */
+        String getMergedNameKey() {
+            return mergedNameKey;
+        }
+    }
+
+    /**
+     * Executes an UNWIND statement given the rows bound to its $rows parameter.
+     */
+    interface Executor {
+        void execute(Kind kind, String statement, List <Map <String, Object>> rows);
+    }
+
+    private Executor executor;
+    private int batchSize = 1;
+    private Map <Kind, Map <String, List <Map <String, Object>>>> pendingRows = new EnumMap <>(Kind.class);
+    private int nbPendingRows = 0;
+    private int nbStatements = 0;
+    private int nbRows = 0;
+
+    /**
+     * @param executor executes an UNWIND statement given the rows bound to its $rows parameter
+     */
+    WriteBuffer(Executor executor) {
+        this.executor = executor;
+    }
+
+    synchronized void setBatchSize(int batchSize) {
+        this.batchSize = Math.max(1, batchSize);
+        if (nbPendingRows >= this.batchSize) {
+            flush();
+        }
+    }
+
+    /**
+     * Buffers an operation.
+     *
+     * @param kind      kind of the operation
+     * @param statement UNWIND statement, in which the row is bound to the variable row
+     * @param row       parameters of the operation
+     */
+    synchronized void add(Kind kind, String statement, Map <String, Object> row) {
+        pendingRows.computeIfAbsent(kind, k -> new LinkedHashMap <>())
+                .computeIfAbsent(statement, s -> new ArrayList <>())
+                .add(row);
+        if (++ nbPendingRows >= batchSize) {
+            flush();
+        }
+    }
+
+    synchronized boolean isEmpty() {
+        return nbPendingRows == 0;
+    }
+
+    synchronized void flush() {
+        if (nbPendingRows == 0) {
+            return;
+        }
+        // Rows are cleared before execution so that a failing statement is not sent again at the next flush
+        Map <Kind, Map <String, List <Map <String, Object>>>> rowsToWrite = pendingRows;
+        pendingRows = new EnumMap <>(Kind.class);
+        nbPendingRows = 0;
+        for (Map.Entry <Kind, Map <String, List <Map <String, Object>>>> statements : rowsToWrite.entrySet()) {
+            for (Map.Entry <String, List <Map <String, Object>>> statement : statements.getValue().entrySet()) {
+                executor.execute(statements.getKey(), statement.getKey(), statement.getValue());
+                nbStatements++;
+                nbRows += statement.getValue().size();
+            }
+        }
+    }
+
+    /**
+     * Drops the pending operations without executing them.
+     */
+    synchronized void clear() {
+        pendingRows = new EnumMap <>(Kind.class);
+        nbPendingRows = 0;
+    }
+
+    synchronized int getNbStatements() {
+        return nbStatements;
+    }
+
+    synchronized int getNbRows() {
+        return nbRows;
+    }
+
+    static Map <String, Object> row(Object... keysAndValues) {
+        Map <String, Object> row = new HashMap <>();
+        for (int i = 0 ; i < keysAndValues.length ; i += 2) {
+            row.put((String) keysAndValues[i], keysAndValues[i + 1]);
+        }
+        return row;
+    }
+
+}
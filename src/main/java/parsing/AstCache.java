@@ -0,0 +1,241 @@
+/*
+ * This file is part of symfinder.
+ *
+ * symfinder is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * symfinder is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with symfinder. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright 2018-2021 Johann Mortara <johann.mortara@univ-cotedazur.fr>
+ * Copyright 2018-2021 Xhevahire Tërnava <t.xheva@gmail.com>
+ * Copyright 2018-2021 Philippe Collet <philippe.collet@univ-cotedazur.fr>
+ */
+
+package parsing;
+
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.eclipse.jdt.core.dom.CompilationUnit;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.SoftReference;
+import java.util.*;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * Keeps the ASTs of the parsed files so that the successive visitor passes do not parse them again.
+ * Entries are held through soft references, so that the garbage collector can reclaim them under memory pressure,
+ * and at most {@code capacity} of them are kept: once the cache is full, the ASTs of other files are not cached
+ * until an entry is reclaimed. As each phase visits the files in the same order, evicting the least recently used entries
+ * would evict the ones the next phase needs first, and no AST would be reused with more files than the capacity,
+ * whereas keeping the first files makes each phase reuse {@code capacity} of them.
+ * A capacity of 0 disables the cache: every request parses the file.
+ * The cache can be shared by several threads; the files are parsed outside of the lock.
+ */
+public class AstCache {
+
+    private static final Logger logger = LogManager.getLogger(AstCache.class);
+
+    private SourceParser parser;
+    private int capacity;
+    private Map <File, Entry> entries = new HashMap <>();
+    private ReferenceQueue <CompilationUnit> reclaimedEntries = new ReferenceQueue <>();
+    private Set <File> parsedFiles = new HashSet <>();
+
+    private String[] sourceRoots = null;
+    private int batchSize;
+
+    private int hits = 0;
+    private int parses = 0;
+    private int reparses = 0;
+
+    public AstCache(SourceParser parser, int capacity) {
+        this.parser = parser;
+        this.capacity = capacity;
+    }
+
+    /**
+     * Returns the AST of the file, parsing it if it is not cached or if it has been evicted or reclaimed.
+     *
+     * @param file source file
+     * @return the compilation unit of the file
+     */
+    public CompilationUnit get(File file) throws IOException {
+        CompilationUnit compilationUnit = lookup(file);
+        if (compilationUnit == null) {
+            compilationUnit = parser.parse(file);
+            store(file, compilationUnit);
+        }
+        return compilationUnit;
+    }
+
+    /**
+     * Returns the AST of the file, parsing the given source if it is not cached or if it has been evicted or reclaimed.
+     *
+     * @param file   source file
+     * @param source content of the file, read by {@link SourceParser#read(File)}
+     * @return the compilation unit of the file
+     */
+    public CompilationUnit get(File file, char[] source) throws IOException {
+        CompilationUnit compilationUnit = lookup(file);
+        if (compilationUnit == null) {
+            compilationUnit = parser.parse(file, source);
+            store(file, compilationUnit);
+        }
+        return compilationUnit;
+    }
+
+    /**
+     * @return true if the AST of the file is cached, in which case its source does not need to be read
+     */
+    public synchronized boolean contains(File file) {
+        Entry reference = entries.get(file);
+        return reference != null && reference.get() != null;
+    }
+
+    /**
+     * Reads the source of a file which is not cached.
+     */
+    public char[] read(File file) throws IOException {
+        return parser.read(file);
+    }
+
+    private synchronized CompilationUnit lookup(File file) {
+        Entry reference = entries.get(file);
+        CompilationUnit compilationUnit = reference == null ? null : reference.get();
+        if (compilationUnit != null) {
+            hits++;
+        }
+        return compilationUnit;
+    }
+
+    private synchronized void store(File file, CompilationUnit compilationUnit) {
+        if (parsedFiles.add(file)) {
+            parses++;
+        } else {
+            reparses++;
+        }
+        removeReclaimedEntries();
+        if (entries.containsKey(file) || entries.size() < capacity) {
+            entries.put(file, new Entry(file, compilationUnit, reclaimedEntries));
+        }
+    }
+
+    private void removeReclaimedEntries() {
+        Entry reference;
+        while ((reference = (Entry) reclaimedEntries.poll()) != null) {
+            entries.remove(reference.file, reference);
+        }
+    }
+
+    /**
+     * Makes {@link #forEach(List, Consumer)} parse the missing ASTs by batches instead of one file at a time.
+     *
+     * @param sourceRoots source roots put on the sourcepath of the batches
+     * @param batchSize   maximum number of files per batch, 0 meaning that all files are parsed in a single batch
+     */
+    public void enableBatchParsing(String[] sourceRoots, int batchSize) {
+        this.sourceRoots = sourceRoots;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Applies the action to the AST of each file, in the order of the list.
+     * When batch parsing is enabled, the files are processed by chunks, the files of a chunk which are not cached
+     * being parsed together.
+     *
+     * @param files  source files
+     * @param action action to apply on each compilation unit
+     */
+    public void forEach(List <File> files, Consumer <CompilationUnit> action) throws IOException {
+        forEach(files, (file, compilationUnit) -> action.accept(compilationUnit));
+    }
+
+    /**
+     * Same as {@link #forEach(List, Consumer)}, the action also receiving the file of the compilation unit.
+     *
+     * @param files  source files
+     * @param action action to apply on each file and its compilation unit
+     */
+    public void forEach(List <File> files, BiConsumer <File, CompilationUnit> action) throws IOException {
+        if (sourceRoots == null) {
+            for (File file : files) {
+                action.accept(file, get(file));
+            }
+            return;
+        }
+        int chunkSize = batchSize > 0 ? batchSize : Math.max(files.size(), 1);
+        for (int start = 0 ; start < files.size() ; start += chunkSize) {
+            List <File> chunk = files.subList(start, Math.min(start + chunkSize, files.size()));
+            Map <File, CompilationUnit> chunkUnits = new HashMap <>();
+            List <File> missingFiles = new ArrayList <>();
+            for (File file : chunk) {
+                CompilationUnit compilationUnit = lookup(file);
+                if (compilationUnit != null) {
+                    chunkUnits.put(file, compilationUnit);
+                } else {
+                    missingFiles.add(file);
+                }
+            }
+            if (! missingFiles.isEmpty()) {
+                parser.parse(missingFiles, sourceRoots, (file, compilationUnit) -> {
+                    store(file, compilationUnit);
+                    chunkUnits.put(file, compilationUnit);
+                });
+            }
+            for (File file : chunk) {
+                CompilationUnit compilationUnit = chunkUnits.get(file);
+                if (compilationUnit != null) {
+                    action.accept(file, compilationUnit);
+                } else {
+                    logger.warn("No AST produced for " + file);
+                }
+            }
+        }
+    }
+
+    /**
+     * Logs the number of cache hits and parses since the previous report, and resets the counters.
+     *
+     * @param phaseName name of the phase the statistics refer to
+     */
+    public synchronized void reportPhase(String phaseName) {
+        logger.printf(Level.getLevel("MY_LEVEL"), "%s AST cache: %d hits, %d parses, %d re-parses",
+                phaseName, hits, parses, reparses);
+        hits = 0;
+        parses = 0;
+        reparses = 0;
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+        parsedFiles.clear();
+    }
+
+    /**
+     * Soft reference to the AST of a file, knowing its file so that it can be removed once reclaimed.
+     */
+    private static class Entry extends SoftReference <CompilationUnit> {
+
+        private final File file;
+
+        private Entry(File file, CompilationUnit compilationUnit, ReferenceQueue <CompilationUnit> queue) {
+            super(compilationUnit, queue);
+            this.file = file;
+        }
+
+    }
+
+}
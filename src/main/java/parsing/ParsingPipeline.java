@@ -0,0 +1,223 @@
+/*
+ * This file is part of symfinder.
+ *
+ * symfinder is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * symfinder is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with symfinder. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright 2018-2021 Johann Mortara <johann.mortara@univ-cotedazur.fr>
+ * Copyright 2018-2021 Xhevahire Tërnava <t.xheva@gmail.com>
+ * Copyright 2018-2021 Philippe Collet <philippe.collet@univ-cotedazur.fr>
+ */
+
+package parsing;
+
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.eclipse.jdt.core.dom.CompilationUnit;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
+
+/**
+ * Visits files with a reader stage and a pool of parsers connected by a bounded queue,
+ * so that the disk reads of the next files overlap with the parsing and visit of the previous ones.
+ * The reader thread reads the sources of the files whose AST is not cached, in the order of the list,
+ * and waits when the queue is full. Each parser thread takes the next source from the queue, parses it and applies its action to the AST.
+ * After a failure, the remaining files are skipped and the failure is thrown once all the stages have stopped.
+ */
+public class ParsingPipeline {
+
+    private static final Logger logger = LogManager.getLogger(ParsingPipeline.class);
+
+    /**
+     * Marks the end of the files in the queue, one per parser.
+     */
+    private static final Source END = new Source(null, null);
+
+    private final AstCache astCache;
+    private final int queueCapacity;
+    private final int nbParsers;
+
+    private final AtomicLong nbReadFiles = new AtomicLong();
+    private final AtomicLong nbReadChars = new AtomicLong();
+    private final AtomicLong readTime = new AtomicLong();
+    private final AtomicLong readerWaitTime = new AtomicLong();
+    private final AtomicLong nbParsedFiles = new AtomicLong();
+    private final AtomicLong parseTime = new AtomicLong();
+    private final AtomicLong parserWaitTime = new AtomicLong();
+    private final AtomicLong queueDepthSum = new AtomicLong();
+    private final AtomicLong maxQueueDepth = new AtomicLong();
+
+    /**
+     * @param astCache      cache through which the files are read and parsed
+     * @param queueCapacity maximum number of sources read in advance
+     * @param nbParsers     number of parser threads
+     */
+    public ParsingPipeline(AstCache astCache, int queueCapacity, int nbParsers) {
+        this.astCache = astCache;
+        this.queueCapacity = Math.max(1, queueCapacity);
+        this.nbParsers = Math.max(1, nbParsers);
+    }
+
+    /**
+     * Applies an action to the AST of each file.
+     *
+     * @param files          source files, read in this order
+     * @param actionSupplier called once by each parser thread to create the action it applies to the files it parses
+     */
+    public void run(List <File> files, Supplier <BiConsumer <File, CompilationUnit>> actionSupplier) throws IOException {
+        BlockingQueue <Source> queue = new ArrayBlockingQueue <>(queueCapacity);
+        AtomicReference <Exception> failure = new AtomicReference <>();
+        ExecutorService pool = Executors.newFixedThreadPool(nbParsers + 1);
+        try {
+            List <Future <?>> stages = new ArrayList <>();
+            stages.add(pool.submit(() -> read(files, queue, failure)));
+            for (int i = 0 ; i < nbParsers ; i++) {
+                stages.add(pool.submit(() -> parse(queue, actionSupplier, failure)));
+            }
+            for (Future <?> stage : stages) {
+                stage.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException(e);
+        } catch (ExecutionException e) {
+            throw new IOException(e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+        Exception exception = failure.get();
+        if (exception instanceof IOException) {
+            throw (IOException) exception;
+        }
+        if (exception != null) {
+            throw new IOException(exception);
+        }
+    }
+
+    private void read(List <File> files, BlockingQueue <Source> queue, AtomicReference <Exception> failure) {
+        try {
+            for (File file : files) {
+                if (failure.get() != null) {
+                    break;
+                }
+                Source source = new Source(file, null);
+                if (! astCache.contains(file)) {
+                    long startTime = System.nanoTime();
+                    char[] content = astCache.read(file);
+                    readTime.addAndGet(System.nanoTime() - startTime);
+                    nbReadFiles.incrementAndGet();
+                    nbReadChars.addAndGet(content.length);
+                    source = new Source(file, content);
+                }
+                put(queue, source);
+            }
+        } catch (IOException | RuntimeException e) {
+            failure.compareAndSet(null, e);
+        } finally {
+            for (int i = 0 ; i < nbParsers ; i++) {
+                put(queue, END);
+            }
+        }
+    }
+
+    private void put(BlockingQueue <Source> queue, Source source) {
+        long startTime = System.nanoTime();
+        try {
+            queue.put(source);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+        readerWaitTime.addAndGet(System.nanoTime() - startTime);
+    }
+
+    /**
+     * Parses the sources until the end of the queue. After a failure, the sources are still taken so that the reader never waits forever.
+     */
+    private Void parse(BlockingQueue <Source> queue, Supplier <BiConsumer <File, CompilationUnit>> actionSupplier,
+                       AtomicReference <Exception> failure) throws InterruptedException {
+        BiConsumer <File, CompilationUnit> action = null;
+        while (true) {
+            long startTime = System.nanoTime();
+            int queueDepth = queue.size();
+            Source source = queue.take();
+            parserWaitTime.addAndGet(System.nanoTime() - startTime);
+            if (source == END) {
+                return null;
+            }
+            queueDepthSum.addAndGet(queueDepth);
+            maxQueueDepth.accumulateAndGet(queueDepth, Math::max);
+            if (failure.get() != null) {
+                continue;
+            }
+            startTime = System.nanoTime();
+            try {
+                if (action == null) {
+                    action = actionSupplier.get();
+                }
+                CompilationUnit compilationUnit = source.content == null ? astCache.get(source.file) : astCache.get(source.file, source.content);
+                action.accept(source.file, compilationUnit);
+            } catch (IOException | RuntimeException e) {
+                failure.compareAndSet(null, e);
+            }
+            parseTime.addAndGet(System.nanoTime() - startTime);
+            nbParsedFiles.incrementAndGet();
+        }
+    }
+
+    /**
+     * Logs the throughput of each stage, the time they spent waiting for each other and the depth of the queue since the previous report,
+     * and resets the counters.
+     * The waiting time of the reader is the time it spent waiting for room in the queue, the one of the parsers the time they spent waiting for a source.
+     *
+     * @param phaseName name of the phase the statistics refer to
+     */
+    public void reportPhase(String phaseName) {
+        long nbParsed = nbParsedFiles.getAndSet(0);
+        long nbRead = nbReadFiles.getAndSet(0);
+        logger.printf(Level.getLevel("MY_LEVEL"),
+                "%s pipeline: reader %d files (%d chars) at %.1f files/s, waited %d ms; parsers %d files at %.1f files/s, waited %d ms; queue depth %.1f on average, %d at most",
+                phaseName, nbRead, nbReadChars.getAndSet(0), getThroughput(nbRead, readTime.getAndSet(0)), readerWaitTime.getAndSet(0) / 1_000_000,
+                nbParsed, getThroughput(nbParsed, parseTime.getAndSet(0) / nbParsers), parserWaitTime.getAndSet(0) / 1_000_000,
+                nbParsed == 0 ? 0.0 : (double) queueDepthSum.getAndSet(0) / nbParsed, maxQueueDepth.getAndSet(0));
+    }
+
+    private static double getThroughput(long nbFiles, long nanoseconds) {
+        return nanoseconds == 0 ? 0.0 : nbFiles * 1e9 / nanoseconds;
+    }
+
+    /**
+     * File and its content, null if its AST is cached.
+     */
+    private static class Source {
+
+        private final File file;
+        private final char[] content;
+
+        private Source(File file, char[] content) {
+            this.file = file;
+            this.content = content;
+        }
+
+    }
+
+}
@@ -0,0 +1,158 @@
+/*
+ * This file is part of symfinder.
+ *
+ * symfinder is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * symfinder is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with symfinder. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright 2018-2021 Johann Mortara <johann.mortara@univ-cotedazur.fr>
+ * Copyright 2018-2021 Xhevahire Tërnava <t.xheva@gmail.com>
+ * Copyright 2018-2021 Philippe Collet <philippe.collet@univ-cotedazur.fr>
+ */
+
+package parsing;
+
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.*;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Reads source files into the character arrays given to the parser.
+ * The encoding of a file is given by its byte order mark if it has one. Otherwise, the file is decoded as UTF-8,
+ * and if it is not valid UTF-8, with the fallback encoding.
+ * The bytes are read at once and decoded directly into the returned array, so that a UTF-8 file is decoded once.
+ * For the parsers reading the files themselves, {@link #getEncoding(File)} gives the encoding determined the same way.
+ */
+public class SourceLoader {
+
+    private static final Logger logger = LogManager.getLogger(SourceLoader.class);
+
+    private static final byte[] UTF_8_BOM = {(byte) 0xEF, (byte) 0xBB, (byte) 0xBF};
+    private static final byte[] UTF_16BE_BOM = {(byte) 0xFE, (byte) 0xFF};
+    private static final byte[] UTF_16LE_BOM = {(byte) 0xFF, (byte) 0xFE};
+
+    private final Charset fallbackCharset;
+    private final Map <String, LongAdder> nbFilesByCharset = new ConcurrentHashMap <>();
+
+    /**
+     * @param fallbackCharset encoding of the files which have no byte order mark and are not valid UTF-8
+     */
+    public SourceLoader(Charset fallbackCharset) {
+        this.fallbackCharset = fallbackCharset;
+    }
+
+    public char[] load(File file) throws IOException {
+        return decode(file).source;
+    }
+
+    /**
+     * Determines the encoding of the file as {@link #load(File)} does, for a parser reading the file itself.
+     * For a file starting with a UTF-16 byte order mark, the encoding is UTF-16, whose decoder skips the mark.
+     *
+     * @return the name of the encoding
+     */
+    public String getEncoding(File file) throws IOException {
+        Charset charset = decode(file).charset;
+        return charset.equals(StandardCharsets.UTF_16BE) || charset.equals(StandardCharsets.UTF_16LE) ? StandardCharsets.UTF_16.name() : charset.name();
+    }
+
+    private DecodedFile decode(File file) throws IOException {
+        byte[] bytes = Files.readAllBytes(file.toPath());
+        Charset charset = StandardCharsets.UTF_8;
+        int offset = 0;
+        if (startsWith(bytes, UTF_8_BOM)) {
+            offset = UTF_8_BOM.length;
+        } else if (startsWith(bytes, UTF_16BE_BOM)) {
+            charset = StandardCharsets.UTF_16BE;
+            offset = UTF_16BE_BOM.length;
+        } else if (startsWith(bytes, UTF_16LE_BOM)) {
+            charset = StandardCharsets.UTF_16LE;
+            offset = UTF_16LE_BOM.length;
+        }
+        ByteBuffer input = ByteBuffer.wrap(bytes, offset, bytes.length - offset);
+        char[] source = decode(input, charset, CodingErrorAction.REPORT);
+        if (source == null) {
+            charset = fallbackCharset;
+            source = decode(input.rewind().position(offset), charset, CodingErrorAction.REPLACE);
+        }
+        nbFilesByCharset.computeIfAbsent(charset.name(), name -> new LongAdder()).increment();
+        return new DecodedFile(charset, source);
+    }
+
+    /**
+     * @return the decoded characters, or null if the bytes are not valid in the encoding and errors are reported
+     */
+    private static char[] decode(ByteBuffer input, Charset charset, CodingErrorAction errorAction) {
+        CharsetDecoder decoder = charset.newDecoder().onMalformedInput(errorAction).onUnmappableCharacter(errorAction);
+        // sized for the maximal number of characters per byte, so that the output cannot overflow
+        CharBuffer output = CharBuffer.allocate((int) Math.ceil(input.remaining() * (double) decoder.maxCharsPerByte()));
+        CoderResult result = decoder.decode(input, output, true);
+        if (result.isUnderflow()) {
+            result = decoder.flush(output);
+        }
+        if (! result.isUnderflow()) {
+            return null;
+        }
+        char[] chars = output.array();
+        return output.position() == chars.length ? chars : Arrays.copyOf(chars, output.position());
+    }
+
+    private static boolean startsWith(byte[] bytes, byte[] prefix) {
+        if (bytes.length < prefix.length) {
+            return false;
+        }
+        for (int i = 0 ; i < prefix.length ; i++) {
+            if (bytes[i] != prefix[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return the number of files loaded with each encoding
+     */
+    public Map <String, Long> getNbFilesByCharset() {
+        Map <String, Long> counts = new TreeMap <>();
+        nbFilesByCharset.forEach((charset, count) -> counts.put(charset, count.sum()));
+        return counts;
+    }
+
+    public void report() {
+        logger.log(Level.getLevel("MY_LEVEL"), "Source encodings: " + getNbFilesByCharset());
+    }
+
+    private static class DecodedFile {
+
+        private final Charset charset;
+        private final char[] source;
+
+        private DecodedFile(Charset charset, char[] source) {
+            this.charset = charset;
+            this.source = source;
+        }
+
+    }
+
+}
@@ -0,0 +1,174 @@
+/*
+ * This file is part of symfinder.
+ *
+ * symfinder is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * symfinder is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with symfinder. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright 2018-2021 Johann Mortara <johann.mortara@univ-cotedazur.fr>
+ * Copyright 2018-2021 Xhevahire Tërnava <t.xheva@gmail.com>
+ * Copyright 2018-2021 Philippe Collet <philippe.collet@univ-cotedazur.fr>
+ */
+
+package parsing;
+
+import org.eclipse.jdt.core.JavaCore;
+import org.eclipse.jdt.core.dom.AST;
+import org.eclipse.jdt.core.dom.ASTParser;
+import org.eclipse.jdt.core.dom.CompilationUnit;
+import org.eclipse.jdt.core.dom.FileASTRequestor;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.function.BiConsumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Builds the JDT AST of a source file, with bindings resolved against the given classpath.
+ */
+public class SourceParser {
+
+    private static final Pattern PACKAGE_DECLARATION = Pattern.compile("^\\s*package\\s+([\\w.]+)\\s*;", Pattern.MULTILINE);
+
+    private String classpathPath;
+    private SourceLoader sourceLoader;
+
+    public SourceParser(String classpathPath) {
+        this(classpathPath, StandardCharsets.ISO_8859_1);
+    }
+
+    /**
+     * @param classpathPath   classpath against which the bindings are resolved
+     * @param fallbackCharset encoding of the files which have no byte order mark and are not valid UTF-8
+     */
+    public SourceParser(String classpathPath, Charset fallbackCharset) {
+        this.classpathPath = classpathPath;
+        this.sourceLoader = new SourceLoader(fallbackCharset);
+    }
+
+    public CompilationUnit parse(File file) throws IOException {
+        return parse(file, read(file));
+    }
+
+    /**
+     * Parses the source of a file which has already been read.
+     *
+     * @param file   source file, naming the compilation unit
+     * @param source content of the file, as returned by {@link #read(File)}
+     */
+    public CompilationUnit parse(File file, char[] source) throws IOException {
+        ASTParser parser = newParser();
+        parser.setUnitName(file.getCanonicalPath());
+        parser.setEnvironment(new String[]{classpathPath}, new String[]{""}, new String[]{"UTF-8"}, true);
+        parser.setSource(source);
+
+        return (CompilationUnit) parser.createAST(null);
+    }
+
+    /**
+     * Reads the content of the file, so that it can be parsed later by {@link #parse(File, char[])}.
+     */
+    public char[] read(File file) throws IOException {
+        return sourceLoader.load(file);
+    }
+
+    public SourceLoader getSourceLoader() {
+        return sourceLoader;
+    }
+
+    /**
+     * Parses all the files in a single JDT batch.
+     * The lookup environment, and therefore the JDK types and the bindings of the project types, is built once
+     * for the whole batch instead of once per file.
+     * The source roots are put on the sourcepath, so that types defined in other files of the project are resolved
+     * from their sources.
+     * JDT reads the files itself, each one with the encoding determined by the {@link SourceLoader}.
+     * The files of the sourcepath which are not parsed are read as UTF-8.
+     *
+     * @param files       source files to parse
+     * @param sourceRoots directories containing the root packages of the sources
+     * @param consumer    called with each file and its compilation unit, as soon as the unit is available
+     */
+    public void parse(List <File> files, String[] sourceRoots, BiConsumer <File, CompilationUnit> consumer) throws IOException {
+        Map <String, File> filesByPath = new HashMap <>();
+        for (File file : files) {
+            filesByPath.put(file.getCanonicalPath(), file);
+        }
+        String[] sourceFilePaths = filesByPath.keySet().toArray(new String[0]);
+        String[] sourceFileEncodings = new String[sourceFilePaths.length];
+        for (int i = 0 ; i < sourceFilePaths.length ; i++) {
+            sourceFileEncodings[i] = sourceLoader.getEncoding(filesByPath.get(sourceFilePaths[i]));
+        }
+
+        ASTParser parser = newParser();
+        parser.setEnvironment(new String[]{classpathPath}, sourceRoots, encodings(sourceRoots.length), true);
+        parser.createASTs(sourceFilePaths, sourceFileEncodings, new String[0], new FileASTRequestor() {
+            @Override
+            public void acceptAST(String sourceFilePath, CompilationUnit ast) {
+                consumer.accept(filesByPath.get(sourceFilePath), ast);
+            }
+        }, null);
+    }
+
+    private ASTParser newParser() {
+        ASTParser parser = ASTParser.newParser(AST.JLS13);
+        parser.setResolveBindings(true);
+        parser.setKind(ASTParser.K_COMPILATION_UNIT);
+
+        parser.setBindingsRecovery(true);
+
+        Map <String, String> options = JavaCore.getOptions();
+        options.put(JavaCore.COMPILER_SOURCE, JavaCore.VERSION_13);
+        parser.setCompilerOptions(options);
+        return parser;
+    }
+
+    private static String[] encodings(int size) {
+        String[] encodings = new String[size];
+        Arrays.fill(encodings, "UTF-8");
+        return encodings;
+    }
+
+    /**
+     * Determines the source roots of the files, i.e. the directories from which their package declarations are resolved.
+     * For example, the root of a/src/org/example/Foo.java declaring the package org.example is a/src.
+     * Files whose package does not match their location are ignored.
+     *
+     * @param files source files
+     * @return the distinct source roots
+     */
+    public static String[] findSourceRoots(List <File> files) throws IOException {
+        Set <String> roots = new LinkedHashSet <>();
+        for (File file : files) {
+            // ISO-8859-1 decodes any byte sequence, and the package declaration is ASCII
+            Matcher matcher = PACKAGE_DECLARATION.matcher(Files.readString(file.toPath(), StandardCharsets.ISO_8859_1));
+            Path root = file.getCanonicalFile().toPath().getParent();
+            if (matcher.find()) {
+                String[] packageComponents = matcher.group(1).split("\\.");
+                for (int i = packageComponents.length - 1 ; root != null && i >= 0 ; i--) {
+                    root = root.getFileName() != null && root.getFileName().toString().equals(packageComponents[i]) ? root.getParent() : null;
+                }
+            }
+            if (root != null) {
+                roots.add(root.toString());
+            }
+        }
+        return roots.toArray(new String[0]);
+    }
+
+}
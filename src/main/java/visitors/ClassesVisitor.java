@@ -1,28 +1,42 @@
 package visitors;
 
 import neo4j_types.*;
-import neograph.NeoGraph;
+import neograph.GraphStore;
 import org.apache.logging.log4j.Level;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.eclipse.jdt.core.dom.CompilationUnit;
 import org.eclipse.jdt.core.dom.ITypeBinding;
 import org.eclipse.jdt.core.dom.MethodDeclaration;
 import org.eclipse.jdt.core.dom.Modifier;
 import org.eclipse.jdt.core.dom.TypeDeclaration;
-import org.neo4j.driver.types.Node;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 /**
  * Parses all classes and the methods they contain, and adds them to the database.
+ * The methods and constructors of each type are counted during the visit of the compilation unit,
+ * and the method properties of the types are set in a single write per type at the end of the visit.
+ * Without method nodes, the method and constructor nodes are not created, their names being set as properties of the types instead.
  */
 public class ClassesVisitor extends SymfinderVisitor {
 
     private static final Logger logger = LogManager.getLogger(ClassesVisitor.class);
 
-    public ClassesVisitor(NeoGraph neoGraph) {
-        super(neoGraph);
+    private final boolean methodNodes;
+    private final Map <String, TypeMethods> typesMethods = new LinkedHashMap <>();
+
+    public ClassesVisitor(GraphStore graph) {
+        this(graph, true);
+    }
+
+    /**
+     * @param methodNodes if false, no METHOD and CONSTRUCTOR nodes are created, their counts being set as properties of the types
+     */
+    public ClassesVisitor(GraphStore graph, boolean methodNodes) {
+        super(graph);
+        this.methodNodes = methodNodes;
     }
 
     @Override
@@ -44,7 +58,8 @@ public class ClassesVisitor extends SymfinderVisitor {
                 nodeType = EntityType.CLASS;
                 nodeTypeList = new NodeType[]{nodeVisibility};
             }
-            neoGraph.createNode(type.resolveBinding().getQualifiedName(), nodeType, nodeTypeList);
+            graph.addNode(type.resolveBinding().getQualifiedName(), nodeType, nodeTypeList);
+            typesMethods.put(type.resolveBinding().getQualifiedName(), new TypeMethods(nodeType, nodeVisibility == EntityVisibility.PUBLIC));
             return true;
         }
         return false;
@@ -59,19 +74,31 @@ public class ClassesVisitor extends SymfinderVisitor {
             String methodName = method.getName().getIdentifier();
             String parentClassName = declaringClass.getQualifiedName();
             logger.printf(Level.DEBUG, "Method: %s, parent: %s", methodName, parentClassName);
-            //Node methodNode = Modifier.isAbstract(method.getModifiers()) ? neoGraph.createNode(methodName, methodType, EntityAttribute.ABSTRACT) : neoGraph.createNode(methodName, methodType);
-            Node parentClassNode = neoGraph.getOrCreateNode(parentClassName, declaringClass.isInterface() ? EntityType.INTERFACE : EntityType.CLASS);
-            Node methodNode = createMethodNode(declaringClass,method);
-            neoGraph.linkTwoNodes(parentClassNode, methodNode, RelationType.METHOD);
+            EntityType parentType = declaringClass.isInterface() ? EntityType.INTERFACE : EntityType.CLASS;
+            NodeType[] methodNodeTypes = getMethodNodeTypes(declaringClass, method);
+            // Types whose declaration is not visited, e.g. enums, are not labeled PUBLIC, as when their node is created by addChildNode
+            typesMethods.computeIfAbsent(parentClassName, name -> new TypeMethods(parentType, false))
+                    .addMethod(methodName, method.isConstructor(), methodNodeTypes);
+            if (! methodNodes) {
+                return false;
+            }
+            //Node methodNode = Modifier.isAbstract(method.getModifiers()) ? graph.createNode(methodName, methodType, EntityAttribute.ABSTRACT) : graph.createNode(methodName, methodType);
+            graph.addChildNode(parentClassName, parentType,
+                    methodName, method.isConstructor() ? EntityType.CONSTRUCTOR : EntityType.METHOD,
+                    methodNodeTypes, RelationType.METHOD);
         }
         return false;
     }
 
-    private Node createMethodNode(ITypeBinding declaringClass, MethodDeclaration method){
+    @Override
+    public void endVisit(CompilationUnit compilationUnit) {
+        typesMethods.forEach((name, typeMethods) -> graph.setNodeAttributes(name, typeMethods.getType(), typeMethods.getProperties(! methodNodes)));
+        typesMethods.clear();
+    }
+
+    private NodeType[] getMethodNodeTypes(ITypeBinding declaringClass, MethodDeclaration method){
         NodeType [] nodeTypeList;
-        String methodName = method.getName().getIdentifier();
         EntityVisibility nodeVisibility = Modifier.isPublic(method.getModifiers()) ? EntityVisibility.PUBLIC : EntityVisibility.PRIVATE;
-        EntityType methodType = method.isConstructor() ? EntityType.CONSTRUCTOR : EntityType.METHOD;
 
         if(Modifier.isPublic(declaringClass.getModifiers())){
             if(Modifier.isAbstract(method.getModifiers())){
@@ -86,7 +113,7 @@ public class ClassesVisitor extends SymfinderVisitor {
                 nodeTypeList = new NodeType[] {};
             }
         }
-        return neoGraph.createNode(methodName, methodType, nodeTypeList);
+        return nodeTypeList;
     }
 }
 
@@ -2,7 +2,7 @@ package visitors;
 
 import neo4j_types.EntityType;
 import neo4j_types.RelationType;
-import neograph.NeoGraph;
+import neograph.GraphStore;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.eclipse.jdt.core.dom.*;
@@ -14,8 +14,12 @@ import static neo4j_types.EntityAttribute.OUT_OF_SCOPE;
 
 public class ComposeTypeVisitor extends ImportsVisitor {
 
-    public ComposeTypeVisitor(NeoGraph neoGraph) {
-        super(neoGraph);
+    public ComposeTypeVisitor(GraphStore graph) {
+        super(graph);
+    }
+
+    public ComposeTypeVisitor(GraphStore graph, KnownTypes knownTypes) {
+        super(graph, knownTypes);
     }
 
     private static final Logger logger = LogManager.getLogger(ComposeTypeVisitor.class);
@@ -28,13 +32,14 @@ public class ComposeTypeVisitor extends ImportsVisitor {
             ITypeBinding fieldDeclaringClassBinding = ((TypeDeclaration) field.getParent()).resolveBinding();
             String parentClassName = fieldDeclaringClassBinding.getQualifiedName();
             Optional <String> classFullName = getClassFullName(fieldTypeBinding);
-            if (classFullName.isPresent()) {
-                Optional <Node> typeNode = neoGraph.getNode(classFullName.get());
+            if (classFullName.isPresent() && knownTypes.contains(classFullName.get())) {
+                Optional <Node> typeNode = graph.getNode(classFullName.get());
                 typeNode.ifPresent(node -> {
                     if (! node.hasLabel(OUT_OF_SCOPE.getString())) {
-                        Node parentClassNode = neoGraph.getOrCreateNode(parentClassName, fieldDeclaringClassBinding.isInterface() ? EntityType.INTERFACE : EntityType.CLASS);
-                        if (! neoGraph.relatedTo(parentClassNode, node)) {
-                            neoGraph.linkTwoNodes(parentClassNode, node, RelationType.INSTANTIATE);
+                        Node parentClassNode = graph.getOrCreateNode(parentClassName, fieldDeclaringClassBinding.isInterface() ? EntityType.INTERFACE : EntityType.CLASS);
+                        knownTypes.add(parentClassName);
+                        if (! graph.relatedTo(parentClassNode, node)) {
+                            graph.linkTwoNodes(parentClassNode, node, RelationType.INSTANTIATE);
                         }
                     }
                 });
@@ -50,18 +55,19 @@ public class ComposeTypeVisitor extends ImportsVisitor {
             declaringClass = method.resolveBinding().getDeclaringClass();
             ITypeBinding[] typeparameters = method.resolveBinding().getParameterTypes();
             String parentClassName = declaringClass.getQualifiedName();
-            Node parentClassNode = neoGraph.getOrCreateNode(parentClassName, declaringClass.isInterface() ? EntityType.INTERFACE : EntityType.CLASS);
+            Node parentClassNode = graph.getOrCreateNode(parentClassName, declaringClass.isInterface() ? EntityType.INTERFACE : EntityType.CLASS);
+            knownTypes.add(parentClassName);
             int size = typeparameters.length;
 
             if (size != 0) {
                 for (ITypeBinding typeparameter : typeparameters) {
                     Optional <String> classFullName = getClassFullName(typeparameter);
-                    if (classFullName.isPresent()) {
-                        Optional <Node> typeNode = neoGraph.getNode(classFullName.get());
+                    if (classFullName.isPresent() && knownTypes.contains(classFullName.get())) {
+                        Optional <Node> typeNode = graph.getNode(classFullName.get());
                         typeNode.ifPresent(node -> {
                             if (! node.hasLabel(OUT_OF_SCOPE.getString())) {
-                                if (! neoGraph.relatedTo(parentClassNode, node)) {
-                                    neoGraph.linkTwoNodes(parentClassNode, node, RelationType.INSTANTIATE);
+                                if (! graph.relatedTo(parentClassNode, node)) {
+                                    graph.linkTwoNodes(parentClassNode, node, RelationType.INSTANTIATE);
                                 }
                             }
                         });
@@ -76,11 +82,11 @@ public class ComposeTypeVisitor extends ImportsVisitor {
     private void ananlyzeReturnedTypeOfMethod(MethodDeclaration methodDeclaration, Node parentClassNode) {
         if (methodDeclaration != null && ! methodDeclaration.isConstructor() && methodDeclaration.getReturnType2().resolveBinding() != null && methodDeclaration.resolveBinding() != null) {
             String returnedType = methodDeclaration.getReturnType2().resolveBinding().getQualifiedName();
-            Optional <Node> returnedTypeNode = neoGraph.getNode(returnedType);
+            Optional <Node> returnedTypeNode = knownTypes.contains(returnedType) ? graph.getNode(returnedType) : Optional.empty();
             returnedTypeNode.ifPresent(node -> {
                 if (! node.hasLabel(OUT_OF_SCOPE.getString()) && ! node.get("name").asString().equals(parentClassNode.get("name").asString())) {
-                    if (! neoGraph.relatedTo(parentClassNode, node)) {
-                        neoGraph.linkTwoNodes(parentClassNode, node, RelationType.INSTANTIATE);
+                    if (! graph.relatedTo(parentClassNode, node)) {
+                        graph.linkTwoNodes(parentClassNode, node, RelationType.INSTANTIATE);
                     }
                 }
             });
@@ -0,0 +1,105 @@
+/*
+ * This file is part of symfinder.
+ *
+ * symfinder is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * symfinder is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with symfinder. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright 2018-2021 Johann Mortara <johann.mortara@univ-cotedazur.fr>
+ * Copyright 2018-2021 Xhevahire Tërnava <t.xheva@gmail.com>
+ * Copyright 2018-2021 Philippe Collet <philippe.collet@univ-cotedazur.fr>
+ */
+
+package visitors;
+
+import neograph.GraphStore;
+import org.neo4j.driver.types.Node;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Decisions taken by the visitors of a phase, shared by the visitors of all threads.
+ * A decision is identified by the binding keys of the types it depends on, and only depends on the inheritance relationships,
+ * which do not change during the phase: once taken, the same decision can be skipped in the other classes and files.
+ * The labels added to the nodes are recorded too, so that each label is added once to a node.
+ */
+public class DecisionMemo {
+
+    private final Set <String> decisions;
+    private final Set <String> labels;
+    private final LongAdder nbHits = new LongAdder();
+    private final LongAdder nbSkippedLabels = new LongAdder();
+
+    private DecisionMemo(boolean enabled) {
+        this.decisions = enabled ? ConcurrentHashMap.newKeySet() : null;
+        this.labels = enabled ? ConcurrentHashMap.newKeySet() : null;
+    }
+
+    /**
+     * @return a memo in which no decision is recorded, every decision being taken again
+     */
+    public static DecisionMemo none() {
+        return new DecisionMemo(false);
+    }
+
+    public static DecisionMemo create() {
+        return new DecisionMemo(true);
+    }
+
+    /**
+     * Records the decision identified by the key as taken.
+     *
+     * @return true if the decision must be taken, false if it was already taken
+     */
+    public boolean take(String key) {
+        if (decisions == null || decisions.add(key)) {
+            return true;
+        }
+        nbHits.increment();
+        return false;
+    }
+
+    /**
+     * Adds the label to the node, unless it was already added during the phase.
+     */
+    public void addLabel(GraphStore graph, Node node, String label) {
+        if (labels == null || labels.add(node.id() + ":" + label)) {
+            graph.addLabelToNode(node, label);
+        } else {
+            nbSkippedLabels.increment();
+        }
+    }
+
+    /**
+     * @return the number of decisions taken
+     */
+    public int size() {
+        return decisions == null ? 0 : decisions.size();
+    }
+
+    /**
+     * @return the number of decisions skipped because they were already taken
+     */
+    public long getNbHits() {
+        return nbHits.sum();
+    }
+
+    /**
+     * @return the number of labels not added again to a node
+     */
+    public long getNbSkippedLabels() {
+        return nbSkippedLabels.sum();
+    }
+
+}
@@ -3,7 +3,7 @@ package visitors;
 import neo4j_types.DesignPatternType;
 import neo4j_types.EntityAttribute;
 import neo4j_types.EntityType;
-import neograph.NeoGraph;
+import neograph.GraphStore;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.eclipse.jdt.core.dom.ASTNode;
@@ -17,13 +17,26 @@ import org.neo4j.driver.types.Node;
  * We detect as a factory pattern:
  * - a class who possesses a method which returns an object whose type is a subtype of the method return type
  * - a class whose name contains "Factory"
+ * The decision taken for a method's class, return type and type of the returned object is memoised,
+ * so that it is taken once per phase whatever the number of return statements.
  */
 public class FactoryVisitor extends SymfinderVisitor {
 
     private static final Logger logger = LogManager.getLogger(FactoryVisitor.class);
 
-    public FactoryVisitor(NeoGraph neoGraph) {
-        super(neoGraph);
+    private final DecisionMemo memo;
+
+    public FactoryVisitor(GraphStore graph) {
+        this(graph, KnownTypes.all(), DecisionMemo.none());
+    }
+
+    public FactoryVisitor(GraphStore graph, KnownTypes knownTypes) {
+        this(graph, knownTypes, DecisionMemo.none());
+    }
+
+    public FactoryVisitor(GraphStore graph, KnownTypes knownTypes, DecisionMemo memo) {
+        super(graph, knownTypes);
+        this.memo = memo;
     }
 
     @Override
@@ -31,7 +44,7 @@ public class FactoryVisitor extends SymfinderVisitor {
         if (super.visit(type)) {
             String qualifiedName = type.resolveBinding().getQualifiedName();
             if (qualifiedName.contains("Factory")) {
-                neoGraph.addLabelToNode(neoGraph.getOrCreateNode(qualifiedName, type.resolveBinding().isInterface() ? EntityType.INTERFACE : EntityType.CLASS), DesignPatternType.FACTORY.toString());
+                memo.addLabel(graph, graph.getOrCreateNode(qualifiedName, type.resolveBinding().isInterface() ? EntityType.INTERFACE : EntityType.CLASS), DesignPatternType.FACTORY.toString());
             }
             return true;
         }
@@ -56,16 +69,23 @@ public class FactoryVisitor extends SymfinderVisitor {
                 String methodReturnType = methodDeclaration.getReturnType2().resolveBinding().getQualifiedName();
                 logger.debug("typeOfReturnedObject : " + typeOfReturnedObject);
                 logger.debug("methodReturnType : " + methodReturnType);
+                if (! knownTypes.contains(parsedClassType)) {
+                    return false; // the factory label would be set on an out-of-scope node, which is not exported
+                }
+                if (! memo.take("return " + methodDeclaration.resolveBinding().getDeclaringClass().getKey() + " " +
+                        methodDeclaration.getReturnType2().resolveBinding().getKey() + " " + node.getExpression().resolveTypeBinding().getKey())) {
+                    return false;
+                }
                 // TODO: 4/30/19 if does not exist already, add label to filter on visualization
-                Node methodReturnTypeNode = neoGraph.getNode(methodReturnType).orElse(null);
+                Node methodReturnTypeNode = knownTypes.contains(methodReturnType) ? graph.getNode(methodReturnType).orElse(null) : null;
                 // If a node is created now, it means that it has not been created during the ClassesVisitor, hence that the type is not defined in the project.
                 // Therefore, it is considered as out of scope.
-                Node parsedClassNode = neoGraph.getOrCreateNode(parsedClassType, methodDeclaration.resolveBinding().getDeclaringClass().isInterface() ? EntityType.INTERFACE : EntityType.CLASS, new EntityAttribute[]{EntityAttribute.OUT_OF_SCOPE}, new EntityAttribute[]{});
-                Node returnedObjectTypeNode = neoGraph.getNode(typeOfReturnedObject).orElse(null);
+                Node parsedClassNode = graph.getOrCreateNode(parsedClassType, methodDeclaration.resolveBinding().getDeclaringClass().isInterface() ? EntityType.INTERFACE : EntityType.CLASS, new EntityAttribute[]{EntityAttribute.OUT_OF_SCOPE}, new EntityAttribute[]{});
+                Node returnedObjectTypeNode = knownTypes.contains(typeOfReturnedObject) ? graph.getNode(typeOfReturnedObject).orElse(null) : null;
                 // TODO: 3/27/19 functional test case with method returning Object → not direct link
                 if(methodReturnTypeNode != null && returnedObjectTypeNode != null){
-                    if (neoGraph.relatedTo(methodReturnTypeNode, returnedObjectTypeNode) && neoGraph.getNbVariants(methodReturnTypeNode) >= 2) {
-                        neoGraph.addLabelToNode(parsedClassNode, DesignPatternType.FACTORY.toString());
+                    if (graph.relatedTo(methodReturnTypeNode, returnedObjectTypeNode) && graph.getNbVariants(methodReturnTypeNode) >= 2) {
+                        memo.addLabel(graph, parsedClassNode, DesignPatternType.FACTORY.toString());
                     }
                 }
 
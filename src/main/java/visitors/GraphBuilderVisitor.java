@@ -3,7 +3,7 @@ package visitors;
 import neo4j_types.EntityAttribute;
 import neo4j_types.EntityType;
 import neo4j_types.RelationType;
-import neograph.NeoGraph;
+import neograph.GraphStore;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.eclipse.jdt.core.dom.ITypeBinding;
@@ -22,10 +22,10 @@ public class GraphBuilderVisitor extends ImportsVisitor {
 
     private static final Logger logger = LogManager.getLogger(GraphBuilderVisitor.class);
 
-    private static int nbCorrectedInheritanceLinks = 0;
+    private int nbCorrectedInheritanceLinks = 0;
 
-    public GraphBuilderVisitor(NeoGraph neoGraph) {
-        super(neoGraph);
+    public GraphBuilderVisitor(GraphStore graph) {
+        super(graph);
     }
 
     @Override
@@ -34,7 +34,7 @@ public class GraphBuilderVisitor extends ImportsVisitor {
             ITypeBinding classBinding = type.resolveBinding();
             String thisClassName = classBinding.getQualifiedName();
             logger.debug("Class: " + thisClassName);
-            Optional <Node> thisNode = classBinding.isInterface() ? neoGraph.getInterfaceNode(thisClassName) : neoGraph.getClassNode(thisClassName);
+            Optional <Node> thisNode = classBinding.isInterface() ? graph.getInterfaceNode(thisClassName) : graph.getClassNode(thisClassName);
             if (thisNode.isPresent()) {
                 // Link to superclass if exists
                 ITypeBinding superclassType = classBinding.getSuperclass();
@@ -65,12 +65,11 @@ public class GraphBuilderVisitor extends ImportsVisitor {
         }
         // If a node is created now, it means that it has not been created during the ClassesVisitor, hence that the type is not defined in the project.
         // Therefore, it is considered as out of scope.
-        Node superclassNode = neoGraph.getOrCreateNode(myImportedClass.orElse(qualifiedName), entityType, new EntityAttribute[]{EntityAttribute.OUT_OF_SCOPE}, new EntityAttribute[]{});
-        neoGraph.linkTwoNodes(superclassNode, thisNode, relationType);
+        graph.linkFromNode(myImportedClass.orElse(qualifiedName), entityType, new EntityAttribute[]{EntityAttribute.OUT_OF_SCOPE}, thisNode, relationType);
     }
 
 
-    public static int getNbCorrectedInheritanceLinks() {
+    public int getNbCorrectedInheritanceLinks() {
         return nbCorrectedInheritanceLinks;
     }
 }
@@ -1,6 +1,6 @@
 package visitors;
 
-import neograph.NeoGraph;
+import neograph.GraphStore;
 import org.eclipse.jdt.core.dom.ITypeBinding;
 import org.eclipse.jdt.core.dom.ImportDeclaration;
 import org.eclipse.jdt.core.dom.TypeDeclaration;
@@ -16,8 +16,12 @@ public class ImportsVisitor extends SymfinderVisitor {
     protected ITypeBinding thisClassBinding = null;
 
 
-    public ImportsVisitor(NeoGraph neoGraph) {
-        super(neoGraph);
+    public ImportsVisitor(GraphStore graph) {
+        super(graph);
+    }
+
+    public ImportsVisitor(GraphStore graph, KnownTypes knownTypes) {
+        super(graph, knownTypes);
     }
 
     @Override
@@ -70,7 +74,7 @@ public class ImportsVisitor extends SymfinderVisitor {
         }
         String jdtFullName = binding.getQualifiedName();
         String jdtClassName = getClassBaseName(jdtFullName);
-        if (neoGraph.getNode(jdtClassName).isPresent()) {
+        if (graph.getNode(jdtClassName).isPresent()) {
             return Optional.of(jdtClassName);
         }
         String className = getClassBaseName(binding.getName());
@@ -82,7 +86,7 @@ public class ImportsVisitor extends SymfinderVisitor {
         }
         Optional <Optional <Node>> first1 = imports.stream()
                 .filter(ImportDeclaration::isOnDemand)
-                .map(importDeclaration -> neoGraph.getNodeWithNameInPackage(className, importDeclaration.getName().getFullyQualifiedName()))
+                .map(importDeclaration -> graph.getNodeWithNameInPackage(className, importDeclaration.getName().getFullyQualifiedName()))
                 .filter(Optional::isPresent)
                 .findFirst();
         return first1.map(node -> node.get().get("name").asString()); // Optional.empty -> out of scope class
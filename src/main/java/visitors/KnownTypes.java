@@ -0,0 +1,89 @@
+/*
+ * This file is part of symfinder.
+ *
+ * symfinder is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * symfinder is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with symfinder. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright 2018-2021 Johann Mortara <johann.mortara@univ-cotedazur.fr>
+ * Copyright 2018-2021 Xhevahire Tërnava <t.xheva@gmail.com>
+ * Copyright 2018-2021 Philippe Collet <philippe.collet@univ-cotedazur.fr>
+ */
+
+package visitors;
+
+import java.util.Collection;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Qualified names of the types having a node in the graph once the inheritance relationships are created:
+ * the classes and interfaces of the project, and the out-of-scope types they inherit from.
+ * The visitors skip the other types they reference, e.g. the ones of the JDK and of the libraries, without any request,
+ * instead of looking them up or creating an out-of-scope node for each of them.
+ * Having no subtypes, such nodes could not be VPs, make variants or mark patterns, and out-of-scope nodes are not exported.
+ */
+public class KnownTypes {
+
+    private final Set <String> names;
+    private final LongAdder nbSkippedTypes = new LongAdder();
+
+    private KnownTypes(Set <String> names) {
+        this.names = names;
+    }
+
+    /**
+     * @return known types containing every name, so that the nodes of all referenced types are looked up and created
+     */
+    public static KnownTypes all() {
+        return new KnownTypes(null);
+    }
+
+    public static KnownTypes of(Collection <String> names) {
+        Set <String> knownNames = ConcurrentHashMap.newKeySet();
+        knownNames.addAll(names);
+        return new KnownTypes(knownNames);
+    }
+
+    /**
+     * @return true if the type has a node in the graph, false if the visitors can skip it
+     */
+    public boolean contains(String name) {
+        if (names == null || names.contains(name)) {
+            return true;
+        }
+        nbSkippedTypes.increment();
+        return false;
+    }
+
+    /**
+     * Records a type whose node was created by a visitor, so that the next visitors find it.
+     */
+    public void add(String name) {
+        if (names != null) {
+            names.add(name);
+        }
+    }
+
+    public int size() {
+        return names == null ? 0 : names.size();
+    }
+
+    /**
+     * @return the number of references to types without node skipped by the visitors
+     */
+    public long getNbSkippedTypes() {
+        return nbSkippedTypes.sum();
+    }
+
+}
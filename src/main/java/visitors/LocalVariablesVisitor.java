@@ -2,7 +2,7 @@ package visitors;
 
 import neo4j_types.EntityType;
 import neo4j_types.RelationType;
-import neograph.NeoGraph;
+import neograph.GraphStore;
 import org.apache.logging.log4j.Level;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -16,8 +16,8 @@ import java.util.Optional;
 
 public class LocalVariablesVisitor extends ImportsVisitor {
 
-    public LocalVariablesVisitor(NeoGraph neoGraph) {
-        super(neoGraph);
+    public LocalVariablesVisitor(GraphStore graph) {
+        super(graph);
     }
 
     private static final Logger logger = LogManager.getLogger(LocalVariablesVisitor.class);
@@ -29,7 +29,7 @@ public class LocalVariablesVisitor extends ImportsVisitor {
         if (!(method.resolveBinding() == null)) {
             declaringClass = method.resolveBinding().getDeclaringClass();
             String parentClassName = declaringClass.getQualifiedName();
-            Node parentClassNode = neoGraph.getOrCreateNode(parentClassName, declaringClass.isInterface() ? EntityType.INTERFACE : EntityType.CLASS);
+            Node parentClassNode = graph.getOrCreateNode(parentClassName, declaringClass.isInterface() ? EntityType.INTERFACE : EntityType.CLASS);
 
             if (method.getBody() != null) {
                 List statementList = method.getBody().statements();
@@ -44,14 +44,14 @@ public class LocalVariablesVisitor extends ImportsVisitor {
                             //logger.log(Level.getLevel("MY_LEVEL"), "\n***********\n" + v.getType().resolveBinding() + " -------\n");
                             if (classFullName.isPresent()) {
                                 //logger.log(Level.getLevel("MY_LEVEL"), "\n***********\n" + classFullName.get() + " -------\n");
-                                Optional<Node> typeNode = neoGraph.getNode(classFullName.get());
+                                Optional<Node> typeNode = graph.getNode(classFullName.get());
                                 typeNode.ifPresent(node -> {
                                     //logger.log(Level.getLevel("MY_LEVEL"),"\n ************* Local variable "+ node.get("name") + " ----- " + parentClassNode.get("name") + " ******** \n"  );
                                     if (!(node.get("name").asString().contains("java") || node.get("name").asString().equals("double") || node.get("name").asString().equals("int")
                                             || node.get("name").asString().equals("long") || node.get("name").asString().equals("float") || node.get("name").asString().equals("boolean")
                                             || node.get("name").asString().contains("int[]") || node.get("name").asString().contains("double[]") || node.get("name").asString().contains("float[]")
                                             || node.get("name").asString().contains("long[]") || node.get("name").asString().contains("bytes[]") || node.get("name").asString().equals("bytes") || node.get("name").asString().equals("byte"))) {
-                                        neoGraph.linkTwoNodes(parentClassNode, node, RelationType.INSTANTIATE);
+                                        graph.linkTwoNodes(parentClassNode, node, RelationType.INSTANTIATE);
                                         logger.log(Level.getLevel("MY_LEVEL"),"\n ************* Local variable "+ node.get("name") + " ----- " + parentClassNode.get("name") + " ******** \n"  );
                                     }
                                 });
@@ -3,7 +3,7 @@ package visitors;
 import neo4j_types.DesignPatternType;
 import neo4j_types.EntityAttribute;
 import neo4j_types.EntityType;
-import neograph.NeoGraph;
+import neograph.GraphStore;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.eclipse.jdt.core.dom.*;
@@ -22,6 +22,8 @@ import java.util.Optional;
  * We detect as a decorator pattern:
  * - a class which possesses at least one subclass and a field corresponding to a class having at least two subclasses
  * - a class whose name contains "Decorator"
+ * The decisions taken for a field type, a pair of declaring class and field type, or a called method's class are memoised,
+ * so that they are taken once per phase whatever the number of fields and calls.
  */
 // TODO name contains template + update doc
 public class StrategyTemplateDecoratorVisitor extends ImportsVisitor {
@@ -29,9 +31,19 @@ public class StrategyTemplateDecoratorVisitor extends ImportsVisitor {
     private static final Logger logger = LogManager.getLogger(StrategyTemplateDecoratorVisitor.class);
 
     private ITypeBinding fieldDeclaringClassBinding;
+    private final DecisionMemo memo;
 
-    public StrategyTemplateDecoratorVisitor(NeoGraph neoGraph) {
-        super(neoGraph);
+    public StrategyTemplateDecoratorVisitor(GraphStore graph) {
+        this(graph, KnownTypes.all(), DecisionMemo.none());
+    }
+
+    public StrategyTemplateDecoratorVisitor(GraphStore graph, KnownTypes knownTypes) {
+        this(graph, knownTypes, DecisionMemo.none());
+    }
+
+    public StrategyTemplateDecoratorVisitor(GraphStore graph, KnownTypes knownTypes, DecisionMemo memo) {
+        super(graph, knownTypes);
+        this.memo = memo;
     }
 
     @Override
@@ -40,17 +52,26 @@ public class StrategyTemplateDecoratorVisitor extends ImportsVisitor {
         ITypeBinding fieldTypeBinding = field.getType().resolveBinding();
         if (field.getParent() instanceof TypeDeclaration && fieldTypeBinding != null) { // prevents the case where the field is an enum, which does not bring variability
             fieldDeclaringClassBinding = ((TypeDeclaration) field.getParent()).resolveBinding();
+            // The full name of a recovered type depends on the imports of the file, hence its decisions are not memoised
+            boolean memoised = ! fieldTypeBinding.isRecovered();
+            boolean fieldTypeDecision = ! memoised || memo.take("field " + fieldTypeBinding.getKey());
+            boolean decoratorDecision = ! memoised || memo.take("decorator " + fieldDeclaringClassBinding.getKey() + " " + fieldTypeBinding.getKey());
+            if (! fieldTypeDecision && ! decoratorDecision) {
+                return false;
+            }
             Optional <String> classFullName = getClassFullName(fieldTypeBinding);
-            if (classFullName.isPresent()) {
-                Optional <Node> typeNode = neoGraph.getNode(classFullName.get());
+            if (classFullName.isPresent() && knownTypes.contains(classFullName.get())) {
+                Optional <Node> typeNode = graph.getNode(classFullName.get());
                 typeNode.ifPresent(node -> {
-                    if (fieldTypeBinding.getName().contains("Strategy") || neoGraph.getNbVariants(node) >= 2) {
-                        neoGraph.addLabelToNode(node, DesignPatternType.STRATEGY.toString());
+                    if (fieldTypeDecision && (fieldTypeBinding.getName().contains("Strategy") || graph.getNbVariants(node) >= 2)) {
+                        memo.addLabel(graph, node, DesignPatternType.STRATEGY.toString());
+                    }
+                    if (fieldTypeDecision && fieldTypeBinding.getName().contains("Decorator")) {
+                        memo.addLabel(graph, node, DesignPatternType.DECORATOR.toString());
                     }
-                    if (fieldTypeBinding.getName().contains("Decorator")) {
-                        neoGraph.addLabelToNode(node, DesignPatternType.DECORATOR.toString());
+                    if (decoratorDecision) {
+                        checkAbstractDecorator(fieldDeclaringClassBinding, fieldTypeBinding);
                     }
-                    checkAbstractDecorator(fieldDeclaringClassBinding, fieldTypeBinding);
                 });
             }
         }
@@ -61,15 +82,14 @@ public class StrategyTemplateDecoratorVisitor extends ImportsVisitor {
         Optional <String> currentClassFullName = getClassFullName(currentClassBinding);
         Optional <String> fieldClassFullName = getClassFullName(fieldClassBinding);
         if (currentClassFullName.isPresent() && fieldClassFullName.isPresent()) {
-            Node currentClassNode = neoGraph.getNode(currentClassFullName.get()).get();
-            Node fieldClassNode = neoGraph.getNode(fieldClassFullName.get()).get();
+            Node currentClassNode = graph.getNode(currentClassFullName.get()).get();
+            Node fieldClassNode = graph.getNode(fieldClassFullName.get()).get();
             String currentClassName = currentClassBinding.getErasure().getQualifiedName();
-            boolean isClassInheritingFieldClass = neoGraph.getSuperclassNode(currentClassName).map(node -> node.equals(fieldClassNode)).orElse(false);
-            boolean isClassImplementingFieldClass = neoGraph.getImplementedInterfacesNodes(currentClassName).stream().anyMatch(node -> node.equals(fieldClassNode));
+            boolean isClassInheritingFieldClass = graph.inheritsFrom(currentClassName, fieldClassNode);
 //            if(fieldClassBinding.getErasure().getQualifiedName().contains("Decorator") ||
-//                    ((isClassInheritingFieldClass || isClassImplementingFieldClass) && neoGraph.getNbVariants(fieldClassNode) >= 2 && neoGraph.getNbVariants(currentClassNode) >= 1)) {
-            if (((isClassInheritingFieldClass || isClassImplementingFieldClass) && neoGraph.getNbVariants(fieldClassNode) >= 2 && neoGraph.getNbVariants(currentClassNode) >= 1)) {
-                neoGraph.addLabelToNode(currentClassNode, DesignPatternType.DECORATOR.toString());
+//                    (isClassInheritingFieldClass && graph.getNbVariants(fieldClassNode) >= 2 && graph.getNbVariants(currentClassNode) >= 1)) {
+            if ((isClassInheritingFieldClass && graph.getNbVariants(fieldClassNode) >= 2 && graph.getNbVariants(currentClassNode) >= 1)) {
+                memo.addLabel(graph, currentClassNode, DesignPatternType.DECORATOR.toString());
             }
         }
 
@@ -83,13 +103,18 @@ public class StrategyTemplateDecoratorVisitor extends ImportsVisitor {
     @Override
     public boolean visit(MethodInvocation node) {
         IMethodBinding methodBinding = node.resolveMethodBinding();
-        if (methodBinding != null) { // TODO: 4/10/19 check why null in JavaGeom, math.geom3d.Box3D, p1.getX()
+        // A type without node has no subtypes, hence cannot be a template
+        if (methodBinding != null && knownTypes.contains(methodBinding.getDeclaringClass().getQualifiedName())) { // TODO: 4/10/19 check why null in JavaGeom, math.geom3d.Box3D, p1.getX()
             ITypeBinding declaringClass = methodBinding.getDeclaringClass();
+            boolean isAbstractMethodOfThisClass = declaringClass.equals(this.thisClassBinding) && Modifier.isAbstract(methodBinding.getModifiers());
+            if (! memo.take("template " + declaringClass.getKey() + " " + isAbstractMethodOfThisClass)) {
+                return false;
+            }
             // If a node is created now, it means that it has not been created during the ClassesVisitor, hence that the type is not defined in the project.
             // Therefore, it is considered as out of scope.
-            Node declaringClassNode = neoGraph.getOrCreateNode(declaringClass.getQualifiedName(), declaringClass.isInterface() ? EntityType.INTERFACE : EntityType.CLASS, new EntityAttribute[]{EntityAttribute.OUT_OF_SCOPE}, new EntityAttribute[]{});
-            if (neoGraph.getNbVariants(declaringClassNode) > 0 && (declaringClass.getName().contains("Template") || (declaringClass.equals(this.thisClassBinding) && Modifier.isAbstract(methodBinding.getModifiers())))) {
-                neoGraph.addLabelToNode(declaringClassNode, DesignPatternType.TEMPLATE.toString());
+            Node declaringClassNode = graph.getOrCreateNode(declaringClass.getQualifiedName(), declaringClass.isInterface() ? EntityType.INTERFACE : EntityType.CLASS, new EntityAttribute[]{EntityAttribute.OUT_OF_SCOPE}, new EntityAttribute[]{});
+            if (graph.getNbVariants(declaringClassNode) > 0 && (declaringClass.getName().contains("Template") || isAbstractMethodOfThisClass)) {
+                memo.addLabel(graph, declaringClassNode, DesignPatternType.TEMPLATE.toString());
             }
         }
         return false;
@@ -1,6 +1,6 @@
 package visitors;
 
-import neograph.NeoGraph;
+import neograph.GraphStore;
 import org.apache.logging.log4j.Level;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -18,11 +18,17 @@ import java.util.Arrays;
 public class SymfinderVisitor extends ASTVisitor {
 
     private static final Logger logger = LogManager.getLogger(SymfinderVisitor.class);
-    protected NeoGraph neoGraph;
+    protected GraphStore graph;
+    protected KnownTypes knownTypes;
     protected boolean visitedType = false;
 
-    public SymfinderVisitor(NeoGraph neoGraph) {
-        this.neoGraph = neoGraph;
+    public SymfinderVisitor(GraphStore graph) {
+        this(graph, KnownTypes.all());
+    }
+
+    public SymfinderVisitor(GraphStore graph, KnownTypes knownTypes) {
+        this.graph = graph;
+        this.knownTypes = knownTypes;
     }
 
     @Override
@@ -0,0 +1,125 @@
+/*
+ * This file is part of symfinder.
+ *
+ * symfinder is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * symfinder is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with symfinder. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright 2018-2021 Johann Mortara <johann.mortara@univ-cotedazur.fr>
+ * Copyright 2018-2021 Xhevahire Tërnava <t.xheva@gmail.com>
+ * Copyright 2018-2021 Philippe Collet <philippe.collet@univ-cotedazur.fr>
+ */
+
+package visitors;
+
+import neo4j_types.EntityAttribute;
+import neo4j_types.EntityType;
+import neo4j_types.EntityVisibility;
+import neo4j_types.NodeType;
+
+import java.util.*;
+
+/**
+ * Methods and constructors of a type, counted while visiting its declaration.
+ * Gives the method properties of the type used by the detection of VPs and variants, computed in a single pass over its methods
+ * instead of being queried from its method and constructor nodes once all classes are visited,
+ * and the names of the methods and constructors, from which the overloads of the type are exported when it has no method nodes.
+ * The methods are only those of the declaration visited: if a type with the same qualified name is declared
+ * in several compilation units, e.g. in two modules of the project, the properties of the last declaration written replace the others.
+ */
+class TypeMethods {
+
+    private final EntityType type;
+    private final boolean publicType;
+    private final List <String> methodNames = new ArrayList <>();
+    private final List <String> constructorNames = new ArrayList <>();
+    private long nbPublicMethods = 0;
+    private long nbPublicConstructors = 0;
+    private long nbAbstractMethods = 0;
+
+    /**
+     * @param type       type of the node
+     * @param publicType true if the node of the type is labeled PUBLIC
+     */
+    TypeMethods(EntityType type, boolean publicType) {
+        this.type = type;
+        this.publicType = publicType;
+    }
+
+    EntityType getType() {
+        return type;
+    }
+
+    /**
+     * @param name          method name
+     * @param isConstructor true if the method is a constructor
+     * @param types         labels the method node would have
+     */
+    void addMethod(String name, boolean isConstructor, NodeType[] types) {
+        List <NodeType> labels = Arrays.asList(types);
+        boolean isPublic = labels.contains(EntityVisibility.PUBLIC);
+        if (isConstructor) {
+            constructorNames.add(name);
+            nbPublicConstructors += isPublic ? 1 : 0;
+        } else {
+            methodNames.add(name);
+            nbPublicMethods += isPublic ? 1 : 0;
+        }
+        nbAbstractMethods += labels.contains(EntityAttribute.ABSTRACT) ? 1 : 0;
+    }
+
+    /**
+     * Returns the properties to set on the node of the type.
+     * The metrics are only computed for classes, and the public methods and constructors are only counted in public classes.
+     *
+     * @param withNames true if the names of the methods and constructors and the number of abstract methods are added,
+     *                  the type having no method nodes
+     */
+    Map <String, Object> getProperties(boolean withNames) {
+        Map <String, Object> properties = new LinkedHashMap <>();
+        if (withNames && ! methodNames.isEmpty()) {
+            properties.put("methodNames", methodNames);
+        }
+        if (withNames && ! constructorNames.isEmpty()) {
+            properties.put("constructorNames", constructorNames);
+        }
+        if (withNames) {
+            properties.put("abstractMethods", nbAbstractMethods);
+        }
+        if (type == EntityType.CLASS) {
+            long nbMethodVPs = 0;
+            long nbMethodVariants = 0;
+            for (long nbOverloads : countByName(methodNames).values()) {
+                if (nbOverloads > 1) {
+                    nbMethodVPs++;
+                    nbMethodVariants += nbOverloads;
+                }
+            }
+            long nbConstructors = constructorNames.size();
+            properties.put("methodVPs", nbMethodVPs);
+            properties.put("methodVariants", nbMethodVariants);
+            properties.put("constructorVPs", nbConstructors > 1 ? 1L : 0L);
+            properties.put("constructorVariants", nbConstructors > 1 ? nbConstructors : 0L);
+            properties.put("publicMethods", publicType ? nbPublicMethods : 0L);
+            properties.put("publicConstructors", publicType ? nbPublicConstructors : 0L);
+            properties.put("allMethods", (long) methodNames.size());
+        }
+        return properties;
+    }
+
+    private static Map <String, Long> countByName(List <String> names) {
+        Map <String, Long> counts = new LinkedHashMap <>();
+        names.forEach(name -> counts.merge(name, 1L, Long::sum));
+        return counts;
+    }
+
+}
@@ -95,4 +95,39 @@ public class AggregationHotspotTest extends Neo4jTest {
         });
     }
 
+    @Test
+    public void nodesNotConnectedToVPsAreNotMarked() {
+        runTest(graph -> {
+            Node vp1 = graph.createNode("VP1", EntityType.CLASS, EntityAttribute.VP);
+            Node vp2 = graph.createNode("VP2", EntityType.CLASS, EntityAttribute.VP);
+            Node vp3 = graph.createNode("VP3", EntityType.CLASS, EntityAttribute.VP);
+            Node v1 = graph.createNode("V1", EntityType.CLASS);
+            Node c1 = graph.createNode("C1", EntityType.CLASS);
+            Node c2 = graph.createNode("C2", EntityType.CLASS);
+            graph.linkTwoNodes(v1, vp1, RelationType.INSTANTIATE);
+            graph.linkTwoNodes(vp2, v1, RelationType.INSTANTIATE);
+            graph.linkTwoNodes(vp3, vp2, RelationType.INSTANTIATE);
+            graph.linkTwoNodes(c1, c2, RelationType.INSTANTIATE);
+            graph.detectHotspotsInAggregation(3);
+            assertTrue((boolean) graph.getPropertyValue(graph.getNode("VP1").get(), "aggregation"));
+            assertTrue((boolean) graph.getPropertyValue(graph.getNode("VP2").get(), "aggregation"));
+            assertTrue((boolean) graph.getPropertyValue(graph.getNode("VP3").get(), "aggregation"));
+            assertTrue((boolean) graph.getPropertyValue(graph.getNode("V1").get(), "aggregation"));
+            assertNull(graph.getPropertyValue(graph.getNode("C1").get(), "aggregation"));
+            assertNull(graph.getPropertyValue(graph.getNode("C2").get(), "aggregation"));
+        });
+    }
+
+    @Test
+    public void fewerVPsThanThreshold() {
+        runTest(graph -> {
+            Node vp1 = graph.createNode("VP1", EntityType.CLASS, EntityAttribute.VP);
+            Node vp2 = graph.createNode("VP2", EntityType.CLASS, EntityAttribute.VP);
+            graph.linkTwoNodes(vp1, vp2, RelationType.INSTANTIATE);
+            graph.detectHotspotsInAggregation(3);
+            assertNull(graph.getPropertyValue(graph.getNode("VP1").get(), "aggregation"));
+            assertNull(graph.getPropertyValue(graph.getNode("VP2").get(), "aggregation"));
+        });
+    }
+
 }
@@ -22,9 +22,6 @@
 import neo4j_types.EntityAttribute;
 import neo4j_types.EntityType;
 import org.junit.jupiter.api.Test;
-import org.neo4j.graphdb.Node;
-import org.neo4j.graphdb.ResourceIterable;
-import org.neo4j.graphdb.Transaction;
 
 import static org.junit.Assert.*;
 
@@ -36,13 +33,9 @@ public class GetOrCreateNodeTest extends Neo4jTest {
             String nodeName = "n";
             EntityType nodeType = EntityType.CLASS;
             org.neo4j.driver.types.Node node = graph.getOrCreateNode(nodeName, nodeType);
-            try (Transaction tx = graphDatabaseService.beginTx()) {
-                ResourceIterable <Node> allNodes = tx.getAllNodes();
-                assertEquals(1, allNodes.stream().count());
-                assertEquals(node.get("name").asString(), nodeName);
-                assertTrue(node.hasLabel(nodeType.toString()));
-                tx.commit();
-            }
+            assertEquals(1, graph.getNbNodes());
+            assertEquals(node.get("name").asString(), nodeName);
+            assertTrue(node.hasLabel(nodeType.toString()));
         });
     }
 
@@ -55,17 +48,13 @@ public class GetOrCreateNodeTest extends Neo4jTest {
             EntityAttribute attribute2 = EntityAttribute.ABSTRACT;
             org.neo4j.driver.types.Node node1 = graph.getOrCreateNode(nodeName, nodeType, new EntityAttribute[]{attribute1}, new EntityAttribute[]{});
             org.neo4j.driver.types.Node node2 = graph.getOrCreateNode(nodeName, nodeType, new EntityAttribute[]{attribute2}, new EntityAttribute[]{});
-            try (Transaction tx = graphDatabaseService.beginTx()) {
-                ResourceIterable <Node> allNodes = tx.getAllNodes();
-                assertEquals(1, allNodes.stream().count());
-                assertEquals(node1.get("name").asString(), nodeName);
-                assertTrue(node1.hasLabel(nodeType.toString()));
-                assertTrue(node1.hasLabel(attribute1.toString()));
-                assertEquals(node1, node2);
-                assertTrue(node2.hasLabel(attribute1.toString()));
-                assertFalse(node2.hasLabel(attribute2.toString()));
-                tx.commit();
-            }
+            assertEquals(1, graph.getNbNodes());
+            assertEquals(node1.get("name").asString(), nodeName);
+            assertTrue(node1.hasLabel(nodeType.toString()));
+            assertTrue(node1.hasLabel(attribute1.toString()));
+            assertEquals(node1, node2);
+            assertTrue(node2.hasLabel(attribute1.toString()));
+            assertFalse(node2.hasLabel(attribute2.toString()));
         });
     }
 
@@ -76,14 +65,10 @@ public class GetOrCreateNodeTest extends Neo4jTest {
             EntityType nodeType = EntityType.CLASS;
             EntityAttribute attribute = EntityAttribute.VP;
             org.neo4j.driver.types.Node node = graph.getOrCreateNode(nodeName, nodeType, new EntityAttribute[]{attribute}, new EntityAttribute[]{});
-            try (Transaction tx = graphDatabaseService.beginTx()) {
-                ResourceIterable <Node> allNodes = tx.getAllNodes();
-                assertEquals(1, allNodes.stream().count());
-                assertEquals(node.get("name").asString(), nodeName);
-                assertTrue(node.hasLabel(nodeType.toString()));
-                assertTrue(node.hasLabel(attribute.toString()));
-                tx.commit();
-            }
+            assertEquals(1, graph.getNbNodes());
+            assertEquals(node.get("name").asString(), nodeName);
+            assertTrue(node.hasLabel(nodeType.toString()));
+            assertTrue(node.hasLabel(attribute.toString()));
         });
     }
 
@@ -96,17 +81,13 @@ public class GetOrCreateNodeTest extends Neo4jTest {
             EntityAttribute attribute2 = EntityAttribute.ABSTRACT;
             org.neo4j.driver.types.Node node1 = graph.getOrCreateNode(nodeName, nodeType, new EntityAttribute[]{attribute1}, new EntityAttribute[]{});
             org.neo4j.driver.types.Node node2 = graph.getOrCreateNode(nodeName, nodeType, new EntityAttribute[]{}, new EntityAttribute[]{attribute2});
-            try (Transaction tx = graphDatabaseService.beginTx()) {
-                ResourceIterable <Node> allNodes = tx.getAllNodes();
-                assertEquals(1, allNodes.stream().count());
-                assertEquals(node1.get("name").asString(), nodeName);
-                assertTrue(node1.hasLabel(nodeType.toString()));
-                assertTrue(node1.hasLabel(attribute1.toString()));
-                assertEquals(node1, node2);
-                assertTrue(node2.hasLabel(attribute1.toString()));
-                assertTrue(node2.hasLabel(attribute2.toString()));
-                tx.commit();
-            }
+            assertEquals(1, graph.getNbNodes());
+            assertEquals(node1.get("name").asString(), nodeName);
+            assertTrue(node1.hasLabel(nodeType.toString()));
+            assertTrue(node1.hasLabel(attribute1.toString()));
+            assertEquals(node1, node2);
+            assertTrue(node2.hasLabel(attribute1.toString()));
+            assertTrue(node2.hasLabel(attribute2.toString()));
         });
     }
     @Test
@@ -116,14 +97,10 @@ public class GetOrCreateNodeTest extends Neo4jTest {
             EntityType nodeType = EntityType.CLASS;
             EntityAttribute attribute = EntityAttribute.VP;
             org.neo4j.driver.types.Node node = graph.getOrCreateNode(nodeName, nodeType, new EntityAttribute[]{}, new EntityAttribute[]{attribute});
-            try (Transaction tx = graphDatabaseService.beginTx()) {
-                ResourceIterable <Node> allNodes = tx.getAllNodes();
-                assertEquals(1, allNodes.stream().count());
-                assertEquals(node.get("name").asString(), nodeName);
-                assertTrue(node.hasLabel(nodeType.toString()));
-                assertFalse(node.hasLabel(attribute.toString()));
-                tx.commit();
-            }
+            assertEquals(1, graph.getNbNodes());
+            assertEquals(node.get("name").asString(), nodeName);
+            assertTrue(node.hasLabel(nodeType.toString()));
+            assertFalse(node.hasLabel(attribute.toString()));
         });
     }
 
@@ -135,13 +112,9 @@ public class GetOrCreateNodeTest extends Neo4jTest {
             EntityType nodeType2 = EntityType.INTERFACE;
             graph.getOrCreateNode(nodeName, nodeType1);
             org.neo4j.driver.types.Node node = graph.getOrCreateNode(nodeName, nodeType2);
-            try (Transaction tx = graphDatabaseService.beginTx()) {
-                ResourceIterable <Node> allNodes = tx.getAllNodes();
-                assertEquals(2, allNodes.stream().count());
-                assertEquals(node.get("name").asString(), nodeName);
-                assertTrue(node.hasLabel(nodeType2.toString()));
-                tx.commit();
-            }
+            assertEquals(2, graph.getNbNodes());
+            assertEquals(node.get("name").asString(), nodeName);
+            assertTrue(node.hasLabel(nodeType2.toString()));
         });
     }
 
@@ -153,14 +126,10 @@ public class GetOrCreateNodeTest extends Neo4jTest {
             EntityAttribute nodeType2 = EntityAttribute.ABSTRACT;
             graph.getOrCreateNode(nodeName, nodeType1);
             org.neo4j.driver.types.Node node = graph.getOrCreateNode(nodeName, nodeType1, new EntityAttribute[]{nodeType2});
-            try (Transaction tx = graphDatabaseService.beginTx()) {
-                ResourceIterable <Node> allNodes = tx.getAllNodes();
-                assertEquals(1, allNodes.stream().count());
-                assertEquals(node.get("name").asString(), nodeName);
-                assertTrue(node.hasLabel(nodeType1.toString()));
-                assertTrue(node.hasLabel(nodeType2.toString()));
-                tx.commit();
-            }
+            assertEquals(1, graph.getNbNodes());
+            assertEquals(node.get("name").asString(), nodeName);
+            assertTrue(node.hasLabel(nodeType1.toString()));
+            assertTrue(node.hasLabel(nodeType2.toString()));
         });
     }
 
@@ -171,14 +140,10 @@ public class GetOrCreateNodeTest extends Neo4jTest {
             EntityType nodeType1 = EntityType.CLASS;
             EntityAttribute nodeType2 = EntityAttribute.ABSTRACT;
             org.neo4j.driver.types.Node node = graph.getOrCreateNode(nodeName, nodeType1, new EntityAttribute[]{nodeType2});
-            try (Transaction tx = graphDatabaseService.beginTx()) {
-                ResourceIterable <Node> allNodes = tx.getAllNodes();
-                assertEquals(1, allNodes.stream().count());
-                assertEquals(node.get("name").asString(), nodeName);
-                assertTrue(node.hasLabel(nodeType1.toString()));
-                assertTrue(node.hasLabel(nodeType2.toString()));
-                tx.commit();
-            }
+            assertEquals(1, graph.getNbNodes());
+            assertEquals(node.get("name").asString(), nodeName);
+            assertTrue(node.hasLabel(nodeType1.toString()));
+            assertTrue(node.hasLabel(nodeType2.toString()));
         });
     }
 
@@ -19,9 +19,10 @@
  * Copyright 2018-2021 Philippe Collet <philippe.collet@univ-cotedazur.fr>
  */
 
-import apoc.path.PathExplorer;
-import apoc.cypher.Cypher;
 import configuration.Configuration;
+import neograph.EmbeddedDatabase;
+import neograph.GraphStore;
+import neograph.InMemoryGraph;
 import neograph.NeoGraph;
 import org.junit.jupiter.api.AfterAll;
 import org.junit.jupiter.api.AfterEach;
@@ -43,7 +44,7 @@ public class Neo4jTest {
 
     @BeforeAll
     static void setUp() {
-        embeddedDatabaseServer = new InProcessNeo4jBuilder().withProcedure(PathExplorer.class).withProcedure(Cypher.class).build();
+        embeddedDatabaseServer = new InProcessNeo4jBuilder().build();
         graphDatabaseService = embeddedDatabaseServer.defaultDatabaseService();
     }
 
@@ -57,7 +58,30 @@ public class Neo4jTest {
         embeddedDatabaseServer.close();
     }
 
-    protected void runTest(Consumer<NeoGraph> consumer){
+    /**
+     * Runs the test against all graph backends: Neo4j through the driver, then embedded, then the in-memory graph.
+     */
+    protected void runTest(Consumer<GraphStore> consumer){
+        runNeo4jTest(consumer::accept);
+        tearDown();
+        runEmbeddedTest(consumer::accept);
+        consumer.accept(new InMemoryGraph());
+    }
+
+    /**
+     * Runs the test against the embedded database, queried without the driver, with the node cache enabled.
+     */
+    protected void runEmbeddedTest(Consumer<NeoGraph> consumer){
+        NeoGraph graph = new NeoGraph(new EmbeddedDatabase(graphDatabaseService));
+        graph.setNodeCacheEnabled(true);
+        consumer.accept(graph);
+    }
+
+    /**
+     * Runs the test against Neo4j only, for tests of what only NeoGraph has (write batching, units of work, node cache, schema,
+     * concurrent merges) or inspecting the database.
+     */
+    protected void runNeo4jTest(Consumer<NeoGraph> consumer){
 //        try (Driver driver = GraphDatabase.driver(Configuration.getNeo4JBoltAddress(), AuthTokens.basic(Configuration.getNeo4JUser(),
 //                Configuration.getNeo4JPassword()))) {
         try (Driver driver = GraphDatabase.driver(embeddedDatabaseServer.boltURI(), Config.defaultConfig())) {
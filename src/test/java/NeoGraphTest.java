@@ -24,9 +24,12 @@ import neo4j_types.EntityAttribute;
 import neo4j_types.EntityType;
 import neo4j_types.RelationType;
 import neograph.NeoGraph;
+import neograph.Statistics;
+import neograph.UnitOfWork;
 import org.junit.jupiter.api.Test;
 import org.neo4j.graphdb.*;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 import java.util.stream.Collectors;
@@ -41,15 +44,11 @@ public class NeoGraphTest extends Neo4jTest {
             EntityType nodeType = EntityType.CLASS;
             String nodeName = "n";
             graph.createNode(nodeName, nodeType);
-            try (Transaction tx = graphDatabaseService.beginTx()) {
-                ResourceIterable <Node> allNodes = tx.getAllNodes();
-                assertEquals(1, allNodes.stream().count());
-                Optional <Node> optionalNode = allNodes.stream().findFirst();
-                assertTrue(optionalNode.isPresent());
-                assertTrue(optionalNode.get().hasLabel(Label.label(nodeType.toString())));
-                assertEquals(optionalNode.get().getProperty("name"), nodeName);
-                tx.commit();
-            }
+            assertEquals(1, graph.getNbNodes());
+            Optional <org.neo4j.driver.types.Node> optionalNode = graph.getNode(nodeName);
+            assertTrue(optionalNode.isPresent());
+            assertTrue(optionalNode.get().hasLabel(nodeType.toString()));
+            assertEquals(optionalNode.get().get("name").asString(), nodeName);
         });
     }
 
@@ -60,16 +59,12 @@ public class NeoGraphTest extends Neo4jTest {
             EntityAttribute nodeType2 = EntityAttribute.ABSTRACT;
             String nodeName = "n";
             graph.createNode(nodeName, nodeType1, nodeType2);
-            try (Transaction tx = graphDatabaseService.beginTx()) {
-                ResourceIterable <Node> allNodes = tx.getAllNodes();
-                assertEquals(1, allNodes.stream().count());
-                Optional <Node> optionalNode = allNodes.stream().findFirst();
-                assertTrue(optionalNode.isPresent());
-                assertTrue(optionalNode.get().hasLabel(Label.label(nodeType1.toString())));
-                assertTrue(optionalNode.get().hasLabel(Label.label(nodeType2.toString())));
-                assertEquals(optionalNode.get().getProperty("name"), nodeName);
-                tx.commit();
-            }
+            assertEquals(1, graph.getNbNodes());
+            Optional <org.neo4j.driver.types.Node> optionalNode = graph.getNode(nodeName);
+            assertTrue(optionalNode.isPresent());
+            assertTrue(optionalNode.get().hasLabel(nodeType1.toString()));
+            assertTrue(optionalNode.get().hasLabel(nodeType2.toString()));
+            assertEquals(optionalNode.get().get("name").asString(), nodeName);
         });
     }
 
@@ -91,16 +86,10 @@ public class NeoGraphTest extends Neo4jTest {
             org.neo4j.driver.types.Node node2 = graph.createNode("n2", EntityType.METHOD);
             RelationType relationType = RelationType.METHOD;
             graph.linkTwoNodes(node1, node2, relationType);
-            try (Transaction tx = graphDatabaseService.beginTx()) {
-                ResourceIterable <Node> allNodes = tx.getAllNodes();
-                assertEquals(2, allNodes.stream().count());
-                ResourceIterable <Relationship> allRelationships = tx.getAllRelationships();
-                assertEquals(1, allRelationships.stream().count());
-                Optional <Relationship> optionalRelationship = allRelationships.stream().findFirst();
-                assertTrue(optionalRelationship.isPresent());
-                assertTrue(optionalRelationship.get().isType(RelationshipType.withName(relationType.toString())));
-                tx.commit();
-            }
+            assertEquals(2, graph.getNbNodes());
+            assertEquals(1, graph.getNbRelationships());
+            assertTrue(graph.relatedTo(node1, node2));
+            assertFalse(graph.relatedTo(node2, node1));
         });
     }
 
@@ -114,16 +103,7 @@ public class NeoGraphTest extends Neo4jTest {
             graph.linkTwoNodes(classNode, drawNode1, relationType);
             graph.linkTwoNodes(classNode, areaNode, relationType);
             graph.setMethodVPs();
-            try (Transaction tx = graphDatabaseService.beginTx()) {
-                List <Node> allNodes = tx.getAllNodes().stream()
-                        .filter(node -> node.hasLabel(Label.label(EntityType.CLASS.toString())))
-                        .collect(Collectors.toList());
-                assertEquals(1, allNodes.size());
-                Node node = allNodes.get(0);
-                assertTrue(node.getAllProperties().containsKey("methodVPs"));
-                assertEquals(0L, node.getProperty("methodVPs"));
-                tx.commit();
-            }
+            assertEquals(0L, graph.getPropertyValue(classNode, "methodVPs"));
         });
     }
 
@@ -139,16 +119,7 @@ public class NeoGraphTest extends Neo4jTest {
             graph.linkTwoNodes(classNode, drawNode2, relationType);
             graph.linkTwoNodes(classNode, areaNode, relationType);
             graph.setMethodVPs();
-            try (Transaction tx = graphDatabaseService.beginTx()) {
-                List <Node> allNodes = tx.getAllNodes().stream()
-                        .filter(node -> node.hasLabel(Label.label(EntityType.CLASS.toString())))
-                        .collect(Collectors.toList());
-                assertEquals(1, allNodes.size());
-                Node node = allNodes.get(0);
-                assertTrue(node.getAllProperties().containsKey("methodVPs"));
-                assertEquals(1L, node.getProperty("methodVPs"));
-                tx.commit();
-            }
+            assertEquals(1L, graph.getPropertyValue(classNode, "methodVPs"));
         });
     }
 
@@ -166,16 +137,7 @@ public class NeoGraphTest extends Neo4jTest {
             graph.linkTwoNodes(classNode, drawNode3, relationType);
             graph.linkTwoNodes(classNode, areaNode, relationType);
             graph.setMethodVPs();
-            try (Transaction tx = graphDatabaseService.beginTx()) {
-                List <Node> allNodes = tx.getAllNodes().stream()
-                        .filter(node -> node.hasLabel(Label.label(EntityType.CLASS.toString())))
-                        .collect(Collectors.toList());
-                assertEquals(1, allNodes.size());
-                Node node = allNodes.get(0);
-                assertTrue(node.getAllProperties().containsKey("methodVPs"));
-                assertEquals(1L, node.getProperty("methodVPs"));
-                tx.commit();
-            }
+            assertEquals(1L, graph.getPropertyValue(classNode, "methodVPs"));
         });
     }
 
@@ -193,16 +155,7 @@ public class NeoGraphTest extends Neo4jTest {
             graph.linkTwoNodes(classNode, areaNode1, relationType);
             graph.linkTwoNodes(classNode, areaNode2, relationType);
             graph.setMethodVPs();
-            try (Transaction tx = graphDatabaseService.beginTx()) {
-                List <Node> allNodes = tx.getAllNodes().stream()
-                        .filter(node -> node.hasLabel(Label.label(EntityType.CLASS.toString())))
-                        .collect(Collectors.toList());
-                assertEquals(1, allNodes.size());
-                Node node = allNodes.get(0);
-                assertTrue(node.getAllProperties().containsKey("methodVPs"));
-                assertEquals(2L, node.getProperty("methodVPs"));
-                tx.commit();
-            }
+            assertEquals(2L, graph.getPropertyValue(classNode, "methodVPs"));
         });
     }
 
@@ -216,16 +169,7 @@ public class NeoGraphTest extends Neo4jTest {
             graph.linkTwoNodes(classNode, constructorNode, relationType);
             graph.linkTwoNodes(classNode, methodNode, relationType);
             graph.setConstructorVPs();
-            try (Transaction tx = graphDatabaseService.beginTx()) {
-                List <Node> allNodes = tx.getAllNodes().stream()
-                        .filter(node -> node.hasLabel(Label.label(EntityType.CLASS.toString())))
-                        .collect(Collectors.toList());
-                assertEquals(1, allNodes.size());
-                Node node = allNodes.get(0);
-                assertTrue(node.getAllProperties().containsKey("constructorVPs"));
-                assertEquals(0L, node.getProperty("constructorVPs"));
-                tx.commit();
-            }
+            assertEquals(0L, graph.getPropertyValue(classNode, "constructorVPs"));
         });
     }
 
@@ -241,16 +185,7 @@ public class NeoGraphTest extends Neo4jTest {
             graph.linkTwoNodes(classNode, constructorNode2, relationType);
             graph.linkTwoNodes(classNode, methodNode, relationType);
             graph.setConstructorVPs();
-            try (Transaction tx = graphDatabaseService.beginTx()) {
-                List <Node> allNodes = tx.getAllNodes().stream()
-                        .filter(node -> node.hasLabel(Label.label(EntityType.CLASS.toString())))
-                        .collect(Collectors.toList());
-                assertEquals(1, allNodes.size());
-                Node node = allNodes.get(0);
-                assertTrue(node.getAllProperties().containsKey("constructorVPs"));
-                assertEquals(1L, node.getProperty("constructorVPs"));
-                tx.commit();
-            }
+            assertEquals(1L, graph.getPropertyValue(classNode, "constructorVPs"));
         });
     }
 
@@ -268,16 +203,7 @@ public class NeoGraphTest extends Neo4jTest {
             graph.linkTwoNodes(classNode, constructorNode3, relationType);
             graph.linkTwoNodes(classNode, methodNode, relationType);
             graph.setConstructorVPs();
-            try (Transaction tx = graphDatabaseService.beginTx()) {
-                List <Node> allNodes = tx.getAllNodes().stream()
-                        .filter(node -> node.hasLabel(Label.label(EntityType.CLASS.toString())))
-                        .collect(Collectors.toList());
-                assertEquals(1, allNodes.size());
-                Node node = allNodes.get(0);
-                assertTrue(node.getAllProperties().containsKey("constructorVPs"));
-                assertEquals(1L, node.getProperty("constructorVPs"));
-                tx.commit();
-            }
+            assertEquals(1L, graph.getPropertyValue(classNode, "constructorVPs"));
         });
     }
 
@@ -292,31 +218,17 @@ public class NeoGraphTest extends Neo4jTest {
             graph.linkTwoNodes(nodeClass1, nodeSubclass2, RelationType.EXTENDS);
             graph.linkTwoNodes(nodeClass1, nodeMethod, RelationType.METHOD);
             graph.setNbVariantsProperty();
-            try (Transaction tx = graphDatabaseService.beginTx()) {
-                List <Node> allClassNodes = tx.getAllNodes().stream()
-                        .filter(node -> node.hasLabel(Label.label(EntityType.CLASS.toString())))
-                        .collect(Collectors.toList());
-                assertEquals(3, allClassNodes.size());
-                allClassNodes.stream().filter(node -> node.getProperty("name").equals("class"))
-                        .findFirst()
-                        .ifPresent(node -> assertEquals(2L, node.getProperty("classVariants")));
-                allClassNodes.stream().filter(node -> node.getProperty("name").equals("subclass1"))
-                        .findFirst()
-                        .ifPresent(node -> assertEquals(0L, node.getProperty("classVariants")));
-                tx.commit();
-            }
+            assertEquals(2L, graph.getPropertyValue(nodeClass1, "classVariants"));
+            assertEquals(0L, graph.getPropertyValue(nodeSubclass1, "classVariants"));
         });
     }
 
     @Test
     public void deleteGraph() {
         runTest(graph -> {
+            graph.createNode("class", EntityType.CLASS);
             graph.deleteGraph();
-            try (Transaction tx = graphDatabaseService.beginTx()) {
-                ResourceIterable <Node> allNodes = tx.getAllNodes();
-                assertEquals(0, allNodes.stream().count());
-                tx.commit();
-            }
+            assertEquals(0, graph.getNbNodes());
         });
     }
 
@@ -325,12 +237,9 @@ public class NeoGraphTest extends Neo4jTest {
         runTest(graph -> {
             org.neo4j.driver.types.Node node = graph.createNode("class", EntityType.CLASS);
             graph.addLabelToNode(node, DesignPatternType.STRATEGY.toString());
-            try (Transaction tx = graphDatabaseService.beginTx()) {
-                Node nodeFromGraph = tx.getNodeById(node.id());
-                assertTrue(nodeFromGraph.hasLabel(Label.label(EntityType.CLASS.toString())));
-                assertTrue(nodeFromGraph.hasLabel(Label.label(DesignPatternType.STRATEGY.toString())));
-                tx.commit();
-            }
+            org.neo4j.driver.types.Node nodeFromGraph = graph.getNode("class").get();
+            assertTrue(nodeFromGraph.hasLabel(EntityType.CLASS.toString()));
+            assertTrue(nodeFromGraph.hasLabel(DesignPatternType.STRATEGY.toString()));
         });
     }
 
@@ -364,6 +273,76 @@ public class NeoGraphTest extends Neo4jTest {
         });
     }
 
+    @Test
+    public void getNbVariantsIndexed() {
+        runTest(graph -> {
+            org.neo4j.driver.types.Node shapeNode = graph.createNode("Shape", EntityType.INTERFACE);
+            org.neo4j.driver.types.Node rectangleNode = graph.createNode("Rectangle", EntityType.CLASS);
+            org.neo4j.driver.types.Node circleNode = graph.createNode("Circle", EntityType.CLASS);
+            org.neo4j.driver.types.Node polygonNode = graph.createNode("Polygon", EntityType.INTERFACE);
+            graph.linkTwoNodes(shapeNode, rectangleNode, RelationType.IMPLEMENTS);
+            graph.linkTwoNodes(shapeNode, circleNode, RelationType.IMPLEMENTS);
+            graph.linkTwoNodes(shapeNode, polygonNode, RelationType.IMPLEMENTS);
+            graph.indexHierarchy();
+            assertEquals(2, graph.getNbVariants(shapeNode));
+            assertEquals(0, graph.getNbVariants(rectangleNode));
+            graph.linkTwoNodes(rectangleNode, circleNode, RelationType.EXTENDS);
+            assertEquals(1, graph.getNbVariants(rectangleNode));
+        });
+    }
+
+    @Test
+    public void relatedToIndexed() {
+        runTest(graph -> {
+            org.neo4j.driver.types.Node shapeNode = graph.createNode("Shape", EntityType.CLASS, EntityAttribute.ABSTRACT);
+            org.neo4j.driver.types.Node rectangleNode = graph.createNode("Rectangle", EntityType.CLASS);
+            org.neo4j.driver.types.Node areaNode = graph.createNode("area", EntityType.METHOD);
+            graph.linkTwoNodes(shapeNode, rectangleNode, RelationType.EXTENDS);
+            graph.linkTwoNodes(rectangleNode, areaNode, RelationType.METHOD);
+            graph.indexHierarchy();
+            assertTrue(graph.relatedTo(shapeNode, rectangleNode));
+            assertTrue(graph.relatedTo(rectangleNode, areaNode));
+            assertFalse(graph.relatedTo(rectangleNode, shapeNode));
+            assertFalse(graph.relatedTo(shapeNode, areaNode));
+        });
+    }
+
+    @Test
+    public void inheritsFrom() {
+        runTest(graph -> {
+            org.neo4j.driver.types.Node shapeNode = graph.createNode("Shape", EntityType.INTERFACE);
+            org.neo4j.driver.types.Node polygonNode = graph.createNode("Polygon", EntityType.CLASS);
+            org.neo4j.driver.types.Node rectangleNode = graph.createNode("Rectangle", EntityType.CLASS);
+            graph.linkTwoNodes(shapeNode, polygonNode, RelationType.IMPLEMENTS);
+            graph.linkTwoNodes(polygonNode, rectangleNode, RelationType.EXTENDS);
+            graph.linkTwoNodes(polygonNode, graph.createNode("area", EntityType.METHOD), RelationType.METHOD);
+            for (int i = 0 ; i < 2 ; i++) {
+                assertTrue(graph.inheritsFrom("Polygon", shapeNode));
+                assertTrue(graph.inheritsFrom("Rectangle", polygonNode));
+                assertFalse(graph.inheritsFrom("Rectangle", shapeNode));
+                assertFalse(graph.inheritsFrom("Shape", polygonNode));
+                assertFalse(graph.inheritsFrom("area", polygonNode));
+                graph.indexHierarchy();
+            }
+        });
+    }
+
+    @Test
+    public void interfaceExtendingInterfaceDoesNotInherit() {
+        runTest(graph -> {
+            org.neo4j.driver.types.Node shapeNode = graph.createNode("Shape", EntityType.INTERFACE);
+            org.neo4j.driver.types.Node polygonNode = graph.createNode("Polygon", EntityType.INTERFACE);
+            org.neo4j.driver.types.Node rectangleNode = graph.createNode("Rectangle", EntityType.CLASS);
+            graph.linkTwoNodes(shapeNode, polygonNode, RelationType.EXTENDS);
+            graph.linkTwoNodes(polygonNode, rectangleNode, RelationType.IMPLEMENTS);
+            for (int i = 0 ; i < 2 ; i++) {
+                assertFalse(graph.inheritsFrom("Polygon", shapeNode));
+                assertTrue(graph.inheritsFrom("Rectangle", polygonNode));
+                graph.indexHierarchy();
+            }
+        });
+    }
+
     @Test
     public void relatedToRelationExists() {
         runTest(graph -> {
@@ -451,4 +430,238 @@ public class NeoGraphTest extends Neo4jTest {
             assertTrue(graph.getImplementedInterfacesNodes("Rectangle").contains(shapeNode));
         });
     }
-}
\ No newline at end of file
+
+    @Test
+    public void bufferedWritesAreSentBeforeReads() {
+        runNeo4jTest(graph -> {
+            graph.setWriteBatchSize(100);
+            graph.addNode("Shape", EntityType.INTERFACE);
+            graph.addNode("Rectangle", EntityType.CLASS, EntityAttribute.ABSTRACT);
+            graph.addChildNode("Rectangle", EntityType.CLASS, "area", EntityType.METHOD, new EntityAttribute[]{}, RelationType.METHOD);
+            try (Transaction tx = graphDatabaseService.beginTx()) {
+                assertEquals(0, tx.getAllNodes().stream().count());
+                tx.commit();
+            }
+            Optional <org.neo4j.driver.types.Node> rectangleNode = graph.getClassNode("Rectangle");
+            assertTrue(rectangleNode.isPresent());
+            assertTrue(rectangleNode.get().hasLabel(EntityAttribute.ABSTRACT.toString()));
+            graph.linkFromNode("Shape", EntityType.INTERFACE, new EntityAttribute[]{EntityAttribute.OUT_OF_SCOPE}, rectangleNode.get(), RelationType.IMPLEMENTS);
+            graph.linkFromNode("java.lang.Cloneable", EntityType.INTERFACE, new EntityAttribute[]{EntityAttribute.OUT_OF_SCOPE}, rectangleNode.get(), RelationType.IMPLEMENTS);
+            assertEquals(2, graph.getImplementedInterfacesNodes("Rectangle").size());
+            assertFalse(graph.getInterfaceNode("Shape").get().hasLabel(EntityAttribute.OUT_OF_SCOPE.toString()));
+            assertTrue(graph.getInterfaceNode("java.lang.Cloneable").get().hasLabel(EntityAttribute.OUT_OF_SCOPE.toString()));
+            assertEquals(4, graph.getNbNodes());
+            assertEquals(3, graph.getNbRelationships());
+        });
+    }
+
+    @Test
+    public void bufferedWritesAreSentWhenBatchIsFull() {
+        runNeo4jTest(graph -> {
+            graph.setWriteBatchSize(2);
+            graph.addNode("Shape", EntityType.INTERFACE);
+            graph.addNode("Rectangle", EntityType.CLASS);
+            graph.addNode("Circle", EntityType.CLASS);
+            try (Transaction tx = graphDatabaseService.beginTx()) {
+                assertEquals(2, tx.getAllNodes().stream().count());
+                tx.commit();
+            }
+            graph.flush();
+            try (Transaction tx = graphDatabaseService.beginTx()) {
+                assertEquals(3, tx.getAllNodes().stream().count());
+                tx.commit();
+            }
+        });
+    }
+
+    @Test
+    public void unitOfWorkCommitsEveryNRequests() {
+        runNeo4jTest(graph -> {
+            graph.beginUnitOfWork(2, Long.MAX_VALUE);
+            graph.createNode("Shape", EntityType.INTERFACE);
+            graph.createNode("Rectangle", EntityType.CLASS);
+            graph.createNode("Circle", EntityType.CLASS);
+            try (Transaction tx = graphDatabaseService.beginTx()) {
+                assertEquals(2, tx.getAllNodes().stream().count());
+                tx.commit();
+            }
+            assertEquals(3, graph.getNbNodes());
+            UnitOfWork unitOfWork = graph.endUnitOfWork();
+            assertEquals(2, unitOfWork.getNbCommits());
+            try (Transaction tx = graphDatabaseService.beginTx()) {
+                assertEquals(3, tx.getAllNodes().stream().count());
+                tx.commit();
+            }
+        });
+    }
+
+    @Test
+    public void unitOfWorkWithoutCommitIntervalCommitsEveryNRequests() {
+        runNeo4jTest(graph -> {
+            graph.beginUnitOfWork(2, 0);
+            graph.createNode("Shape", EntityType.INTERFACE);
+            graph.createNode("Rectangle", EntityType.CLASS);
+            graph.createNode("Circle", EntityType.CLASS);
+            try (Transaction tx = graphDatabaseService.beginTx()) {
+                assertEquals(2, tx.getAllNodes().stream().count());
+                tx.commit();
+            }
+            assertEquals(3, graph.getNbNodes());
+            UnitOfWork unitOfWork = graph.endUnitOfWork();
+            assertEquals(2, unitOfWork.getNbCommits());
+        });
+    }
+
+    @Test
+    public void embeddedUnitOfWorkCommitsEveryNRequests() {
+        runEmbeddedTest(graph -> {
+            graph.beginUnitOfWork(2, Long.MAX_VALUE);
+            graph.createNode("Shape", EntityType.INTERFACE);
+            graph.createNode("Rectangle", EntityType.CLASS);
+            graph.createNode("Circle", EntityType.CLASS);
+            try (Transaction tx = graphDatabaseService.beginTx()) {
+                assertEquals(2, tx.getAllNodes().stream().count());
+                tx.commit();
+            }
+            assertEquals(3, graph.getNbNodes());
+            UnitOfWork unitOfWork = graph.endUnitOfWork();
+            assertEquals(2, unitOfWork.getNbCommits());
+            try (Transaction tx = graphDatabaseService.beginTx()) {
+                assertEquals(3, tx.getAllNodes().stream().count());
+                tx.commit();
+            }
+        });
+    }
+
+    @Test
+    public void concurrentMergesCreateEachNodeOnce() {
+        runNeo4jTest(graph -> {
+            List <Thread> threads = new ArrayList <>();
+            for (int i = 0 ; i < 4 ; i++) {
+                threads.add(new Thread(() -> {
+                    for (int j = 0 ; j < 20 ; j++) {
+                        String name = "Shape" + j % 5;
+                        graph.getOrCreateNode(name, EntityType.CLASS);
+                        graph.addChildNode(name, EntityType.CLASS, "draw", EntityType.METHOD, new EntityAttribute[]{}, RelationType.METHOD);
+                        graph.flush();
+                    }
+                }));
+            }
+            threads.forEach(Thread::start);
+            for (Thread thread : threads) {
+                try {
+                    thread.join();
+                } catch (InterruptedException e) {
+                    fail("Interrupted while waiting for the merges");
+                }
+            }
+            try (Transaction tx = graphDatabaseService.beginTx()) {
+                assertEquals(5, tx.findNodes(Label.label(EntityType.CLASS.toString())).stream().count());
+                tx.commit();
+            }
+        });
+    }
+
+    @Test
+    public void nodeCacheAnswersRepeatedLookups() {
+        runNeo4jTest(graph -> {
+            graph.setNodeCacheEnabled(true);
+            graph.createNode("Shape", EntityType.INTERFACE);
+            assertTrue(graph.getNode("Shape").isPresent());
+            assertTrue(graph.getNode("Shape").isPresent());
+            assertFalse(graph.getNode("Circle").isPresent());
+            assertFalse(graph.getNode("Circle").isPresent());
+            assertTrue(graph.getInterfaceNode("Shape").isPresent());
+            assertFalse(graph.getClassNode("Shape").isPresent());
+            assertEquals(4, graph.getNbNodeCacheHits());
+            assertEquals(2, graph.getNbNodeCacheMisses());
+        });
+    }
+
+    @Test
+    public void nodeCacheStoresTypesFoundByLabel() {
+        runNeo4jTest(graph -> {
+            graph.setSchemaEnabled(true);
+            graph.createSchema();
+            graph.setNodeCacheEnabled(true);
+            graph.createNode("fr.unice.i3s.Shape", EntityType.INTERFACE);
+            assertFalse(graph.getClassNode("fr.unice.i3s.Shape").isPresent());
+            assertTrue(graph.getInterfaceNode("fr.unice.i3s.Shape").isPresent());
+            assertFalse(graph.getClassNode("fr.unice.i3s.Shape").isPresent());
+            assertTrue(graph.getNode("fr.unice.i3s.Shape").isPresent());
+            assertEquals(2, graph.getNbNodeCacheHits());
+            assertEquals(2, graph.getNbNodeCacheMisses());
+        });
+    }
+
+    @Test
+    public void nodeCacheIsUpdatedByWrites() {
+        runNeo4jTest(graph -> {
+            graph.setNodeCacheEnabled(true);
+            assertFalse(graph.getNode("Circle").isPresent());
+            graph.addNode("Circle", EntityType.CLASS);
+            org.neo4j.driver.types.Node circleNode = graph.getNode("Circle").get();
+            graph.addLabelToNode(circleNode, DesignPatternType.STRATEGY.toString());
+            graph.setNodeAttribute(circleNode, "methodVPs", 2);
+            org.neo4j.driver.types.Node cachedNode = graph.getNode("Circle").get();
+            assertTrue(cachedNode.hasLabel(DesignPatternType.STRATEGY.toString()));
+            assertEquals(2, cachedNode.get("methodVPs").asInt());
+            graph.getOrCreateNode("Circle", EntityType.CLASS, new EntityAttribute[]{}, new EntityAttribute[]{EntityAttribute.ABSTRACT});
+            assertTrue(graph.getNode("Circle").get().hasLabel(EntityAttribute.ABSTRACT.toString()));
+            assertEquals(2, graph.getNbNodeCacheHits());
+        });
+    }
+
+    @Test
+    public void nodeCacheIsClearedByBulkRequests() {
+        runNeo4jTest(graph -> {
+            graph.setNodeCacheEnabled(true);
+            graph.createNode("Shape", EntityType.INTERFACE);
+            assertFalse(graph.getNode("Shape").get().hasLabel(EntityAttribute.VP.toString()));
+            graph.setNbVariantsProperty();
+            graph.setVPLabels();
+            assertTrue(graph.getNode("Shape").get().hasLabel(EntityAttribute.VP.toString()));
+            assertEquals(0, graph.getNbNodeCacheHits());
+        });
+    }
+
+    @Test
+    public void statisticsKeepNodeCache() {
+        runNeo4jTest(graph -> {
+            graph.setNodeCacheEnabled(true);
+            graph.createNode("Shape", EntityType.INTERFACE);
+            assertTrue(graph.getNode("Shape").isPresent());
+            graph.getStatistics();
+            assertTrue(graph.getNode("Shape").isPresent());
+            assertEquals(1, graph.getNbNodeCacheHits());
+        });
+    }
+
+    @Test
+    public void statisticsAreComputedTogether() {
+        runTest(graph -> {
+            org.neo4j.driver.types.Node shape = graph.createNode("Shape", EntityType.INTERFACE, EntityAttribute.VP);
+            org.neo4j.driver.types.Node circle = graph.createNode("Circle", EntityType.CLASS, EntityAttribute.VARIANT);
+            org.neo4j.driver.types.Node square = graph.createNode("Square", EntityType.CLASS, EntityAttribute.VARIANT);
+            graph.linkTwoNodes(shape, circle, RelationType.IMPLEMENTS);
+            graph.linkTwoNodes(shape, square, RelationType.IMPLEMENTS);
+            graph.linkTwoNodes(circle, square, RelationType.INSTANTIATE);
+            graph.setNodeAttribute(circle, "methodVPs", 2);
+            graph.setNodeAttribute(circle, "methodVariants", 5);
+            graph.setNodeAttribute(square, "methodVPs", 1);
+            graph.setNodeAttribute(circle, "nbCompositions", 1);
+            Statistics statistics = graph.getStatistics();
+            assertEquals(graph.getTotalNbVPs(), statistics.getTotalNbVPs());
+            assertEquals(4, statistics.getTotalNbVPs());
+            assertEquals(3, statistics.getNbMethodVPs());
+            assertEquals(2, statistics.getNbClassLevelVariants());
+            assertEquals(7, statistics.getTotalNbVariants());
+            assertEquals(1, statistics.getNbAttributeComposeClass());
+            assertEquals(3, statistics.getNbNodes());
+            assertEquals(3, statistics.getNbRelationships());
+            assertEquals(2, statistics.getNbInheritanceRelationships());
+            assertEquals(1, statistics.getNbCompositionRelationships());
+        });
+    }
+
+}
@@ -0,0 +1,78 @@
+/*
+ * This file is part of symfinder.
+ *
+ * symfinder is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * symfinder is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with symfinder. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright 2018-2021 Johann Mortara <johann.mortara@univ-cotedazur.fr>
+ * Copyright 2018-2021 Xhevahire Tërnava <t.xheva@gmail.com>
+ * Copyright 2018-2021 Philippe Collet <philippe.collet@univ-cotedazur.fr>
+ */
+
+import neo4j_types.EntityAttribute;
+import neo4j_types.EntityType;
+import neo4j_types.EntityVisibility;
+import neo4j_types.RelationType;
+import neograph.NeoGraph;
+import org.junit.jupiter.api.Test;
+import org.neo4j.driver.types.Node;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SchemaTest extends Neo4jTest {
+
+    @Test
+    public void lookupsDoNotScanAllNodes() {
+        runNeo4jTest(this::checkPlans);
+        runEmbeddedTest(this::checkPlans);
+    }
+
+    @Test
+    public void typesAreFoundThroughTheSchema() {
+        runNeo4jTest(this::checkLookups);
+        tearDown();
+        runEmbeddedTest(this::checkLookups);
+    }
+
+    private void checkPlans(NeoGraph graph) {
+        graph.setSchemaEnabled(true);
+        graph.createSchema();
+        assertEquals(List.of(), graph.findAllNodesScans());
+    }
+
+    private void checkLookups(NeoGraph graph) {
+        graph.setSchemaEnabled(true);
+        graph.createSchema();
+        Node shape = graph.getOrCreateNode("fr.unice.i3s.Shape", EntityType.INTERFACE);
+        graph.addNode("fr.unice.i3s.Rectangle", EntityType.CLASS, EntityVisibility.PUBLIC);
+        graph.addChildNode("fr.unice.i3s.Rectangle", EntityType.CLASS, "area", EntityType.METHOD, new EntityAttribute[]{}, RelationType.METHOD);
+        Node rectangle = graph.getOrCreateNode("fr.unice.i3s.Rectangle", EntityType.CLASS);
+        graph.linkTwoNodes(shape, rectangle, RelationType.IMPLEMENTS);
+        Node main = graph.getOrCreateNode("Main", EntityType.CLASS);
+
+        assertEquals(4, graph.getNbNodes());
+        assertTrue(rectangle.hasLabel(EntityVisibility.PUBLIC.toString()));
+        assertEquals(Optional.of(rectangle), graph.getNode("fr.unice.i3s.Rectangle"));
+        assertEquals(List.of(shape), graph.getImplementedInterfacesNodes("fr.unice.i3s.Rectangle"));
+        assertTrue(graph.inheritsFrom("fr.unice.i3s.Rectangle", shape));
+        assertEquals(Optional.of(shape), graph.getNodeWithNameInPackage("Shape", "fr.unice"));
+        assertFalse(graph.getNodeWithNameInPackage("Shape", "fr.i3s").isPresent());
+        assertFalse(graph.getNode("area").isPresent());
+        assertFalse(graph.getNode("java.lang.String").isPresent());
+        assertEquals(Optional.of(main), graph.getNode("Main"));
+    }
+
+}
@@ -0,0 +1,110 @@
+/*
+ * This file is part of symfinder.
+ *
+ * symfinder is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * symfinder is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with symfinder. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright 2018-2021 Johann Mortara <johann.mortara@univ-cotedazur.fr>
+ * Copyright 2018-2021 Xhevahire Tërnava <t.xheva@gmail.com>
+ * Copyright 2018-2021 Philippe Collet <philippe.collet@univ-cotedazur.fr>
+ */
+
+package facts;
+
+import neo4j_types.EntityAttribute;
+import neo4j_types.EntityType;
+import neo4j_types.RelationType;
+import neograph.InMemoryGraph;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class FactCacheTest {
+
+    @Test
+    public void identicalFilesHitTheCache(@TempDir Path directory) throws IOException {
+        File shape = write(directory, "Shape.java", "interface Shape {}");
+        File vendoredShape = write(directory, "VendoredShape.java", "interface Shape {}");
+        List <Fact> facts = recordShapeFacts();
+
+        FactCache cache = new FactCache(directory.resolve("cache"), "1.0", 1024 * 1024);
+        assertTrue(cache.get(shape).isEmpty());
+        cache.put(shape, facts);
+        assertEquals(facts, cache.get(vendoredShape).get());
+        assertEquals(1, cache.getNbHits());
+        assertEquals(1, cache.getNbMisses());
+
+        FactCache otherVersionCache = new FactCache(directory.resolve("cache"), "2.0", 1024 * 1024);
+        assertTrue(otherVersionCache.get(shape).isEmpty());
+        assertEquals(cache.getSize(), otherVersionCache.getSize());
+    }
+
+    @Test
+    public void leastRecentlyUsedEntriesAreEvicted(@TempDir Path directory) throws IOException {
+        File shape = write(directory, "Shape.java", "interface Shape {}");
+        File rectangle = write(directory, "Rectangle.java", "class Rectangle implements Shape {}");
+        File circle = write(directory, "Circle.java", "class Circle implements Shape {}");
+        List <Fact> facts = recordShapeFacts();
+
+        FactCache cache = new FactCache(directory.resolve("cache"), "1.0", 1024 * 1024);
+        cache.put(shape, facts);
+        long entrySize = cache.getSize();
+
+        FactCache smallCache = new FactCache(directory.resolve("cache"), "1.0", 2 * entrySize);
+        smallCache.put(rectangle, facts);
+        makeEntriesOlder(directory.resolve("cache"), 1);
+        assertTrue(smallCache.get(shape).isPresent());
+        smallCache.put(circle, facts);
+
+        assertEquals(2 * entrySize, smallCache.getSize());
+        assertTrue(smallCache.get(shape).isPresent());
+        assertTrue(smallCache.get(circle).isPresent());
+        assertTrue(smallCache.get(rectangle).isEmpty());
+    }
+
+    private static List <Fact> recordShapeFacts() {
+        FactRecorder recorder = new FactRecorder(new InMemoryGraph());
+        return recorder.record(() -> {
+            recorder.getGraph().addNode("Shape", EntityType.INTERFACE);
+            recorder.getGraph().addChildNode("Shape", EntityType.INTERFACE, "draw", EntityType.METHOD, new EntityAttribute[]{EntityAttribute.ABSTRACT}, RelationType.METHOD);
+        });
+    }
+
+    /**
+     * Moves the modification time of the entries back, so that the entries accessed afterwards are more recent.
+     */
+    private static void makeEntriesOlder(Path cacheDirectory, int seconds) throws IOException {
+        List <Path> entries;
+        try (Stream <Path> stream = Files.walk(cacheDirectory)) {
+            entries = stream.filter(Files::isRegularFile).collect(Collectors.toList());
+        }
+        for (Path entry : entries) {
+            Files.setLastModifiedTime(entry, FileTime.fromMillis(System.currentTimeMillis() - seconds * 1000L));
+        }
+    }
+
+    private static File write(Path directory, String fileName, String content) throws IOException {
+        return Files.writeString(directory.resolve(fileName), content).toFile();
+    }
+
+}
@@ -0,0 +1,151 @@
+/*
+ * This file is part of symfinder.
+ *
+ * symfinder is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * symfinder is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with symfinder. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright 2018-2021 Johann Mortara <johann.mortara@univ-cotedazur.fr>
+ * Copyright 2018-2021 Xhevahire Tërnava <t.xheva@gmail.com>
+ * Copyright 2018-2021 Philippe Collet <philippe.collet@univ-cotedazur.fr>
+ */
+
+package facts;
+
+import neo4j_types.EntityAttribute;
+import neo4j_types.EntityType;
+import neo4j_types.RelationType;
+import neograph.GraphStore;
+import neograph.InMemoryGraph;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.neo4j.driver.types.Node;
+
+import java.io.IOException;
+import java.lang.reflect.Proxy;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class FactQueueTest {
+
+    @Test
+    public void readsSeeQueuedWrites() throws InterruptedException {
+        InMemoryGraph graph = new InMemoryGraph();
+        FactQueue factQueue = new FactQueue(graph, 1, null);
+        GraphStore queuedGraph = factQueue.getGraph();
+        queuedGraph.addNode("Shape", EntityType.INTERFACE);
+        queuedGraph.addNode("Rectangle", EntityType.CLASS);
+        queuedGraph.addChildNode("Rectangle", EntityType.CLASS, "area", EntityType.METHOD, new EntityAttribute[]{}, RelationType.METHOD);
+        Node shape = queuedGraph.getInterfaceNode("Shape").get();
+        queuedGraph.linkTwoNodes(shape, queuedGraph.getClassNode("Rectangle").get(), RelationType.IMPLEMENTS);
+        assertTrue(queuedGraph.inheritsFrom("Rectangle", shape));
+        assertEquals(3, queuedGraph.getNbNodes());
+        factQueue.close();
+        assertEquals(2, graph.getNbRelationships());
+    }
+
+    @Test
+    public void recordedFactsCanBeReplayed(@TempDir Path directory) throws IOException, InterruptedException {
+        InMemoryGraph graph = new InMemoryGraph();
+        Path path = directory.resolve("facts.bin");
+        try (FactFile factFile = new FactFile(path)) {
+            FactQueue factQueue = new FactQueue(graph, 10, factFile);
+            GraphStore queuedGraph = factQueue.getGraph();
+            queuedGraph.addNode("Shape", EntityType.INTERFACE);
+            Node rectangle = queuedGraph.getOrCreateNode("Rectangle", EntityType.CLASS, new EntityAttribute[]{EntityAttribute.ABSTRACT});
+            queuedGraph.linkTwoNodes(queuedGraph.getOrCreateNode("Shape", EntityType.INTERFACE), rectangle, RelationType.IMPLEMENTS);
+            queuedGraph.addLabelToNode(rectangle, "STRATEGY");
+            factQueue.close();
+        }
+
+        InMemoryGraph replayedGraph = new InMemoryGraph();
+        FactFile.replay(path, fact -> fact.applyTo(replayedGraph));
+        assertEquals(2, replayedGraph.getNbNodes());
+        assertEquals(1, replayedGraph.getNbRelationships());
+        Node rectangle = replayedGraph.getClassNode("Rectangle").get();
+        assertTrue(rectangle.hasLabel(EntityAttribute.ABSTRACT.toString()));
+        assertTrue(rectangle.hasLabel("STRATEGY"));
+    }
+
+    @Test
+    public void recordedAttributesCanBeReplayed(@TempDir Path directory) throws IOException, InterruptedException {
+        InMemoryGraph graph = new InMemoryGraph();
+        Path path = directory.resolve("facts.bin");
+        Map <String, Object> attributes = new LinkedHashMap <>();
+        attributes.put("methodVPs", 1L);
+        attributes.put("methodNames", List.of("area", "area"));
+        try (FactFile factFile = new FactFile(path)) {
+            FactQueue factQueue = new FactQueue(graph, 10, factFile);
+            factQueue.getGraph().addNode("Rectangle", EntityType.CLASS);
+            factQueue.getGraph().setNodeAttributes("Rectangle", EntityType.CLASS, attributes);
+            factQueue.close();
+        }
+
+        InMemoryGraph replayedGraph = new InMemoryGraph();
+        FactFile.replay(path, fact -> fact.applyTo(replayedGraph));
+        assertEquals(1, replayedGraph.getNbNodes());
+        Node rectangle = replayedGraph.getClassNode("Rectangle").get();
+        assertEquals(1L, rectangle.get("methodVPs").asLong());
+        assertEquals(List.of("area", "area"), rectangle.get("methodNames").asList());
+        assertEquals(1L, graph.getClassNode("Rectangle").get().get("methodVPs").asLong());
+    }
+
+    @Test
+    public void writesKeepTheirNodes() throws InterruptedException {
+        InMemoryGraph graph = new InMemoryGraph();
+        graph.createNode("Shape", EntityType.INTERFACE);
+        Node secondShape = graph.createNode("Shape", EntityType.INTERFACE);
+        Node rectangle = graph.createNode("Rectangle", EntityType.CLASS);
+        FactQueue factQueue = new FactQueue(graph, 10, null);
+        factQueue.getGraph().linkTwoNodes(secondShape, rectangle, RelationType.IMPLEMENTS);
+        factQueue.close();
+        assertTrue(graph.relatedTo(secondShape, rectangle));
+        assertEquals(1, graph.getNbRelationships());
+    }
+
+    @Test
+    public void lookupsDoNotWaitForWritesOnOtherNodes() throws InterruptedException {
+        InMemoryGraph graph = new InMemoryGraph();
+        graph.addNode("Rectangle", EntityType.CLASS);
+        CountDownLatch writesAllowed = new CountDownLatch(1);
+        GraphStore blockingGraph = (GraphStore) Proxy.newProxyInstance(GraphStore.class.getClassLoader(), new Class[]{GraphStore.class}, (proxy, method, args) -> {
+            if (method.getName().equals("addNode")) {
+                writesAllowed.await();
+            }
+            return method.invoke(graph, args);
+        });
+        FactQueue factQueue = new FactQueue(blockingGraph, 10, null);
+        factQueue.getGraph().addNode("Shape", EntityType.INTERFACE);
+        assertTimeoutPreemptively(Duration.ofSeconds(10), () -> assertTrue(factQueue.getGraph().getClassNode("Rectangle").isPresent()));
+        writesAllowed.countDown();
+        assertTrue(factQueue.getGraph().getInterfaceNode("Shape").isPresent());
+        factQueue.close();
+    }
+
+    @Test
+    public void failedWritesAreReportedWhenDraining() throws InterruptedException {
+        GraphStore failingGraph = (GraphStore) Proxy.newProxyInstance(GraphStore.class.getClassLoader(), new Class[]{GraphStore.class}, (proxy, method, args) -> {
+            throw new IllegalStateException("Database unavailable");
+        });
+        FactQueue factQueue = new FactQueue(failingGraph, 10, null);
+        factQueue.getGraph().addNode("Rectangle", EntityType.CLASS);
+        assertThrows(IllegalStateException.class, factQueue::drain);
+        factQueue.close();
+    }
+
+}
@@ -0,0 +1,163 @@
+/*
+ * This file is part of symfinder.
+ *
+ * symfinder is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * symfinder is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with symfinder. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright 2018-2021 Johann Mortara <johann.mortara@univ-cotedazur.fr>
+ * Copyright 2018-2021 Xhevahire Tërnava <t.xheva@gmail.com>
+ * Copyright 2018-2021 Philippe Collet <philippe.collet@univ-cotedazur.fr>
+ */
+
+package facts;
+
+import neo4j_types.EntityAttribute;
+import neograph.GraphStore;
+import neograph.InMemoryGraph;
+import org.eclipse.jdt.core.dom.ASTVisitor;
+import org.eclipse.jdt.core.dom.CompilationUnit;
+import org.json.JSONArray;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import parsing.SourceParser;
+import visitors.ClassesVisitor;
+import visitors.GraphBuilderVisitor;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class IncrementalAnalysisTest {
+
+    private static final SourceParser PARSER = new SourceParser(System.getProperty("java.home"));
+
+    @Test
+    public void unchangedFilesAreReplayed(@TempDir Path directory) throws IOException {
+        File shape = write(directory, "Shape.java", "interface Shape { double area(); }");
+        File rectangle = write(directory, "Rectangle.java", "abstract class Rectangle implements Shape {}");
+        analyse(directory, new InMemoryGraph(), List.of(shape, rectangle), List.of(shape, rectangle), List.of(shape, rectangle));
+
+        write(directory, "Rectangle.java", "abstract class Rectangle implements Shape { }");
+        InMemoryGraph graph = new InMemoryGraph();
+        IncrementalAnalysis analysis = analyse(directory, graph, List.of(shape, rectangle), List.of(rectangle), List.of(rectangle));
+
+        assertTrue(analysis.isReplayable());
+        InMemoryGraph visitedGraph = visit(List.of(shape, rectangle));
+        assertEquals(visitedGraph.getNbNodes(), graph.getNbNodes());
+        assertEquals(visitedGraph.getNbRelationships(), graph.getNbRelationships());
+        assertTrue(graph.getNode("Rectangle").get().hasLabel(EntityAttribute.ABSTRACT.toString()));
+        assertEquals(0L, graph.getNode("Rectangle").get().get("methodVPs").asLong());
+    }
+
+    @Test
+    public void changedFactsMakeNextPhasesVisitAllFiles(@TempDir Path directory) throws IOException {
+        File shape = write(directory, "Shape.java", "interface Shape {}");
+        File rectangle = write(directory, "Rectangle.java", "class Rectangle implements Shape {}");
+        analyse(directory, new InMemoryGraph(), List.of(shape, rectangle), List.of(shape, rectangle), List.of(shape, rectangle));
+
+        File circle = write(directory, "Circle.java", "class Circle implements Shape {}");
+        InMemoryGraph graph = new InMemoryGraph();
+        IncrementalAnalysis analysis = analyse(directory, graph, List.of(shape, rectangle, circle), List.of(circle), List.of(shape, rectangle, circle));
+
+        assertFalse(analysis.isReplayable());
+        InMemoryGraph visitedGraph = visit(List.of(shape, rectangle, circle));
+        assertEquals(visitedGraph.getNbNodes(), graph.getNbNodes());
+        assertEquals(visitedGraph.getNbRelationships(), graph.getNbRelationships());
+    }
+
+    @Test
+    public void manifestOfAnotherVersionIsIgnored(@TempDir Path directory) throws IOException {
+        File shape = write(directory, "Shape.java", "interface Shape {}");
+        analyse(directory, new InMemoryGraph(), List.of(shape), List.of(shape), List.of(shape));
+
+        IncrementalAnalysis analysis = new IncrementalAnalysis(directory.resolve("manifest.json"), directory, "2.0", new FactRecorder(new InMemoryGraph()));
+        assertEquals(List.of(shape), analysis.beginPhase("ClassesVisitor", List.of(shape)));
+    }
+
+    @Test
+    public void factsAreKeptThroughJson(@TempDir Path directory) throws IOException {
+        File shapes = write(directory, "Shapes.java", "interface Shape { double area(); }\n" +
+                "class Rectangle implements Shape {\n" +
+                "    public Rectangle() {}\n" +
+                "    public Rectangle(double width) {}\n" +
+                "    public double area() { return 1; }\n" +
+                "}\n");
+        CompilationUnit compilationUnit = PARSER.parse(shapes);
+        InMemoryGraph graph = new InMemoryGraph();
+        FactRecorder recorder = new FactRecorder(graph);
+        List <Fact> facts = recorder.record(() -> compilationUnit.accept(new ClassesVisitor(recorder.getGraph())));
+        assertTrue(facts.stream().anyMatch(fact -> fact.getKind() == Fact.Kind.SET_ATTRIBUTES));
+        for (Fact fact : facts) {
+            // Read back from the text of the manifest, in which the counts of methods are read as integers
+            assertEquals(fact, Fact.fromJson(new JSONArray(fact.toJson().toString())));
+        }
+
+        InMemoryGraph replayedGraph = new InMemoryGraph();
+        facts.forEach(fact -> fact.applyTo(replayedGraph));
+        assertEquals(graph.getNbNodes(), replayedGraph.getNbNodes());
+        assertEquals(graph.getNbRelationships(), replayedGraph.getNbRelationships());
+        assertEquals(1L, replayedGraph.getNode("Rectangle").get().get("constructorVPs").asLong());
+    }
+
+    /**
+     * Analyses the files with the ClassesVisitor then the GraphBuilderVisitor.
+     * Checks that the files visited in each phase are the expected ones.
+     */
+    private IncrementalAnalysis analyse(Path directory, GraphStore graph, List <File> files, List <File> expectedClassesVisitorFiles,
+                                        List <File> expectedGraphBuilderVisitorFiles) throws IOException {
+        FactRecorder recorder = new FactRecorder(graph);
+        IncrementalAnalysis analysis = new IncrementalAnalysis(directory.resolve("manifest.json"), directory, "1.0", recorder);
+        GraphStore visitorGraph = recorder.getGraph();
+
+        visitPhase(analysis, "ClassesVisitor", files, expectedClassesVisitorFiles, () -> new ClassesVisitor(visitorGraph));
+        visitPhase(analysis, "GraphBuilderVisitor", files, expectedGraphBuilderVisitorFiles, () -> new GraphBuilderVisitor(visitorGraph));
+
+        analysis.save();
+        return analysis;
+    }
+
+    private static void visitPhase(IncrementalAnalysis analysis, String phaseName, List <File> files, List <File> expectedFiles,
+                                   Supplier <ASTVisitor> visitorSupplier) throws IOException {
+        List <File> filesToVisit = analysis.beginPhase(phaseName, files);
+        assertEquals(expectedFiles, filesToVisit);
+        for (File file : filesToVisit) {
+            CompilationUnit compilationUnit = PARSER.parse(file);
+            analysis.visit(file, () -> compilationUnit.accept(visitorSupplier.get()));
+        }
+        analysis.endPhase();
+    }
+
+    /**
+     * Visits all the files without the incremental analysis.
+     */
+    private static InMemoryGraph visit(List <File> files) throws IOException {
+        InMemoryGraph graph = new InMemoryGraph();
+        for (File file : files) {
+            PARSER.parse(file).accept(new ClassesVisitor(graph));
+        }
+        for (File file : files) {
+            PARSER.parse(file).accept(new GraphBuilderVisitor(graph));
+        }
+        return graph;
+    }
+
+    private static File write(Path directory, String fileName, String content) throws IOException {
+        return Files.writeString(directory.resolve(fileName), content).toFile();
+    }
+
+}
@@ -0,0 +1,151 @@
+/*
+ * This file is part of symfinder.
+ *
+ * symfinder is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * symfinder is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with symfinder. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright 2018-2021 Johann Mortara <johann.mortara@univ-cotedazur.fr>
+ * Copyright 2018-2021 Xhevahire Tërnava <t.xheva@gmail.com>
+ * Copyright 2018-2021 Philippe Collet <philippe.collet@univ-cotedazur.fr>
+ */
+
+package neograph;
+
+import neo4j_types.EntityAttribute;
+import neo4j_types.EntityType;
+import neo4j_types.RelationType;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.json.JSONTokener;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.neo4j.driver.types.Node;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class InMemoryGraphTest {
+
+    @Test
+    public void getOrCreateNodeMatchesOnNameAndType() {
+        InMemoryGraph graph = new InMemoryGraph();
+        Node classNode = graph.getOrCreateNode("n", EntityType.CLASS, new EntityAttribute[]{EntityAttribute.VP}, new EntityAttribute[]{});
+        Node matchedNode = graph.getOrCreateNode("n", EntityType.CLASS, new EntityAttribute[]{EntityAttribute.ABSTRACT}, new EntityAttribute[]{EntityAttribute.OUT_OF_SCOPE});
+        Node interfaceNode = graph.getOrCreateNode("n", EntityType.INTERFACE);
+        assertEquals(classNode, matchedNode);
+        assertTrue(matchedNode.hasLabel(EntityAttribute.VP.toString()));
+        assertFalse(matchedNode.hasLabel(EntityAttribute.ABSTRACT.toString()));
+        assertTrue(matchedNode.hasLabel(EntityAttribute.OUT_OF_SCOPE.toString()));
+        assertNotEquals(classNode, interfaceNode);
+        assertEquals(2, graph.getNbNodes());
+    }
+
+    @Test
+    public void nodesAreSnapshots() {
+        InMemoryGraph graph = new InMemoryGraph();
+        Node node = graph.createNode("Shape", EntityType.CLASS);
+        graph.addLabelToNode(node, EntityAttribute.VP.toString());
+        assertFalse(node.hasLabel(EntityAttribute.VP.toString()));
+        assertTrue(graph.getNode("Shape").get().hasLabel(EntityAttribute.VP.toString()));
+    }
+
+    @Test
+    public void integerPropertiesAreStoredAsLongs() {
+        InMemoryGraph graph = new InMemoryGraph();
+        Node node = graph.createNode("Shape", EntityType.CLASS);
+        graph.setNodeAttribute(node, "methodVariants", 2);
+        assertEquals(2L, graph.getPropertyValue(node, "methodVariants"));
+        graph.setNodeAttribute(node, "methodVariants", null);
+        assertNull(graph.getPropertyValue(node, "methodVariants"));
+    }
+
+    @Test
+    public void nodesInPackageAreFoundByTheirSimpleName() {
+        InMemoryGraph graph = new InMemoryGraph();
+        Node shape = graph.createNode("fr.unice.Shape", EntityType.CLASS);
+        graph.createNode("fr.unice.Shape", EntityType.METHOD);
+        Node inner = graph.createNode("fr.unice.Outer.Inner", EntityType.INTERFACE);
+        assertEquals(shape, graph.getNodeWithNameInPackage("Shape", "fr.unice").get());
+        assertEquals(inner, graph.getNodeWithNameInPackage("Outer.Inner", "fr.unice").get());
+        assertFalse(graph.getNodeWithNameInPackage("Shape", "fr.i3s").isPresent());
+        graph.setNodeAttribute(shape, "name", "fr.unice.Polygon");
+        assertFalse(graph.getNodeWithNameInPackage("Shape", "fr.unice").isPresent());
+        assertEquals(shape, graph.getNodeWithNameInPackage("Polygon", "fr.unice").get());
+    }
+
+    @Test
+    public void childNodesAreCreatedUnderMergedParent() {
+        InMemoryGraph graph = new InMemoryGraph();
+        graph.addNode("Shape", EntityType.CLASS);
+        graph.addChildNode("Shape", EntityType.CLASS, "draw", EntityType.METHOD, new EntityAttribute[]{}, RelationType.METHOD);
+        graph.addChildNode("Circle", EntityType.CLASS, "draw", EntityType.METHOD, new EntityAttribute[]{}, RelationType.METHOD);
+        assertEquals(4, graph.getNbNodes());
+        assertEquals(2, graph.getNbRelationships());
+        assertTrue(graph.relatedTo(graph.getClassNode("Shape").get(), graph.getNode("draw").get()));
+        assertTrue(graph.getClassNode("Circle").isPresent());
+    }
+
+    @Test
+    public void vpGraphIsStreamedToGzipFile(@TempDir Path directory) throws IOException {
+        InMemoryGraph graph = new InMemoryGraph();
+        Node shape = graph.createNode("Shape", EntityType.INTERFACE, EntityAttribute.VP);
+        Node circle = graph.createNode("Circle", EntityType.CLASS, EntityAttribute.VARIANT);
+        Node object = graph.createNode("Object", EntityType.CLASS, EntityAttribute.OUT_OF_SCOPE);
+        graph.linkTwoNodes(shape, circle, RelationType.IMPLEMENTS);
+        graph.linkTwoNodes(circle, shape, RelationType.INSTANTIATE);
+        graph.linkTwoNodes(object, circle, RelationType.EXTENDS);
+        Path file = directory.resolve("output/graph.json.gz");
+        graph.writeVPGraphFile(file.toString());
+        try (InputStream inputStream = new GZIPInputStream(Files.newInputStream(file))) {
+            JSONObject json = new JSONObject(new JSONTokener(inputStream));
+            assertEquals(2, json.getJSONArray("nodes").length());
+            assertEquals(1, json.getJSONArray("links").length());
+            assertEquals("Circle", json.getJSONArray("links").getJSONObject(0).getString("target"));
+            assertEquals(2, json.getJSONArray("allnodes").length());
+            assertEquals(1, json.getJSONArray("linkscompose").length());
+            assertEquals(2, json.getJSONArray("alllinks").length());
+        }
+    }
+
+    @Test
+    public void compactVPGraphWritesEachNodeOnce(@TempDir Path directory) throws IOException {
+        InMemoryGraph graph = new InMemoryGraph();
+        Node shape = graph.createNode("shapes.Shape", EntityType.INTERFACE, EntityAttribute.VP);
+        Node circle = graph.createNode("shapes.Circle", EntityType.CLASS, EntityAttribute.VARIANT);
+        Node object = graph.createNode("Object", EntityType.CLASS, EntityAttribute.OUT_OF_SCOPE);
+        graph.linkTwoNodes(shape, circle, RelationType.IMPLEMENTS);
+        graph.linkTwoNodes(circle, shape, RelationType.INSTANTIATE);
+        graph.linkTwoNodes(object, circle, RelationType.EXTENDS);
+        Path file = directory.resolve("graph.json");
+        graph.writeCompactVPGraphFile(file.toString());
+        JSONObject json = new JSONObject(Files.readString(file));
+        assertEquals("symfinder-compact-1", json.getString("format"));
+        JSONArray strings = json.getJSONArray("strings");
+        JSONArray nodes = json.getJSONArray("nodes");
+        assertEquals(2, nodes.length());
+        assertEquals("shapes", strings.getString(nodes.getJSONArray(0).getInt(0)));
+        assertEquals("Shape", strings.getString(nodes.getJSONArray(0).getInt(1)));
+        assertEquals("Circle", strings.getString(nodes.getJSONArray(1).getInt(1)));
+        JSONArray links = json.getJSONArray("links");
+        assertEquals(6, links.length());
+        assertEquals(0, links.getInt(0));
+        assertEquals(1, links.getInt(1));
+        assertEquals("IMPLEMENTS", json.getJSONArray("linkTypes").getString(links.getInt(2)));
+    }
+
+}
@@ -0,0 +1,75 @@
+/*
+ * This file is part of symfinder.
+ *
+ * symfinder is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * symfinder is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with symfinder. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright 2018-2021 Johann Mortara <johann.mortara@univ-cotedazur.fr>
+ * Copyright 2018-2021 Xhevahire Tërnava <t.xheva@gmail.com>
+ * Copyright 2018-2021 Philippe Collet <philippe.collet@univ-cotedazur.fr>
+ */
+
+package neograph;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MergeLocksTest {
+
+    @Test
+    public void locksAreDroppedOnceReleased() {
+        MergeLocks locks = new MergeLocks();
+        assertEquals("Shape", locks.withLocks(List.of("Shape", "Circle", "Shape"), () -> {
+            assertEquals(2, locks.size());
+            return "Shape";
+        }));
+        assertEquals(0, locks.size());
+        assertThrows(IllegalStateException.class, () -> locks.withLocks(List.of("Shape"), () -> {
+            throw new IllegalStateException();
+        }));
+        assertEquals(0, locks.size());
+    }
+
+    @Test
+    public void overlappingNamesAreSerialized() throws Exception {
+        MergeLocks locks = new MergeLocks();
+        AtomicInteger nbHolders = new AtomicInteger();
+        AtomicInteger maxNbHolders = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        List <Future <?>> futures = new ArrayList <>();
+        for (int i = 0 ; i < 100 ; i++) {
+            List <String> names = i % 2 == 0 ? List.of("Shape", "Circle") : List.of("Circle", "Shape");
+            futures.add(executor.submit(() -> locks.withLocks(names, () -> {
+                maxNbHolders.accumulateAndGet(nbHolders.incrementAndGet(), Math::max);
+                nbHolders.decrementAndGet();
+                return null;
+            })));
+        }
+        for (Future <?> future : futures) {
+            future.get(10, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+        assertEquals(1, maxNbHolders.get());
+        assertEquals(0, locks.size());
+    }
+
+}
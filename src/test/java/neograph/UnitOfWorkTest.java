@@ -0,0 +1,89 @@
+/*
+ * This file is part of symfinder.
+ *
+ * symfinder is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * symfinder is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with symfinder. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright 2018-2021 Johann Mortara <johann.mortara@univ-cotedazur.fr>
+ * Copyright 2018-2021 Xhevahire Tërnava <t.xheva@gmail.com>
+ * Copyright 2018-2021 Philippe Collet <philippe.collet@univ-cotedazur.fr>
+ */
+
+package neograph;
+
+import org.junit.jupiter.api.Test;
+import org.neo4j.driver.*;
+import org.neo4j.driver.exceptions.ServiceUnavailableException;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class UnitOfWorkTest {
+
+    @Test
+    public void lostConnectionFailsInsteadOfReplaying() {
+        List <String> runRequests = new ArrayList <>();
+        Result result = proxy(Result.class, (proxy, method, args) -> List.of());
+        Transaction transaction = proxy(Transaction.class, (proxy, method, args) -> {
+            if (method.getName().equals("run")) {
+                runRequests.add((String) args[0]);
+                if (runRequests.size() == 2) {
+                    throw new ServiceUnavailableException("Connection lost");
+                }
+                return result;
+            }
+            return null;
+        });
+        Session session = proxy(Session.class, (proxy, method, args) -> method.getName().equals("beginTransaction") ? transaction : null);
+        Driver driver = proxy(Driver.class, (proxy, method, args) -> method.getName().equals("session") ? session : null);
+
+        UnitOfWork unitOfWork = new UnitOfWork(driver, 10, 0);
+        unitOfWork.run("CREATE (:CLASS {name: 'Circle'})", Values.parameters());
+        assertThrows(IllegalStateException.class, () -> unitOfWork.run("CREATE (:CLASS {name: 'Square'})", Values.parameters()));
+        assertTrue(unitOfWork.hasFailed());
+        assertThrows(IllegalStateException.class, () -> unitOfWork.run("CREATE (:CLASS {name: 'Triangle'})", Values.parameters()));
+        unitOfWork.close();
+        assertEquals(List.of("CREATE (:CLASS {name: 'Circle'})", "CREATE (:CLASS {name: 'Square'})"), runRequests);
+        assertEquals(0, unitOfWork.getNbCommits());
+    }
+
+    @Test
+    public void failedEmbeddedRequestRollsBack() {
+        List <String> calls = new ArrayList <>();
+        org.neo4j.graphdb.Transaction transaction = proxy(org.neo4j.graphdb.Transaction.class, (proxy, method, args) -> {
+            calls.add(method.getName());
+            if (method.getName().equals("execute")) {
+                throw new RuntimeException("Invalid request");
+            }
+            return null;
+        });
+        org.neo4j.graphdb.GraphDatabaseService database = proxy(org.neo4j.graphdb.GraphDatabaseService.class,
+                (proxy, method, args) -> method.getName().equals("beginTx") ? transaction : null);
+
+        UnitOfWork unitOfWork = new UnitOfWork(new EmbeddedDatabase(database), 10, 0);
+        assertThrows(IllegalStateException.class, () -> unitOfWork.run("CREATE (:CLASS {name: 'Circle'})", Values.parameters()));
+        assertTrue(unitOfWork.hasFailed());
+        unitOfWork.close();
+        assertEquals(List.of("execute", "rollback", "close"), calls);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class <T> type, InvocationHandler handler) {
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class <?>[]{type}, handler);
+    }
+
+}
@@ -0,0 +1,77 @@
+/*
+ * This file is part of symfinder.
+ *
+ * symfinder is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * symfinder is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with symfinder. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright 2018-2021 Johann Mortara <johann.mortara@univ-cotedazur.fr>
+ * Copyright 2018-2021 Xhevahire Tërnava <t.xheva@gmail.com>
+ * Copyright 2018-2021 Philippe Collet <philippe.collet@univ-cotedazur.fr>
+ */
+
+package parsing;
+
+import org.eclipse.jdt.core.dom.CompilationUnit;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AstCacheTest {
+
+    @TempDir
+    Path sourceDirectory;
+
+    private File writeSource(String name, String content) throws IOException {
+        return Files.writeString(sourceDirectory.resolve(name), content).toFile();
+    }
+
+    @Test
+    public void cachedFileIsParsedOnce() throws IOException {
+        File file = writeSource("Shape.java", "public class Shape { public void draw() {} }");
+        AstCache cache = new AstCache(new SourceParser(System.getProperty("java.home")), 10);
+        CompilationUnit first = cache.get(file);
+        assertSame(first, cache.get(file));
+    }
+
+    @Test
+    public void disabledCacheParsesEachTime() throws IOException {
+        File file = writeSource("Shape.java", "public class Shape { public void draw() {} }");
+        AstCache cache = new AstCache(new SourceParser(System.getProperty("java.home")), 0);
+        assertNotSame(cache.get(file), cache.get(file));
+    }
+
+    @Test
+    public void firstFilesAreKeptOverRepeatedScans() throws IOException {
+        List <File> files = List.of(writeSource("Shape.java", "public class Shape {}"),
+                writeSource("Circle.java", "public class Circle extends Shape {}"),
+                writeSource("Square.java", "public class Square extends Shape {}"));
+        AstCache cache = new AstCache(new SourceParser(System.getProperty("java.home")), 2);
+        List <CompilationUnit> firstScan = new ArrayList <>();
+        cache.forEach(files, (Consumer <CompilationUnit>) firstScan::add);
+        List <CompilationUnit> secondScan = new ArrayList <>();
+        cache.forEach(files, (Consumer <CompilationUnit>) secondScan::add);
+        assertSame(firstScan.get(0), secondScan.get(0));
+        assertSame(firstScan.get(1), secondScan.get(1));
+        assertNotSame(firstScan.get(2), secondScan.get(2));
+    }
+
+}
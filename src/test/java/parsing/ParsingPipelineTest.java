@@ -0,0 +1,98 @@
+/*
+ * This file is part of symfinder.
+ *
+ * symfinder is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * symfinder is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with symfinder. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright 2018-2021 Johann Mortara <johann.mortara@univ-cotedazur.fr>
+ * Copyright 2018-2021 Xhevahire Tërnava <t.xheva@gmail.com>
+ * Copyright 2018-2021 Philippe Collet <philippe.collet@univ-cotedazur.fr>
+ */
+
+package parsing;
+
+import org.eclipse.jdt.core.dom.CompilationUnit;
+import org.eclipse.jdt.core.dom.TypeDeclaration;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ParsingPipelineTest {
+
+    @TempDir
+    Path sourceDirectory;
+
+    private File writeSource(String name, String content) throws IOException {
+        return Files.writeString(sourceDirectory.resolve(name), content).toFile();
+    }
+
+    @Test
+    public void eachFileIsVisitedOnce() throws IOException {
+        List <File> files = new ArrayList <>();
+        for (int i = 0 ; i < 20 ; i++) {
+            files.add(writeSource("Shape" + i + ".java", "public class Shape" + i + " { public void draw() {} }"));
+        }
+        AstCache cache = new AstCache(new SourceParser(System.getProperty("java.home")), 0);
+        ParsingPipeline pipeline = new ParsingPipeline(cache, 2, 3);
+        Map <File, String> typeNames = new ConcurrentHashMap <>();
+        Set <Thread> parserThreads = ConcurrentHashMap.newKeySet();
+        pipeline.run(files, () -> {
+            parserThreads.add(Thread.currentThread());
+            return (file, compilationUnit) -> assertNull(typeNames.put(file, getTypeName(compilationUnit)));
+        });
+        assertEquals(20, typeNames.size());
+        assertEquals("Shape7", typeNames.get(files.get(7)));
+        assertTrue(parserThreads.size() <= 3);
+        pipeline.reportPhase("ParsingPipelineTest");
+    }
+
+    @Test
+    public void cachedFilesAreNotReadAgain() throws IOException {
+        File shape = writeSource("Shape.java", "public class Shape {}");
+        AstCache cache = new AstCache(new SourceParser(System.getProperty("java.home")), 10);
+        CompilationUnit shapeUnit = cache.get(shape);
+        List <CompilationUnit> visitedUnits = new ArrayList <>();
+        new ParsingPipeline(cache, 10, 1).run(List.of(shape), () -> (file, compilationUnit) -> visitedUnits.add(compilationUnit));
+        assertEquals(List.of(shapeUnit), visitedUnits);
+    }
+
+    @Test
+    public void failureStopsThePipeline() throws IOException {
+        List <File> files = new ArrayList <>();
+        for (int i = 0 ; i < 10 ; i++) {
+            files.add(writeSource("Shape" + i + ".java", "public class Shape" + i + " {}"));
+        }
+        AstCache cache = new AstCache(new SourceParser(System.getProperty("java.home")), 0);
+        ParsingPipeline pipeline = new ParsingPipeline(cache, 1, 2);
+        IOException exception = assertThrows(IOException.class, () -> pipeline.run(files, () -> (file, compilationUnit) -> {
+            throw new IllegalStateException("visitor failure");
+        }));
+        assertEquals("visitor failure", exception.getCause().getMessage());
+    }
+
+    private static String getTypeName(CompilationUnit compilationUnit) {
+        return ((TypeDeclaration) compilationUnit.types().get(0)).getName().getIdentifier();
+    }
+
+}
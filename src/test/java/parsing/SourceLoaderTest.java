@@ -0,0 +1,83 @@
+/*
+ * This file is part of symfinder.
+ *
+ * symfinder is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * symfinder is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with symfinder. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright 2018-2021 Johann Mortara <johann.mortara@univ-cotedazur.fr>
+ * Copyright 2018-2021 Xhevahire Tërnava <t.xheva@gmail.com>
+ * Copyright 2018-2021 Philippe Collet <philippe.collet@univ-cotedazur.fr>
+ */
+
+package parsing;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SourceLoaderTest {
+
+    @TempDir
+    Path sourceDirectory;
+
+    private File writeSource(String name, byte[] content) throws IOException {
+        return Files.write(sourceDirectory.resolve(name), content).toFile();
+    }
+
+    @Test
+    public void encodingsAreDetected() throws IOException {
+        String source = "class Café {}\r\n";
+        File utf8 = writeSource("Utf8.java", source.getBytes(StandardCharsets.UTF_8));
+        File latin1 = writeSource("Latin1.java", source.getBytes(StandardCharsets.ISO_8859_1));
+        byte[] utf16Bytes = source.getBytes(StandardCharsets.UTF_16LE);
+        byte[] utf16WithBom = new byte[utf16Bytes.length + 2];
+        utf16WithBom[0] = (byte) 0xFF;
+        utf16WithBom[1] = (byte) 0xFE;
+        System.arraycopy(utf16Bytes, 0, utf16WithBom, 2, utf16Bytes.length);
+        File utf16 = writeSource("Utf16.java", utf16WithBom);
+        File utf8WithBom = writeSource("Utf8Bom.java", ("\uFEFF" + source).getBytes(StandardCharsets.UTF_8));
+
+        SourceLoader loader = new SourceLoader(StandardCharsets.ISO_8859_1);
+        assertEquals(source, new String(loader.load(utf8)));
+        assertEquals(source, new String(loader.load(latin1)));
+        assertEquals(source, new String(loader.load(utf16)));
+        assertEquals(source, new String(loader.load(utf8WithBom)));
+        assertEquals(Map.of("UTF-8", 2L, "ISO-8859-1", 1L, "UTF-16LE", 1L), loader.getNbFilesByCharset());
+    }
+
+    @Test
+    public void encodingsAreGivenToParsers() throws IOException {
+        String source = "class Café {}";
+        File latin1 = writeSource("Latin1.java", source.getBytes(StandardCharsets.ISO_8859_1));
+        File utf16 = writeSource("Utf16.java", ("\uFEFF" + source).getBytes(StandardCharsets.UTF_16BE));
+
+        SourceLoader loader = new SourceLoader(StandardCharsets.ISO_8859_1);
+        assertEquals("ISO-8859-1", loader.getEncoding(latin1));
+        assertEquals("UTF-16", loader.getEncoding(utf16));
+    }
+
+    @Test
+    public void emptyFileIsLoaded() throws IOException {
+        File empty = writeSource("Empty.java", new byte[0]);
+        assertEquals(0, new SourceLoader(StandardCharsets.ISO_8859_1).load(empty).length);
+    }
+
+}
@@ -0,0 +1,94 @@
+/*
+ * This file is part of symfinder.
+ *
+ * symfinder is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * symfinder is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with symfinder. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright 2018-2021 Johann Mortara <johann.mortara@univ-cotedazur.fr>
+ * Copyright 2018-2021 Xhevahire Tërnava <t.xheva@gmail.com>
+ * Copyright 2018-2021 Philippe Collet <philippe.collet@univ-cotedazur.fr>
+ */
+
+package parsing;
+
+import org.eclipse.jdt.core.dom.CompilationUnit;
+import org.eclipse.jdt.core.dom.TypeDeclaration;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SourceParserTest {
+
+    @TempDir
+    Path projectDirectory;
+
+    private File writeSource(String relativePath, String content) throws IOException {
+        Path path = projectDirectory.resolve(relativePath);
+        Files.createDirectories(path.getParent());
+        return Files.writeString(path, content).toFile();
+    }
+
+    @Test
+    public void sourceRootOfPackagedFile() throws IOException {
+        File file = writeSource("src/main/java/org/example/Shape.java", "package org.example;\npublic class Shape {}");
+        assertArrayEquals(new String[]{projectDirectory.resolve("src/main/java").toFile().getCanonicalPath()},
+                SourceParser.findSourceRoots(List.of(file)));
+    }
+
+    @Test
+    public void sourceRootOfDefaultPackageFile() throws IOException {
+        File file = writeSource("src/Shape.java", "public class Shape {}");
+        assertArrayEquals(new String[]{projectDirectory.resolve("src").toFile().getCanonicalPath()},
+                SourceParser.findSourceRoots(List.of(file)));
+    }
+
+    @Test
+    public void misplacedFileHasNoSourceRoot() throws IOException {
+        File file = writeSource("src/other/Shape.java", "package org.example;\npublic class Shape {}");
+        assertEquals(0, SourceParser.findSourceRoots(List.of(file)).length);
+    }
+
+    @Test
+    public void batchResolvesTypesFromOtherFiles() throws IOException {
+        File shape = writeSource("src/org/example/Shape.java", "package org.example;\npublic abstract class Shape {}");
+        File circle = writeSource("src/org/example/shapes/Circle.java", "package org.example.shapes;\nimport org.example.Shape;\npublic class Circle extends Shape {}");
+        List <File> files = List.of(shape, circle);
+        Map <File, CompilationUnit> units = new HashMap <>();
+        new SourceParser(System.getProperty("java.home")).parse(files, SourceParser.findSourceRoots(files), units::put);
+        assertEquals(2, units.size());
+        TypeDeclaration circleDeclaration = (TypeDeclaration) units.get(circle).types().get(0);
+        assertEquals("org.example.Shape", circleDeclaration.resolveBinding().getSuperclass().getQualifiedName());
+    }
+
+    @Test
+    public void batchReadsFilesWithTheirEncoding() throws IOException {
+        Path path = projectDirectory.resolve("src/org/example/Shapes.java");
+        Files.createDirectories(path.getParent());
+        File cafe = Files.write(path, "package org.example;\nclass Café {}".getBytes(StandardCharsets.ISO_8859_1)).toFile();
+        Map <File, CompilationUnit> units = new HashMap <>();
+        new SourceParser(System.getProperty("java.home")).parse(List.of(cafe), SourceParser.findSourceRoots(List.of(cafe)), units::put);
+        TypeDeclaration cafeDeclaration = (TypeDeclaration) units.get(cafe).types().get(0);
+        assertEquals("Café", cafeDeclaration.getName().getIdentifier());
+    }
+
+}
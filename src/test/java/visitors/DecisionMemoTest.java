@@ -0,0 +1,105 @@
+/*
+ * This file is part of symfinder.
+ *
+ * symfinder is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * symfinder is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with symfinder. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright 2018-2021 Johann Mortara <johann.mortara@univ-cotedazur.fr>
+ * Copyright 2018-2021 Xhevahire Tërnava <t.xheva@gmail.com>
+ * Copyright 2018-2021 Philippe Collet <philippe.collet@univ-cotedazur.fr>
+ */
+
+package visitors;
+
+import neo4j_types.DesignPatternType;
+import neograph.InMemoryGraph;
+import org.eclipse.jdt.core.dom.CompilationUnit;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import parsing.SourceParser;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DecisionMemoTest {
+
+    private static final String SOURCE = "interface Shape { double area(); }\n" +
+            "class Rectangle implements Shape { public double area() { return 1; } }\n" +
+            "class Circle implements Shape { public double area() { return 2; } }\n" +
+            "class ShapeFactory {\n" +
+            "    public Shape rectangle() { return new Rectangle(); }\n" +
+            "    public Shape otherRectangle() { return new Rectangle(); }\n" +
+            "    public Shape circle() { return new Circle(); }\n" +
+            "}\n" +
+            "class Drawing {\n" +
+            "    private Shape first;\n" +
+            "    private Shape second;\n" +
+            "    private Shape third;\n" +
+            "}\n" +
+            "class Canvas {\n" +
+            "    private Shape shape;\n" +
+            "}\n";
+
+    @Test
+    public void sameLabelsWithMemo(@TempDir Path directory) throws IOException {
+        File file = Files.writeString(directory.resolve("Shapes.java"), SOURCE).toFile();
+        CompilationUnit compilationUnit = new SourceParser(System.getProperty("java.home")).parse(file);
+
+        InMemoryGraph graphWithoutMemo = analyse(compilationUnit, DecisionMemo.none(), DecisionMemo.none());
+        DecisionMemo strategyTemplateMemo = DecisionMemo.create();
+        DecisionMemo factoryMemo = DecisionMemo.create();
+        InMemoryGraph graph = analyse(compilationUnit, strategyTemplateMemo, factoryMemo);
+
+        for (String name : List.of("Shape", "Rectangle", "Circle", "ShapeFactory", "Drawing", "Canvas")) {
+            assertEquals(graphWithoutMemo.getNode(name).get().labels(), graph.getNode(name).get().labels(), name);
+        }
+        assertTrue(graph.getNode("Shape").get().hasLabel(DesignPatternType.STRATEGY.toString()));
+        assertTrue(graph.getNode("ShapeFactory").get().hasLabel(DesignPatternType.FACTORY.toString()));
+        // The field type of the last three fields, and the pair of declaring class and field type of the second and third fields of Drawing
+        assertEquals(5, strategyTemplateMemo.getNbHits());
+        // The second return of a Rectangle as a Shape from ShapeFactory
+        assertEquals(1, factoryMemo.getNbHits());
+        // ShapeFactory is labeled by its name, the label not being added again for the Rectangle and the Circle it returns
+        assertEquals(2, factoryMemo.getNbSkippedLabels());
+    }
+
+    @Test
+    public void decisionsAreTakenOnce() {
+        DecisionMemo memo = DecisionMemo.create();
+        assertTrue(memo.take("field Shape"));
+        assertFalse(memo.take("field Shape"));
+        assertTrue(memo.take("field Circle"));
+        assertEquals(2, memo.size());
+        assertEquals(1, memo.getNbHits());
+        DecisionMemo none = DecisionMemo.none();
+        assertTrue(none.take("field Shape"));
+        assertTrue(none.take("field Shape"));
+        assertEquals(0, none.getNbHits());
+    }
+
+    private static InMemoryGraph analyse(CompilationUnit compilationUnit, DecisionMemo strategyTemplateMemo, DecisionMemo factoryMemo) {
+        InMemoryGraph graph = new InMemoryGraph();
+        compilationUnit.accept(new ClassesVisitor(graph));
+        compilationUnit.accept(new GraphBuilderVisitor(graph));
+        KnownTypes knownTypes = KnownTypes.all();
+        compilationUnit.accept(new StrategyTemplateDecoratorVisitor(graph, knownTypes, strategyTemplateMemo));
+        compilationUnit.accept(new FactoryVisitor(graph, knownTypes, factoryMemo));
+        return graph;
+    }
+
+}
@@ -0,0 +1,90 @@
+/*
+ * This file is part of symfinder.
+ *
+ * symfinder is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * symfinder is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with symfinder. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright 2018-2021 Johann Mortara <johann.mortara@univ-cotedazur.fr>
+ * Copyright 2018-2021 Xhevahire Tërnava <t.xheva@gmail.com>
+ * Copyright 2018-2021 Philippe Collet <philippe.collet@univ-cotedazur.fr>
+ */
+
+package visitors;
+
+import neograph.InMemoryGraph;
+import org.eclipse.jdt.core.dom.CompilationUnit;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import parsing.SourceParser;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class KnownTypesTest {
+
+    private static final String SOURCE = "interface Shape { double area(); }\n" +
+            "class Rectangle implements Shape {\n" +
+            "    private String name;\n" +
+            "    public double area() { return name.length(); }\n" +
+            "    public Shape copy() { return new Rectangle(); }\n" +
+            "}\n";
+
+    @Test
+    public void referencedLibraryTypesAreSkipped(@TempDir Path directory) throws IOException {
+        File file = Files.writeString(directory.resolve("Shapes.java"), SOURCE).toFile();
+        CompilationUnit compilationUnit = new SourceParser(System.getProperty("java.home")).parse(file);
+
+        InMemoryGraph unfilteredGraph = new InMemoryGraph();
+        analyse(unfilteredGraph, compilationUnit, KnownTypes.all());
+        InMemoryGraph graph = new InMemoryGraph();
+        KnownTypes knownTypes = analyse(graph, compilationUnit, null);
+
+        assertEquals(Set.of("Shape", "Rectangle", "java.lang.Object"), graph.getTypeNames());
+        assertTrue(unfilteredGraph.getNode("java.lang.String").isPresent());
+        assertFalse(graph.getNode("java.lang.String").isPresent());
+        assertTrue(knownTypes.getNbSkippedTypes() > 0);
+        assertEquals(unfilteredGraph.getNbRelationships(), graph.getNbRelationships());
+        assertEquals(unfilteredGraph.getNbNodes() - 1, graph.getNbNodes());
+    }
+
+    @Test
+    public void createdTypesBecomeKnown() {
+        KnownTypes knownTypes = KnownTypes.of(Set.of("Shape"));
+        assertTrue(knownTypes.contains("Shape"));
+        assertFalse(knownTypes.contains("Rectangle"));
+        knownTypes.add("Rectangle");
+        assertTrue(knownTypes.contains("Rectangle"));
+        assertEquals(1, knownTypes.getNbSkippedTypes());
+        assertTrue(KnownTypes.all().contains("java.lang.String"));
+    }
+
+    /**
+     * Runs the visitors on the compilation unit, the known types being read from the graph once the inheritance relationships are created
+     * if none are given.
+     */
+    private static KnownTypes analyse(InMemoryGraph graph, CompilationUnit compilationUnit, KnownTypes knownTypes) {
+        compilationUnit.accept(new ClassesVisitor(graph));
+        compilationUnit.accept(new GraphBuilderVisitor(graph));
+        KnownTypes types = knownTypes == null ? KnownTypes.of(graph.getTypeNames()) : knownTypes;
+        compilationUnit.accept(new StrategyTemplateDecoratorVisitor(graph, types));
+        compilationUnit.accept(new FactoryVisitor(graph, types));
+        compilationUnit.accept(new ComposeTypeVisitor(graph, types));
+        return types;
+    }
+
+}
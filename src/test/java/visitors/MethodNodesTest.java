@@ -0,0 +1,120 @@
+/*
+ * This file is part of symfinder.
+ *
+ * symfinder is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * symfinder is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with symfinder. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright 2018-2021 Johann Mortara <johann.mortara@univ-cotedazur.fr>
+ * Copyright 2018-2021 Xhevahire Tërnava <t.xheva@gmail.com>
+ * Copyright 2018-2021 Philippe Collet <philippe.collet@univ-cotedazur.fr>
+ */
+
+package visitors;
+
+import neo4j_types.*;
+import neograph.InMemoryGraph;
+import org.eclipse.jdt.core.dom.CompilationUnit;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import parsing.SourceParser;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MethodNodesTest {
+
+    private static final String SOURCE = "interface Shape { double area(); double area(double scale); }\n" +
+            "abstract class AbstractShape implements Shape {\n" +
+            "    public abstract double area();\n" +
+            "    public double area(double scale) { return scale * area(); }\n" +
+            "}\n" +
+            "public class Shapes {\n" +
+            "    public Shapes() {}\n" +
+            "    private Shapes(int size) {}\n" +
+            "    public void add(Shape shape) {}\n" +
+            "    public void add(Shape shape, int index) {}\n" +
+            "    void add(Shape[] shapes) {}\n" +
+            "    public int size() { return 0; }\n" +
+            "}\n" +
+            "class Rectangle extends AbstractShape {\n" +
+            "    public Rectangle() {}\n" +
+            "    public double area() { return 1; }\n" +
+            "}\n";
+
+    @Test
+    public void sameGraphWithoutMethodNodes(@TempDir Path directory) throws IOException {
+        File file = Files.writeString(directory.resolve("Shapes.java"), SOURCE).toFile();
+        CompilationUnit compilationUnit = new SourceParser(System.getProperty("java.home")).parse(file);
+
+        InMemoryGraph graphWithMethodNodes = analyse(compilationUnit, true);
+        InMemoryGraph graph = analyse(compilationUnit, false);
+
+        assertEquals(getExportedNodes(graphWithMethodNodes, directory.resolve("with.json")), getExportedNodes(graph, directory.resolve("without.json")));
+        assertEquals(graphWithMethodNodes.getNbNodes() - 12, graph.getNbNodes());
+        assertFalse(graph.getNode("size").isPresent());
+    }
+
+    @Test
+    public void overloadsAreCounted() {
+        TypeMethods typeMethods = new TypeMethods(EntityType.CLASS, true);
+        typeMethods.addMethod("add", false, new NodeType[]{EntityVisibility.PUBLIC});
+        typeMethods.addMethod("add", false, new NodeType[]{});
+        typeMethods.addMethod("size", false, new NodeType[]{EntityAttribute.ABSTRACT, EntityVisibility.PUBLIC});
+        typeMethods.addMethod("Shapes", true, new NodeType[]{EntityVisibility.PUBLIC});
+
+        Map <String, Object> properties = typeMethods.getProperties(true);
+        assertEquals(1L, properties.get("methodVPs"));
+        assertEquals(2L, properties.get("methodVariants"));
+        assertEquals(0L, properties.get("constructorVPs"));
+        assertEquals(2L, properties.get("publicMethods"));
+        assertEquals(1L, properties.get("publicConstructors"));
+        assertEquals(1L, properties.get("abstractMethods"));
+        assertEquals(3L, properties.get("allMethods"));
+        assertFalse(typeMethods.getProperties(false).containsKey("abstractMethods"));
+    }
+
+    private static InMemoryGraph analyse(CompilationUnit compilationUnit, boolean methodNodes) {
+        InMemoryGraph graph = new InMemoryGraph();
+        compilationUnit.accept(new ClassesVisitor(graph, methodNodes));
+        compilationUnit.accept(new GraphBuilderVisitor(graph));
+        graph.detectVPsAndVariants();
+        return graph;
+    }
+
+    /**
+     * Reads the exported nodes by name, the overloads of each node being compared whatever their order.
+     */
+    private static Map <String, Map <String, Object>> getExportedNodes(InMemoryGraph graph, Path file) throws IOException {
+        graph.writeVPGraphFile(file.toString());
+        JSONArray nodes = new JSONObject(Files.readString(file)).getJSONArray("allnodes");
+        Map <String, Map <String, Object>> exportedNodes = new HashMap <>();
+        for (int i = 0 ; i < nodes.length() ; i++) {
+            Map <String, Object> node = nodes.getJSONObject(i).toMap();
+            node.computeIfPresent("methods", (key, methods) -> new HashSet <>((List <?>) methods));
+            node.computeIfPresent("constructors", (key, constructors) -> new HashSet <>((List <?>) constructors));
+            exportedNodes.put((String) node.get("name"), node);
+        }
+        return exportedNodes;
+    }
+
+}
@@ -0,0 +1,69 @@
+import {
+    CompactJsonInputInterface,
+    JsonInputInterface,
+    LinkInterface,
+    NodeInterface,
+    NumerableInterface
+} from "../../model/entities/jsonInput.interface";
+
+/**
+ * Rebuilds the arrays of the JSON file written by symfinder from its compact format,
+ * where each node is written once and links reference nodes by their index.
+ * A node or link belonging to several arrays is the same object in each of them.
+ */
+export class CompactFileReader {
+    public static readonly FORMAT = "symfinder-compact-1";
+
+    public static isCompact(data: any): boolean {
+        return data !== undefined && data.format === CompactFileReader.FORMAT;
+    }
+
+    public static read(data: CompactJsonInputInterface): JsonInputInterface {
+        const nodes: NodeInterface[] = data.nodes.map(values => CompactFileReader.readNode(data, values));
+
+        const links: LinkInterface[] = [];
+        const linkSources: NodeInterface[] = [];
+        for (let i = 0; i < data.links.length; i += 3) {
+            const source = nodes[data.links[i]];
+            links.push({source: source.name, target: nodes[data.links[i + 1]].name, type: data.linkTypes[data.links[i + 2]]});
+            linkSources.push(source);
+        }
+
+        return {
+            nodes: nodes.filter(n => ["VP", "VARIANT", "METHOD_LEVEL_VP"].some(t => n.types.includes(t))),
+            allnodes: nodes.filter(n => (n.types.includes("CLASS") || n.types.includes("INTERFACE")) && !n.types.includes("OUT_OF_SCOPE")),
+            links: links.filter((l, i) => (l.type === "EXTENDS" || l.type === "IMPLEMENTS") && linkSources[i].types.includes("VP")),
+            linkscompose: links.filter((l, i) => l.type === "INSTANTIATE" && linkSources[i].types.includes("CLASS")),
+            alllinks: links
+        };
+    }
+
+    private static readNode(data: CompactJsonInputInterface, values: any[]): NodeInterface {
+        const node: any = {};
+        data.nodeFields.forEach((field, i) => {
+            const value = values[i];
+            if (field === "package") {
+                return;
+            } else if (field === "name") {
+                const packageName = data.strings[values[data.nodeFields.indexOf("package")]];
+                node.name = packageName === "" ? data.strings[value] : packageName + "." + data.strings[value];
+            } else if (field === "types") {
+                // The bitset may not fit in 32 bits, so that bitwise operators cannot be used
+                node.types = data.types.filter((t, bit) => Math.floor(value / Math.pow(2, bit)) % 2 === 1);
+            } else if (Array.isArray(value)) {
+                node[field] = CompactFileReader.readCounts(data, value);
+            } else if (value !== null) {
+                node[field] = value;
+            }
+        });
+        return node;
+    }
+
+    private static readCounts(data: CompactJsonInputInterface, values: number[]): NumerableInterface[] {
+        const counts: NumerableInterface[] = [];
+        for (let i = 0; i < values.length; i += 2) {
+            counts.push({name: data.strings[values[i]], number: values[i + 1]});
+        }
+        return counts;
+    }
+}
@@ -1,4 +1,5 @@
 import { JsonInputInterface } from './../../model/entities/jsonInput.interface';
+import { CompactFileReader } from './compactFileReader';
 
 export class FilesLoader {
     private static json: Map<string, JsonInputInterface> = undefined;
@@ -12,7 +13,8 @@ export class FilesLoader {
         const requireContext = require.context('/symfinder_files', false, /^(?!.*-stats\.json)(.*\.json)$/);
         FilesLoader.json = new Map<string, JsonInputInterface>();
         requireContext.keys().forEach((key) => {
-            const obj = requireContext(key);
+            const data = requireContext(key);
+            const obj = CompactFileReader.isCompact(data) ? CompactFileReader.read(data) : data;
             const simpleKey = FilesLoader.getFileNameOnly(key);
             // FilesLoader.json[simpleKey] = obj;
             FilesLoader.json.set(simpleKey, obj);
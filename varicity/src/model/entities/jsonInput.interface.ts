@@ -38,4 +38,13 @@ export interface JsonInputInterface {
     links: LinkInterface[];
     linkscompose: LinkInterface[];
     alllinks: LinkInterface[];
-}
\ No newline at end of file
+}
+export interface CompactJsonInputInterface {
+    format: string;
+    nodeFields: string[];
+    nodes: any[][];
+    links: number[];
+    strings: string[];
+    types: string[];
+    linkTypes: string[];
+}
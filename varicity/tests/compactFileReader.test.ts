@@ -0,0 +1,43 @@
+import {expect} from 'chai';
+
+import {CompactFileReader} from "../src/controller/parser/compactFileReader";
+import {ClassesPackagesStrategy} from "../src/controller/parser/strategies/classes_packages.strategy";
+import {ConfigLoader} from "../src/controller/parser/configLoader";
+
+const compactData = {
+  format: "symfinder-compact-1",
+  nodeFields: ["package", "name", "types", "methodVPs", "constructorVPs", "methodVariants", "constructorVariants", "publicMethods", "publicConstructors", "allMethods", "nbCompositions", "methods", "constructors", "attributes", "interfaceAttributes"],
+  nodes: [
+    [0, 1, 3, null, null, null, null, null, null, null, null, [], [], [], []],
+    [0, 2, 12, 1, 0, 2, 0, 2, 1, 3, 1, [3, 2], [2, 1], [], []],
+    [4, 5, 12, 0, 0, 0, 0, 0, 0, 0, null, [], [], [1, 1], []]
+  ],
+  links: [0, 1, 0, 0, 2, 0, 1, 0, 1],
+  strings: ["shapes", "Shape", "Circle", "area", "shapes.round", "Ellipse"],
+  types: ["INTERFACE", "VP", "CLASS", "VARIANT"],
+  linkTypes: ["IMPLEMENTS", "INSTANTIATE"]
+};
+
+describe('reading the compact format', function() {
+  it('read', function() {
+    expect(CompactFileReader.isCompact(compactData)).equal(true);
+    let data = CompactFileReader.read(compactData);
+    expect(data.nodes.length).equal(3);
+    expect(data.allnodes.length).equal(3);
+    expect(data.nodes[2].name).equal("shapes.round.Ellipse");
+    expect(data.nodes[1].types).deep.equal(["CLASS", "VARIANT"]);
+    expect(data.nodes[1].methods).deep.equal([{name: "area", number: 2}]);
+    expect(data.nodes[0].methodVariants).equal(undefined);
+    expect(data.links.length).equal(2);
+    expect(data.linkscompose.length).equal(1);
+    expect(data.linkscompose[0].source).equal("shapes.Circle");
+    expect(data.alllinks.length).equal(3);
+  });
+});
+
+describe('parsing the compact format', function() {
+  it('parse', function() {
+    let entities = new ClassesPackagesStrategy().parse(CompactFileReader.read(compactData), ConfigLoader.loadDataFile("config"));
+    expect(entities.links.length).equal(2);
+  });
+});
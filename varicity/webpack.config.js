@@ -8,7 +8,8 @@ module.exports = {
     entry: {
       'main': path.resolve(appDirectory, "src/main.ts"),
       'parserTest':'./tests/parser.test.ts',
-      'parserVPTest':'./tests/parserVP.test.ts'
+      'parserVPTest':'./tests/parserVP.test.ts',
+      'compactFileReaderTest':'./tests/compactFileReader.test.ts'
     },
     optimization: {
         splitChunks: {